@@ -0,0 +1,90 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026 The Broad Institute
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package picard.analysis;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the theoretical het sensitivity of CollectWgsMetrics, both by sampling sums of qualities and by
+ * convolving the quality distribution, for a depth distribution peaked at 30x and a typical quality distribution.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TheoreticalSensitivityBenchmark {
+    private static final int SAMPLE_SIZE = 10000;
+    private static final double LOG_ODDS_THRESHOLD = 3.0;
+
+    private final double[] depthDistribution = new double[250];
+    private final double[] qualityDistribution = new double[50];
+
+    @Setup
+    public void setup() {
+        // A roughly Poisson depth distribution with mean 30
+        double depthSum = 0;
+        for (int n = 0; n < depthDistribution.length; ++n) {
+            depthDistribution[n] = Math.exp(n * Math.log(30) - 30 - logFactorial(n));
+            depthSum += depthDistribution[n];
+        }
+        for (int n = 0; n < depthDistribution.length; ++n) depthDistribution[n] /= depthSum;
+
+        // Most bases at Q30 and above, with a tail of lower qualities
+        double qualitySum = 0;
+        for (int q = 2; q < qualityDistribution.length; ++q) {
+            qualityDistribution[q] = q >= 30 ? 10 : 1;
+            qualitySum += qualityDistribution[q];
+        }
+        for (int q = 0; q < qualityDistribution.length; ++q) qualityDistribution[q] /= qualitySum;
+    }
+
+    private static double logFactorial(final int n) {
+        double result = 0;
+        for (int i = 2; i <= n; ++i) result += Math.log(i);
+        return result;
+    }
+
+    @Benchmark
+    public double hetSNPSensitivity() {
+        return TheoreticalSensitivity.hetSNPSensitivity(depthDistribution, qualityDistribution, SAMPLE_SIZE, LOG_ODDS_THRESHOLD, false);
+    }
+
+    @Benchmark
+    public double hetSNPSensitivityByConvolution() {
+        return TheoreticalSensitivity.hetSNPSensitivityByConvolution(depthDistribution, qualityDistribution, LOG_ODDS_THRESHOLD);
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026 The Broad Institute
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package picard.illumina;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import picard.illumina.ExtractIlluminaBarcodes.BarcodeExtractor;
+import picard.illumina.ExtractIlluminaBarcodes.BarcodeMetric;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks matching 8 base barcode reads against a pool of barcodes with BarcodeExtractor, using the default
+ * thresholds of ExtractIlluminaBarcodes.  Most reads are a barcode of the pool with a base or two changed and the
+ * rest are random.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExtractIlluminaBarcodesBenchmark {
+    private static final int NUM_READS = 10000;
+    private static final int BARCODE_LENGTH = 8;
+    private static final byte[] BASES = {'A', 'C', 'G', 'T'};
+
+    @Param({"24", "96", "384"})
+    public int numBarcodes;
+
+    private final List<byte[][]> reads = new ArrayList<byte[][]>(NUM_READS);
+    private final List<byte[][]> qualities = new ArrayList<byte[][]>(NUM_READS);
+    private BarcodeExtractor extractor;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(42);
+        final Map<String, BarcodeMetric> metrics = new LinkedHashMap<String, BarcodeMetric>();
+        final List<byte[]> barcodes = new ArrayList<byte[]>(numBarcodes);
+        while (barcodes.size() < numBarcodes) {
+            final byte[] barcode = randomBases(random);
+            final String name = new String(barcode);
+            if (metrics.containsKey(name)) continue;
+            metrics.put(name, new BarcodeMetric(name, "library" + barcodes.size(), name, new String[]{name}));
+            barcodes.add(barcode);
+        }
+        final BarcodeMetric noMatch = new BarcodeMetric(null, null, "NNNNNNNN", new String[]{"NNNNNNNN"});
+        extractor = new BarcodeExtractor(metrics, noMatch, ExtractIlluminaBarcodes.DEFAULT_MAX_NO_CALLS,
+                ExtractIlluminaBarcodes.DEFAULT_MAX_MISMATCHES, ExtractIlluminaBarcodes.DEFAULT_MIN_MISMATCH_DELTA,
+                ExtractIlluminaBarcodes.DEFAULT_MINIMUM_BASE_QUALITY);
+
+        for (int i = 0; i < NUM_READS; ++i) {
+            final byte[] read;
+            if (random.nextInt(10) == 0) {
+                read = randomBases(random);
+            }
+            else {
+                read = barcodes.get(random.nextInt(numBarcodes)).clone();
+                for (int changes = random.nextInt(3); changes > 0; --changes) {
+                    read[random.nextInt(BARCODE_LENGTH)] = BASES[random.nextInt(BASES.length)];
+                }
+            }
+            final byte[] quals = new byte[BARCODE_LENGTH];
+            for (int j = 0; j < BARCODE_LENGTH; ++j) quals[j] = (byte) (2 + random.nextInt(39));
+            reads.add(new byte[][]{read});
+            qualities.add(new byte[][]{quals});
+        }
+    }
+
+    private static byte[] randomBases(final Random random) {
+        final byte[] bases = new byte[BARCODE_LENGTH];
+        for (int i = 0; i < BARCODE_LENGTH; ++i) bases[i] = BASES[random.nextInt(BASES.length)];
+        return bases;
+    }
+
+    @Benchmark
+    public int findBestBarcode() {
+        int matched = 0;
+        for (int i = 0; i < NUM_READS; ++i) {
+            if (extractor.findBestBarcodeAndUpdateMetrics(reads.get(i), qualities.get(i), true).isMatched()) ++matched;
+        }
+        return matched;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026 The Broad Institute
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package picard.illumina.parser.readers;
+
+import htsjdk.samtools.util.IOUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import picard.illumina.parser.BclData;
+import picard.illumina.parser.fakers.BclFileFaker;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks decoding a tile of uncompressed BCLs with BclReader.  The files are laid out by BclFileFaker, which
+ * writes nothing but no-calls, and then filled with random bytes so that the reader decodes bases and qualities as
+ * it would for a real run.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BclReaderBenchmark {
+    private static final int NUM_CLUSTERS = 100000;
+    private static final int[] OUTPUT_LENGTHS = {76, 8, 76};
+    private static final int HEADER_SIZE = 4;
+
+    private final BclQualityEvaluationStrategy qualityStrategy =
+            new BclQualityEvaluationStrategy(BclQualityEvaluationStrategy.ILLUMINA_ALLEGED_MINIMUM_QUALITY);
+    private final List<File> bcls = new ArrayList<File>();
+    private File directory;
+
+    @Setup
+    public void setup() throws IOException {
+        directory = IOUtil.createTempDir("BclReaderBenchmark", null);
+        final Random random = new Random(42);
+        final byte[] calls = new byte[NUM_CLUSTERS];
+
+        int cycles = 0;
+        for (final int length : OUTPUT_LENGTHS) cycles += length;
+        for (int cycle = 1; cycle <= cycles; ++cycle) {
+            final File bcl = new File(directory, String.format("C%d.1.bcl", cycle));
+            new BclFileFaker().fakeFile(bcl, NUM_CLUSTERS);
+
+            random.nextBytes(calls);
+            try (final RandomAccessFile file = new RandomAccessFile(bcl, "rw")) {
+                file.seek(HEADER_SIZE);
+                file.write(calls);
+            }
+            bcls.add(bcl);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        IOUtil.deleteDirectoryTree(directory);
+    }
+
+    @Benchmark
+    public long readTile() {
+        final BclReader reader = new BclReader(bcls, OUTPUT_LENGTHS, qualityStrategy, false);
+        long sum = 0;
+        while (reader.hasNext()) {
+            final BclData data = reader.next();
+            sum += data.bases[0][0] + data.qualities[2][75];
+        }
+        reader.close();
+        return sum;
+    }
+}
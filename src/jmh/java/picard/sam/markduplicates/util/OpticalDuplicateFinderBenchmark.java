@@ -0,0 +1,80 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026 The Broad Institute
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package picard.sam.markduplicates.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks OpticalDuplicateFinder.findOpticalDuplicates on duplicate sets of several sizes, whose reads are spread
+ * over a few tiles closely enough that many of them are optical duplicates of one another.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OpticalDuplicateFinderBenchmark {
+    @Param({"10", "100", "1000"})
+    public int duplicateSetSize;
+
+    private final OpticalDuplicateFinder finder = new OpticalDuplicateFinder();
+    private List<ReadEndsForMarkDuplicates> duplicates;
+
+    @Setup
+    public void setup() {
+        finder.setBigDuplicateSetSize(Integer.MAX_VALUE); // don't time the progress logging of large sets
+
+        final Random random = new Random(42);
+        duplicates = new ArrayList<ReadEndsForMarkDuplicates>(duplicateSetSize);
+        for (int i = 0; i < duplicateSetSize; ++i) {
+            final ReadEndsForMarkDuplicates ends = new ReadEndsForMarkDuplicates();
+            ends.setReadGroup((short) 0);
+            ends.setTile((short) (1101 + random.nextInt(4)));
+            ends.setX(10000 + random.nextInt(2000));
+            ends.setY(10000 + random.nextInt(2000));
+            duplicates.add(ends);
+        }
+    }
+
+    @Benchmark
+    public boolean[] findOpticalDuplicates() {
+        return finder.findOpticalDuplicates(duplicates, duplicates.get(0));
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026 The Broad Institute
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package picard.sam.markduplicates.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the codec MarkDuplicates spills its read ends with, encoding and decoding a block of pairs and
+ * fragments in memory so that only the codec itself is timed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReadEndsForMarkDuplicatesCodecBenchmark {
+    private static final int NUM_READ_ENDS = 10000;
+
+    private final ReadEndsForMarkDuplicatesCodec codec = new ReadEndsForMarkDuplicatesCodec();
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final ReadEndsForMarkDuplicates[] readEnds = new ReadEndsForMarkDuplicates[NUM_READ_ENDS];
+    private byte[] encoded;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(42);
+        for (int i = 0; i < NUM_READ_ENDS; ++i) {
+            final ReadEndsForMarkDuplicates ends = new ReadEndsForMarkDuplicates();
+            final boolean paired = random.nextInt(4) != 0;
+            ends.score = (short) random.nextInt(5000);
+            ends.libraryId = (short) random.nextInt(3);
+            ends.orientation = paired ? ReadEnds.FR : ReadEnds.F;
+            ends.read1ReferenceIndex = random.nextInt(25);
+            ends.read1Coordinate = random.nextInt(200000000);
+            ends.read1IndexInFile = i * 2L;
+            if (paired) {
+                ends.read2ReferenceIndex = ends.read1ReferenceIndex;
+                ends.read2Coordinate = ends.read1Coordinate + random.nextInt(1000);
+                ends.read2IndexInFile = i * 2L + 1;
+            }
+            ends.readGroup = (short) random.nextInt(8);
+            ends.tile = (short) (1101 + random.nextInt(16));
+            ends.x = random.nextInt(30000);
+            ends.y = random.nextInt(30000);
+            ends.orientationForOpticalDuplicates = ends.orientation;
+            readEnds[i] = ends;
+        }
+        encoded = encode();
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        bytes.reset();
+        codec.setOutputStream(bytes);
+        for (final ReadEndsForMarkDuplicates ends : readEnds) codec.encode(ends);
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public long decode() {
+        codec.setInputStream(new ByteArrayInputStream(encoded));
+        long sum = 0;
+        for (ReadEndsForMarkDuplicates ends = codec.decode(); ends != null; ends = codec.decode()) sum += ends.read1Coordinate;
+        return sum;
+    }
+}
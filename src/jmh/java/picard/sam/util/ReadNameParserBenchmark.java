@@ -0,0 +1,89 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026 The Broad Institute
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package picard.sam.util;
+
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SAMRecordSetBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks ReadNameParser.addLocationInformation on Illumina read names, both with the optimized parsing of the
+ * default regex and with an equivalent regular expression.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReadNameParserBenchmark {
+    private static final int NUM_READS = 10000;
+
+    /** The regex the parser is given; "DEFAULT" stands for ReadNameParser.DEFAULT_READ_NAME_REGEX. */
+    @Param({"DEFAULT", "[a-zA-Z0-9\\-]+:[0-9]+:[a-zA-Z0-9]+:[0-9]:([0-9]+):([0-9]+):([0-9]+)"})
+    public String readNameRegex;
+
+    private final List<String> readNames = new ArrayList<String>(NUM_READS);
+    private final PhysicalLocationInt location = new PhysicalLocationInt();
+    private ReadNameParser parser;
+
+    @Setup
+    public void setup() {
+        parser = new ReadNameParser(readNameRegex.equals("DEFAULT") ? ReadNameParser.DEFAULT_READ_NAME_REGEX : readNameRegex, null);
+
+        final Random random = new Random(42);
+        final SAMRecordSetBuilder builder = new SAMRecordSetBuilder();
+        for (int i = 0; i < NUM_READS; ++i) {
+            final String name = String.format("HWI-ST1234:8:FC12345:%d:%d:%d:%d",
+                    1 + random.nextInt(8), 1101 + random.nextInt(16), random.nextInt(30000), random.nextInt(200000));
+            builder.addFrag(name, 0, 1 + random.nextInt(100000), false);
+        }
+        for (final SAMRecord record : builder.getRecords()) readNames.add(record.getReadName());
+    }
+
+    @Benchmark
+    public long addLocationInformation() {
+        long sum = 0;
+        for (final String name : readNames) {
+            parser.addLocationInformation(name, location);
+            sum += location.getX();
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026 The Broad Institute
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package picard.util;
+
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SAMRecordSetBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks ClippingUtility.findIndexOfClipSequence on 101 base reads, half of which end in adapter sequence
+ * starting at a random position.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClippingUtilityBenchmark {
+    private static final int NUM_READS = 1000;
+    private static final int READ_LENGTH = 101;
+
+    private final byte[] adapter = IlluminaUtil.IlluminaAdapterPair.PAIRED_END.get3PrimeAdapterBytes();
+    private final List<byte[]> reads = new ArrayList<byte[]>(NUM_READS);
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(42);
+        final SAMRecordSetBuilder builder = new SAMRecordSetBuilder();
+        builder.setReadLength(READ_LENGTH);
+        for (int i = 0; i < NUM_READS; ++i) builder.addFrag("read" + i, 0, 1 + random.nextInt(100000), false);
+
+        for (final SAMRecord record : builder.getRecords()) {
+            final byte[] bases = record.getReadBases().clone();
+            if (random.nextBoolean()) {
+                final int adapterStart = random.nextInt(READ_LENGTH);
+                System.arraycopy(adapter, 0, bases, adapterStart, Math.min(adapter.length, READ_LENGTH - adapterStart));
+            }
+            reads.add(bases);
+        }
+    }
+
+    @Benchmark
+    public long findIndexOfClipSequence() {
+        long sum = 0;
+        for (final byte[] read : reads) {
+            sum += ClippingUtility.findIndexOfClipSequence(read, adapter, ClippingUtility.MIN_MATCH_BASES, ClippingUtility.MAX_ERROR_RATE);
+        }
+        return sum;
+    }
+}
@@ -36,6 +36,7 @@ import picard.metrics.PerUnitMetricCollector;
 import picard.metrics.SAMRecordAndReference;
 import picard.metrics.SAMRecordAndReferenceMultiLevelCollector;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
 
@@ -72,6 +73,15 @@ public class AlignmentSummaryMetricsCollector extends SAMRecordAndReferenceMulti
         setup(accumulationLevels, samRgRecords);
     }
 
+    /**
+     * Besides the adapter sequences, which they only read, the child collectors share each record.  They must not
+     * modify it, so anything that would is done in acceptRecord before the record is handed to them.
+     */
+    @Override
+    protected boolean supportsParallelLevels() {
+        return true;
+    }
+
     @Override
     protected PerUnitMetricCollector<AlignmentSummaryMetrics, Comparable<?>, SAMRecordAndReference> makeChildCollector(String sample, String library, String readGroup) {
         return new GroupAlignmentSummaryMetricsPerUnitMetricCollector(sample, library, readGroup);
@@ -80,6 +90,8 @@ public class AlignmentSummaryMetricsCollector extends SAMRecordAndReferenceMulti
     @Override
     public void acceptRecord(final SAMRecord rec, final ReferenceSequence ref) {
         if (!rec.isSecondaryOrSupplementary()) {
+            // Unmapped bases are compared with the upper case adapter sequences; BAM records are upper case already
+            if (rec.getReadUnmappedFlag() && !(rec instanceof BAMRecord)) StringUtil.toUpperCase(rec.getReadBases());
             super.acceptRecord(rec, ref);
         }
     }
@@ -155,7 +167,7 @@ public class AlignmentSummaryMetricsCollector extends SAMRecordAndReferenceMulti
          */
         private class IndividualAlignmentSummaryMetricsCollector {
             private long numPositiveStrand = 0;
-            private final Histogram<Integer> readLengthHistogram = new Histogram<Integer>();
+            private final DenseHistogram readLengthHistogram = new DenseHistogram();
             private AlignmentSummaryMetrics metrics;
             private long chimeras;
             private long chimerasDenominator;
@@ -164,9 +176,9 @@ public class AlignmentSummaryMetricsCollector extends SAMRecordAndReferenceMulti
 
             private long nonBisulfiteAlignedBases = 0;
             private long hqNonBisulfiteAlignedBases = 0;
-            private final Histogram<Long> mismatchHistogram = new Histogram<Long>();
-            private final Histogram<Long> hqMismatchHistogram = new Histogram<Long>();
-            private final Histogram<Integer> badCycleHistogram = new Histogram<Integer>();
+            private final DenseHistogram mismatchHistogram = new DenseHistogram();
+            private final DenseHistogram hqMismatchHistogram = new DenseHistogram();
+            private final DenseHistogram badCycleHistogram = new DenseHistogram();
 
             public IndividualAlignmentSummaryMetricsCollector(final AlignmentSummaryMetrics.Category pairingCategory,
                                                               final String sample,
@@ -195,11 +207,11 @@ public class AlignmentSummaryMetricsCollector extends SAMRecordAndReferenceMulti
                 {
                     metrics.PCT_PF_READS = (double) metrics.PF_READS / (double) metrics.TOTAL_READS;
                     metrics.PCT_ADAPTER = this.adapterReads / (double) metrics.PF_READS;
-                    metrics.MEAN_READ_LENGTH = readLengthHistogram.getMean();
+                    metrics.MEAN_READ_LENGTH = readLengthHistogram.toHistogram().getMean();
 
                     //Calculate BAD_CYCLES
                     metrics.BAD_CYCLES = 0;
-                    for (final Histogram.Bin<Integer> cycleBin : badCycleHistogram.values()) {
+                    for (final Histogram.Bin<Integer> cycleBin : badCycleHistogram.toHistogram().values()) {
                         final double badCyclePercentage = cycleBin.getValue() / metrics.TOTAL_READS;
                         if (badCyclePercentage >= .8) {
                             metrics.BAD_CYCLES++;
@@ -212,9 +224,10 @@ public class AlignmentSummaryMetricsCollector extends SAMRecordAndReferenceMulti
                         if (metrics.PF_READS_ALIGNED > 0) metrics.STRAND_BALANCE = numPositiveStrand / (double) metrics.PF_READS_ALIGNED;
                         if (this.chimerasDenominator > 0) metrics.PCT_CHIMERAS = this.chimeras / (double) this.chimerasDenominator;
 
-                        if (nonBisulfiteAlignedBases > 0) metrics.PF_MISMATCH_RATE = mismatchHistogram.getSum() / (double) nonBisulfiteAlignedBases;
-                        metrics.PF_HQ_MEDIAN_MISMATCHES = hqMismatchHistogram.getMedian();
-                        if (hqNonBisulfiteAlignedBases > 0) metrics.PF_HQ_ERROR_RATE = hqMismatchHistogram.getSum() / (double) hqNonBisulfiteAlignedBases;
+                        final Histogram<Integer> hqMismatches = hqMismatchHistogram.toHistogram();
+                        if (nonBisulfiteAlignedBases > 0) metrics.PF_MISMATCH_RATE = mismatchHistogram.toHistogram().getSum() / (double) nonBisulfiteAlignedBases;
+                        metrics.PF_HQ_MEDIAN_MISMATCHES = hqMismatches.getMedian();
+                        if (hqNonBisulfiteAlignedBases > 0) metrics.PF_HQ_ERROR_RATE = hqMismatches.getSum() / (double) hqNonBisulfiteAlignedBases;
                         if (metrics.PF_ALIGNED_BASES > 0) metrics.PF_INDEL_RATE = this.indels / (double) metrics.PF_ALIGNED_BASES;
                     }
                 }
@@ -232,11 +245,8 @@ public class AlignmentSummaryMetricsCollector extends SAMRecordAndReferenceMulti
                     if (isNoiseRead(record)) metrics.PF_NOISE_READS++;
 
                     if (record.getReadUnmappedFlag()) {
-                        // If the read is unmapped see if it's adapter sequence
-                        final byte[] readBases = record.getReadBases();
-                        if (!(record instanceof BAMRecord)) StringUtil.toUpperCase(readBases);
-
-                        if (adapterUtility.isAdapterSequence(readBases)) {
+                        // If the read is unmapped see if it's adapter sequence; acceptRecord has upper-cased its bases
+                        if (adapterUtility.isAdapterSequence(record.getReadBases())) {
                             this.adapterReads++;
                         }
                     }
@@ -288,44 +298,50 @@ public class AlignmentSummaryMetricsCollector extends SAMRecordAndReferenceMulti
                     final byte[] refBases = reference.getBases();
                     final byte[] qualities  = record.getBaseQualities();
                     final int refLength = refBases.length;
-                    long mismatchCount   = 0;
-                    long hqMismatchCount = 0;
+                    final boolean negativeStrand = record.getReadNegativeStrandFlag();
+                    int mismatchCount   = 0;
+                    int hqMismatchCount = 0;
 
                     for (final AlignmentBlock alignmentBlock : record.getAlignmentBlocks()) {
                         final int readIndex = alignmentBlock.getReadStart() - 1;
                         final int refIndex  = alignmentBlock.getReferenceStart() - 1;
-                        final int length    = alignmentBlock.getLength();
+                        final int length    = Math.min(alignmentBlock.getLength(), refLength - refIndex);
+                        int blockMismatches = 0;
+                        int blockBisulfiteBases = 0;
 
-                        for (int i=0; i<length && refIndex+i<refLength; ++i) {
+                        for (int i=0; i<length; ++i) {
                             final int readBaseIndex = readIndex + i;
-                            boolean mismatch = !SequenceUtil.basesEqual(readBases[readBaseIndex], refBases[refIndex+i]);
-                            boolean bisulfiteBase = false;
-                            if (mismatch && isBisulfiteSequenced &&
-                                    record.getReadNegativeStrandFlag() &&
-                                    (refBases[refIndex + i] == 'G' || refBases[refIndex + i] == 'g') &&
-                                    (readBases[readBaseIndex] == 'A' || readBases[readBaseIndex] == 'a')
-                                    || ((!record.getReadNegativeStrandFlag()) &&
-                                    (refBases[refIndex + i] == 'C' || refBases[refIndex + i] == 'c') &&
-                                    (readBases[readBaseIndex] == 'T') || readBases[readBaseIndex] == 't')) {
-
-                                bisulfiteBase = true;
+                            final byte readBase = readBases[readBaseIndex];
+                            final byte refBase = refBases[refIndex + i];
+                            boolean mismatch = readBase != refBase && !SequenceUtil.basesEqual(readBase, refBase);
+                            final boolean bisulfiteBase = isBisulfiteSequenced ?
+                                    isBisulfiteBase(mismatch, negativeStrand, readBase, refBase) :
+                                    isForwardBisulfiteBase(negativeStrand, readBase, refBase);
+                            if (bisulfiteBase) {
                                 mismatch = false;
+                                blockBisulfiteBases++;
                             }
 
-                            if(mismatch) mismatchCount++;
+                            if (mismatch) {
+                                blockMismatches++;
+                                if (highQualityMapping) hqMismatchCount++;
+                            }
 
-                            metrics.PF_ALIGNED_BASES++;
-                            if(!bisulfiteBase) nonBisulfiteAlignedBases++;
+                            if (highQualityMapping && qualities[readBaseIndex] >= BASE_QUALITY_THRESHOLD) metrics.PF_HQ_ALIGNED_Q20_BASES++;
 
-                            if (highQualityMapping) {
-                                metrics.PF_HQ_ALIGNED_BASES++;
-                                if (!bisulfiteBase) hqNonBisulfiteAlignedBases++;
-                                if (qualities[readBaseIndex] >= BASE_QUALITY_THRESHOLD) metrics.PF_HQ_ALIGNED_Q20_BASES++;
-                                if (mismatch) hqMismatchCount++;
+                            if (mismatch || SequenceUtil.isNoCall(readBase)) {
+                                badCycleHistogram.increment(CoordMath.getCycle(negativeStrand, readBases.length, i));
                             }
+                        }
 
-                            if (mismatch || SequenceUtil.isNoCall(readBases[readBaseIndex])) {
-                                badCycleHistogram.increment(CoordMath.getCycle(record.getReadNegativeStrandFlag(), readBases.length, i));
+                        // Tally the per-base counts once per block rather than once per base
+                        mismatchCount += blockMismatches;
+                        if (length > 0) {
+                            metrics.PF_ALIGNED_BASES += length;
+                            nonBisulfiteAlignedBases += length - blockBisulfiteBases;
+                            if (highQualityMapping) {
+                                metrics.PF_HQ_ALIGNED_BASES += length;
+                                hqNonBisulfiteAlignedBases += length - blockBisulfiteBases;
                             }
                         }
                     }
@@ -341,6 +357,24 @@ public class AlignmentSummaryMetricsCollector extends SAMRecordAndReferenceMulti
                 }
             }
 
+            /**
+             * Whether a base counts as a bisulfite conversion rather than an aligned base when the reads are bisulfite
+             * sequenced: a G>A mismatch on the negative strand, or any base matched by {@link #isForwardBisulfiteBase}.
+             */
+            private boolean isBisulfiteBase(final boolean mismatch, final boolean negativeStrand, final byte readBase, final byte refBase) {
+                return mismatch && negativeStrand && (refBase == 'G' || refBase == 'g') && (readBase == 'A' || readBase == 'a') ||
+                        isForwardBisulfiteBase(negativeStrand, readBase, refBase);
+            }
+
+            /**
+             * Whether a base is excluded from the aligned bases and mismatches regardless of bisulfite sequencing: a C>T
+             * change on the positive strand, or a lower case 't' read base.  This keeps the long-standing behaviour of
+             * the per-base test, whose bisulfite condition was not guarded as a whole by IS_BISULFITE_SEQUENCED.
+             */
+            private boolean isForwardBisulfiteBase(final boolean negativeStrand, final byte readBase, final byte refBase) {
+                return (!negativeStrand && (refBase == 'C' || refBase == 'c') && readBase == 'T') || readBase == 't';
+            }
+
             private boolean isNoiseRead(final SAMRecord record) {
                 final Object noiseAttribute = record.getAttribute(ReservedTagConstants.XN);
                 return (noiseAttribute != null && noiseAttribute.equals(1));
@@ -356,4 +390,26 @@ public class AlignmentSummaryMetricsCollector extends SAMRecordAndReferenceMulti
             }
         }
     }
+
+    /**
+     * A histogram of small non-negative integers, counted in an array that grows as needed so that incrementing it
+     * neither boxes nor allocates.  It is converted to a {@link Histogram} to compute summary statistics.
+     */
+    private static class DenseHistogram {
+        private long[] counts = new long[128];
+
+        void increment(final int value) {
+            if (value >= counts.length) counts = Arrays.copyOf(counts, Math.max(value + 1, 2 * counts.length));
+            counts[value]++;
+        }
+
+        /** Returns a Histogram with a bin for each value that was counted at least once. */
+        Histogram<Integer> toHistogram() {
+            final Histogram<Integer> histogram = new Histogram<>();
+            for (int value = 0; value < counts.length; value++) {
+                if (counts[value] > 0) histogram.increment(value, counts[value]);
+            }
+            return histogram;
+        }
+    }
 }
@@ -113,6 +113,9 @@ public class CollectAlignmentSummaryMetrics extends SinglePassSamProgram {
     @Option(shortName="LEVEL", doc="The level(s) at which to accumulate metrics.")
     public Set<MetricAccumulationLevel> METRIC_ACCUMULATION_LEVEL = CollectionUtil.makeSet(MetricAccumulationLevel.ALL_READS);
 
+    @Option(doc="If true, the metrics for each accumulation level are collected on a thread of their own.")
+    public boolean COLLECT_LEVELS_IN_PARALLEL = false;
+
     @Option(shortName="BS", doc="Whether the SAM or BAM file consists of bisulfite sequenced reads.")
     public boolean IS_BISULFITE_SEQUENCED = false;
 
@@ -141,6 +144,7 @@ public class CollectAlignmentSummaryMetrics extends SinglePassSamProgram {
         final boolean doRefMetrics = REFERENCE_SEQUENCE != null;
         collector = new AlignmentSummaryMetricsCollector(METRIC_ACCUMULATION_LEVEL, header.getReadGroups(), doRefMetrics,
                 ADAPTER_SEQUENCE, MAX_INSERT_SIZE, EXPECTED_PAIR_ORIENTATIONS, IS_BISULFITE_SEQUENCED);
+        collector.setCollectLevelsInParallel(COLLECT_LEVELS_IN_PARALLEL);
     }
 
     @Override protected void acceptRead(final SAMRecord rec, final ReferenceSequence ref) {
@@ -133,6 +133,15 @@ public class CollectGcBiasMetrics extends SinglePassSamProgram {
     @Option(shortName = "LEVEL", doc = "The level(s) at which to accumulate metrics.")
     public Set<MetricAccumulationLevel> METRIC_ACCUMULATION_LEVEL = CollectionUtil.makeSet(MetricAccumulationLevel.ALL_READS);
 
+    @Option(doc = "If true, the metrics for each accumulation level are collected on a thread of their own.")
+    public boolean COLLECT_LEVELS_IN_PARALLEL = false;
+
+    @Option(doc = "A file in which to keep the GC content of every window of the reference for this SCAN_WINDOW_SIZE. " +
+            "If the file does not exist, or was made for another reference or window size, it is written; otherwise it is " +
+            "memory-mapped rather than recalculating the GC content of the reference. The file takes about one byte per " +
+            "reference base.", optional = true)
+    public File GC_CACHE;
+
     // Calculates GcBiasMetrics for all METRIC_ACCUMULATION_LEVELs provided
     private GcBiasMetricsCollector multiCollector;
 
@@ -158,11 +167,20 @@ public class CollectGcBiasMetrics extends SinglePassSamProgram {
         IOUtil.assertFileIsWritable(SUMMARY_OUTPUT);
         IOUtil.assertFileIsReadable(REFERENCE_SEQUENCE);
 
-        //Calculate windowsByGc for the reference sequence
-        final int[] windowsByGc = GcBiasUtils.calculateRefWindowsByGc(BINS, REFERENCE_SEQUENCE, SCAN_WINDOW_SIZE);
+        //Calculate windowsByGc for the reference sequence, or take it and the gc of every window from the cache
+        final GcWindowTracks gcTracks;
+        final int[] windowsByGc;
+        if (GC_CACHE != null) {
+            gcTracks = GcWindowTracks.fromCache(GC_CACHE, REFERENCE_SEQUENCE, BINS, SCAN_WINDOW_SIZE);
+            windowsByGc = gcTracks.getWindowsByGc();
+        } else {
+            gcTracks = null;
+            windowsByGc = GcBiasUtils.calculateRefWindowsByGc(BINS, REFERENCE_SEQUENCE, SCAN_WINDOW_SIZE);
+        }
 
         //Delegate actual collection to GcBiasMetricCollector
-        multiCollector = new GcBiasMetricsCollector(METRIC_ACCUMULATION_LEVEL, windowsByGc, header.getReadGroups(), SCAN_WINDOW_SIZE, IS_BISULFITE_SEQUENCED);
+        multiCollector = new GcBiasMetricsCollector(METRIC_ACCUMULATION_LEVEL, windowsByGc, gcTracks, header.getReadGroups(), SCAN_WINDOW_SIZE, IS_BISULFITE_SEQUENCED);
+        multiCollector.setCollectLevelsInParallel(COLLECT_LEVELS_IN_PARALLEL);
     }
 
     ////////////////////////////////////////////////////////////////////////////
@@ -102,6 +102,9 @@ public class CollectInsertSizeMetrics extends SinglePassSamProgram {
     @Option(shortName="LEVEL", doc="The level(s) at which to accumulate metrics.  ")
     public Set<MetricAccumulationLevel> METRIC_ACCUMULATION_LEVEL = CollectionUtil.makeSet(MetricAccumulationLevel.ALL_READS);
 
+    @Option(doc="If true, the metrics for each accumulation level are collected on a thread of their own.")
+    public boolean COLLECT_LEVELS_IN_PARALLEL = false;
+
     @Option(doc="If true, also include reads marked as duplicates in the insert size histogram.")
     public boolean INCLUDE_DUPLICATES = false;
 
@@ -139,6 +142,7 @@ public class CollectInsertSizeMetrics extends SinglePassSamProgram {
         //Delegate actual collection to InsertSizeMetricCollector
         multiCollector = new InsertSizeMetricsCollector(METRIC_ACCUMULATION_LEVEL, header.getReadGroups(),
                                                         MINIMUM_PCT, HISTOGRAM_WIDTH, DEVIATIONS, INCLUDE_DUPLICATES);
+        multiCollector.setCollectLevelsInParallel(COLLECT_LEVELS_IN_PARALLEL);
     }
 
     @Override protected void acceptRead(final SAMRecord record, final ReferenceSequence ref) {
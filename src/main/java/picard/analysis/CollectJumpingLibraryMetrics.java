@@ -1,267 +1,372 @@
-/*
- * The MIT License
- *
- * Copyright (c) 2009 The Broad Institute
- *
- * Permission is hereby granted, free of charge, to any person obtaining a copy
- * of this software and associated documentation files (the "Software"), to deal
- * in the Software without restriction, including without limitation the rights
- * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
- * copies of the Software, and to permit persons to whom the Software is
- * furnished to do so, subject to the following conditions:
- *
- * The above copyright notice and this permission notice shall be included in
- * all copies or substantial portions of the Software.
- *
- * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
- * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
- * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
- * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
- * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
- * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
- * THE SOFTWARE.
- */
-
-package picard.analysis;
-
-import htsjdk.samtools.SAMFileHeader;
-import htsjdk.samtools.SAMRecord;
-import htsjdk.samtools.SAMTag;
-import htsjdk.samtools.SamPairUtil;
-import htsjdk.samtools.SamPairUtil.PairOrientation;
-import htsjdk.samtools.SamReader;
-import htsjdk.samtools.SamReaderFactory;
-import htsjdk.samtools.metrics.MetricsFile;
-import htsjdk.samtools.util.CloserUtil;
-import htsjdk.samtools.util.Histogram;
-import htsjdk.samtools.util.IOUtil;
-import picard.PicardException;
-import picard.cmdline.CommandLineProgram;
-import picard.cmdline.CommandLineProgramProperties;
-import picard.cmdline.Option;
-import picard.cmdline.StandardOptionDefinitions;
-import picard.cmdline.programgroups.Metrics;
-import picard.sam.DuplicationMetrics;
-
-import java.io.File;
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
-
-/**
- * Command-line program to compute metrics about outward-facing pairs, inward-facing
- * pairs, and chimeras in a jumping library.
- *
- * @author ktibbett@broadinstitute.org
- */
-@CommandLineProgramProperties(
-        usage = CollectJumpingLibraryMetrics.USAGE_SUMMARY + CollectJumpingLibraryMetrics.USAGE_DETAILS,
-        usageShort = CollectJumpingLibraryMetrics.USAGE_SUMMARY,
-        programGroup = Metrics.class
-)
-public class CollectJumpingLibraryMetrics extends CommandLineProgram {
-    static final String USAGE_SUMMARY = "Collect jumping library metrics. ";
-    static final String USAGE_DETAILS = "<p>This tool collects high-level metrics about the " +
-"presence of outward-facing (jumping) and inward-facing (non-jumping) read pairs within a SAM or BAM file." +
-"For a brief primer on jumping libraries, see the GATK "+
-"<a href='https://www.broadinstitute.org/gatk/guide/article?id=6326'>Dictionary</a></p>." +
-
-"<p>This program gets all data for computation from the first read in each pair in which the mapping quality (MQ) tag " +
-"is set with the mate's mapping quality.  If the MQ tag is not set, then the program assumes that the mate's MQ is " +
-"greater than or equal to MINIMUM_MAPPING_QUALITY (default value is 0).</p> "+
-
-"<p>Note: Metrics labeled as percentages are actually expressed as fractions!</p>" +
-
-"<h4>Usage example:</h4>" +
-"<pre>" +
-"java -jar picard.jar CollectJumpingLibraryMetrics \\<br />" +
-"      I=input.bam  \\<br />" +
-"      O=jumping_metrics.txt" +
-"</pre>" +
-
-"Please see the output metrics documentation on "+
-"<a href='https://broadinstitute.github.io/picard/picard-metric-definitions.html#JumpingLibraryMetrics'>JumpingLibraryMetrics</a> "+
-"for detailed explanations of the output metrics."+
-"<hr />";
-
-    // Usage and parameters
-
-    @Option(shortName = StandardOptionDefinitions.INPUT_SHORT_NAME, doc = "BAM file(s) of reads with duplicates marked")
-    public List<File> INPUT = new ArrayList<File>();
-    @Option(shortName = StandardOptionDefinitions.OUTPUT_SHORT_NAME, doc = "File to which metrics should be written")
-    public File OUTPUT;
-    @Option(shortName = StandardOptionDefinitions.MINIMUM_MAPPING_QUALITY_SHORT_NAME, doc = "Mapping quality minimum cutoff")
-    public Integer MINIMUM_MAPPING_QUALITY = 0;
-    @Option(shortName = "T", doc = "When calculating mean and stdev stop when the bins in the tail of the distribution " +
-            "contain fewer than mode/TAIL_LIMIT items")
-    public int TAIL_LIMIT = 10000;
-    @Option(doc = "Jumps greater than or equal to the greater of this value or 2 times the mode of the " +
-            "outward-facing pairs are considered chimeras")
-    public int CHIMERA_KB_MIN = 100000;
-
-    private static final int SAMPLE_FOR_MODE = 50000; // How many outward-facing pairs to sample to determine the mode
-
-    /** Stock main method. */
-    public static void main(String[] args) {
-        System.exit(new CollectJumpingLibraryMetrics().instanceMain(args));
-    }
-
-    /**
-     * Calculates the detailed statistics about the jumping library and then generates the results.
-     */
-    protected int doWork() {
-
-        for (File f : INPUT) {
-            IOUtil.assertFileIsReadable(f);
-        }
-        IOUtil.assertFileIsWritable(OUTPUT);
-
-        Histogram<Integer> innieHistogram = new Histogram<Integer>();
-        Histogram<Integer> outieHistogram = new Histogram<Integer>();
-
-        int fragments = 0;
-        int innies = 0;
-        int outies = 0;
-        int innieDupes = 0;
-        int outieDupes = 0;
-        int crossChromPairs = 0;
-        int superSized = 0;
-        int tandemPairs = 0;
-        double chimeraSizeMinimum = Math.max(getOutieMode(), (double) CHIMERA_KB_MIN);
-
-        for (File f : INPUT) {
-            SamReader reader = SamReaderFactory.makeDefault().open(f);
-
-            if (reader.getFileHeader().getSortOrder() != SAMFileHeader.SortOrder.coordinate) {
-                throw new PicardException("SAM file must " + f.getName() + " must be sorted in coordintate order");
-            }
-
-            for (SAMRecord sam : reader) {
-
-                // We're getting all our info from the first of each pair.
-                if (!sam.getFirstOfPairFlag()) {
-                    continue;
-                }
-
-                // Ignore unmapped read pairs
-                if (sam.getReadUnmappedFlag()) {
-                    if (!sam.getMateUnmappedFlag()) {
-                        fragments++;
-                        continue;
-                    }
-
-                    // If both ends are unmapped and we've hit unaligned reads we're done
-                    if (sam.getReferenceIndex() == SAMRecord.NO_ALIGNMENT_REFERENCE_INDEX) {
-                        break;
-                    }
-                    continue;
-                }
-
-                if (sam.getMateUnmappedFlag()) {
-                    fragments++;
-                    continue;
-                }
-
-                // Ignore low-quality reads.  If we don't have the mate mapping quality, assume it's OK
-                if ((sam.getAttribute(SAMTag.MQ.name()) != null &&
-                        sam.getIntegerAttribute(SAMTag.MQ.name()) < MINIMUM_MAPPING_QUALITY) ||
-                        sam.getMappingQuality() < MINIMUM_MAPPING_QUALITY) {
-                    continue;
-                }
-
-                final int absInsertSize = Math.abs(sam.getInferredInsertSize());
-                if (absInsertSize > chimeraSizeMinimum) {
-                    superSized++;
-                } else if (sam.getMateNegativeStrandFlag() == sam.getReadNegativeStrandFlag()) {
-                    tandemPairs++;
-                } else if (!sam.getMateReferenceIndex().equals(sam.getReferenceIndex())) {
-                    crossChromPairs++;
-                } else {
-                    final PairOrientation pairOrientation = SamPairUtil.getPairOrientation(sam);
-                    if (pairOrientation == PairOrientation.RF) {
-                        outieHistogram.increment(absInsertSize);
-                        outies++;
-                        if (sam.getDuplicateReadFlag()) {
-                            outieDupes++;
-                        }
-                    } else if (pairOrientation == PairOrientation.FR) {
-                        innieHistogram.increment(absInsertSize);
-                        innies++;
-                        if (sam.getDuplicateReadFlag()) {
-                            innieDupes++;
-                        }
-                    } else {
-                        throw new IllegalStateException("This should never happen");
-                    }
-                }
-            }
-            CloserUtil.close(reader);
-        }
-
-        MetricsFile<JumpingLibraryMetrics, Integer> metricsFile = getMetricsFile();
-        JumpingLibraryMetrics metrics = new JumpingLibraryMetrics();
-        metrics.JUMP_PAIRS = outies;
-        metrics.JUMP_DUPLICATE_PAIRS = outieDupes;
-        metrics.JUMP_DUPLICATE_PCT = outies != 0 ? outieDupes / (double) outies : 0;
-        metrics.JUMP_LIBRARY_SIZE = (outies > 0 && outieDupes > 0) ? DuplicationMetrics.estimateLibrarySize(outies, outies - outieDupes) : 0;
-        outieHistogram.trimByTailLimit(TAIL_LIMIT);
-        metrics.JUMP_MEAN_INSERT_SIZE = outieHistogram.getMean();
-        metrics.JUMP_STDEV_INSERT_SIZE = outieHistogram.getStandardDeviation();
-        metrics.NONJUMP_PAIRS = innies;
-        metrics.NONJUMP_DUPLICATE_PAIRS = innieDupes;
-        metrics.NONJUMP_DUPLICATE_PCT = innies != 0 ? innieDupes / (double) innies : 0;
-        metrics.NONJUMP_LIBRARY_SIZE = (innies > 0 && innieDupes > 0) ? DuplicationMetrics.estimateLibrarySize(innies, innies - innieDupes) : 0;
-        innieHistogram.trimByTailLimit(TAIL_LIMIT);
-        metrics.NONJUMP_MEAN_INSERT_SIZE = innieHistogram.getMean();
-        metrics.NONJUMP_STDEV_INSERT_SIZE = innieHistogram.getStandardDeviation();
-        metrics.CHIMERIC_PAIRS = crossChromPairs + superSized + tandemPairs;
-        metrics.FRAGMENTS = fragments;
-        double totalPairs = outies + innies + metrics.CHIMERIC_PAIRS;
-        metrics.PCT_JUMPS = totalPairs != 0 ? outies / totalPairs : 0;
-        metrics.PCT_NONJUMPS = totalPairs != 0 ? innies / totalPairs : 0;
-        metrics.PCT_CHIMERAS = totalPairs != 0 ? metrics.CHIMERIC_PAIRS / totalPairs : 0;
-        metricsFile.addMetric(metrics);
-        metricsFile.write(OUTPUT);
-
-        return 0;
-    }
-
-    /**
-     * Calculates the mode for outward-facing pairs, using the first SAMPLE_FOR_MODE
-     * outward-facing pairs found in INPUT
-     */
-    private double getOutieMode() {
-
-        int samplePerFile = SAMPLE_FOR_MODE / INPUT.size();
-
-        Histogram<Integer> histo = new Histogram<Integer>();
-
-        for (File f : INPUT) {
-            SamReader reader = SamReaderFactory.makeDefault().open(f);
-            int sampled = 0;
-            for (Iterator<SAMRecord> it = reader.iterator(); it.hasNext() && sampled < samplePerFile; ) {
-                SAMRecord sam = it.next();
-                if (!sam.getFirstOfPairFlag()) {
-                    continue;
-                }
-                // If we get here we've hit the end of the aligned reads
-                if (sam.getReadUnmappedFlag() && sam.getReferenceIndex() == SAMRecord.NO_ALIGNMENT_REFERENCE_INDEX) {
-                    break;
-                } else if (sam.getReadUnmappedFlag() || sam.getMateUnmappedFlag()) {
-                    continue;
-                } else if ((sam.getAttribute(SAMTag.MQ.name()) == null ||
-                        sam.getIntegerAttribute(SAMTag.MQ.name()) >= MINIMUM_MAPPING_QUALITY) &&
-                        sam.getMappingQuality() >= MINIMUM_MAPPING_QUALITY &&
-                        sam.getMateNegativeStrandFlag() != sam.getReadNegativeStrandFlag() &&
-                        sam.getMateReferenceIndex().equals(sam.getReferenceIndex()) &&
-                        SamPairUtil.getPairOrientation(sam) == PairOrientation.RF) {
-                    histo.increment(Math.abs(sam.getInferredInsertSize()));
-                    sampled++;
-                }
-            }
-            CloserUtil.close(reader);
-        }
-
-        return histo.size() > 0 ? histo.getMode() : 0;
-    }
-}
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2009 The Broad Institute
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package picard.analysis;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SAMTag;
+import htsjdk.samtools.SamPairUtil;
+import htsjdk.samtools.SamPairUtil.PairOrientation;
+import htsjdk.samtools.SamReader;
+import htsjdk.samtools.SamReaderFactory;
+import htsjdk.samtools.metrics.MetricsFile;
+import htsjdk.samtools.util.CloserUtil;
+import htsjdk.samtools.util.Histogram;
+import htsjdk.samtools.util.IOUtil;
+import picard.PicardException;
+import picard.cmdline.CommandLineProgram;
+import picard.cmdline.CommandLineProgramProperties;
+import picard.cmdline.Option;
+import picard.cmdline.StandardOptionDefinitions;
+import picard.cmdline.programgroups.Metrics;
+import picard.sam.DuplicationMetrics;
+import picard.util.ThreadPoolUtil;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Command-line program to compute metrics about outward-facing pairs, inward-facing
+ * pairs, and chimeras in a jumping library.
+ *
+ * @author ktibbett@broadinstitute.org
+ */
+@CommandLineProgramProperties(
+        usage = CollectJumpingLibraryMetrics.USAGE_SUMMARY + CollectJumpingLibraryMetrics.USAGE_DETAILS,
+        usageShort = CollectJumpingLibraryMetrics.USAGE_SUMMARY,
+        programGroup = Metrics.class
+)
+public class CollectJumpingLibraryMetrics extends CommandLineProgram {
+    static final String USAGE_SUMMARY = "Collect jumping library metrics. ";
+    static final String USAGE_DETAILS = "<p>This tool collects high-level metrics about the " +
+"presence of outward-facing (jumping) and inward-facing (non-jumping) read pairs within a SAM or BAM file." +
+"For a brief primer on jumping libraries, see the GATK "+
+"<a href='https://www.broadinstitute.org/gatk/guide/article?id=6326'>Dictionary</a></p>." +
+
+"<p>This program gets all data for computation from the first read in each pair in which the mapping quality (MQ) tag " +
+"is set with the mate's mapping quality.  If the MQ tag is not set, then the program assumes that the mate's MQ is " +
+"greater than or equal to MINIMUM_MAPPING_QUALITY (default value is 0).</p> "+
+
+"<p>Note: Metrics labeled as percentages are actually expressed as fractions!</p>" +
+
+"<h4>Usage example:</h4>" +
+"<pre>" +
+"java -jar picard.jar CollectJumpingLibraryMetrics \\<br />" +
+"      I=input.bam  \\<br />" +
+"      O=jumping_metrics.txt" +
+"</pre>" +
+
+"Please see the output metrics documentation on "+
+"<a href='https://broadinstitute.github.io/picard/picard-metric-definitions.html#JumpingLibraryMetrics'>JumpingLibraryMetrics</a> "+
+"for detailed explanations of the output metrics."+
+"<hr />";
+
+    // Usage and parameters
+
+    @Option(shortName = StandardOptionDefinitions.INPUT_SHORT_NAME, doc = "BAM file(s) of reads with duplicates marked")
+    public List<File> INPUT = new ArrayList<File>();
+    @Option(shortName = StandardOptionDefinitions.OUTPUT_SHORT_NAME, doc = "File to which metrics should be written")
+    public File OUTPUT;
+    @Option(shortName = StandardOptionDefinitions.MINIMUM_MAPPING_QUALITY_SHORT_NAME, doc = "Mapping quality minimum cutoff")
+    public Integer MINIMUM_MAPPING_QUALITY = 0;
+    @Option(shortName = "T", doc = "When calculating mean and stdev stop when the bins in the tail of the distribution " +
+            "contain fewer than mode/TAIL_LIMIT items")
+    public int TAIL_LIMIT = 10000;
+    @Option(doc = "Jumps greater than or equal to the greater of this value or 2 times the mode of the " +
+            "outward-facing pairs are considered chimeras")
+    public int CHIMERA_KB_MIN = 100000;
+
+    @Option(doc = "Number of threads on which to read the INPUT files, one file to a thread.", optional = true)
+    public int NUM_THREADS = 1;
+
+    private static final int SAMPLE_FOR_MODE = 50000; // How many outward-facing pairs to sample to determine the mode
+
+    /** Stock main method. */
+    public static void main(String[] args) {
+        System.exit(new CollectJumpingLibraryMetrics().instanceMain(args));
+    }
+
+    /**
+     * Calculates the detailed statistics about the jumping library and then generates the results.
+     *
+     * Each input is read once.  Pairs are sampled to find the mode of the outward-facing insert sizes in the same
+     * pass as they are counted, and the few pairs with inserts long enough that whether they are chimeras depends
+     * on that mode are kept by insert size and classified once it is known.
+     */
+    protected int doWork() {
+
+        for (File f : INPUT) {
+            IOUtil.assertFileIsReadable(f);
+        }
+        IOUtil.assertFileIsWritable(OUTPUT);
+
+        final PairCounts counts = countPairs();
+        final double chimeraSizeMinimum = Math.max(counts.outieSample.size() > 0 ? counts.outieSample.getMode() : 0, (double) CHIMERA_KB_MIN);
+        counts.classifyLongInserts(chimeraSizeMinimum);
+
+        final long outies = counts.outies;
+        final long innies = counts.innies;
+        final long outieDupes = counts.outieDupes;
+        final long innieDupes = counts.innieDupes;
+        final Histogram<Integer> outieHistogram = counts.outieHistogram;
+        final Histogram<Integer> innieHistogram = counts.innieHistogram;
+
+        MetricsFile<JumpingLibraryMetrics, Integer> metricsFile = getMetricsFile();
+        JumpingLibraryMetrics metrics = new JumpingLibraryMetrics();
+        metrics.JUMP_PAIRS = outies;
+        metrics.JUMP_DUPLICATE_PAIRS = outieDupes;
+        metrics.JUMP_DUPLICATE_PCT = outies != 0 ? outieDupes / (double) outies : 0;
+        metrics.JUMP_LIBRARY_SIZE = (outies > 0 && outieDupes > 0) ? DuplicationMetrics.estimateLibrarySize(outies, outies - outieDupes) : 0;
+        outieHistogram.trimByTailLimit(TAIL_LIMIT);
+        metrics.JUMP_MEAN_INSERT_SIZE = outieHistogram.getMean();
+        metrics.JUMP_STDEV_INSERT_SIZE = outieHistogram.getStandardDeviation();
+        metrics.NONJUMP_PAIRS = innies;
+        metrics.NONJUMP_DUPLICATE_PAIRS = innieDupes;
+        metrics.NONJUMP_DUPLICATE_PCT = innies != 0 ? innieDupes / (double) innies : 0;
+        metrics.NONJUMP_LIBRARY_SIZE = (innies > 0 && innieDupes > 0) ? DuplicationMetrics.estimateLibrarySize(innies, innies - innieDupes) : 0;
+        innieHistogram.trimByTailLimit(TAIL_LIMIT);
+        metrics.NONJUMP_MEAN_INSERT_SIZE = innieHistogram.getMean();
+        metrics.NONJUMP_STDEV_INSERT_SIZE = innieHistogram.getStandardDeviation();
+        metrics.CHIMERIC_PAIRS = counts.crossChromPairs + counts.superSized + counts.tandemPairs;
+        metrics.FRAGMENTS = counts.fragments;
+        double totalPairs = outies + innies + metrics.CHIMERIC_PAIRS;
+        metrics.PCT_JUMPS = totalPairs != 0 ? outies / totalPairs : 0;
+        metrics.PCT_NONJUMPS = totalPairs != 0 ? innies / totalPairs : 0;
+        metrics.PCT_CHIMERAS = totalPairs != 0 ? metrics.CHIMERIC_PAIRS / totalPairs : 0;
+        metricsFile.addMetric(metrics);
+        metricsFile.write(OUTPUT);
+
+        return 0;
+    }
+
+    @Override
+    protected String[] customCommandLineValidation() {
+        final String[] errors = ThreadPoolUtil.validateNumThreads(NUM_THREADS);
+        return errors != null ? errors : super.customCommandLineValidation();
+    }
+
+    /** Counts the pairs in each INPUT, on up to NUM_THREADS threads, and adds up the counts in the order of INPUT. */
+    private PairCounts countPairs() {
+        final int samplePerFile = SAMPLE_FOR_MODE / INPUT.size();
+        final PairCounts counts = new PairCounts(CHIMERA_KB_MIN);
+        if (NUM_THREADS == 1 || INPUT.size() == 1) {
+            for (final File f : INPUT) {
+                counts.add(countPairs(f, samplePerFile));
+            }
+            return counts;
+        }
+
+        final ExecutorService executor = ThreadPoolUtil.newDaemonThreadPool(Math.min(NUM_THREADS, INPUT.size()), "CollectJumpingLibraryMetricsWorker");
+        try {
+            final List<Future<PairCounts>> futures = new ArrayList<Future<PairCounts>>();
+            for (final File f : INPUT) {
+                futures.add(executor.submit(() -> countPairs(f, samplePerFile)));
+            }
+            for (final Future<PairCounts> future : futures) {
+                counts.add(ThreadPoolUtil.get(future, "counting pairs"));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return counts;
+    }
+
+    /**
+     * Counts the pairs in one file, sampling the first samplePerFile outward-facing pairs on the same sequence and of
+     * good enough mapping quality, whatever their insert size, for the mode.
+     */
+    private PairCounts countPairs(final File f, final int samplePerFile) {
+        final PairCounts counts = new PairCounts(CHIMERA_KB_MIN);
+        final SamReader reader = SamReaderFactory.makeDefault().open(f);
+        try {
+            if (reader.getFileHeader().getSortOrder() != SAMFileHeader.SortOrder.coordinate) {
+                throw new PicardException("SAM file must " + f.getName() + " must be sorted in coordintate order");
+            }
+
+            int sampled = 0;
+            for (final SAMRecord sam : reader) {
+
+                // We're getting all our info from the first of each pair.
+                if (!sam.getFirstOfPairFlag()) {
+                    continue;
+                }
+
+                // Ignore unmapped read pairs
+                if (sam.getReadUnmappedFlag()) {
+                    if (!sam.getMateUnmappedFlag()) {
+                        counts.fragments++;
+                        continue;
+                    }
+
+                    // If both ends are unmapped and we've hit unaligned reads we're done
+                    if (sam.getReferenceIndex() == SAMRecord.NO_ALIGNMENT_REFERENCE_INDEX) {
+                        break;
+                    }
+                    continue;
+                }
+
+                if (sam.getMateUnmappedFlag()) {
+                    counts.fragments++;
+                    continue;
+                }
+
+                // Ignore low-quality reads.  If we don't have the mate mapping quality, assume it's OK
+                if ((sam.getAttribute(SAMTag.MQ.name()) != null &&
+                        sam.getIntegerAttribute(SAMTag.MQ.name()) < MINIMUM_MAPPING_QUALITY) ||
+                        sam.getMappingQuality() < MINIMUM_MAPPING_QUALITY) {
+                    continue;
+                }
+
+                final int absInsertSize = Math.abs(sam.getInferredInsertSize());
+                final PairType type;
+                if (sam.getMateNegativeStrandFlag() == sam.getReadNegativeStrandFlag()) {
+                    type = PairType.TANDEM;
+                } else if (!sam.getMateReferenceIndex().equals(sam.getReferenceIndex())) {
+                    type = PairType.CROSS_CHROMOSOME;
+                } else {
+                    final PairOrientation pairOrientation = SamPairUtil.getPairOrientation(sam);
+                    if (pairOrientation == PairOrientation.RF) {
+                        type = sam.getDuplicateReadFlag() ? PairType.OUTIE_DUPLICATE : PairType.OUTIE;
+                        if (sampled < samplePerFile) {
+                            counts.outieSample.increment(absInsertSize);
+                            sampled++;
+                        }
+                    } else if (pairOrientation == PairOrientation.FR) {
+                        type = sam.getDuplicateReadFlag() ? PairType.INNIE_DUPLICATE : PairType.INNIE;
+                    } else {
+                        throw new IllegalStateException("This should never happen");
+                    }
+                }
+                counts.add(type, absInsertSize, 1);
+            }
+        } finally {
+            CloserUtil.close(reader);
+        }
+        return counts;
+    }
+
+    /** What a pair that is not a fragment would be counted as, were its insert not long enough to make it a chimera. */
+    private enum PairType {TANDEM, CROSS_CHROMOSOME, OUTIE, OUTIE_DUPLICATE, INNIE, INNIE_DUPLICATE}
+
+    /**
+     * The counts of the pairs of one or more inputs, which may be added together.  Pairs with inserts no longer than
+     * CHIMERA_KB_MIN are counted as they are seen, since they are never chimeras by length.  Those with longer
+     * inserts are kept by type and insert size until the mode of the sampled outward-facing inserts, and so the
+     * length beyond which a pair is a chimera, is known.
+     */
+    static class PairCounts {
+        private final int longInsertMinimum;
+
+        long fragments = 0;
+        long innies = 0;
+        long outies = 0;
+        long innieDupes = 0;
+        long outieDupes = 0;
+        long crossChromPairs = 0;
+        long superSized = 0;
+        long tandemPairs = 0;
+        final Histogram<Integer> innieHistogram = new Histogram<Integer>();
+        final Histogram<Integer> outieHistogram = new Histogram<Integer>();
+        final Histogram<Integer> outieSample = new Histogram<Integer>();
+
+        private final Map<PairType, Histogram<Integer>> longInserts = new EnumMap<PairType, Histogram<Integer>>(PairType.class);
+
+        PairCounts(final int longInsertMinimum) {
+            this.longInsertMinimum = longInsertMinimum;
+            for (final PairType type : PairType.values()) longInserts.put(type, new Histogram<Integer>());
+        }
+
+        /** Counts pairs of the given type and insert size, or keeps them for later if the insert is long. */
+        private void add(final PairType type, final int absInsertSize, final long count) {
+            if (absInsertSize > longInsertMinimum) longInserts.get(type).increment(absInsertSize, count);
+            else count(type, absInsertSize, count);
+        }
+
+        private void count(final PairType type, final int absInsertSize, final long count) {
+            switch (type) {
+                case TANDEM:
+                    tandemPairs += count;
+                    break;
+                case CROSS_CHROMOSOME:
+                    crossChromPairs += count;
+                    break;
+                case OUTIE_DUPLICATE:
+                    outieDupes += count;
+                    // fall through
+                case OUTIE:
+                    outies += count;
+                    outieHistogram.increment(absInsertSize, count);
+                    break;
+                case INNIE_DUPLICATE:
+                    innieDupes += count;
+                    // fall through
+                case INNIE:
+                    innies += count;
+                    innieHistogram.increment(absInsertSize, count);
+                    break;
+            }
+        }
+
+        /** Adds the counts of another input to these. */
+        void add(final PairCounts other) {
+            fragments += other.fragments;
+            innies += other.innies;
+            outies += other.outies;
+            innieDupes += other.innieDupes;
+            outieDupes += other.outieDupes;
+            crossChromPairs += other.crossChromPairs;
+            superSized += other.superSized;
+            tandemPairs += other.tandemPairs;
+            addHistogram(innieHistogram, other.innieHistogram);
+            addHistogram(outieHistogram, other.outieHistogram);
+            addHistogram(outieSample, other.outieSample);
+            for (final PairType type : PairType.values()) {
+                addHistogram(longInserts.get(type), other.longInserts.get(type));
+            }
+        }
+
+        /** Counts the pairs with long inserts, as chimeras if their inserts are longer than chimeraSizeMinimum. */
+        void classifyLongInserts(final double chimeraSizeMinimum) {
+            for (final PairType type : PairType.values()) {
+                for (final Histogram.Bin<Integer> bin : longInserts.put(type, new Histogram<Integer>()).values()) {
+                    final long count = (long) bin.getValue();
+                    if (bin.getIdValue() > chimeraSizeMinimum) superSized += count;
+                    else count(type, bin.getIdValue(), count);
+                }
+            }
+        }
+
+        private static void addHistogram(final Histogram<Integer> to, final Histogram<Integer> from) {
+            for (final Histogram.Bin<Integer> bin : from.values()) {
+                to.increment(bin.getIdValue(), bin.getValue());
+            }
+        }
+    }
+}
@@ -104,9 +104,11 @@ public class CollectRawWgsMetrics extends CollectWgsMetrics{
                              final double pctTotal,
                              final int coverageCap,
                              final Histogram<Integer> baseQHistogram,
-                             final int sampleSize) {
+                             final int sampleSize,
+                             final boolean exactSensitivity) {
             super(intervals, depthHistogram, pctExcludedByMapq, pctExcludedByDupes, pctExcludedByPairing, pctExcludedByBaseq,
-                    pctExcludedByOverlap, pctExcludedByCapping, pctTotal, coverageCap, baseQHistogram, sampleSize);
+                    pctExcludedByOverlap, pctExcludedByCapping, pctTotal, coverageCap, baseQHistogram, sampleSize,
+                    exactSensitivity);
         }
     }
 
@@ -135,7 +137,8 @@ public class CollectRawWgsMetrics extends CollectWgsMetrics{
                 pctTotal,
                 coverageCap,
                 baseQHistogram,
-                sampleSize);
+                sampleSize,
+                EXACT_HET_SENSITIVITY);
     }
 
 }
@@ -122,6 +122,9 @@ static final String USAGE_DETAILS = "<p>This tool takes a SAM/BAM file containin
     @Option(shortName="LEVEL", doc="The level(s) at which to accumulate metrics.  ")
     public Set<MetricAccumulationLevel> METRIC_ACCUMULATION_LEVEL = CollectionUtil.makeSet(MetricAccumulationLevel.ALL_READS);
 
+    @Option(doc="If true, the metrics for each accumulation level are collected on a thread of their own.")
+    public boolean COLLECT_LEVELS_IN_PARALLEL = false;
+
     private RnaSeqMetricsCollector collector;
 
     /**
@@ -150,6 +153,7 @@ static final String USAGE_DETAILS = "<p>This tool takes a SAM/BAM file containin
         collector = new RnaSeqMetricsCollector(METRIC_ACCUMULATION_LEVEL, header.getReadGroups(), ribosomalBasesInitialValue,
                 geneOverlapDetector, ribosomalSequenceOverlapDetector, ignoredSequenceIndices, MINIMUM_LENGTH, STRAND_SPECIFICITY, RRNA_FRAGMENT_PERCENTAGE,
                 true);
+        collector.setCollectLevelsInParallel(COLLECT_LEVELS_IN_PARALLEL);
 
         // If we're working with a single library, assign that library's name as a suffix to the plot title
         final List<SAMReadGroupRecord> readGroups = header.getReadGroups();
@@ -116,6 +116,11 @@ static final String USAGE_DETAILS = "<p>This tool collects metrics about the fra
     @Option(doc="Sample Size used for Theoretical Het Sensitivity sampling. Default is 10000.", optional = true)
     public int SAMPLE_SIZE=10000;
 
+    @Option(doc="If true, compute the Theoretical Het Sensitivity exactly, by convolving the base quality distribution, " +
+            "rather than by sampling SAMPLE_SIZE sums of base qualities. The exact value differs slightly from the sampled one, " +
+            "and takes a time that does not grow with the sample size.", optional = true)
+    public boolean EXACT_HET_SENSITIVITY = false;
+
     @Option(doc = "An interval list file that contains the positions to restrict the assessment. Please note that " +
             "all bases of reads that overlap these intervals will be considered, even if some of those bases extend beyond the boundaries of " +
             "the interval. The ideal use case for this argument is to use it to restrict the calculation to a subset of (whole) contigs. To " +
@@ -151,6 +156,10 @@ static final String USAGE_DETAILS = "<p>This tool collects metrics about the fra
         @NoMergingKeepsValue
         protected final int theoreticalHetSensitivitySampleSize;
 
+        /** Whether theoretical het sensitivity is computed exactly rather than by sampling. */
+        @NoMergingKeepsValue
+        protected final boolean exactTheoreticalHetSensitivity;
+
         /**
          * Create an instance of this metric that is not mergeable.
          */
@@ -159,6 +168,7 @@ static final String USAGE_DETAILS = "<p>This tool collects metrics about the fra
             depthHistogram                      = null;
             baseQHistogram                      = null;
             theoreticalHetSensitivitySampleSize = -1;
+            exactTheoreticalHetSensitivity      = false;
             coverageCap                         = -1;
         }
 
@@ -189,11 +199,34 @@ static final String USAGE_DETAILS = "<p>This tool collects metrics about the fra
                           final int coverageCap,
                           final Histogram<Integer> baseQHistogram,
                           final int theoreticalHetSensitivitySampleSize) {
+            this(intervals, depthHistogram, pctExcludedByMapq, pctExcludedByDupes, pctExcludedByPairing, pctExcludedByBaseq,
+                    pctExcludedByOverlap, pctExcludedByCapping, pctExcludeTotal, coverageCap, baseQHistogram,
+                    theoreticalHetSensitivitySampleSize, false);
+        }
+
+        /**
+         * Create an instance of this metric that is mergeable, with theoretical het sensitivity computed exactly if
+         * exactTheoreticalHetSensitivity is true, and otherwise by sampling theoreticalHetSensitivitySampleSize sums.
+         */
+        public WgsMetrics(final IntervalList intervals,
+                          final Histogram<Integer> depthHistogram,
+                          final double pctExcludedByMapq,
+                          final double pctExcludedByDupes,
+                          final double pctExcludedByPairing,
+                          final double pctExcludedByBaseq,
+                          final double pctExcludedByOverlap,
+                          final double pctExcludedByCapping,
+                          final double pctExcludeTotal,
+                          final int coverageCap,
+                          final Histogram<Integer> baseQHistogram,
+                          final int theoreticalHetSensitivitySampleSize,
+                          final boolean exactTheoreticalHetSensitivity) {
             this.intervals      = intervals.uniqued();
             this.depthHistogram = depthHistogram;
             this.baseQHistogram = baseQHistogram;
             this.coverageCap    = coverageCap;
             this.theoreticalHetSensitivitySampleSize = theoreticalHetSensitivitySampleSize;
+            this.exactTheoreticalHetSensitivity = exactTheoreticalHetSensitivity;
 
             PCT_EXC_MAPQ     = pctExcludedByMapq;
             PCT_EXC_DUPE     = pctExcludedByDupes;
@@ -348,7 +381,7 @@ static final String USAGE_DETAILS = "<p>This tool collects metrics about the fra
         @Override
         public void calculateDerivedFields() {
             if (depthHistogram == null) throw new PicardException("Depth histogram is required when deriving metrics.");
-            if (baseQHistogram != null && theoreticalHetSensitivitySampleSize <= 0) {
+            if (baseQHistogram != null && !exactTheoreticalHetSensitivity && theoreticalHetSensitivitySampleSize <= 0) {
                 throw new PicardException("Sample size is required when a baseQ histogram is given when deriving metrics.");
             }
 
@@ -383,7 +416,9 @@ static final String USAGE_DETAILS = "<p>This tool collects metrics about the fra
             if (baseQHistogram != null) {
                 final double[] depthDoubleArray = TheoreticalSensitivity.normalizeHistogram(depthHistogram);
                 final double[] baseQDoubleArray = TheoreticalSensitivity.normalizeHistogram(baseQHistogram);
-                HET_SNP_SENSITIVITY = TheoreticalSensitivity.hetSNPSensitivity(depthDoubleArray, baseQDoubleArray, theoreticalHetSensitivitySampleSize, LOG_ODDS_THRESHOLD);
+                HET_SNP_SENSITIVITY = exactTheoreticalHetSensitivity ?
+                        TheoreticalSensitivity.hetSNPSensitivityByConvolution(depthDoubleArray, baseQDoubleArray, LOG_ODDS_THRESHOLD) :
+                        TheoreticalSensitivity.hetSNPSensitivity(depthDoubleArray, baseQDoubleArray, theoreticalHetSensitivitySampleSize, LOG_ODDS_THRESHOLD);
                 HET_SNP_Q = QualityUtil.getPhredScoreFromErrorProbability((1 - HET_SNP_SENSITIVITY));
             }
         }
@@ -517,7 +552,8 @@ static final String USAGE_DETAILS = "<p>This tool collects metrics about the fra
                 pctTotal,
                 coverageCap,
                 baseQHistogram,
-                theoreticalHetSensitivitySampleSize
+                theoreticalHetSensitivitySampleSize,
+                EXACT_HET_SENSITIVITY
         );
     }
     
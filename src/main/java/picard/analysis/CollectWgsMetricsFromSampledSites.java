@@ -97,9 +97,11 @@ public class CollectWgsMetricsFromSampledSites extends CollectWgsMetrics {
                                  final double pctTotal,
                                  final int coverageCap,
                                  final Histogram<Integer> baseQHistogram,
-                                 final int sampleSize) {
+                                 final int sampleSize,
+                                 final boolean exactSensitivity) {
             super(intervals, depthHistogram, pctExcludedByMapq, pctExcludedByDupes, pctExcludedByPairing, pctExcludedByBaseq,
-                    pctExcludedByOverlap, pctExcludedByCapping, pctTotal, coverageCap, baseQHistogram, sampleSize);
+                    pctExcludedByOverlap, pctExcludedByCapping, pctTotal, coverageCap, baseQHistogram, sampleSize,
+                    exactSensitivity);
         }
     }
 
@@ -128,6 +130,7 @@ public class CollectWgsMetricsFromSampledSites extends CollectWgsMetrics {
                 pctTotal,
                 coverageCap,
                 baseQHistogram,
-                sampleSize);
+                sampleSize,
+                EXACT_HET_SENSITIVITY);
     }}
 
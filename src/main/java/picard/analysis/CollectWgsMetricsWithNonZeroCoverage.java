@@ -102,9 +102,11 @@ public class CollectWgsMetricsWithNonZeroCoverage extends CollectWgsMetrics {
                                              final double pctTotal,
                                              final int coverageCap,
                                              final Histogram<Integer> baseQHistogram,
-                                             final int sampleSize) {
+                                             final int sampleSize,
+                                             final boolean exactSensitivity) {
             super(intervals, depthHistogram, pctExcludedByMapq, pctExcludedByDupes, pctExcludedByPairing, pctExcludedByBaseq,
-                    pctExcludedByOverlap, pctExcludedByCapping, pctTotal, coverageCap, baseQHistogram, sampleSize);
+                    pctExcludedByOverlap, pctExcludedByCapping, pctTotal, coverageCap, baseQHistogram, sampleSize,
+                    exactSensitivity);
         }
     }
 
@@ -176,7 +178,8 @@ public class CollectWgsMetricsWithNonZeroCoverage extends CollectWgsMetrics {
                 pctTotal,
                 coverageCap,
                 baseQHistogram,
-                sampleSize);
+                sampleSize,
+                EXACT_HET_SENSITIVITY);
     }
     @Override
     protected WgsMetricsCollector getCollector(final int coverageCap, final IntervalList intervals) {
@@ -35,6 +35,7 @@ import picard.metrics.GcBiasMetrics;
 import picard.metrics.MultiLevelCollector;
 import picard.metrics.PerUnitMetricCollector;
 
+import java.nio.ByteBuffer;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -52,16 +53,27 @@ public class GcBiasMetricsCollector extends MultiLevelCollector<GcBiasMetrics, I
     private int[] windowsByGc = new int[BINS];
     private static final int BINS = 101;
 
-    //will hold the relevant gc information per contig
-    private byte [] gc = null;
+    //will hold the relevant gc information per contig, shared by all the per-unit collectors
+    private final GcWindowTracks gcTracks;
+    private ByteBuffer gc = null;
     private int referenceIndex = -1;
     private byte [] refBases = null;
 
     public GcBiasMetricsCollector(final Set<MetricAccumulationLevel> accumulationLevels, final int[] windowsByGc,
                                   final List<SAMReadGroupRecord> samRgRecords, final int scanWindowSize, final boolean bisulfite) {
+        this(accumulationLevels, windowsByGc, null, samRgRecords, scanWindowSize, bisulfite);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    // Takes the gc of each window from the given tracks, if not null, rather
+    // than calculating it for each contig as it is reached.
+    /////////////////////////////////////////////////////////////////////////////
+    public GcBiasMetricsCollector(final Set<MetricAccumulationLevel> accumulationLevels, final int[] windowsByGc, final GcWindowTracks gcTracks,
+                                  final List<SAMReadGroupRecord> samRgRecords, final int scanWindowSize, final boolean bisulfite) {
         this.scanWindowSize = scanWindowSize;
         this.bisulfite = bisulfite;
         this.windowsByGc = windowsByGc;
+        this.gcTracks = gcTracks;
         setup(accumulationLevels, samRgRecords);
     }
     /////////////////////////////////////////////////////////////////////////////
@@ -69,7 +81,16 @@ public class GcBiasMetricsCollector extends MultiLevelCollector<GcBiasMetrics, I
     /////////////////////////////////////////////////////////////////////////////
     @Override
     protected GcBiasCollectorArgs makeArg(final SAMRecord rec, final ReferenceSequence ref) {
-        return new GcBiasCollectorArgs(rec, ref);
+        return new GcBiasCollectorArgs(rec, ref, gc, refBases);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    // The child collectors take the gc and reference bases of the record's
+    // contig from its args rather than from this collector
+    /////////////////////////////////////////////////////////////////////////////
+    @Override
+    protected boolean supportsParallelLevels() {
+        return true;
     }
 
     /////////////////////////////////////////////////////////////////////////////
@@ -81,7 +102,21 @@ public class GcBiasMetricsCollector extends MultiLevelCollector<GcBiasMetrics, I
     }
 
     @Override
-    public void acceptRecord(final SAMRecord rec, final ReferenceSequence ref) {super.acceptRecord(rec, ref);}
+    public void acceptRecord(final SAMRecord rec, final ReferenceSequence ref) {
+        if (!rec.getReadUnmappedFlag() && (referenceIndex != rec.getReferenceIndex() || gc == null)) {
+            refBases = ref.getBases();
+            StringUtil.toUpperCase(refBases);
+            if (gcTracks != null) {
+                gc = gcTracks.getTrack(ref.getName());
+            } else {
+                final int refLength = refBases.length;
+                final int lastWindowStart = refLength - scanWindowSize;
+                gc = ByteBuffer.wrap(GcBiasUtils.calculateAllGcs(refBases, lastWindowStart, scanWindowSize));
+            }
+            referenceIndex = rec.getReferenceIndex();
+        }
+        super.acceptRecord(rec, ref);
+    }
 
     /////////////////////////////////////////////////////////////////////////////
     //A collector for individual GcBiasMetrics for a given SAMPLE or SAMPLE/LIBRARY
@@ -126,33 +161,23 @@ public class GcBiasMetricsCollector extends MultiLevelCollector<GcBiasMetrics, I
             final SAMRecord rec = args.getRec();
             final String type;
             if (!rec.getReadUnmappedFlag()) {
-                if(referenceIndex != rec.getReferenceIndex() || gc == null){
-                    final ReferenceSequence ref = args.getRef();
-                    refBases = ref.getBases();
-                    StringUtil.toUpperCase(refBases);
-                    final int refLength = refBases.length;
-                    final int lastWindowStart = refLength - scanWindowSize;
-                    gc = GcBiasUtils.calculateAllGcs(refBases, lastWindowStart, scanWindowSize);
-                    referenceIndex=rec.getReferenceIndex();
-                }
-
                 final String group;
                 if (this.readGroup != null) {
                     type = this.readGroup;
                     group = "Read Group";
-                    addRead(gcData.get(type), rec, group, gc, refBases);
+                    addRead(gcData.get(type), rec, group, args.getGc(), args.getRefBases());
                 } else if (this.library != null) {
                     type = this.library;
                     group = "Library";
-                    addRead(gcData.get(type), rec, group, gc, refBases);
+                    addRead(gcData.get(type), rec, group, args.getGc(), args.getRefBases());
                 } else if (this.sample != null) {
                     type = this.sample;
                     group = "Sample";
-                    addRead(gcData.get(type), rec, group, gc, refBases);
+                    addRead(gcData.get(type), rec, group, args.getGc(), args.getRefBases());
                 } else {
                     type = allReads;
                     group = "All Reads";
-                    addRead(gcData.get(type), rec, group, gc, refBases);
+                    addRead(gcData.get(type), rec, group, args.getGc(), args.getRefBases());
                 }
             }
             else {
@@ -320,12 +345,12 @@ public class GcBiasMetricsCollector extends MultiLevelCollector<GcBiasMetrics, I
     //Adds each read to the appropriate gcObj which is determined in acceptRecord above
     //Also calculates values for calculating GC Bias at each level
     /////////////////////////////////////////////////////////////////////////////
-     private void addRead(final GcObject gcObj, final SAMRecord rec, final String group, final byte[] gc, final byte[] refBases) {
+     private void addRead(final GcObject gcObj, final SAMRecord rec, final String group, final ByteBuffer gc, final byte[] refBases) {
         if (!rec.getReadPairedFlag() || rec.getFirstOfPairFlag()) ++gcObj.totalClusters;
         final int pos = rec.getReadNegativeStrandFlag() ? rec.getAlignmentEnd() - scanWindowSize : rec.getAlignmentStart();
         ++gcObj.totalAlignedReads;
         if (pos > 0) {
-            final int windowGc = gc[pos];
+            final int windowGc = gc.get(pos);
             if (windowGc >= 0) {
                 ++gcObj.readsByGc[windowGc];
                 gcObj.basesByGc[windowGc] += rec.getReadLength();
@@ -347,10 +372,16 @@ public class GcBiasMetricsCollector extends MultiLevelCollector<GcBiasMetrics, I
 class GcBiasCollectorArgs {
     private final SAMRecord rec;
     private final ReferenceSequence ref;
+    private final ByteBuffer gc;
+    private final byte[] refBases;
     public SAMRecord getRec() {return rec;}
     public ReferenceSequence getRef() {return ref;}
-    public GcBiasCollectorArgs(final SAMRecord rec, final ReferenceSequence ref) {
+    public ByteBuffer getGc() {return gc;}
+    public byte[] getRefBases() {return refBases;}
+    public GcBiasCollectorArgs(final SAMRecord rec, final ReferenceSequence ref, final ByteBuffer gc, final byte[] refBases) {
         this.rec = rec;
         this.ref = ref;
+        this.gc = gc;
+        this.refBases = refBases;
     }
 }
@@ -0,0 +1,213 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026 The Broad Institute
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package picard.analysis;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.reference.ReferenceSequence;
+import htsjdk.samtools.reference.ReferenceSequenceFile;
+import htsjdk.samtools.reference.ReferenceSequenceFileFactory;
+import htsjdk.samtools.util.CloserUtil;
+import htsjdk.samtools.util.Log;
+import htsjdk.samtools.util.StringUtil;
+import picard.PicardException;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/** The GC content of every window along each sequence of a reference, as calculated by
+ * GcBiasUtils.calculateAllGcs, together with the number of windows in each GC bin, kept in
+ * a cache file that is memory-mapped so that later runs need not recompute it.
+ *
+ * The cache holds, after a short header, the GC track of each reference sequence in turn,
+ * followed by a trailer listing the sequences and the windows by GC.
+ */
+public class GcWindowTracks {
+    private static final Log log = Log.getInstance(GcWindowTracks.class);
+
+    private static final int MAGIC = 0x50474357; // "PGCW"
+    private static final int VERSION = 1;
+    private static final int HEADER_LENGTH = 12;
+
+    private final int[] windowsByGc;
+    private final Map<String, ByteBuffer> tracksBySequence = new HashMap<>();
+
+    private GcWindowTracks(final int[] windowsByGc) {
+        this.windowsByGc = windowsByGc;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    // Returns the GC tracks of the reference from the cache file, first writing
+    // it if it does not exist or was made for another reference or window size.
+    /////////////////////////////////////////////////////////////////////////////
+    public static GcWindowTracks fromCache(final File cacheFile, final File referenceSequence, final int bins, final int windowSize) {
+        final SAMSequenceDictionary dictionary = getSequenceDictionary(referenceSequence);
+
+        if (cacheFile.exists()) {
+            final GcWindowTracks tracks = read(cacheFile, dictionary, bins, windowSize);
+            if (tracks != null) return tracks;
+            log.warn("GC cache " + cacheFile.getAbsolutePath() + " does not match the reference and window size, so it will be rewritten.");
+        }
+
+        log.info("Writing GC cache " + cacheFile.getAbsolutePath());
+        write(cacheFile, referenceSequence, bins, windowSize);
+        final GcWindowTracks tracks = read(cacheFile, dictionary, bins, windowSize);
+        if (tracks == null) throw new PicardException("Could not read back GC cache " + cacheFile.getAbsolutePath());
+        return tracks;
+    }
+
+    /** The number of windows across the whole reference in each GC bin, as GcBiasUtils.calculateRefWindowsByGc. */
+    public int[] getWindowsByGc() {
+        return windowsByGc;
+    }
+
+    /** The GC of each window of the named sequence, indexed by 1-based window start, as GcBiasUtils.calculateAllGcs. */
+    public ByteBuffer getTrack(final String sequenceName) {
+        final ByteBuffer track = tracksBySequence.get(sequenceName);
+        if (track == null) throw new PicardException("Sequence " + sequenceName + " is not in the GC cache.");
+        return track;
+    }
+
+    private static SAMSequenceDictionary getSequenceDictionary(final File referenceSequence) {
+        final ReferenceSequenceFile refFile = ReferenceSequenceFileFactory.getReferenceSequenceFile(referenceSequence);
+        final SAMSequenceDictionary dictionary = refFile.getSequenceDictionary();
+        CloserUtil.close(refFile);
+        return dictionary;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    // Calculates the tracks of all the reference sequences in one pass, counting
+    // the windows by GC from the tracks rather than rescanning the reference.
+    // The cache is written under a temporary name and renamed once complete.
+    /////////////////////////////////////////////////////////////////////////////
+    private static void write(final File cacheFile, final File referenceSequence, final int bins, final int windowSize) {
+        final File tmpFile = new File(cacheFile.getParentFile(), cacheFile.getName() + ".tmp");
+        final ReferenceSequenceFile refFile = ReferenceSequenceFileFactory.getReferenceSequenceFile(referenceSequence);
+        final int[] windowsByGc = new int[bins];
+        final List<String> names = new ArrayList<>();
+        final List<Integer> lengths = new ArrayList<>();
+
+        try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(windowSize);
+            long offset = HEADER_LENGTH;
+
+            ReferenceSequence ref;
+            while ((ref = refFile.nextSequence()) != null) {
+                final byte[] refBases = ref.getBases();
+                StringUtil.toUpperCase(refBases);
+                final int lastWindowStart = refBases.length - windowSize;
+                final byte[] gc = GcBiasUtils.calculateAllGcs(refBases, lastWindowStart, windowSize);
+                for (int i = 1; i < lastWindowStart; ++i) {
+                    if (gc[i] != -1) windowsByGc[gc[i]]++;
+                }
+
+                out.write(gc);
+                offset += gc.length;
+                names.add(ref.getName());
+                lengths.add(refBases.length);
+            }
+
+            out.writeInt(names.size());
+            for (int i = 0; i < names.size(); i++) {
+                out.writeUTF(names.get(i));
+                out.writeInt(lengths.get(i));
+            }
+            out.writeInt(bins);
+            for (final int windows : windowsByGc) out.writeInt(windows);
+            out.writeLong(offset);
+        } catch (final IOException ioe) {
+            tmpFile.delete();
+            throw new PicardException("Could not write GC cache " + tmpFile.getAbsolutePath(), ioe);
+        } finally {
+            CloserUtil.close(refFile);
+        }
+
+        if (!tmpFile.renameTo(cacheFile)) {
+            tmpFile.delete();
+            throw new PicardException("Could not rename " + tmpFile.getAbsolutePath() + " to " + cacheFile.getAbsolutePath());
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    // Maps the tracks in the cache file, returning null if the cache was made
+    // for another window size or for sequences that differ from the reference
+    // dictionary (when the reference has one).
+    /////////////////////////////////////////////////////////////////////////////
+    private static GcWindowTracks read(final File cacheFile, final SAMSequenceDictionary dictionary, final int bins, final int windowSize) {
+        try (final RandomAccessFile in = new RandomAccessFile(cacheFile, "r")) {
+            if (in.length() < HEADER_LENGTH + 8 || in.readInt() != MAGIC || in.readInt() != VERSION || in.readInt() != windowSize) return null;
+
+            in.seek(in.length() - 8);
+            final long trailerOffset = in.readLong();
+            if (trailerOffset < HEADER_LENGTH || trailerOffset > in.length() - 8) return null;
+            in.seek(trailerOffset);
+
+            final int numSequences = in.readInt();
+            if (numSequences < 0) return null;
+            final String[] names = new String[numSequences];
+            final int[] lengths = new int[numSequences];
+            for (int i = 0; i < numSequences; i++) {
+                names[i] = in.readUTF();
+                lengths[i] = in.readInt();
+            }
+            if (in.readInt() != bins) return null;
+            final int[] windowsByGc = new int[bins];
+            for (int i = 0; i < bins; i++) windowsByGc[i] = in.readInt();
+
+            if (dictionary != null) {
+                if (dictionary.size() != numSequences) return null;
+                for (int i = 0; i < numSequences; i++) {
+                    if (!dictionary.getSequence(i).getSequenceName().equals(names[i]) ||
+                            dictionary.getSequence(i).getSequenceLength() != lengths[i]) return null;
+                }
+            }
+
+            // Mappings remain valid once the file is closed
+            final GcWindowTracks tracks = new GcWindowTracks(windowsByGc);
+            final FileChannel channel = in.getChannel();
+            long offset = HEADER_LENGTH;
+            for (int i = 0; i < numSequences; i++) {
+                tracks.tracksBySequence.put(names[i], channel.map(FileChannel.MapMode.READ_ONLY, offset, lengths[i] + 1));
+                offset += lengths[i] + 1;
+            }
+            return tracks;
+        } catch (final EOFException eofe) {
+            return null;
+        } catch (final IOException ioe) {
+            throw new PicardException("Could not read GC cache " + cacheFile.getAbsolutePath(), ioe);
+        }
+    }
+}
@@ -40,6 +40,7 @@ import picard.PicardException;
 import picard.cmdline.CommandLineProgram;
 import picard.cmdline.Option;
 import picard.cmdline.StandardOptionDefinitions;
+import picard.util.Instrumentation;
 
 import java.io.File;
 import java.util.Arrays;
@@ -126,6 +127,11 @@ public abstract class SinglePassSamProgram extends CommandLineProgram {
 
         final ProgressLogger progress = new ProgressLogger(log);
 
+        // Time each program's handling of reads only when the times will be reported, as it costs two clock reads a read
+        final Instrumentation instrumentation = Instrumentation.get();
+        final boolean timePrograms = instrumentation.isEnabled();
+        final long[] acceptReadNanos = new long[programs.size()];
+
         for (final SAMRecord rec : in) {
             final ReferenceSequence ref;
             if (walker == null || rec.getReferenceIndex() == SAMRecord.NO_ALIGNMENT_REFERENCE_INDEX) {
@@ -134,8 +140,18 @@ public abstract class SinglePassSamProgram extends CommandLineProgram {
                 ref = walker.get(rec.getReferenceIndex());
             }
 
-            for (final SinglePassSamProgram program : programs) {
-                program.acceptRead(rec, ref);
+            if (timePrograms) {
+                int i = 0;
+                for (final SinglePassSamProgram program : programs) {
+                    final long start = System.nanoTime();
+                    program.acceptRead(rec, ref);
+                    acceptReadNanos[i++] += System.nanoTime() - start;
+                }
+            }
+            else {
+                for (final SinglePassSamProgram program : programs) {
+                    program.acceptRead(rec, ref);
+                }
             }
 
             progress.record(rec);
@@ -152,9 +168,15 @@ public abstract class SinglePassSamProgram extends CommandLineProgram {
         }
 
         CloserUtil.close(in);
+        instrumentation.counter("SinglePassSamProgram.recordsRead").add(progress.getCount());
 
+        int i = 0;
         for (final SinglePassSamProgram program : programs) {
-            program.finish();
+            final String name = program.getClass().getSimpleName();
+            if (timePrograms) instrumentation.stage(name + ".acceptRead").add(acceptReadNanos[i++], progress.getCount());
+            try (final Instrumentation.Timing timing = instrumentation.time(name + ".finish")) {
+                program.finish();
+            }
         }
     }
 
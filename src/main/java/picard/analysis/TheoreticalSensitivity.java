@@ -30,6 +30,7 @@ import picard.PicardException;
 import picard.util.MathUtil;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Random;
@@ -72,28 +73,113 @@ public class TheoreticalSensitivity {
 
         //qualitySums[m] is a random sample of sums of m quality scores, for m = 0, 1, N - 1
         if (withLogging) log.info("Calculating quality sums from quality sampler");
-        final List<ArrayList<Integer>> qualitySums = qualitySampler.sampleCumulativeSums(N, sampleSize, withLogging);
+        final int[][] qualitySums = qualitySampler.sampleCumulativeSumArrays(N, sampleSize, withLogging);
 
         //if a quality sum of m qualities exceeds the quality sum threshold for n total reads, a SNP is called
-        final ArrayList<Double> qualitySumThresholds = new ArrayList<>(N);
-        final double LOG_10 = Math.log10(2);
-
-        for (int n = 0; n < N; n++) qualitySumThresholds.add(10 * (n * LOG_10 + logOddsThreshold));
+        final double[] qualitySumThresholds = qualitySumThresholds(N, logOddsThreshold);
 
         //probabilityToExceedThreshold[m][n] is the probability that the sum of m quality score
         //exceeds the nth quality sum threshold
         if (withLogging) log.info("Calculating theoretical het sensitivity");
-        final List<ArrayList<Double>> probabilityToExceedThreshold = proportionsAboveThresholds(qualitySums, qualitySumThresholds);
-        final List<ArrayList<Double>> altDepthDistribution = hetAltDepthDistribution(N);
+        final double[][] probabilityToExceedThreshold = new double[N][];
+        for (int m = 0; m < N; m++) probabilityToExceedThreshold[m] = proportionsAboveThresholds(qualitySums[m], qualitySumThresholds);
+        return sensitivity(depthDistribution, hetAltDepthTable(N), probabilityToExceedThreshold);
+    }
+
+    /**
+     * Calculates the same sensitivity as {@link #hetSNPSensitivity(double[], double[], int, double)}, but with the
+     * distribution of each sum of m quality scores found exactly, by convolving the quality distribution with itself,
+     * rather than by sampling.  Only sums up to the largest threshold need be tracked, since quality scores are not
+     * negative and a sum that has reached the threshold stays above it, so the cost grows with the depth cap times
+     * the largest threshold rather than with a sample size.
+     *
+     * @param depthDistribution the probability of depth n is depthDistribution[n] for n = 0, 1. . . N - 1
+     * @param qualityDistribution the probability of quality q is qualityDistribution[q] for q = 0, 1. . . Q
+     * @param logOddsThreshold is the log_10 of the likelihood ratio required to call a SNP
+     */
+    public static double hetSNPSensitivityByConvolution(final double[] depthDistribution, final double[] qualityDistribution,
+                                                        final double logOddsThreshold) {
+        final int N = Math.min(depthDistribution.length, MAX_CONSIDERED_DEPTH + 1);
+        final double[] qualitySumThresholds = qualitySumThresholds(N, logOddsThreshold);
+        final double[][] probabilityToExceedThreshold = probabilitiesAboveThresholds(qualityDistribution, N, qualitySumThresholds);
+        return sensitivity(depthDistribution, hetAltDepthTable(N), probabilityToExceedThreshold);
+    }
+
+    //the quality sum that must be reached to call a SNP with n total reads, for n = 0, 1. . . N - 1
+    private static double[] qualitySumThresholds(final int N, final double logOddsThreshold) {
+        final double[] thresholds = new double[N];
+        final double LOG_10 = Math.log10(2);
+        for (int n = 0; n < N; n++) thresholds[n] = 10 * (n * LOG_10 + logOddsThreshold);
+        return thresholds;
+    }
+
+    //sum over depths n and alt depths m of P(depth n) * P(m alts given n) * P(m alt qualities reach the nth threshold)
+    private static double sensitivity(final double[] depthDistribution, final double[][] altDepthDistribution,
+                                      final double[][] probabilityToExceedThreshold) {
         double result = 0.0;
-        for (int n = 0; n < N; n++) {
+        for (int n = 0; n < altDepthDistribution.length; n++) {
             for (int m = 0; m <= n; m++) {
-                result += depthDistribution[n] * altDepthDistribution.get(n).get(m) * probabilityToExceedThreshold.get(m).get(n);
+                result += depthDistribution[n] * altDepthDistribution[n][m] * probabilityToExceedThreshold[m][n];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns P[m][n], the probability that a sum of m quality scores drawn from the quality distribution is
+     * at least the nth threshold, for m = 0, 1. . . M - 1.  The thresholds must be non-decreasing.
+     *
+     * The distribution of sums of m scores is kept only up to the first integer at or above the largest
+     * threshold; the mass at or beyond it is pooled in the last entry, where it remains as more scores are added.
+     */
+    static double[][] probabilitiesAboveThresholds(final double[] qualityDistribution, final int M, final double[] thresholds) {
+        final double qualityTotal = MathUtil.sum(qualityDistribution);
+        if (qualityTotal <= 0) throw new PicardException("Quality score distribution is empty.");
+        final double[] quality = new double[qualityDistribution.length];
+        for (int q = 0; q < quality.length; q++) quality[q] = qualityDistribution[q] / qualityTotal;
+
+        final int cap = thresholds.length == 0 ? 0 : Math.max(0, (int) Math.ceil(thresholds[thresholds.length - 1]));
+        double[] sumDistribution = new double[cap + 1];
+        double[] next = new double[cap + 1];
+        sumDistribution[0] = 1.0;
+
+        final double[][] result = new double[M][];
+        for (int m = 0; m < M; m++) {
+            result[m] = tailProbabilities(sumDistribution, thresholds);
+            if (m == M - 1) break;
+
+            Arrays.fill(next, 0.0);
+            for (int s = 0; s <= cap; s++) {
+                final double p = sumDistribution[s];
+                if (p == 0) continue;
+                if (s == cap) {
+                    next[cap] += p;
+                    continue;
+                }
+                for (int q = 0; q < quality.length; q++) {
+                    next[Math.min(s + q, cap)] += p * quality[q];
+                }
             }
+            final double[] tmp = sumDistribution;
+            sumDistribution = next;
+            next = tmp;
         }
         return result;
     }
 
+    //the probability that a sum drawn from the distribution is at least each threshold
+    private static double[] tailProbabilities(final double[] sumDistribution, final double[] thresholds) {
+        final double[] tail = new double[thresholds.length];
+        int s = sumDistribution.length;
+        double above = 0.0;
+        for (int n = thresholds.length - 1; n >= 0; n--) {
+            final int first = Math.max(0, (int) Math.ceil(thresholds[n]));
+            while (s > first) above += sumDistribution[--s];
+            tail[n] = Math.min(above, 1.0);
+        }
+        return tail;
+    }
+
     //given L lists of lists and N thresholds, count the proportion of each list above each threshold
     public static List<ArrayList<Double>> proportionsAboveThresholds(final List<ArrayList<Integer>> lists, final List<Double> thresholds) {
         final ArrayList<ArrayList<Double>> result = new ArrayList<>();
@@ -112,6 +198,19 @@ public class TheoreticalSensitivity {
         return result;
     }
 
+    //the proportion of the sample at or above each of the non-decreasing thresholds; sorts the sample in place
+    static double[] proportionsAboveThresholds(final int[] sample, final double[] thresholds) {
+        final double[] proportions = new double[thresholds.length];
+        Arrays.sort(sample);
+        int n = 0;
+        int j = 0;  //index within the ordered sample
+        while (n < thresholds.length && j < sample.length) {
+            if (thresholds[n] > sample[j]) j++;
+            else proportions[n++] = (double) (sample.length - j) / sample.length;
+        }
+        return proportions;
+    }
+
     //Utility function for making table of binomial distribution probabilities nCm * (0.5)^n
     //for n = 0, 1 . . . N - 1 and m = 0, 1. . . n
     public static List<ArrayList<Double>> hetAltDepthDistribution(final int N) {
@@ -130,6 +229,18 @@ public class TheoreticalSensitivity {
         return table;
     }
 
+    //the same table as hetAltDepthDistribution, in arrays
+    static double[][] hetAltDepthTable(final int N) {
+        final double[][] table = new double[N][];
+        for (int n = 0; n < N; n++) {
+            table[n] = new double[n + 1];
+            table[n][0] = Math.pow(0.5, n);
+            for (int m = 1; m < n; m++) table[n][m] = (n * 0.5 / m) * table[n - 1][m - 1];
+            if (n > 0) table[n][n] = table[n][0];
+        }
+        return table;
+    }
+
     /*
     Perform random draws from {0, 1. . . N - 1} according to a list of relative probabilities.
 
@@ -137,7 +248,7 @@ public class TheoreticalSensitivity {
     which works well when the ratio of maximum weight to average weight is not large.
      */
     public static class RouletteWheel {
-        final private List<Double> probabilities;
+        final private double[] probabilities;
         final private int N;
         private int count = 0;
         private Random rng;
@@ -146,15 +257,15 @@ public class TheoreticalSensitivity {
             rng = new Random(51);
             N = weights.length;
 
-            probabilities = new ArrayList<>();
+            probabilities = new double[N];
             final double wMax = MathUtil.max(weights);
 
             if (wMax == 0) {
                 throw new PicardException("Quality score distribution is empty.");
             }
 
-            for (final double w : weights) {
-                probabilities.add(w / wMax);
+            for (int i = 0; i < N; i++) {
+                probabilities[i] = weights[i] / wMax;
             }
         }
 
@@ -162,7 +273,7 @@ public class TheoreticalSensitivity {
             while (true) {
                 final int n = (int) (N * rng.nextDouble());
                 count++;
-                if (rng.nextDouble() < probabilities.get(n)) {
+                if (rng.nextDouble() < probabilities[n]) {
                     count = 0;
                     return n;
                 } else if (count >= SAMPLING_MAX) {
@@ -174,13 +285,24 @@ public class TheoreticalSensitivity {
 
         //get samples of sums of 0, 1, 2,. . .  N - 1 draws
         public List<ArrayList<Integer>> sampleCumulativeSums(final int maxNumberOfSummands, final int sampleSize, final boolean withLogging) {
+            final int[][] sums = sampleCumulativeSumArrays(maxNumberOfSummands, sampleSize, withLogging);
             final List<ArrayList<Integer>> result = new ArrayList<>();
-            for (int m = 0; m < maxNumberOfSummands; m++) result.add(new ArrayList<>());
+            for (final int[] row : sums) {
+                final ArrayList<Integer> list = new ArrayList<>(row.length);
+                for (final int sum : row) list.add(sum);
+                result.add(list);
+            }
+            return result;
+        }
+
+        //as sampleCumulativeSums, with result[m][iteration] the sum of m draws in each iteration, drawn in the same order
+        int[][] sampleCumulativeSumArrays(final int maxNumberOfSummands, final int sampleSize, final boolean withLogging) {
+            final int[][] result = new int[maxNumberOfSummands][sampleSize];
 
             for (int iteration = 0; iteration < sampleSize; iteration++) {
                 int cumulativeSum = 0;
                 for (int m = 0; m < maxNumberOfSummands; m++) {
-                    result.get(m).add(cumulativeSum);
+                    result[m][iteration] = cumulativeSum;
                     cumulativeSum += draw();
                 }
                 if (withLogging && iteration % 1000 == 0) {
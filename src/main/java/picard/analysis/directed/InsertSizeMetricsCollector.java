@@ -57,6 +57,12 @@ public class InsertSizeMetricsCollector extends MultiLevelCollector<InsertSizeMe
         return new InsertSizeCollectorArgs(insertSize, orientation);
     }
 
+    /** Each child collector keeps its own histograms and needs nothing but its args. */
+    @Override
+    protected boolean supportsParallelLevels() {
+        return true;
+    }
+
     /** Make an InsertSizeCollector with the given arguments */
     @Override
     protected PerUnitMetricCollector<InsertSizeMetrics, Integer, InsertSizeCollectorArgs> makeChildCollector(final String sample, final String library, final String readGroup) {
@@ -17,6 +17,7 @@ import picard.analysis.MetricAccumulationLevel;
 import picard.analysis.RnaSeqMetrics;
 import picard.annotation.Gene;
 import picard.annotation.LocusFunction;
+import picard.annotation.LocusFunctionTrack;
 import picard.metrics.PerUnitMetricCollector;
 import picard.metrics.SAMRecordMultiLevelCollector;
 import picard.util.MathUtil;
@@ -41,6 +42,7 @@ public class RnaSeqMetricsCollector extends SAMRecordMultiLevelCollector<RnaSeqM
     final private Set<Integer> ignoredSequenceIndices;
 
     private final OverlapDetector<Gene> geneOverlapDetector;
+    private final LocusFunctionTrack locusFunctionTrack;
     private final OverlapDetector<Interval> ribosomalSequenceOverlapDetector;
     private final boolean collectCoverageStatistics;
     
@@ -51,6 +53,7 @@ public class RnaSeqMetricsCollector extends SAMRecordMultiLevelCollector<RnaSeqM
         this.ribosomalInitialValue  = ribosomalBasesInitialValue;
         this.ignoredSequenceIndices = ignoredSequenceIndices;
         this.geneOverlapDetector    = geneOverlapDetector;
+        this.locusFunctionTrack     = new LocusFunctionTrack(geneOverlapDetector.getAll());
         this.ribosomalSequenceOverlapDetector = ribosomalSequenceOverlapDetector;
         this.minimumLength          = minimumLength;
         this.strandSpecificity      = strandSpecificity;
@@ -59,6 +62,12 @@ public class RnaSeqMetricsCollector extends SAMRecordMultiLevelCollector<RnaSeqM
         setup(accumulationLevels, samRgRecords);
     }
 
+    /** The overlap detectors, locus function track and ignored sequences shared by the child collectors are only read once constructed. */
+    @Override
+    protected boolean supportsParallelLevels() {
+        return true;
+    }
+
     @Override
     protected PerUnitMetricCollector<RnaSeqMetrics, Integer, SAMRecord> makeChildCollector(final String sample, final String library, final String readGroup) {
         return new PerUnitRnaSeqMetricsCollector(sample, library, readGroup, ribosomalInitialValue);
@@ -176,60 +185,39 @@ public class RnaSeqMetricsCollector extends SAMRecordMultiLevelCollector<RnaSeqM
 
             final Collection<Gene> overlappingGenes                  = geneOverlapDetector.getOverlaps(readInterval);
             final List<AlignmentBlock> alignmentBlocks               = rec.getAlignmentBlocks();
-            boolean overlapsExon = false;
 
+            // Tally the function of each base in the alignment blocks.
+            final long[] basesByFunction = new long[LocusFunction.values().length];
             for (final AlignmentBlock alignmentBlock : alignmentBlocks) {
-                // Get functional class for each position in the alignment block.
-                final LocusFunction[] locusFunctions = new LocusFunction[alignmentBlock.getLength()];
-
-                // By default, if base does not overlap with rRNA or gene, it is intergenic.
-                Arrays.fill(locusFunctions, 0, locusFunctions.length, LocusFunction.INTERGENIC);
-
-                for (final Gene gene : overlappingGenes) {
-                    for (final Gene.Transcript transcript : gene) {
-                        transcript.assignLocusFunctionForRange(alignmentBlock.getReferenceStart(), locusFunctions);
-                        // if you want to gather coverage statistics, this variable should be true.
-                        // added for cases with many units [samples/read groups] which overwhelm memory.                
-                        // Add coverage to our coverage counter for this transcript
-                        if (collectCoverageStatistics) {
+                final int blockStart = alignmentBlock.getReferenceStart();
+                final int blockEnd = CoordMath.getEnd(blockStart, alignmentBlock.getLength());
+                locusFunctionTrack.countLocusFunctions(rec.getReferenceName(), blockStart, blockEnd, basesByFunction);
+
+                // if you want to gather coverage statistics, this variable should be true.
+                // added for cases with many units [samples/read groups] which overwhelm memory.
+                // Add coverage to our coverage counter for each transcript whose exons the block may reach
+                if (collectCoverageStatistics) {
+                    for (final Gene gene : overlappingGenes) {
+                        for (final Gene.Transcript transcript : gene) {
+                            if (transcript.exons.length == 0 || transcript.start() >= blockEnd || transcript.end() < blockStart) continue;
                             int[] coverage = this.coverageByTranscript.get(transcript);
                             if (coverage == null) {
                                 coverage = new int[transcript.length()];
                                 this.coverageByTranscript.put(transcript, coverage);
                             }
-                            transcript.addCoverageCounts(alignmentBlock.getReferenceStart(),
-                                    CoordMath.getEnd(alignmentBlock.getReferenceStart(), alignmentBlock.getLength()),
-                                    coverage);
+                            transcript.addCoverageCounts(blockStart, blockEnd, coverage);
                         }
-
-                    }
-                }
-
-                // Tally the function of each base in the alignment block.
-                for (final LocusFunction locusFunction : locusFunctions) {
-                    ++metrics.PF_ALIGNED_BASES;
-                    switch (locusFunction) {
-                        case INTERGENIC:
-                            ++metrics.INTERGENIC_BASES;
-                            break;
-                        case INTRONIC:
-                            ++metrics.INTRONIC_BASES;
-                            break;
-                        case UTR:
-                            ++metrics.UTR_BASES;
-                            overlapsExon = true;
-                            break;
-                        case CODING:
-                            ++metrics.CODING_BASES;
-                            overlapsExon = true;
-                            break;
-                        case RIBOSOMAL:
-                            ++metrics.RIBOSOMAL_BASES;
-                            break;
                     }
                 }
             }
 
+            metrics.PF_ALIGNED_BASES += MathUtil.sum(basesByFunction, 0, basesByFunction.length);
+            metrics.INTERGENIC_BASES += basesByFunction[LocusFunction.INTERGENIC.ordinal()];
+            metrics.INTRONIC_BASES   += basesByFunction[LocusFunction.INTRONIC.ordinal()];
+            metrics.UTR_BASES        += basesByFunction[LocusFunction.UTR.ordinal()];
+            metrics.CODING_BASES     += basesByFunction[LocusFunction.CODING.ordinal()];
+            final boolean overlapsExon = basesByFunction[LocusFunction.UTR.ordinal()] > 0 || basesByFunction[LocusFunction.CODING.ordinal()] > 0;
+
             // Strand-specificity is tallied on read basis rather than base at a time.  A read that aligns to more than one
             // gene is not counted.
             if (!rec.getNotPrimaryAlignmentFlag() && overlapsExon && strandSpecificity != StrandSpecificity.NONE && overlappingGenes.size() == 1) {
@@ -153,11 +153,7 @@ public class Gene extends Interval implements Iterable<Gene.Transcript>  {
 
                 if (locusFunctions[i - start].ordinal() > LocusFunction.CODING.ordinal()) continue;
 
-                final LocusFunction locusFunction;
-                if (inExon(i)) {
-                    if (utr(i)) locusFunction = LocusFunction.UTR;
-                    else locusFunction = LocusFunction.CODING;
-                } else locusFunction = LocusFunction.INTRONIC;
+                final LocusFunction locusFunction = getLocusFunction(i);
                 if (locusFunction.ordinal() > locusFunctions[i - start].ordinal()) {
                     locusFunctions[i - start] = locusFunction;
                 }
@@ -165,15 +161,31 @@ public class Gene extends Interval implements Iterable<Gene.Transcript>  {
         }
 
         /**
-         *
+         * The function of a position relative to this transcript: CODING or UTR within an exon, INTRONIC elsewhere
+         * between the transcription start and end, and INTERGENIC outside them.
+         * @param locus 1-based genomic coordinate.
+         */
+        public LocusFunction getLocusFunction(final int locus) {
+            if (locus < transcriptionStart || locus > transcriptionEnd) return LocusFunction.INTERGENIC;
+            if (!inExon(locus)) return LocusFunction.INTRONIC;
+            return utr(locus) ? LocusFunction.UTR : LocusFunction.CODING;
+        }
+
+        /**
+         * Adds one to the coverage of each transcript base that is aligned to a genomic position from genomeStart
+         * up to but not including genomeEnd.  Walks the exons once rather than finding the exon of each position.
          * @param genomeStart
          * @param genomeEnd
          * @param coverage
          */
         public void addCoverageCounts(final int genomeStart, final int genomeEnd, final int[] coverage) {
-            for (int i=genomeStart; i<genomeEnd; ++i) {
-                final int txBase = getTranscriptCoordinate(i);
-                if (txBase > 0) coverage[txBase-1]++;
+            int exonOffset = 0;
+            for (final Exon e : exons) {
+                if (e.start >= genomeEnd) break;
+                final int start = Math.max(genomeStart, e.start);
+                final int end = Math.min(genomeEnd - 1, e.end);
+                for (int i = start; i <= end; ++i) coverage[i - e.start + exonOffset]++;
+                exonOffset += CoordMath.getLength(e.start, e.end);
             }
         }
 
@@ -0,0 +1,154 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026 The Broad Institute
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package picard.annotation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The strongest function (see LocusFunction) of every position of the genome relative to all the transcripts of a
+ * set of genes, as Gene.Transcript.assignLocusFunctionForRange would assign it given every transcript overlapping the
+ * position.  Each sequence is held as runs of positions with the same function, so that the function of a range
+ * is found with one binary search rather than by asking each transcript about each position.
+ *
+ * Once constructed the track is only read, and may be shared between threads.
+ */
+public class LocusFunctionTrack {
+    private static final LocusFunction[] FUNCTIONS = LocusFunction.values();
+
+    /** The runs of one sequence: run i covers the positions from starts[i] up to starts[i + 1]. */
+    private static class Runs {
+        final int[] starts;
+        final byte[] functions;
+
+        Runs(final int[] starts, final byte[] functions) {
+            this.starts = starts;
+            this.functions = functions;
+        }
+    }
+
+    private final Map<String, Runs> runsBySequence = new HashMap<String, Runs>();
+
+    public LocusFunctionTrack(final Collection<Gene> genes) {
+        final Map<String, List<Gene.Transcript>> transcriptsBySequence = new HashMap<String, List<Gene.Transcript>>();
+        for (final Gene gene : genes) {
+            List<Gene.Transcript> transcripts = transcriptsBySequence.get(gene.getContig());
+            if (transcripts == null) {
+                transcripts = new ArrayList<Gene.Transcript>();
+                transcriptsBySequence.put(gene.getContig(), transcripts);
+            }
+            for (final Gene.Transcript transcript : gene) transcripts.add(transcript);
+        }
+
+        for (final Map.Entry<String, List<Gene.Transcript>> entry : transcriptsBySequence.entrySet()) {
+            runsBySequence.put(entry.getKey(), makeRuns(entry.getValue()));
+        }
+    }
+
+    /**
+     * Every position at which the function relative to some transcript may change starts a run, so within a run
+     * each transcript gives every position the same function and it is enough to ask it about the first.
+     */
+    private static Runs makeRuns(final List<Gene.Transcript> transcripts) {
+        int n = 0;
+        int[] boundaries = new int[16];
+        for (final Gene.Transcript tx : transcripts) {
+            if (n + 2 * tx.exons.length + 4 > boundaries.length) {
+                boundaries = Arrays.copyOf(boundaries, Math.max(2 * boundaries.length, n + 2 * tx.exons.length + 4));
+            }
+            boundaries[n++] = tx.transcriptionStart;
+            boundaries[n++] = tx.transcriptionEnd + 1;
+            boundaries[n++] = tx.codingStart;
+            boundaries[n++] = tx.codingEnd + 1;
+            for (final Gene.Transcript.Exon exon : tx.exons) {
+                boundaries[n++] = exon.start;
+                boundaries[n++] = exon.end + 1;
+            }
+        }
+        Arrays.sort(boundaries, 0, n);
+        int unique = 0;
+        for (int i = 0; i < n; i++) {
+            if (unique == 0 || boundaries[i] != boundaries[unique - 1]) boundaries[unique++] = boundaries[i];
+        }
+        final int[] starts = Arrays.copyOf(boundaries, unique);
+
+        final byte[] functions = new byte[starts.length];
+        Arrays.fill(functions, (byte) LocusFunction.INTERGENIC.ordinal());
+        for (final Gene.Transcript tx : transcripts) {
+            for (int run = Arrays.binarySearch(starts, tx.transcriptionStart); run < starts.length && starts[run] <= tx.transcriptionEnd; run++) {
+                final int function = tx.getLocusFunction(starts[run]).ordinal();
+                if (function > functions[run]) functions[run] = (byte) function;
+            }
+        }
+        return new Runs(starts, functions);
+    }
+
+    /** The strongest function of the position relative to all the transcripts; INTERGENIC if there are none. */
+    public LocusFunction getLocusFunction(final String sequence, final int position) {
+        final Runs runs = runsBySequence.get(sequence);
+        if (runs == null) return LocusFunction.INTERGENIC;
+        final int run = findRun(runs, position);
+        return run < 0 ? LocusFunction.INTERGENIC : FUNCTIONS[runs.functions[run]];
+    }
+
+    /**
+     * Adds to basesByFunction, which is indexed by LocusFunction ordinal, the number of positions from start to end
+     * inclusive that have each function.
+     */
+    public void countLocusFunctions(final String sequence, final int start, final int end, final long[] basesByFunction) {
+        if (end < start) return;
+        final Runs runs = runsBySequence.get(sequence);
+        if (runs == null) {
+            basesByFunction[LocusFunction.INTERGENIC.ordinal()] += end - start + 1;
+            return;
+        }
+
+        int run = findRun(runs, start);
+        int position = start;
+        if (run < 0) {
+            // Before the first run
+            final int runEnd = Math.min(end, runs.starts[0] - 1);
+            basesByFunction[LocusFunction.INTERGENIC.ordinal()] += runEnd - position + 1;
+            position = runEnd + 1;
+            run = 0;
+        }
+        while (position <= end) {
+            // The last run extends past the end of every transcript, and so is intergenic
+            final int runEnd = run + 1 < runs.starts.length ? Math.min(end, runs.starts[run + 1] - 1) : end;
+            basesByFunction[runs.functions[run]] += runEnd - position + 1;
+            position = runEnd + 1;
+            run++;
+        }
+    }
+
+    /** The index of the run containing the position, or -1 if it precedes the first run. */
+    private static int findRun(final Runs runs, final int position) {
+        final int i = Arrays.binarySearch(runs.starts, position);
+        return i >= 0 ? i : -i - 2;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026 The Broad Institute
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package picard.benchmark;
+
+import htsjdk.samtools.metrics.MetricBase;
+
+/**
+ * The resources used by one run of a tool benchmarked by BenchmarkPicardTools.  Resources are those of the whole JVM
+ * while the tool ran, since the tool runs within it.
+ */
+public class BenchmarkMetrics extends MetricBase {
+    /** The tool that was run. */
+    public String TOOL;
+
+    /** Which run of the tool this was, from 1. */
+    public int ITERATION;
+
+    /** The elapsed time of the run. */
+    public double WALL_TIME_SECONDS;
+
+    /** The CPU time used by all threads of the JVM during the run, or -1 if the JVM does not report it. */
+    public double CPU_TIME_SECONDS;
+
+    /**
+     * The sum of the peak usage of each heap memory pool during the run.  Pools do not all peak at once, so this is
+     * an upper bound on the peak heap usage.
+     */
+    public long PEAK_HEAP_BYTES;
+
+    /** The number of garbage collections during the run. */
+    public long GC_COUNT;
+
+    /** The time spent in garbage collection during the run, as reported by the collectors. */
+    public double GC_TIME_SECONDS;
+
+    /**
+     * The bytes read by the JVM during the run through read system calls, whether or not they came from the page
+     * cache, as given by /proc/self/io, or -1 if that is not available.  Files read through memory maps are not counted.
+     */
+    public long BYTES_READ;
+
+    /** The bytes written by the JVM during the run through write system calls, or -1 if /proc/self/io is not available. */
+    public long BYTES_WRITTEN;
+}
@@ -0,0 +1,248 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026 The Broad Institute
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package picard.benchmark;
+
+import htsjdk.samtools.metrics.MetricsFile;
+import htsjdk.samtools.util.IOUtil;
+import htsjdk.samtools.util.Log;
+import picard.PicardException;
+import picard.analysis.CollectMultipleMetrics;
+import picard.cmdline.CommandLineProgram;
+import picard.cmdline.CommandLineProgramProperties;
+import picard.cmdline.Option;
+import picard.cmdline.StandardOptionDefinitions;
+import picard.cmdline.programgroups.Testing;
+import picard.illumina.IlluminaBasecallsToSam;
+import picard.sam.MergeBamAlignment;
+import picard.sam.markduplicates.MarkDuplicates;
+import picard.vcf.SortVcf;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs whole tools on synthetic inputs of a given size and records the resources each run used, so that the
+ * throughput of versions of Picard, or of settings such as the number of threads, can be compared on one machine
+ * without any data beyond what is made here.
+ *
+ * The inputs are made by SyntheticInputs from RANDOM_SEED, so a given command line gives the same inputs each time.
+ * Tools run within this JVM one after another, each ITERATIONS times, and their outputs are deleted between runs.
+ */
+@CommandLineProgramProperties(
+        usage = "Synthesizes an Illumina basecalls directory, aligned and unaligned BAMs and an unsorted VCF of the sizes given, " +
+                "then runs each of the tools chosen, or all of them if none are, on them and writes the wall time, CPU time, peak heap, garbage collection and " +
+                "bytes read and written of each run to a metrics file.",
+        usageShort = "Benchmarks whole tools on synthetic inputs",
+        programGroup = Testing.class
+)
+public class BenchmarkPicardTools extends CommandLineProgram {
+    /** The tools that can be benchmarked. */
+    public enum BenchmarkedTool {
+        IlluminaBasecallsToSam, MarkDuplicates, CollectMultipleMetrics, MergeBamAlignment, SortVcf
+    }
+
+    @Option(shortName = StandardOptionDefinitions.OUTPUT_SHORT_NAME, doc = "The metrics file to write the resources used by each run to.")
+    public File OUTPUT;
+
+    @Option(doc = "The directory to make inputs and run tools in. If not given, a temporary directory is used and deleted afterwards.",
+            optional = true)
+    public File WORKING_DIR;
+
+    @Option(shortName = "T", doc = "The tools to benchmark, in the order to run them. If none are given, all of them are run in " +
+            "the order listed.")
+    public List<BenchmarkedTool> TOOL = new ArrayList<BenchmarkedTool>();
+
+    @Option(doc = "The number of times to run each tool. Early runs include the cost of loading classes and compiling.")
+    public int ITERATIONS = 3;
+
+    @Option(doc = "The seed from which all inputs are drawn.")
+    public long RANDOM_SEED = 42;
+
+    @Option(doc = "The number of contigs in the synthetic reference.")
+    public int NUM_CONTIGS = 4;
+
+    @Option(doc = "The length of each contig in the synthetic reference.")
+    public int CONTIG_LENGTH = 5000000;
+
+    @Option(doc = "The length of each read, both in the basecalls directory, which has two template reads, and in the BAMs.")
+    public int READ_LENGTH = 101;
+
+    @Option(doc = "The number of tiles in the basecalls directory, for IlluminaBasecallsToSam.")
+    public int NUM_TILES = 4;
+
+    @Option(doc = "The number of clusters in each tile of the basecalls directory, for IlluminaBasecallsToSam.")
+    public int CLUSTERS_PER_TILE = 100000;
+
+    @Option(doc = "The number of read pairs in the BAMs, for MarkDuplicates, CollectMultipleMetrics and MergeBamAlignment.")
+    public int NUM_READ_PAIRS = 1000000;
+
+    @Option(doc = "The fraction of read pairs that are duplicates of another.")
+    public double DUPLICATE_FRACTION = 0.1;
+
+    @Option(doc = "The number of variants in the VCF, for SortVcf.")
+    public int NUM_VARIANTS = 500000;
+
+    @Option(doc = "The number of samples in the VCF, for SortVcf.")
+    public int NUM_SAMPLES = 10;
+
+    private static final Log log = Log.getInstance(BenchmarkPicardTools.class);
+    private static final int LANE = 1;
+
+    private SyntheticInputs inputs;
+    private File basecallsDir;
+    private SyntheticInputs.ReadPairFiles readPairs;
+    private File unsortedVcf;
+
+    /** Stock main method. */
+    public static void main(final String[] args) {
+        new BenchmarkPicardTools().instanceMainWithExit(args);
+    }
+
+    @Override
+    protected String[] customCommandLineValidation() {
+        final List<String> errors = new ArrayList<String>();
+        if (ITERATIONS < 1) errors.add("ITERATIONS must be at least 1.");
+        if (NUM_CONTIGS < 1) errors.add("NUM_CONTIGS must be at least 1.");
+        if (READ_LENGTH < 1) errors.add("READ_LENGTH must be at least 1.");
+        if (CONTIG_LENGTH <= 2 * READ_LENGTH + 400) errors.add("CONTIG_LENGTH must be longer than the largest insert, 2 * READ_LENGTH + 400.");
+        if (NUM_TILES < 1 || CLUSTERS_PER_TILE < 1) errors.add("NUM_TILES and CLUSTERS_PER_TILE must be at least 1.");
+        if (NUM_READ_PAIRS < 1 || NUM_VARIANTS < 1 || NUM_SAMPLES < 1) errors.add("NUM_READ_PAIRS, NUM_VARIANTS and NUM_SAMPLES must be at least 1.");
+        if (DUPLICATE_FRACTION < 0 || DUPLICATE_FRACTION >= 1) errors.add("DUPLICATE_FRACTION must be at least 0 and less than 1.");
+        return errors.isEmpty() ? super.customCommandLineValidation() : errors.toArray(new String[errors.size()]);
+    }
+
+    @Override
+    protected int doWork() {
+        IOUtil.assertFileIsWritable(OUTPUT);
+        final boolean deleteWorkingDir = WORKING_DIR == null;
+        final File workingDir = deleteWorkingDir ? IOUtil.createTempDir("BenchmarkPicardTools", null) : WORKING_DIR;
+        if (!deleteWorkingDir) workingDir.mkdirs();
+        IOUtil.assertDirectoryIsWritable(workingDir);
+
+        try {
+            final File inputDir = new File(workingDir, "inputs");
+            inputDir.mkdirs();
+            inputs = new SyntheticInputs(inputDir, RANDOM_SEED);
+
+            final MetricsFile<BenchmarkMetrics, Integer> metricsFile = getMetricsFile();
+            final ResourceMonitor monitor = new ResourceMonitor();
+            final List<BenchmarkedTool> tools = TOOL.isEmpty() ? Arrays.asList(BenchmarkedTool.values()) : TOOL;
+            for (final BenchmarkedTool tool : tools) {
+                final File outputDir = new File(workingDir, tool.name());
+                final List<String> args = prepare(tool, outputDir);
+
+                for (int iteration = 1; iteration <= ITERATIONS; ++iteration) {
+                    outputDir.mkdirs();
+                    log.info("Running " + tool + ", iteration " + iteration + " of " + ITERATIONS);
+
+                    final BenchmarkMetrics metrics = new BenchmarkMetrics();
+                    metrics.TOOL = tool.name();
+                    metrics.ITERATION = iteration;
+                    monitor.start();
+                    final int status = newInstance(tool).instanceMain(args.toArray(new String[args.size()]));
+                    monitor.stop(metrics);
+                    if (status != 0) throw new PicardException(tool + " failed with exit status " + status);
+
+                    metricsFile.addMetric(metrics);
+                    IOUtil.deleteDirectoryTree(outputDir);
+                }
+            }
+            metricsFile.write(OUTPUT);
+        }
+        finally {
+            if (deleteWorkingDir) IOUtil.deleteDirectoryTree(workingDir);
+        }
+        return 0;
+    }
+
+    private static CommandLineProgram newInstance(final BenchmarkedTool tool) {
+        switch (tool) {
+            case IlluminaBasecallsToSam: return new IlluminaBasecallsToSam();
+            case MarkDuplicates: return new MarkDuplicates();
+            case CollectMultipleMetrics: return new CollectMultipleMetrics();
+            case MergeBamAlignment: return new MergeBamAlignment();
+            case SortVcf: return new SortVcf();
+            default: throw new IllegalArgumentException("Unknown tool " + tool);
+        }
+    }
+
+    /** Makes the inputs a tool needs, if an earlier tool has not, and returns its arguments for writing to outputDir. */
+    private List<String> prepare(final BenchmarkedTool tool, final File outputDir) {
+        if (inputs.getReference() == null) inputs.writeReference(NUM_CONTIGS, CONTIG_LENGTH);
+
+        final List<String> args = new ArrayList<String>();
+        switch (tool) {
+            case IlluminaBasecallsToSam:
+                if (basecallsDir == null) basecallsDir = inputs.writeBasecallsDir(LANE, NUM_TILES, CLUSTERS_PER_TILE, 2 * READ_LENGTH);
+                args.add("BASECALLS_DIR=" + basecallsDir.getAbsolutePath());
+                args.add("LANE=" + LANE);
+                args.add("READ_STRUCTURE=" + READ_LENGTH + "T" + READ_LENGTH + "T");
+                args.add("RUN_BARCODE=BENCHMARK");
+                args.add("SAMPLE_ALIAS=" + SyntheticInputs.SAMPLE_NAME);
+                args.add("LIBRARY_NAME=" + SyntheticInputs.LIBRARY_NAME);
+                args.add("OUTPUT=" + new File(outputDir, "basecalls.bam").getAbsolutePath());
+                break;
+            case MarkDuplicates:
+                prepareReadPairs();
+                args.add("INPUT=" + readPairs.coordinateSortedBam.getAbsolutePath());
+                args.add("OUTPUT=" + new File(outputDir, "marked.bam").getAbsolutePath());
+                args.add("METRICS_FILE=" + new File(outputDir, "duplicate_metrics").getAbsolutePath());
+                break;
+            case CollectMultipleMetrics:
+                prepareReadPairs();
+                args.add("INPUT=" + readPairs.coordinateSortedBam.getAbsolutePath());
+                args.add("OUTPUT=" + new File(outputDir, "metrics").getAbsolutePath());
+                args.add("REFERENCE_SEQUENCE=" + inputs.getReference().getAbsolutePath());
+                break;
+            case MergeBamAlignment:
+                prepareReadPairs();
+                args.add("UNMAPPED_BAM=" + readPairs.unmappedBam.getAbsolutePath());
+                args.add("ALIGNED_BAM=" + readPairs.alignedBam.getAbsolutePath());
+                args.add("OUTPUT=" + new File(outputDir, "merged.bam").getAbsolutePath());
+                args.add("REFERENCE_SEQUENCE=" + inputs.getReference().getAbsolutePath());
+                break;
+            case SortVcf:
+                if (unsortedVcf == null) unsortedVcf = inputs.writeUnsortedVcf(NUM_VARIANTS, NUM_SAMPLES);
+                args.add("INPUT=" + unsortedVcf.getAbsolutePath());
+                args.add("OUTPUT=" + new File(outputDir, "sorted.vcf.gz").getAbsolutePath());
+                break;
+        }
+
+        // Run the tool with the settings of this program that affect its performance
+        for (final File tmpDir : TMP_DIR) args.add("TMP_DIR=" + tmpDir.getAbsolutePath());
+        args.add("VERBOSITY=" + VERBOSITY);
+        args.add("QUIET=" + QUIET);
+        args.add("COMPRESSION_LEVEL=" + COMPRESSION_LEVEL);
+        args.add("COMPRESSION_THREADS=" + COMPRESSION_THREADS);
+        if (MAX_RECORDS_IN_RAM != null) args.add("MAX_RECORDS_IN_RAM=" + MAX_RECORDS_IN_RAM);
+        args.add("CREATE_INDEX=" + CREATE_INDEX);
+        return args;
+    }
+
+    private void prepareReadPairs() {
+        if (readPairs == null) readPairs = inputs.writeReadPairs(NUM_READ_PAIRS, READ_LENGTH, DUPLICATE_FRACTION);
+    }
+}
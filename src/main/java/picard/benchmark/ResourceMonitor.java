@@ -0,0 +1,117 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026 The Broad Institute
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package picard.benchmark;
+
+import htsjdk.samtools.util.IOUtil;
+
+import java.io.File;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.OperatingSystemMXBean;
+
+/**
+ * Measures the resources used by the JVM between calls to start() and stop(), for BenchmarkMetrics.
+ */
+class ResourceMonitor {
+    private static final File PROC_SELF_IO = new File("/proc/self/io");
+    private static final double NANOS_PER_SECOND = 1e9;
+    private static final double MILLIS_PER_SECOND = 1e3;
+
+    private long startNanos, startCpuNanos, startGcCount, startGcMillis, startBytesRead, startBytesWritten;
+
+    /**
+     * Collects garbage, so that a run is not charged for the garbage of what came before it, then resets the peaks of
+     * the heap pools and notes the starting counts.
+     */
+    public void start() {
+        System.gc();
+        for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) pool.resetPeakUsage();
+        }
+        startGcCount = gcCount();
+        startGcMillis = gcMillis();
+        startBytesRead = ioCounter("rchar");
+        startBytesWritten = ioCounter("wchar");
+        startCpuNanos = cpuNanos();
+        startNanos = System.nanoTime();
+    }
+
+    /** Fills in the resource fields of metrics with those used since start(). */
+    public void stop(final BenchmarkMetrics metrics) {
+        final long endNanos = System.nanoTime();
+        final long endCpuNanos = cpuNanos();
+
+        metrics.WALL_TIME_SECONDS = (endNanos - startNanos) / NANOS_PER_SECOND;
+        metrics.CPU_TIME_SECONDS = endCpuNanos < 0 ? -1 : (endCpuNanos - startCpuNanos) / NANOS_PER_SECOND;
+        metrics.GC_COUNT = gcCount() - startGcCount;
+        metrics.GC_TIME_SECONDS = (gcMillis() - startGcMillis) / MILLIS_PER_SECOND;
+
+        metrics.PEAK_HEAP_BYTES = 0;
+        for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) metrics.PEAK_HEAP_BYTES += pool.getPeakUsage().getUsed();
+        }
+
+        final long bytesRead = ioCounter("rchar"), bytesWritten = ioCounter("wchar");
+        metrics.BYTES_READ = bytesRead < 0 ? -1 : bytesRead - startBytesRead;
+        metrics.BYTES_WRITTEN = bytesWritten < 0 ? -1 : bytesWritten - startBytesWritten;
+    }
+
+    private static long cpuNanos() {
+        final OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        return os instanceof com.sun.management.OperatingSystemMXBean ?
+                ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime() : -1;
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (final GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, collector.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long gcMillis() {
+        long millis = 0;
+        for (final GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, collector.getCollectionTime());
+        }
+        return millis;
+    }
+
+    /** Reads a counter, such as rchar or wchar, from /proc/self/io, returning -1 if it cannot be read. */
+    private static long ioCounter(final String name) {
+        if (!PROC_SELF_IO.canRead()) return -1;
+        try {
+            for (final String line : IOUtil.slurpLines(PROC_SELF_IO)) {
+                if (line.startsWith(name + ":")) return Long.parseLong(line.substring(name.length() + 1).trim());
+            }
+        }
+        catch (final Exception e) {
+            // Fall through, as for a missing counter
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,452 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026 The Broad Institute
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package picard.benchmark;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMFileWriter;
+import htsjdk.samtools.SAMFileWriterFactory;
+import htsjdk.samtools.SAMProgramRecord;
+import htsjdk.samtools.SAMReadGroupRecord;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.SAMTextHeaderCodec;
+import htsjdk.samtools.SamPairUtil;
+import htsjdk.samtools.util.CloserUtil;
+import htsjdk.samtools.util.IOUtil;
+import htsjdk.samtools.util.Log;
+import htsjdk.samtools.util.RuntimeIOException;
+import htsjdk.samtools.util.SequenceUtil;
+import picard.illumina.parser.IlluminaFileUtil;
+import picard.illumina.parser.fakers.BclFileFaker;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Random;
+
+/**
+ * Synthesizes the inputs of the tools run by BenchmarkPicardTools in a working directory: a random reference, an
+ * Illumina basecalls directory, read pairs aligned to the reference with a share of duplicates, and an unsorted VCF.
+ *
+ * Each input is drawn from its own Random, seeded from the seed given and the kind of input, so that an input is the
+ * same whichever other inputs are made and in whatever order.
+ */
+public class SyntheticInputs {
+    private static final Log log = Log.getInstance(SyntheticInputs.class);
+
+    private static final byte[] BASES = {'A', 'C', 'G', 'T'};
+    private static final int FASTA_LINE_LENGTH = 60;
+    private static final int MIN_BASE_QUALITY = 2;
+    private static final int MIN_ALIGNED_BASE_QUALITY = 20;
+    private static final int MAX_BASE_QUALITY = 40;
+    private static final double BASE_ERROR_RATE = 0.01;
+    private static final int MAX_INSERT_SIZE_EXCESS = 400;
+    private static final int FIRST_TILE = 1101;
+    private static final int MAX_POSITION = 20000;
+
+    public static final String READ_GROUP_ID = "A";
+    public static final String SAMPLE_NAME = "Sample";
+    public static final String LIBRARY_NAME = "Library";
+
+    private final File directory;
+    private final long seed;
+
+    private File reference;
+    private SAMSequenceDictionary dictionary;
+    private byte[][] contigBases;
+
+    /** The three BAMs of the same read pairs written by writeReadPairs. */
+    public static class ReadPairFiles {
+        /** The pairs, aligned, in coordinate order and with a read group, as the input of MarkDuplicates. */
+        public final File coordinateSortedBam;
+        /** The pairs, unaligned, in queryname order and with a read group, as the unmapped input of MergeBamAlignment. */
+        public final File unmappedBam;
+        /** The pairs, aligned, in queryname order and without a read group, as the aligned input of MergeBamAlignment. */
+        public final File alignedBam;
+
+        ReadPairFiles(final File coordinateSortedBam, final File unmappedBam, final File alignedBam) {
+            this.coordinateSortedBam = coordinateSortedBam;
+            this.unmappedBam = unmappedBam;
+            this.alignedBam = alignedBam;
+        }
+    }
+
+    public SyntheticInputs(final File directory, final long seed) {
+        this.directory = directory;
+        this.seed = seed;
+        IOUtil.assertDirectoryIsWritable(directory);
+    }
+
+    /** A Random for one kind of input, so that each input is independent of the others made. */
+    private Random randomFor(final String input) {
+        return new Random(seed * 31 + input.hashCode());
+    }
+
+    public File getReference() {
+        return reference;
+    }
+
+    /**
+     * Writes a reference of random bases, with the fasta index and sequence dictionary that tools look for beside it,
+     * and keeps its bases for drawing reads and variants from.
+     */
+    public File writeReference(final int numContigs, final int contigLength) {
+        final Random random = randomFor("reference");
+        reference = new File(directory, "reference.fasta");
+        dictionary = new SAMSequenceDictionary();
+        contigBases = new byte[numContigs][];
+
+        log.info("Writing a reference of " + numContigs + " contigs of " + contigLength + " bases to " + reference);
+        final BufferedWriter fasta = IOUtil.openFileForBufferedWriting(reference);
+        final BufferedWriter index = IOUtil.openFileForBufferedWriting(new File(directory, "reference.fasta.fai"));
+        try {
+            long offset = 0;
+            for (int i = 0; i < numContigs; ++i) {
+                final String name = "chr" + (i + 1);
+                final byte[] bases = new byte[contigLength];
+                for (int j = 0; j < contigLength; ++j) bases[j] = BASES[random.nextInt(BASES.length)];
+                contigBases[i] = bases;
+                dictionary.addSequence(new SAMSequenceRecord(name, contigLength));
+
+                final String nameLine = ">" + name + "\n";
+                fasta.write(nameLine);
+                offset += nameLine.length();
+                index.write(name + "\t" + contigLength + "\t" + offset + "\t" + FASTA_LINE_LENGTH + "\t" + (FASTA_LINE_LENGTH + 1) + "\n");
+                for (int start = 0; start < contigLength; start += FASTA_LINE_LENGTH) {
+                    final int length = Math.min(FASTA_LINE_LENGTH, contigLength - start);
+                    fasta.write(new String(bases, start, length));
+                    fasta.write('\n');
+                    offset += length + 1;
+                }
+            }
+            fasta.close();
+            index.close();
+
+            final SAMFileHeader header = new SAMFileHeader();
+            header.setSequenceDictionary(dictionary);
+            final BufferedWriter dict = IOUtil.openFileForBufferedWriting(new File(directory, "reference.dict"));
+            new SAMTextHeaderCodec().encode(dict, header);
+            dict.close();
+        }
+        catch (final IOException ioe) {
+            throw new RuntimeIOException("Error writing reference to " + directory, ioe);
+        }
+        return reference;
+    }
+
+    /**
+     * Writes an Illumina basecalls directory for one lane, with per-tile, per-cycle BCLs and per-tile filter and locs
+     * files.  The BCLs are laid out by BclFileFaker and then filled with random calls at qualities between
+     * MIN_BASE_QUALITY and MAX_BASE_QUALITY; about a tenth of the clusters fail the filter.
+     *
+     * @return the BaseCalls directory, as given to IlluminaBasecallsToSam
+     */
+    public File writeBasecallsDir(final int lane, final int numTiles, final int clustersPerTile, final int numCycles) {
+        final Random random = randomFor("basecalls");
+        final File intensitiesDir = new File(directory, "run/Data/Intensities");
+        final File basecallsDir = new File(intensitiesDir, "BaseCalls");
+        final File basecallsLaneDir = new File(basecallsDir, IlluminaFileUtil.longLaneStr(lane));
+        final File intensitiesLaneDir = new File(intensitiesDir, IlluminaFileUtil.longLaneStr(lane));
+        log.info("Writing " + numTiles + " tiles of " + clustersPerTile + " clusters over " + numCycles + " cycles to " + basecallsDir);
+
+        final BclFileFaker faker = new BclFileFaker();
+        final byte[] calls = new byte[clustersPerTile];
+        try {
+            for (int cycle = 1; cycle <= numCycles; ++cycle) {
+                final File cycleDir = new File(basecallsLaneDir, "C" + cycle + ".1");
+                cycleDir.mkdirs();
+                for (int tile = FIRST_TILE; tile < FIRST_TILE + numTiles; ++tile) {
+                    final File bcl = new File(cycleDir, "s_" + lane + "_" + tile + ".bcl");
+                    faker.fakeFile(bcl, clustersPerTile);
+                    for (int i = 0; i < clustersPerTile; ++i) {
+                        final int quality = MIN_BASE_QUALITY + random.nextInt(MAX_BASE_QUALITY - MIN_BASE_QUALITY + 1);
+                        calls[i] = (byte) (quality << 2 | random.nextInt(BASES.length));
+                    }
+                    final RandomAccessFile out = new RandomAccessFile(bcl, "rw");
+                    out.seek(Integer.BYTES); // past the cluster count written by the faker
+                    out.write(calls);
+                    out.close();
+                }
+            }
+
+            intensitiesLaneDir.mkdirs();
+            for (int tile = FIRST_TILE; tile < FIRST_TILE + numTiles; ++tile) {
+                final ByteBuffer filter = littleEndianBuffer(12 + clustersPerTile);
+                filter.putInt(0).putInt(3).putInt(clustersPerTile); // zero, version, cluster count
+                for (int i = 0; i < clustersPerTile; ++i) filter.put((byte) (random.nextInt(10) == 0 ? 0 : 1));
+                writeBuffer(filter, new File(basecallsLaneDir, "s_" + lane + "_" + tile + ".filter"));
+
+                final ByteBuffer locs = littleEndianBuffer(12 + 8 * clustersPerTile);
+                locs.putInt(1).putFloat(1.0f).putInt(clustersPerTile); // magic, version, cluster count
+                for (int i = 0; i < clustersPerTile; ++i) {
+                    locs.putFloat(random.nextFloat() * 2000).putFloat(random.nextFloat() * 2000);
+                }
+                writeBuffer(locs, new File(intensitiesLaneDir, "s_" + lane + "_" + tile + ".locs"));
+            }
+        }
+        catch (final IOException ioe) {
+            throw new RuntimeIOException("Error writing basecalls to " + basecallsDir, ioe);
+        }
+        return basecallsDir;
+    }
+
+    private static ByteBuffer littleEndianBuffer(final int size) {
+        final ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+
+    private static void writeBuffer(final ByteBuffer buffer, final File file) throws IOException {
+        buffer.flip();
+        final FileChannel channel = new FileOutputStream(file).getChannel();
+        try {
+            while (buffer.hasRemaining()) channel.write(buffer);
+        }
+        finally {
+            CloserUtil.close(channel);
+        }
+    }
+
+    /**
+     * Writes read pairs drawn from the reference, with about one base in a hundred miscalled, as three BAMs (see
+     * ReadPairFiles).  A duplicateFraction of the pairs repeat the positions of a recent pair, a quarter of those
+     * from a nearby cluster on the same tile so that they count as optical duplicates.  Read names carry the tile
+     * and position of the cluster as their last three fields, as Illumina read names do.
+     */
+    public ReadPairFiles writeReadPairs(final int numPairs, final int readLength, final double duplicateFraction) {
+        if (dictionary == null) throw new IllegalStateException("The reference must be written before the reads drawn from it");
+        final Random random = randomFor("reads");
+        final ReadPairFiles files = new ReadPairFiles(new File(directory, "reads.coordinate.bam"),
+                new File(directory, "reads.unmapped.bam"), new File(directory, "reads.aligned.bam"));
+        log.info("Writing " + numPairs + " read pairs of " + readLength + " bases to " + directory);
+
+        final SAMReadGroupRecord readGroup = new SAMReadGroupRecord(READ_GROUP_ID);
+        readGroup.setSample(SAMPLE_NAME);
+        readGroup.setLibrary(LIBRARY_NAME);
+        readGroup.setPlatform("illumina");
+
+        final SAMFileHeader coordinateHeader = new SAMFileHeader();
+        coordinateHeader.setSequenceDictionary(dictionary);
+        coordinateHeader.setSortOrder(SAMFileHeader.SortOrder.coordinate);
+        coordinateHeader.addReadGroup(readGroup);
+
+        final SAMFileHeader unmappedHeader = new SAMFileHeader();
+        unmappedHeader.setSortOrder(SAMFileHeader.SortOrder.queryname);
+        unmappedHeader.addReadGroup(readGroup);
+
+        final SAMFileHeader alignedHeader = new SAMFileHeader();
+        alignedHeader.setSequenceDictionary(dictionary);
+        alignedHeader.setSortOrder(SAMFileHeader.SortOrder.queryname);
+        final SAMProgramRecord aligner = new SAMProgramRecord("aligner");
+        aligner.setProgramName("aligner");
+        aligner.setProgramVersion("1.0");
+        alignedHeader.addProgramRecord(aligner);
+
+        final SAMFileWriterFactory factory = new SAMFileWriterFactory().setTempDirectory(directory);
+        final SAMFileWriter coordinateWriter = factory.makeBAMWriter(coordinateHeader, false, files.coordinateSortedBam);
+        final SAMFileWriter unmappedWriter = factory.makeBAMWriter(unmappedHeader, false, files.unmappedBam);
+        final SAMFileWriter alignedWriter = factory.makeBAMWriter(alignedHeader, false, files.alignedBam);
+
+        // The templates of recent pairs, which duplicates are copies of
+        final int recent = 1000;
+        final int[] recentContigs = new int[recent], recentStarts = new int[recent], recentInserts = new int[recent];
+        final int[] recentTiles = new int[recent], recentXs = new int[recent], recentYs = new int[recent];
+
+        for (int i = 0; i < numPairs; ++i) {
+            final int contig, start, insert;
+            int tile = FIRST_TILE + random.nextInt(16), x = random.nextInt(MAX_POSITION), y = random.nextInt(MAX_POSITION);
+            if (i > 0 && random.nextDouble() < duplicateFraction) {
+                final int original = random.nextInt(Math.min(i, recent));
+                contig = recentContigs[original];
+                start = recentStarts[original];
+                insert = recentInserts[original];
+                if (random.nextInt(4) == 0) {
+                    tile = recentTiles[original];
+                    x = Math.min(MAX_POSITION, recentXs[original] + random.nextInt(50));
+                    y = Math.min(MAX_POSITION, recentYs[original] + random.nextInt(50));
+                }
+            }
+            else {
+                contig = random.nextInt(contigBases.length);
+                insert = readLength + random.nextInt(MAX_INSERT_SIZE_EXCESS);
+                start = 1 + random.nextInt(contigBases[contig].length - insert);
+            }
+            recentContigs[i % recent] = contig;
+            recentStarts[i % recent] = start;
+            recentInserts[i % recent] = insert;
+            recentTiles[i % recent] = tile;
+            recentXs[i % recent] = x;
+            recentYs[i % recent] = y;
+
+            final String name = "SYNTHETIC:" + i + ":" + tile + ":" + x + ":" + y;
+            final boolean firstIsNegative = random.nextBoolean();
+            final int end = start + insert - readLength;
+            final byte[] bases1 = drawBases(random, contig, firstIsNegative ? end : start, readLength);
+            final byte[] bases2 = drawBases(random, contig, firstIsNegative ? start : end, readLength);
+            final byte[] quals1 = drawQualities(random, readLength);
+            final byte[] quals2 = drawQualities(random, readLength);
+
+            for (final SAMFileWriter writer : new SAMFileWriter[]{coordinateWriter, alignedWriter}) {
+                final SAMFileHeader header = writer.getFileHeader();
+                final SAMRecord first = makeAlignedRecord(header, name, true, contig, firstIsNegative ? end : start, firstIsNegative, bases1, quals1);
+                final SAMRecord second = makeAlignedRecord(header, name, false, contig, firstIsNegative ? start : end, !firstIsNegative, bases2, quals2);
+                SamPairUtil.setMateInfo(first, second, header, true);
+                if (writer == coordinateWriter) {
+                    first.setAttribute(SAMRecord.READ_GROUP_ID, READ_GROUP_ID);
+                    second.setAttribute(SAMRecord.READ_GROUP_ID, READ_GROUP_ID);
+                }
+                writer.addAlignment(first);
+                writer.addAlignment(second);
+            }
+            unmappedWriter.addAlignment(makeUnmappedRecord(unmappedHeader, name, true, firstIsNegative, bases1, quals1));
+            unmappedWriter.addAlignment(makeUnmappedRecord(unmappedHeader, name, false, !firstIsNegative, bases2, quals2));
+        }
+
+        coordinateWriter.close();
+        unmappedWriter.close();
+        alignedWriter.close();
+        return files;
+    }
+
+    /** Copies length bases of a contig from a one-based start, miscalling about one in a hundred. */
+    private byte[] drawBases(final Random random, final int contig, final int start, final int length) {
+        final byte[] bases = new byte[length];
+        System.arraycopy(contigBases[contig], start - 1, bases, 0, length);
+        for (int i = 0; i < length; ++i) {
+            if (random.nextDouble() < BASE_ERROR_RATE) bases[i] = BASES[random.nextInt(BASES.length)];
+        }
+        return bases;
+    }
+
+    private static byte[] drawQualities(final Random random, final int length) {
+        final byte[] quals = new byte[length];
+        for (int i = 0; i < length; ++i) quals[i] = (byte) (MIN_ALIGNED_BASE_QUALITY + random.nextInt(MAX_BASE_QUALITY - MIN_ALIGNED_BASE_QUALITY + 1));
+        return quals;
+    }
+
+    private static SAMRecord makeAlignedRecord(final SAMFileHeader header, final String name, final boolean firstOfPair,
+                                               final int contig, final int start, final boolean negativeStrand,
+                                               final byte[] bases, final byte[] quals) {
+        final SAMRecord record = new SAMRecord(header);
+        record.setReadName(name);
+        record.setReadPairedFlag(true);
+        record.setProperPairFlag(true);
+        record.setFirstOfPairFlag(firstOfPair);
+        record.setSecondOfPairFlag(!firstOfPair);
+        record.setReferenceIndex(contig);
+        record.setAlignmentStart(start);
+        record.setReadNegativeStrandFlag(negativeStrand);
+        record.setCigarString(bases.length + "M");
+        record.setMappingQuality(60);
+        record.setReadBases(bases);
+        record.setBaseQualities(quals);
+        return record;
+    }
+
+    /** Makes the unaligned record of a read, whose bases are as sequenced rather than as aligned to the reference. */
+    private static SAMRecord makeUnmappedRecord(final SAMFileHeader header, final String name, final boolean firstOfPair,
+                                                final boolean negativeStrand, final byte[] bases, final byte[] quals) {
+        final byte[] readBases = bases.clone();
+        final byte[] readQuals = quals.clone();
+        if (negativeStrand) {
+            SequenceUtil.reverseComplement(readBases);
+            SequenceUtil.reverseQualities(readQuals);
+        }
+        final SAMRecord record = new SAMRecord(header);
+        record.setReadName(name);
+        record.setReadPairedFlag(true);
+        record.setFirstOfPairFlag(firstOfPair);
+        record.setSecondOfPairFlag(!firstOfPair);
+        record.setReadUnmappedFlag(true);
+        record.setMateUnmappedFlag(true);
+        record.setReadBases(readBases);
+        record.setBaseQualities(readQuals);
+        record.setAttribute(SAMRecord.READ_GROUP_ID, READ_GROUP_ID);
+        return record;
+    }
+
+    /**
+     * Writes a VCF of biallelic SNPs at random positions of the reference, in the order they were drawn rather than
+     * sorted, with genotypes, qualities and depths for each of numSamples samples.
+     */
+    public File writeUnsortedVcf(final int numVariants, final int numSamples) {
+        if (dictionary == null) throw new IllegalStateException("The reference must be written before the variants drawn from it");
+        final Random random = randomFor("variants");
+        final File vcf = new File(directory, "variants.unsorted.vcf");
+        log.info("Writing " + numVariants + " variants in " + numSamples + " samples to " + vcf);
+
+        final BufferedWriter out = IOUtil.openFileForBufferedWriting(vcf);
+        try {
+            out.write("##fileformat=VCFv4.2\n");
+            out.write("##INFO=<ID=AC,Number=A,Type=Integer,Description=\"Allele count in genotypes\">\n");
+            out.write("##INFO=<ID=AN,Number=1,Type=Integer,Description=\"Total number of alleles in called genotypes\">\n");
+            out.write("##INFO=<ID=DP,Number=1,Type=Integer,Description=\"Combined depth across samples\">\n");
+            out.write("##FORMAT=<ID=GT,Number=1,Type=String,Description=\"Genotype\">\n");
+            out.write("##FORMAT=<ID=GQ,Number=1,Type=Integer,Description=\"Genotype Quality\">\n");
+            out.write("##FORMAT=<ID=DP,Number=1,Type=Integer,Description=\"Read Depth\">\n");
+            for (final SAMSequenceRecord sequence : dictionary.getSequences()) {
+                out.write("##contig=<ID=" + sequence.getSequenceName() + ",length=" + sequence.getSequenceLength() + ">\n");
+            }
+            out.write("#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\tFORMAT");
+            for (int i = 1; i <= numSamples; ++i) out.write("\t" + SAMPLE_NAME + i);
+            out.write('\n');
+
+            final StringBuilder genotypes = new StringBuilder();
+            for (int i = 0; i < numVariants; ++i) {
+                final int contig = random.nextInt(contigBases.length);
+                final int position = 1 + random.nextInt(contigBases[contig].length);
+                final byte ref = contigBases[contig][position - 1];
+                byte alt = ref;
+                while (alt == ref) alt = BASES[random.nextInt(BASES.length)];
+
+                genotypes.setLength(0);
+                int alleleCount = 0, depth = 0;
+                for (int sample = 0; sample < numSamples; ++sample) {
+                    final int draw = random.nextInt(10);
+                    final int altAlleles = draw < 6 ? 0 : draw < 9 ? 1 : 2;
+                    final int sampleDepth = 10 + random.nextInt(50);
+                    alleleCount += altAlleles;
+                    depth += sampleDepth;
+                    genotypes.append('\t').append(altAlleles == 0 ? "0/0" : altAlleles == 1 ? "0/1" : "1/1")
+                            .append(':').append(1 + random.nextInt(99)).append(':').append(sampleDepth);
+                }
+
+                out.write(dictionary.getSequence(contig).getSequenceName() + "\t" + position + "\t.\t" + (char) ref + "\t" + (char) alt +
+                        "\t" + (30 + random.nextInt(1000)) + "\tPASS\tAC=" + alleleCount + ";AN=" + (2 * numSamples) + ";DP=" + depth +
+                        "\tGT:GQ:DP" + genotypes + "\n");
+            }
+            out.close();
+        }
+        catch (final IOException ioe) {
+            throw new RuntimeIOException("Error writing " + vcf, ioe);
+        }
+        return vcf;
+    }
+}
@@ -24,7 +24,6 @@
 package picard.cmdline;
 
 import htsjdk.samtools.Defaults;
-import htsjdk.samtools.SAMFileWriterFactory;
 import htsjdk.samtools.SAMFileWriterImpl;
 import htsjdk.samtools.SamReaderFactory;
 import htsjdk.samtools.ValidationStringency;
@@ -39,6 +38,9 @@ import htsjdk.samtools.util.Log;
 import htsjdk.samtools.util.zip.DeflaterFactory;
 import htsjdk.variant.variantcontext.writer.Options;
 import htsjdk.variant.variantcontext.writer.VariantContextWriterBuilder;
+import picard.metrics.PerformanceMetrics;
+import picard.sam.util.ParallelSAMFileWriterFactory;
+import picard.util.Instrumentation;
 
 import java.io.File;
 import java.lang.annotation.Annotation;
@@ -91,6 +93,10 @@ public abstract class CommandLineProgram {
     @Option(doc = "Compression level for all compressed files created (e.g. BAM and GELI).", common=true)
     public int COMPRESSION_LEVEL = BlockCompressedStreamConstants.DEFAULT_COMPRESSION_LEVEL;
 
+    @Option(doc = "Number of threads used to compress BAM files created by this program. With more than one thread, " +
+            "BGZF blocks are compressed in parallel and written in order; otherwise compression happens on the writing thread.", common=true)
+    public int COMPRESSION_THREADS = 1;
+
     @Option(doc = "When writing SAM files that need to be sorted, this will specify the number of records stored in RAM before spilling to disk. Increasing this number reduces the number of file handles needed to sort a SAM file, and increases the amount of RAM needed.", optional=true, common=true)
     public Integer MAX_RECORDS_IN_RAM = SAMFileWriterImpl.getDefaultMaxRecordsInRam();
 
@@ -100,6 +106,10 @@ public abstract class CommandLineProgram {
     @Option(doc="Whether to create an MD5 digest for any BAM or FASTQ files created.  ", common=true)
     public boolean CREATE_MD5_FILE = Defaults.CREATE_MD5;
 
+    @Option(doc = "If set, the time spent in each stage of this program and counts of what it processed are written to this file " +
+            "as metrics. Programs that do not report their stages write only their total run time.", optional = true, common = true)
+    public File PERFORMANCE_METRICS_FILE;
+
     @Option(shortName = StandardOptionDefinitions.REFERENCE_SHORT_NAME, doc = "Reference sequence file.", common = true, optional = true, overridable = true)
     public File REFERENCE_SEQUENCE = Defaults.REFERENCE_FASTA;
 
@@ -174,10 +184,11 @@ public abstract class CommandLineProgram {
         }
 
         if (CREATE_INDEX){
-            SAMFileWriterFactory.setDefaultCreateIndexWhileWriting(true);
+            ParallelSAMFileWriterFactory.setDefaultCreateIndexWhileWriting(true);
         }
 
-        SAMFileWriterFactory.setDefaultCreateMd5File(CREATE_MD5_FILE);
+        ParallelSAMFileWriterFactory.setDefaultCreateMd5File(CREATE_MD5_FILE);
+        ParallelSAMFileWriterFactory.setDefaultCompressionThreads(COMPRESSION_THREADS);
 
         for (final File f : TMP_DIR) {
             // Intentially not checking the return values, because it may be that the program does not
@@ -203,10 +214,19 @@ public abstract class CommandLineProgram {
             catch (Exception e) { /* Unpossible! */ }
         }
 
+        // Give the program fresh instrumentation, restoring that of any program running this one afterwards
+        final Instrumentation instrumentation = new Instrumentation(PERFORMANCE_METRICS_FILE != null);
+        final Instrumentation callerInstrumentation = Instrumentation.install(instrumentation);
+
         int ret = -1;
         try {
+            if (PERFORMANCE_METRICS_FILE != null) IOUtil.assertFileIsWritable(PERFORMANCE_METRICS_FILE);
+            final Instrumentation.Timing timing = instrumentation.time(getClass().getSimpleName());
             ret = doWork();
+            timing.close();
+            if (PERFORMANCE_METRICS_FILE != null) writePerformanceMetrics(instrumentation);
         } finally {
+            Instrumentation.install(callerInstrumentation);
             try {
                 // Emit the time even if program throws
                 if (!QUIET) {
@@ -225,6 +245,15 @@ public abstract class CommandLineProgram {
         return ret;
     }
 
+    /** Writes what the program reported through its instrumentation to PERFORMANCE_METRICS_FILE. */
+    private void writePerformanceMetrics(final Instrumentation instrumentation) {
+        final MetricsFile<PerformanceMetrics, Integer> metricsFile = getMetricsFile();
+        for (final PerformanceMetrics metrics : instrumentation.getMetrics()) {
+            metricsFile.addMetric(metrics);
+        }
+        metricsFile.write(PERFORMANCE_METRICS_FILE);
+    }
+
     /**
     * Put any custom command-line validation in an override of this method.
     * clp is initialized at this point and can be used to print usage and access argv.
@@ -30,7 +30,7 @@ import picard.cmdline.CommandLineProgramProperties;
 import picard.cmdline.programgroups.Illumina;
 import picard.cmdline.Option;
 import picard.cmdline.StandardOptionDefinitions;
-import picard.illumina.parser.ClusterData;import picard.illumina.parser.IlluminaDataProvider;import picard.illumina.parser.IlluminaDataProviderFactory;import picard.illumina.parser.IlluminaDataType;import picard.illumina.parser.ReadStructure;import picard.illumina.parser.readers.BclQualityEvaluationStrategy;
+import picard.illumina.parser.ClusterBatch;import picard.illumina.parser.IlluminaDataProvider;import picard.illumina.parser.IlluminaDataProviderFactory;import picard.illumina.parser.IlluminaDataType;import picard.illumina.parser.ReadStructure;import picard.illumina.parser.readers.BclQualityEvaluationStrategy;
 import htsjdk.samtools.util.IOUtil;
 import htsjdk.samtools.metrics.MetricsFile;
 import htsjdk.samtools.util.Histogram;
@@ -175,10 +175,11 @@ public class CollectIlluminaBasecallingMetrics extends CommandLineProgram {
         //Initialize data provider, iterate over clusters, and collect statistics
         final IlluminaDataProvider provider = factory.makeDataProvider();
 
-        while (provider.hasNext()) {
-            final ClusterData cluster = provider.next();
-            addCluster(cluster);
+        final ClusterBatch batch = provider.newBatch(ClusterBatch.DEFAULT_CAPACITY);
+        while (provider.nextBatch(batch) > 0) {
+            for (int i = 0; i < batch.size(); i++) addCluster(batch, i);
         }
+        provider.close();
 
         onComplete();
         return 0;
@@ -187,9 +188,9 @@ public class CollectIlluminaBasecallingMetrics extends CommandLineProgram {
     /***
      * Process new cluster of Illumina data - increment a running counter of data
      */
-    private void addCluster(final ClusterData cluster) {
+    private void addCluster(final ClusterBatch batch, final int cluster) {
         //compute hash of Barcode and Lane for key
-        String barcode = cluster.getMatchedBarcode();
+        String barcode = batch.getMatchedBarcode(cluster);
         if (barcode == null) barcode = unmatched_barcode;
 
         //increment counts
@@ -198,8 +199,8 @@ public class CollectIlluminaBasecallingMetrics extends CommandLineProgram {
              counters = new IlluminaMetricCounts(barcode,null,LANE);
              barcodeToMetricCounts.put(barcode, counters);
         }
-        final int tileNumber = cluster.getTile();
-        counters.incrementClusterCount(tileNumber,cluster.isPf());
+        final int tileNumber = batch.getTile(cluster);
+        counters.incrementClusterCount(tileNumber,batch.isPf(cluster));
     }
 
     /**
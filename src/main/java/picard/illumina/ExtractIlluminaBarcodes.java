@@ -34,7 +34,7 @@ import picard.cmdline.CommandLineProgramProperties;
 import picard.cmdline.Option;
 import picard.cmdline.programgroups.Illumina;
 import picard.cmdline.StandardOptionDefinitions;
-import picard.illumina.parser.ClusterData;
+import picard.illumina.parser.ClusterBatch;
 import picard.illumina.parser.IlluminaDataProvider;
 import picard.illumina.parser.IlluminaDataProviderFactory;
 import picard.illumina.parser.IlluminaDataType;
@@ -123,6 +123,16 @@ public class ExtractIlluminaBarcodes extends CommandLineProgram {
             "<hr />"
     ;
 
+    // The barcode matching thresholds, shared with the tools that match barcodes while converting basecalls
+    public static final String MAX_MISMATCHES_DOC = "Maximum mismatches for a barcode to be considered a match.";
+    public static final int DEFAULT_MAX_MISMATCHES = 1;
+    public static final String MIN_MISMATCH_DELTA_DOC = "Minimum difference between number of mismatches in the best and second best barcodes for a barcode to be considered a match.";
+    public static final int DEFAULT_MIN_MISMATCH_DELTA = 1;
+    public static final String MAX_NO_CALLS_DOC = "Maximum allowable number of no-calls in a barcode read before it is considered unmatchable.";
+    public static final int DEFAULT_MAX_NO_CALLS = 2;
+    public static final String MINIMUM_BASE_QUALITY_DOC = "Minimum base quality. Any barcode bases falling below this quality will be considered a mismatch even in the bases match.";
+    public static final int DEFAULT_MINIMUM_BASE_QUALITY = 0;
+
     // The following attributes define the command-line arguments
 
     @Option(doc = "The Illumina basecalls directory. ", shortName = "B")
@@ -149,17 +159,17 @@ public class ExtractIlluminaBarcodes extends CommandLineProgram {
     @Option(doc = "Per-barcode and per-lane metrics written to this file.", shortName = StandardOptionDefinitions.METRICS_FILE_SHORT_NAME)
     public File METRICS_FILE;
 
-    @Option(doc = "Maximum mismatches for a barcode to be considered a match.")
-    public int MAX_MISMATCHES = 1;
+    @Option(doc = MAX_MISMATCHES_DOC)
+    public int MAX_MISMATCHES = DEFAULT_MAX_MISMATCHES;
 
-    @Option(doc = "Minimum difference between number of mismatches in the best and second best barcodes for a barcode to be considered a match.")
-    public int MIN_MISMATCH_DELTA = 1;
+    @Option(doc = MIN_MISMATCH_DELTA_DOC)
+    public int MIN_MISMATCH_DELTA = DEFAULT_MIN_MISMATCH_DELTA;
 
-    @Option(doc = "Maximum allowable number of no-calls in a barcode read before it is considered unmatchable.")
-    public int MAX_NO_CALLS = 2;
+    @Option(doc = MAX_NO_CALLS_DOC)
+    public int MAX_NO_CALLS = DEFAULT_MAX_NO_CALLS;
 
-    @Option(shortName = "Q", doc = "Minimum base quality. Any barcode bases falling below this quality will be considered a mismatch even in the bases match.")
-    public int MINIMUM_BASE_QUALITY = 0;
+    @Option(shortName = "Q", doc = MINIMUM_BASE_QUALITY_DOC)
+    public int MINIMUM_BASE_QUALITY = DEFAULT_MINIMUM_BASE_QUALITY;
 
     @Option(doc = "The minimum quality (after transforming 0s to 1s) expected from reads.  If qualities are lower than this value, an error is thrown." +
             "The default of 2 is what the Illumina's spec describes as the minimum, but in practice the value has been observed lower.")
@@ -200,15 +210,7 @@ public class ExtractIlluminaBarcodes extends CommandLineProgram {
         IOUtil.assertDirectoryIsWritable(OUTPUT_DIR);
 
         // Create BarcodeMetric for counting reads that don't match any barcode
-        final String[] noMatchBarcode = new String[readStructure.sampleBarcodes.length()];
-        int index = 0;
-        for (final ReadDescriptor d : readStructure.descriptors) {
-            if (d.type == ReadType.Barcode) {
-                noMatchBarcode[index++] = StringUtil.repeatCharNTimes('N', d.length);
-            }
-        }
-
-        final BarcodeMetric noMatchMetric = new BarcodeMetric(null, null, IlluminaUtil.barcodeSeqsToString(noMatchBarcode), noMatchBarcode);
+        final BarcodeMetric noMatchMetric = createNoMatchMetric(readStructure);
 
         final int numProcessors;
         if (NUM_PROCESSORS == 0) {
@@ -270,22 +272,41 @@ public class ExtractIlluminaBarcodes extends CommandLineProgram {
             }
         }
 
-        // Finish metrics tallying.
-        finalizeMetrics(barcodeToMetrics, noMatchMetric);
-
         // Warn about minimum qualities and assert that we've achieved the minimum.
         for (Map.Entry<Byte, Integer> entry : bclQualityEvaluationStrategy.getPoorQualityFrequencies().entrySet()) {
             LOG.warn(String.format("Observed low quality of %s %s times.", entry.getKey(), entry.getValue()));
         }
         bclQualityEvaluationStrategy.assertMinimumQualities();
 
-        final MetricsFile<BarcodeMetric, Integer> metrics = getMetricsFile();
+        writeMetrics(barcodeToMetrics, noMatchMetric, getMetricsFile(), METRICS_FILE);
+        return 0;
+    }
+
+    /**
+     * Finishes tallying the given metrics and writes them to output, with the no-match metric last.
+     */
+    public static void writeMetrics(final Map<String, BarcodeMetric> barcodeToMetrics,
+                                    final BarcodeMetric noMatchMetric,
+                                    final MetricsFile<BarcodeMetric, Integer> metrics,
+                                    final File output) {
+        finalizeMetrics(barcodeToMetrics, noMatchMetric);
         for (final BarcodeMetric barcodeMetric : barcodeToMetrics.values()) {
             metrics.addMetric(barcodeMetric);
         }
         metrics.addMetric(noMatchMetric);
-        metrics.write(METRICS_FILE);
-        return 0;
+        metrics.write(output);
+    }
+
+    /** Creates the BarcodeMetric that counts reads matching none of the barcodes, i.e. the symbolic all-N barcode. */
+    public static BarcodeMetric createNoMatchMetric(final ReadStructure readStructure) {
+        final String[] noMatchBarcode = new String[readStructure.sampleBarcodes.length()];
+        int index = 0;
+        for (final ReadDescriptor d : readStructure.descriptors) {
+            if (d.type == ReadType.Barcode) {
+                noMatchBarcode[index++] = StringUtil.repeatCharNTimes('N', d.length);
+            }
+        }
+        return new BarcodeMetric(null, null, IlluminaUtil.barcodeSeqsToString(noMatchBarcode), noMatchBarcode);
     }
 
     public static void finalizeMetrics(final Map<String, BarcodeMetric> barcodeToMetrics,
@@ -544,48 +565,27 @@ public class ExtractIlluminaBarcodes extends CommandLineProgram {
 
     }
 
-    /** Extracts barcodes and accumulates metrics for an entire tile. */
-    private static class PerTileBarcodeExtractor implements Runnable {
-        private final int tile;
-        private final File barcodeFile;
+    /**
+     * Finds the best barcode match for the barcode reads of a cluster and accumulates metrics.  Each instance holds its
+     * own metrics, so use copy() to get an extractor with the same settings for every thread or tile.
+     */
+    public static class BarcodeExtractor {
         private final Map<String, BarcodeMetric> metrics;
         private final BarcodeMetric noMatch;
-        private Exception exception = null;
-        private final boolean usingQualityScores;
-        private final IlluminaDataProvider provider;
-        private final ReadStructure outputReadStructure;
         private final int maxNoCalls, maxMismatches, minMismatchDelta, minimumBaseQuality;
 
-        /** Utility class to hang onto data about the best match for a given barcode */
-        class BarcodeMatch {
-            boolean matched;
-            String barcode;
-            int mismatches;
-            int mismatchesToSecondBest;
-        }
-
         /**
          * Constructor
          *
-         * @param tile             The number of the tile being processed; used for logging only.
-         * @param barcodeFile      The file to write the barcodes to
-         * @param noMatchMetric    A "template" metric that is cloned and the clone is stored internally for accumulating data
          * @param barcodeToMetrics A "template" metric map whose metrics are cloned, and the clones are stored internally for accumulating data
+         * @param noMatchMetric    A "template" metric that is cloned and the clone is stored internally for accumulating data
          */
-        public PerTileBarcodeExtractor(
-                final int tile,
-                final File barcodeFile,
-                final Map<String, BarcodeMetric> barcodeToMetrics,
-                final BarcodeMetric noMatchMetric,
-                final IlluminaDataProviderFactory factory,
-                final int minimumBaseQuality,
-                final int maxNoCalls,
-                final int maxMismatches,
-                final int minMismatchDelta
-        ) {
-            this.tile = tile;
-            this.barcodeFile = barcodeFile;
-            this.usingQualityScores = minimumBaseQuality > 0;
+        public BarcodeExtractor(final Map<String, BarcodeMetric> barcodeToMetrics,
+                                final BarcodeMetric noMatchMetric,
+                                final int maxNoCalls,
+                                final int maxMismatches,
+                                final int minMismatchDelta,
+                                final int minimumBaseQuality) {
             this.maxNoCalls = maxNoCalls;
             this.maxMismatches = maxMismatches;
             this.minMismatchDelta = minMismatchDelta;
@@ -595,76 +595,41 @@ public class ExtractIlluminaBarcodes extends CommandLineProgram {
                 this.metrics.put(key, BarcodeMetric.copy(barcodeToMetrics.get(key)));
             }
             this.noMatch = BarcodeMetric.copy(noMatchMetric);
-            this.provider = factory.makeDataProvider(Arrays.asList(tile));
-            this.outputReadStructure = factory.getOutputReadStructure();
+        }
 
+        /** Returns an extractor with the same barcodes and thresholds as this one, and metrics that are all zero. */
+        public BarcodeExtractor copy() {
+            return new BarcodeExtractor(metrics, noMatch, maxNoCalls, maxMismatches, minMismatchDelta, minimumBaseQuality);
         }
 
-        // These methods return the results of the extraction
-        public synchronized Map<String, BarcodeMetric> getMetrics() {
+        public Map<String, BarcodeMetric> getMetrics() {
             return this.metrics;
         }
 
-        public synchronized BarcodeMetric getNoMatchMetric() { return this.noMatch; }
-
-        public synchronized Exception getException() { return this.exception; }
+        public BarcodeMetric getNoMatchMetric() { return this.noMatch; }
 
-        /** run method which extracts barcodes and accumulates metrics for an entire tile */
-        synchronized public void run() {
-            try {
-                LOG.info("Extracting barcodes for tile " + tile);
+        /** True if base qualities of the barcode reads are needed for matching. */
+        public boolean isUsingQualityScores() { return minimumBaseQuality > 0; }
 
-                //Sometimes makeDataProvider takes a while waiting for slow file IO, for each tile the needed set of files
-                //is non-overlapping sets of files so make the  data providers in the individual threads for PerTileBarcodeExtractors
-                //so they are not all waiting for each others file operations
-
-                //Most likely we have SKIPS in our read structure since we replace all template reads with skips in the input data structure
-                //(see customCommnandLineValidation), therefore we must use the outputReadStructure to index into the output cluster data
-                final int[] barcodeIndices = outputReadStructure.sampleBarcodes.getIndices();
-                final BufferedWriter writer = IOUtil.openFileForBufferedWriting(barcodeFile);
-                final byte[][] barcodeSubsequences = new byte[barcodeIndices.length][];
-                final byte[][] qualityScores = usingQualityScores ? new byte[barcodeIndices.length][] : null;
-                while (provider.hasNext()) {
-                    // Extract the barcode from the cluster and write it to the file for the tile
-                    final ClusterData cluster = provider.next();
-                    for (int i = 0; i < barcodeIndices.length; i++) {
-                        barcodeSubsequences[i] = cluster.getRead(barcodeIndices[i]).getBases();
-                        if (usingQualityScores) qualityScores[i] = cluster.getRead(barcodeIndices[i]).getQualities();
-                    }
-                    final boolean passingFilter = cluster.isPf();
-                    final BarcodeMatch match = findBestBarcodeAndUpdateMetrics(barcodeSubsequences, qualityScores, passingFilter, metrics, noMatch);
-
-                    final String yOrN = (match.matched ? "Y" : "N");
-
-                    for (final byte[] bc : barcodeSubsequences) {
-                        writer.write(StringUtil.bytesToString(bc));
-                    }
-                    writer.write("\t" + yOrN + "\t" + match.barcode + "\t" + String.valueOf(match.mismatches) +
-                            "\t" + String.valueOf(match.mismatchesToSecondBest));
-                    writer.newLine();
-                }
-                writer.close();
-            } catch (final Exception e) {
-                LOG.error(e, "Error processing tile ", this.tile);
-                this.exception = e;
-            }
-            finally{
-                provider.close();
+        /** Adds the metrics accumulated by other, which must have been made by copy() from this or a common extractor. */
+        public synchronized void mergeMetrics(final BarcodeExtractor other) {
+            for (final String key : metrics.keySet()) {
+                metrics.get(key).merge(other.getMetrics().get(key));
             }
+            noMatch.merge(other.getNoMatchMetric());
         }
 
         /**
          * Find the best barcode match for the given read sequence, and accumulate metrics
          *
          * @param readSubsequences portion of read containing barcode
+         * @param qualityScores    qualities of readSubsequences, or null if not isUsingQualityScores()
          * @param passingFilter    PF flag for the current read
          * @return perfect barcode string, if there was a match within tolerance, or null if not.
          */
-        private BarcodeMatch findBestBarcodeAndUpdateMetrics(final byte[][] readSubsequences,
-                                                             final byte[][] qualityScores,
-                                                             final boolean passingFilter,
-                                                             final Map<String, BarcodeMetric> metrics,
-                                                             final BarcodeMetric noMatchBarcodeMetric) {
+        public BarcodeMatch findBestBarcodeAndUpdateMetrics(final byte[][] readSubsequences,
+                                                            final byte[][] qualityScores,
+                                                            final boolean passingFilter) {
             BarcodeMetric bestBarcodeMetric = null;
             int totalBarcodeReadBases = 0;
             int numNoCalls = 0; // NoCalls are calculated for all the barcodes combined
@@ -730,9 +695,9 @@ public class ExtractIlluminaBarcodes extends CommandLineProgram {
                 match.matched = true;
                 match.barcode = bestBarcodeMetric.BARCODE.replaceAll(IlluminaUtil.BARCODE_DELIMITER, "");
             } else {
-                ++noMatchBarcodeMetric.READS;
+                ++noMatch.READS;
                 if (passingFilter) {
-                    ++noMatchBarcodeMetric.PF_READS;
+                    ++noMatch.PF_READS;
                 }
             }
 
@@ -759,4 +724,120 @@ public class ExtractIlluminaBarcodes extends CommandLineProgram {
             return numMismatches;
         }
     }
+
+    /** Utility class to hang onto data about the best match for a given barcode */
+    public static class BarcodeMatch {
+        boolean matched;
+        String barcode;
+        int mismatches;
+        int mismatchesToSecondBest;
+
+        public boolean isMatched() { return matched; }
+
+        /** The matched barcode with delimiters removed, or if unmatched the closest barcode in lower case or "". */
+        public String getBarcode() { return barcode; }
+    }
+
+    /** Extracts barcodes and accumulates metrics for an entire tile. */
+    private static class PerTileBarcodeExtractor implements Runnable {
+        private final int tile;
+        private final File barcodeFile;
+        private final BarcodeExtractor barcodeExtractor;
+        private Exception exception = null;
+        private final boolean usingQualityScores;
+        private final IlluminaDataProvider provider;
+        private final ReadStructure outputReadStructure;
+
+        /**
+         * Constructor
+         *
+         * @param tile             The number of the tile being processed; used for logging only.
+         * @param barcodeFile      The file to write the barcodes to
+         * @param noMatchMetric    A "template" metric that is cloned and the clone is stored internally for accumulating data
+         * @param barcodeToMetrics A "template" metric map whose metrics are cloned, and the clones are stored internally for accumulating data
+         */
+        public PerTileBarcodeExtractor(
+                final int tile,
+                final File barcodeFile,
+                final Map<String, BarcodeMetric> barcodeToMetrics,
+                final BarcodeMetric noMatchMetric,
+                final IlluminaDataProviderFactory factory,
+                final int minimumBaseQuality,
+                final int maxNoCalls,
+                final int maxMismatches,
+                final int minMismatchDelta
+        ) {
+            this.tile = tile;
+            this.barcodeFile = barcodeFile;
+            this.barcodeExtractor = new BarcodeExtractor(barcodeToMetrics, noMatchMetric, maxNoCalls, maxMismatches,
+                    minMismatchDelta, minimumBaseQuality);
+            this.usingQualityScores = barcodeExtractor.isUsingQualityScores();
+            this.provider = factory.makeDataProvider(Arrays.asList(tile));
+            this.outputReadStructure = factory.getOutputReadStructure();
+
+        }
+
+        // These methods return the results of the extraction
+        public synchronized Map<String, BarcodeMetric> getMetrics() {
+            return this.barcodeExtractor.getMetrics();
+        }
+
+        public synchronized BarcodeMetric getNoMatchMetric() { return this.barcodeExtractor.getNoMatchMetric(); }
+
+        public synchronized Exception getException() { return this.exception; }
+
+        /** run method which extracts barcodes and accumulates metrics for an entire tile */
+        synchronized public void run() {
+            try {
+                LOG.info("Extracting barcodes for tile " + tile);
+
+                //Sometimes makeDataProvider takes a while waiting for slow file IO, for each tile the needed set of files
+                //is non-overlapping sets of files so make the  data providers in the individual threads for PerTileBarcodeExtractors
+                //so they are not all waiting for each others file operations
+
+                //Most likely we have SKIPS in our read structure since we replace all template reads with skips in the input data structure
+                //(see customCommnandLineValidation), therefore we must use the outputReadStructure to index into the output cluster data
+                final int[] barcodeIndices = outputReadStructure.sampleBarcodes.getIndices();
+                final BufferedWriter writer = IOUtil.openFileForBufferedWriting(barcodeFile);
+                final ClusterBatch batch = provider.newBatch(ClusterBatch.DEFAULT_CAPACITY);
+
+                // The barcode reads of each cluster are copied out of the batch into the same arrays every time
+                final byte[][] barcodeSubsequences = new byte[barcodeIndices.length][];
+                final byte[][] qualityScores = usingQualityScores ? new byte[barcodeIndices.length][] : null;
+                for (int i = 0; i < barcodeIndices.length; i++) {
+                    barcodeSubsequences[i] = new byte[batch.getReadLength(barcodeIndices[i])];
+                    if (usingQualityScores) qualityScores[i] = new byte[batch.getReadLength(barcodeIndices[i])];
+                }
+
+                while (provider.nextBatch(batch) > 0) {
+                    for (int cluster = 0; cluster < batch.size(); cluster++) {
+                        // Extract the barcode from the cluster and write it to the file for the tile
+                        for (int i = 0; i < barcodeIndices.length; i++) {
+                            final int offset = batch.getReadOffset(cluster, barcodeIndices[i]);
+                            System.arraycopy(batch.getBases(), offset, barcodeSubsequences[i], 0, barcodeSubsequences[i].length);
+                            if (usingQualityScores) System.arraycopy(batch.getQualities(), offset, qualityScores[i], 0, qualityScores[i].length);
+                        }
+                        final boolean passingFilter = batch.isPf(cluster);
+                        final BarcodeMatch match = barcodeExtractor.findBestBarcodeAndUpdateMetrics(barcodeSubsequences, qualityScores, passingFilter);
+
+                        final String yOrN = (match.matched ? "Y" : "N");
+
+                        for (final byte[] bc : barcodeSubsequences) {
+                            writer.write(StringUtil.bytesToString(bc));
+                        }
+                        writer.write("\t" + yOrN + "\t" + match.barcode + "\t" + String.valueOf(match.mismatches) +
+                                "\t" + String.valueOf(match.mismatchesToSecondBest));
+                        writer.newLine();
+                    }
+                }
+                writer.close();
+            } catch (final Exception e) {
+                LOG.error(e, "Error processing tile ", this.tile);
+                this.exception = e;
+            }
+            finally{
+                provider.close();
+            }
+        }
+    }
 }
@@ -35,8 +35,17 @@ import picard.illumina.parser.IlluminaDataType;
 import picard.illumina.parser.ReadStructure;
 import picard.illumina.parser.readers.BclQualityEvaluationStrategy;
 import picard.util.FileChannelJDKBugWorkAround;
+import picard.util.Instrumentation;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -47,12 +56,12 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Queue;
 import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.TreeMap;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -125,6 +134,9 @@ public class IlluminaBasecallsConverter<CLUSTER_OUTPUT_RECORD> {
     private ClusterDataConverter<CLUSTER_OUTPUT_RECORD> converter = null;
     private final ProgressLogger readProgressLogger = new ProgressLogger(log, 1000000, "Read");
     private final ProgressLogger writeProgressLogger = new ProgressLogger(log, 1000000, "Write");
+
+    /** Where tile readers and writers, on whichever threads, report their times and counts. */
+    private final Instrumentation instrumentation = Instrumentation.get();
     private int numThreads;
     // If FORCE_GC, this is non-null.  For production this is not necessary because it will run until the JVM
     // ends, but for unit testing it is desirable to stop the task when done with this instance.
@@ -137,6 +149,19 @@ public class IlluminaBasecallsConverter<CLUSTER_OUTPUT_RECORD> {
     // Annoying that we need this.
     private final Class<CLUSTER_OUTPUT_RECORD> outputRecordClass;
 
+    /**
+     * When splitting maxReadsInRamPerTile across the barcodes would leave fewer than this many records in RAM per
+     * barcode, each tile instead keeps a single SortingCollection ordered by (barcode, record) so that the whole
+     * budget is shared and spills happen in large runs rather than as many tiny files.
+     */
+    public static final int MIN_READS_IN_RAM_PER_BARCODE = 10000;
+
+    /** If non-null, barcodes are matched in-process and the metrics of every tile are merged into this extractor. */
+    private final ExtractIlluminaBarcodes.BarcodeExtractor barcodeExtractor;
+
+    /** True if each tile sorts all of its barcodes' records in one shared SortingCollection. */
+    private final boolean useSharedTileSort;
+
     /**
 	 * @param basecallsDir           Where to read basecalls from.
 	 * @param lane                   What lane to process.
@@ -217,6 +242,55 @@ public class IlluminaBasecallsConverter<CLUSTER_OUTPUT_RECORD> {
                                       final BclQualityEvaluationStrategy bclQualityEvaluationStrategy,
                                       final boolean applyEamssFiltering, final boolean includeNonPfReads,
                                       final boolean ignoreUnexpectedBarcodes
+    ) {
+        this(basecallsDir, barcodesDir, lane, readStructure,
+                barcodeRecordWriterMap, demultiplex, maxReadsInRamPerTile,
+                tmpDirs, numProcessors, forceGc, firstTile, tileLimit,
+                outputRecordComparator, codecPrototype, outputRecordClass,
+                bclQualityEvaluationStrategy, applyEamssFiltering,
+                includeNonPfReads, ignoreUnexpectedBarcodes, null);
+    }
+
+    /**
+     * @param basecallsDir           Where to read basecalls from.
+     * @param barcodesDir            Where to read barcodes from (optional; use basecallsDir if not specified).
+     * @param lane                   What lane to process.
+     * @param readStructure          How to interpret each cluster.
+     * @param barcodeRecordWriterMap Map from barcode to CLUSTER_OUTPUT_RECORD writer.  If demultiplex is false, must contain
+     *                               one writer stored with key=null.
+     * @param demultiplex            If true, output is split by barcode, otherwise all are written to the same output stream.
+     * @param maxReadsInRamPerTile   Configures number of reads each tile will store in RAM before spilling to disk.
+     * @param tmpDirs                For SortingCollection spilling.
+     * @param numProcessors          Controls number of threads.  If <= 0, the number of threads allocated is
+     *                               available cores - numProcessors.
+     * @param forceGc                Force explicit GC periodically.  This is good for causing memory maps to be released.
+     * @param firstTile              (For debugging) If non-null, start processing at this tile.
+     * @param tileLimit              (For debugging) If non-null, process no more than this many tiles.
+     * @param outputRecordComparator For sorting output records within a single tile.
+     * @param codecPrototype         For spilling output records to disk.
+     * @param outputRecordClass      Inconveniently needed to create SortingCollections.
+     * @param includeNonPfReads      If true, will include ALL reads (including those which do not have PF set)
+     * @param ignoreUnexpectedBarcodes  If true, will ignore reads whose called barcode is not found in barcodeRecordWriterMap,
+     *                                  otherwise will throw an exception
+     * @param barcodeExtractor       If non-null and demultiplex is true, barcodes are matched from the barcode reads of each
+     *                               cluster as tiles are read, instead of being read from _barcode.txt files, and the
+     *                               barcode metrics of all tiles are accumulated in this extractor.
+     */
+    public IlluminaBasecallsConverter(final File basecallsDir, File barcodesDir, final int lane,
+                                      final ReadStructure readStructure,
+                                      final Map<String, ? extends ConvertedClusterDataWriter<CLUSTER_OUTPUT_RECORD>> barcodeRecordWriterMap,
+                                      final boolean demultiplex,
+                                      final int maxReadsInRamPerTile,
+                                      final List<File> tmpDirs, final int numProcessors,
+                                      final boolean forceGc, final Integer firstTile,
+                                      final Integer tileLimit,
+                                      final Comparator<CLUSTER_OUTPUT_RECORD> outputRecordComparator,
+                                      final SortingCollection.Codec<CLUSTER_OUTPUT_RECORD> codecPrototype,
+                                      final Class<CLUSTER_OUTPUT_RECORD> outputRecordClass,
+                                      final BclQualityEvaluationStrategy bclQualityEvaluationStrategy,
+                                      final boolean applyEamssFiltering, final boolean includeNonPfReads,
+                                      final boolean ignoreUnexpectedBarcodes,
+                                      final ExtractIlluminaBarcodes.BarcodeExtractor barcodeExtractor
     ) {
         this.barcodeRecordWriterMap = barcodeRecordWriterMap;
         this.demultiplex = demultiplex;
@@ -228,6 +302,13 @@ public class IlluminaBasecallsConverter<CLUSTER_OUTPUT_RECORD> {
         this.bclQualityEvaluationStrategy = bclQualityEvaluationStrategy;
         this.includeNonPfReads = includeNonPfReads;
         this.ignoreUnexpectedBarcodes = ignoreUnexpectedBarcodes;
+        this.barcodeExtractor = demultiplex && !readStructure.sampleBarcodes.isEmpty() ? barcodeExtractor : null;
+        this.useSharedTileSort = demultiplex && barcodeRecordWriterMap.size() > 1 &&
+                maxReadsInRamPerTile / barcodeRecordWriterMap.size() < MIN_READS_IN_RAM_PER_BARCODE;
+        if (this.useSharedTileSort) {
+            log.info(String.format("Sorting the records of all %d barcodes of each tile in a single shared collection.",
+                    barcodeRecordWriterMap.size()));
+        }
 
         // If we're forcing garbage collection, collect every 5 minutes in a daemon thread.
         if (forceGc) {
@@ -247,7 +328,7 @@ public class IlluminaBasecallsConverter<CLUSTER_OUTPUT_RECORD> {
             gcTimerTask = null;
         }
 
-        this.factory = new IlluminaDataProviderFactory(basecallsDir, barcodesDir, lane, readStructure, bclQualityEvaluationStrategy, getDataTypesFromReadStructure(readStructure, demultiplex));
+        this.factory = new IlluminaDataProviderFactory(basecallsDir, barcodesDir, lane, readStructure, bclQualityEvaluationStrategy, getDataTypesFromReadStructure(readStructure, demultiplex && this.barcodeExtractor == null));
         this.factory.setApplyEamssFiltering(applyEamssFiltering);
 
         if (numProcessors == 0) {
@@ -407,6 +488,8 @@ public class IlluminaBasecallsConverter<CLUSTER_OUTPUT_RECORD> {
         final private Map<String, SortingCollection<CLUSTER_OUTPUT_RECORD>> barcodeToRecordCollection =
                 new HashMap<String, SortingCollection<CLUSTER_OUTPUT_RECORD>>();
         final private Map<String, TileBarcodeProcessingState> barcodeToProcessingState = new HashMap<String, TileBarcodeProcessingState>();
+        /** If useSharedTileSort, holds the records of every barcode in this tile, ordered by barcode then record. */
+        private SortingCollection<BarcodedRecord<CLUSTER_OUTPUT_RECORD>> sharedRecordCollection = null;
         private TileProcessingState state = TileProcessingState.NOT_DONE_READING;
         private long recordCount = 0;
 
@@ -430,6 +513,23 @@ public class IlluminaBasecallsConverter<CLUSTER_OUTPUT_RECORD> {
         public synchronized void addRecord(final String barcode, final CLUSTER_OUTPUT_RECORD record) {
             this.recordCount += 1;
 
+            if (useSharedTileSort) {
+                if (!this.barcodeToProcessingState.containsKey(barcode)) {
+                    if (!barcodeRecordWriterMap.containsKey(barcode)) {
+                        if (ignoreUnexpectedBarcodes) {
+                            return;
+                        }
+                        throw new PicardException(String.format("Read records with barcode %s, but this barcode was not expected.  (Is it referenced in the parameters file?)", barcode));
+                    }
+                    this.barcodeToProcessingState.put(barcode, null);
+                }
+                if (this.sharedRecordCollection == null) {
+                    this.sharedRecordCollection = this.newSharedSortingCollection();
+                }
+                this.sharedRecordCollection.add(new BarcodedRecord<CLUSTER_OUTPUT_RECORD>(barcode, record));
+                return;
+            }
+
             // Grab the existing collection, or initialize it if it doesn't yet exist
             SortingCollection<CLUSTER_OUTPUT_RECORD> recordCollection = this.barcodeToRecordCollection.get(barcode);
             if (recordCollection == null) {
@@ -461,11 +561,21 @@ public class IlluminaBasecallsConverter<CLUSTER_OUTPUT_RECORD> {
                     tmpDirs);
         }
 
+        @SuppressWarnings("unchecked")
+        private synchronized SortingCollection<BarcodedRecord<CLUSTER_OUTPUT_RECORD>> newSharedSortingCollection() {
+            return SortingCollection.newInstance(
+                    (Class<BarcodedRecord<CLUSTER_OUTPUT_RECORD>>) (Class<?>) BarcodedRecord.class,
+                    new BarcodedRecordCodec<CLUSTER_OUTPUT_RECORD>(codecPrototype.clone()),
+                    new BarcodedRecordComparator<CLUSTER_OUTPUT_RECORD>(outputRecordComparator),
+                    Math.max(1, maxReadsInRamPerTile),
+                    tmpDirs);
+        }
+
         /**
          * Returns the number of unique barcodes read.
          */
         public synchronized long getBarcodeCount() {
-            return this.barcodeToRecordCollection.size();
+            return this.barcodeToProcessingState.size();
         }
 
         /**
@@ -482,6 +592,13 @@ public class IlluminaBasecallsConverter<CLUSTER_OUTPUT_RECORD> {
             return barcodeToRecordCollection;
         }
 
+        /**
+         * Returns the records of all barcodes in this tile when useSharedTileSort is set, or null if the tile had none.
+         */
+        public synchronized SortingCollection<BarcodedRecord<CLUSTER_OUTPUT_RECORD>> getSharedRecords() {
+            return sharedRecordCollection;
+        }
+
         /**
          * Gets the state of the provided barcode's data's processing progress.  Only invoke this query if this tile
          * is in a DONE_READING state.
@@ -524,7 +641,7 @@ public class IlluminaBasecallsConverter<CLUSTER_OUTPUT_RECORD> {
          * @return
          */
         public synchronized Set<String> getBarcodes() {
-            return this.getBarcodeRecords().keySet();
+            return this.barcodeToProcessingState.keySet();
         }
     }
 
@@ -548,12 +665,32 @@ public class IlluminaBasecallsConverter<CLUSTER_OUTPUT_RECORD> {
          * this tile.
          */
         public void process() {
+            final Instrumentation.Timing timing = instrumentation.time("IlluminaBasecallsConverter.readTile");
+            long clusters = 0;
             final IlluminaDataProvider dataProvider = factory.makeDataProvider(Arrays.asList(this.tile.getNumber()));
             log.debug(String.format("Reading data from tile %s ...", tile.getNumber()));
 
+            // When matching barcodes in-process, each tile accumulates its own metrics, merged once the tile is read
+            final ExtractIlluminaBarcodes.BarcodeExtractor tileBarcodeExtractor =
+                    (barcodeExtractor == null ? null : barcodeExtractor.copy());
+            final int[] barcodeIndices = factory.getOutputReadStructure().sampleBarcodes.getIndices();
+            final byte[][] barcodeSubsequences = new byte[barcodeIndices.length][];
+            final byte[][] qualityScores = (tileBarcodeExtractor != null && tileBarcodeExtractor.isUsingQualityScores()) ?
+                    new byte[barcodeIndices.length][] : null;
+
             while (dataProvider.hasNext()) {
                 final ClusterData cluster = dataProvider.next();
                 readProgressLogger.record(null, 0);
+                ++clusters;
+                if (tileBarcodeExtractor != null) {
+                    for (int i = 0; i < barcodeIndices.length; i++) {
+                        barcodeSubsequences[i] = cluster.getRead(barcodeIndices[i]).getBases();
+                        if (qualityScores != null) qualityScores[i] = cluster.getRead(barcodeIndices[i]).getQualities();
+                    }
+                    final ExtractIlluminaBarcodes.BarcodeMatch match =
+                            tileBarcodeExtractor.findBestBarcodeAndUpdateMetrics(barcodeSubsequences, qualityScores, cluster.isPf());
+                    cluster.setMatchedBarcode(match.isMatched() ? match.getBarcode() : null);
+                }
                 // If this cluster is passing, or we do NOT want to ONLY emit passing reads, then add it to the next
                 if (cluster.isPf() || includeNonPfReads) {
                     final String barcode = (demultiplex ? cluster.getMatchedBarcode() : null);
@@ -561,6 +698,11 @@ public class IlluminaBasecallsConverter<CLUSTER_OUTPUT_RECORD> {
                 }
             }
 
+            if (tileBarcodeExtractor != null) {
+                barcodeExtractor.mergeMetrics(tileBarcodeExtractor);
+            }
+            timing.close();
+            instrumentation.counter("IlluminaBasecallsConverter.clustersRead").add(clusters);
             this.handler.completeTile(this.tile);
             dataProvider.close();
         }
@@ -585,7 +727,7 @@ public class IlluminaBasecallsConverter<CLUSTER_OUTPUT_RECORD> {
          * Implemented as a ThreadPoolExecutor with a PriorityBlockingQueue which orders submitted Runnables by their
          * priority.
          */
-        private final ExecutorService prioritizingThreadPool = new ThreadPoolExecutor(
+        private final ThreadPoolExecutor prioritizingThreadPool = new ThreadPoolExecutor(
                 numThreads,
                 numThreads,
                 0L,
@@ -688,7 +830,12 @@ public class IlluminaBasecallsConverter<CLUSTER_OUTPUT_RECORD> {
             // Update all of the barcodes and the tile to be marked as read
             for (final String barcode : tileRecord.getBarcodes()) {
                 tileRecord.setBarcodeState(barcode, TileBarcodeProcessingState.READ);
-                tileRecord.barcodeToRecordCollection.get(barcode).doneAdding();
+                if (!useSharedTileSort) {
+                    tileRecord.barcodeToRecordCollection.get(barcode).doneAdding();
+                }
+            }
+            if (tileRecord.getSharedRecords() != null) {
+                tileRecord.getSharedRecords().doneAdding();
             }
             tileRecord.setState(TileProcessingState.DONE_READING);
 
@@ -732,6 +879,8 @@ public class IlluminaBasecallsConverter<CLUSTER_OUTPUT_RECORD> {
                  */
                 if (this.isWorkCompleted()) {
                     this.signalWorkComplete();
+                } else if (useSharedTileSort) {
+                    this.findAndEnqueueSharedTileWork();
                 } else {
                     final Queue<Runnable> tasks = new LinkedList<Runnable>();
                     for (final String barcode : barcodeRecordWriterMap.keySet()) {
@@ -779,9 +928,98 @@ public class IlluminaBasecallsConverter<CLUSTER_OUTPUT_RECORD> {
                         this.prioritizingThreadPool.execute(task);
                     }
                 }
+                instrumentation.gauge("IlluminaBasecallsConverter.queuedTasks").record(this.prioritizingThreadPool.getQueue().size());
             }
         }
 
+        /**
+         * When useSharedTileSort, the barcodes of a tile can only be drained together, in barcode order, from the
+         * tile's shared collection.  Tiles must therefore be written one at a time, in tile order: find the first
+         * tile not yet written and enqueue its writing if it has been read and is not already queued.
+         */
+        private void findAndEnqueueSharedTileWork() {
+            for (final Map.Entry<Tile, TileProcessingRecord> entry : this.tileRecords.entrySet()) {
+                final Tile tile = entry.getKey();
+                final TileProcessingRecord tileRecord = entry.getValue();
+
+                if (tileRecord.getState() != TileProcessingState.DONE_READING) {
+                    return;
+                }
+                boolean written = true;
+                boolean queued = false;
+                for (final TileBarcodeProcessingState barcodeState : tileRecord.getBarcodeProcessingStates().values()) {
+                    if (barcodeState != TileBarcodeProcessingState.WRITTEN) written = false;
+                    if (barcodeState == TileBarcodeProcessingState.QUEUED_FOR_WRITE) queued = true;
+                }
+                if (written) {
+                    continue;
+                }
+                if (!queued) {
+                    for (final String barcode : tileRecord.getBarcodes()) {
+                        tileRecord.setBarcodeState(barcode, TileBarcodeProcessingState.QUEUED_FOR_WRITE);
+                    }
+                    log.debug(String.format("Enqueuing work for all barcodes of tile %s.", tile.getNumber()));
+                    this.prioritizingThreadPool.execute(this.newSharedTileWorkInstance(tile, tileRecord));
+                }
+                return;
+            }
+        }
+
+        /**
+         * Returns a PriorityRunnable that writes all of the provided tileRecord's data from its shared collection,
+         * draining one barcode after another.
+         */
+        private PriorityRunnable newSharedTileWorkInstance(final Tile tile, final TileProcessingRecord tileRecord) {
+            return new PriorityRunnable() {
+                @Override
+                public void run() {
+                    try {
+                        final Instrumentation.Timing timing = instrumentation.time("IlluminaBasecallsConverter.writeRecords");
+                        long written = 0;
+                        final SortingCollection<BarcodedRecord<CLUSTER_OUTPUT_RECORD>> records = tileRecord.getSharedRecords();
+                        log.debug(String.format("Writing records from tile %s for all barcodes ...", tile.getNumber()));
+
+                        final PeekIterator<BarcodedRecord<CLUSTER_OUTPUT_RECORD>> it =
+                                new PeekIterator<BarcodedRecord<CLUSTER_OUTPUT_RECORD>>(records.iterator());
+                        while (it.hasNext()) {
+                            final BarcodedRecord<CLUSTER_OUTPUT_RECORD> rec = it.next();
+
+                            // PIC-330 See newBarcodeWorkInstance().  Records with identical names share a barcode
+                            // and so remain adjacent in the shared ordering.
+                            if (it.hasNext()) {
+                                final BarcodedRecord<CLUSTER_OUTPUT_RECORD> lookAhead = it.peek();
+                                if (Objects.equals(rec.barcode, lookAhead.barcode) &&
+                                        outputRecordComparator.compare(rec.record, lookAhead.record) == 0) {
+                                    it.next();
+                                    log.info("Skipping reads with identical read names: " + rec.record.toString());
+                                    continue;
+                                }
+                            }
+
+                            barcodeRecordWriterMap.get(rec.barcode).write(rec.record);
+                            writeProgressLogger.record(null, 0);
+                            ++written;
+                        }
+                        records.cleanup();
+                        timing.close();
+                        instrumentation.counter("IlluminaBasecallsConverter.recordsWritten").add(written);
+
+                        for (final String barcode : tileRecord.getBarcodes()) {
+                            tileRecord.setBarcodeState(barcode, TileBarcodeProcessingState.WRITTEN);
+                        }
+                        findAndEnqueueWorkOrSignalCompletion();
+
+                    } catch (final RuntimeException e) {
+                        parentThread.interrupt();
+                        throw e;
+                    } catch (final Error e) {
+                        parentThread.interrupt();
+                        throw e;
+                    }
+                }
+            };
+        }
+
         /**
          * Returns a PriorityRunnable that encapsulates the work involved with writing the provided tileRecord's data
          * for the given barcode to disk.
@@ -796,6 +1034,8 @@ public class IlluminaBasecallsConverter<CLUSTER_OUTPUT_RECORD> {
                 @Override
                 public void run() {
                     try {
+                        final Instrumentation.Timing timing = instrumentation.time("IlluminaBasecallsConverter.writeRecords");
+                        long written = 0;
                         final SortingCollection<CLUSTER_OUTPUT_RECORD> records = tileRecord.getBarcodeRecords().get(barcode);
                         final ConvertedClusterDataWriter<CLUSTER_OUTPUT_RECORD> writer = barcodeRecordWriterMap.get(barcode);
 
@@ -830,7 +1070,10 @@ public class IlluminaBasecallsConverter<CLUSTER_OUTPUT_RECORD> {
 
                             writer.write(rec);
                             writeProgressLogger.record(null, 0);
+                            ++written;
                         }
+                        timing.close();
+                        instrumentation.counter("IlluminaBasecallsConverter.recordsWritten").add(written);
 
                         tileRecord.setBarcodeState(barcode, TileBarcodeProcessingState.WRITTEN);
                         findAndEnqueueWorkOrSignalCompletion();
@@ -899,6 +1142,107 @@ public class IlluminaBasecallsConverter<CLUSTER_OUTPUT_RECORD> {
         }
     }
 
+    /**
+     * An output record paired with the barcode it is to be written under, for sorting all barcodes of a tile together.
+     */
+    private static class BarcodedRecord<OUTPUT_RECORD> {
+        private final String barcode;
+        private final OUTPUT_RECORD record;
+
+        private BarcodedRecord(final String barcode, final OUTPUT_RECORD record) {
+            this.barcode = barcode;
+            this.record = record;
+        }
+    }
+
+    /**
+     * Orders BarcodedRecords by barcode (null, i.e. no match, first) and then by the output record comparator.
+     */
+    private static class BarcodedRecordComparator<OUTPUT_RECORD> implements Comparator<BarcodedRecord<OUTPUT_RECORD>> {
+        private final Comparator<OUTPUT_RECORD> recordComparator;
+
+        private BarcodedRecordComparator(final Comparator<OUTPUT_RECORD> recordComparator) {
+            this.recordComparator = recordComparator;
+        }
+
+        @Override
+        public int compare(final BarcodedRecord<OUTPUT_RECORD> o1, final BarcodedRecord<OUTPUT_RECORD> o2) {
+            if (o1.barcode == null) {
+                if (o2.barcode != null) return -1;
+            } else if (o2.barcode == null) {
+                return 1;
+            } else {
+                final int cmp = o1.barcode.compareTo(o2.barcode);
+                if (cmp != 0) return cmp;
+            }
+            return recordComparator.compare(o1.record, o2.record);
+        }
+    }
+
+    /**
+     * Spills BarcodedRecords as the barcode followed by a length-prefixed block holding the record as encoded by the
+     * wrapped codec.  The record is framed in its own block because the wrapped codecs may buffer their streams.
+     */
+    private static class BarcodedRecordCodec<OUTPUT_RECORD> implements SortingCollection.Codec<BarcodedRecord<OUTPUT_RECORD>> {
+        private final SortingCollection.Codec<OUTPUT_RECORD> recordCodec;
+        private final ByteArrayOutputStream recordBuffer = new ByteArrayOutputStream();
+        private DataOutputStream out;
+        private DataInputStream in;
+
+        private BarcodedRecordCodec(final SortingCollection.Codec<OUTPUT_RECORD> recordCodec) {
+            this.recordCodec = recordCodec;
+            this.recordCodec.setOutputStream(recordBuffer);
+        }
+
+        @Override
+        public void setOutputStream(final OutputStream os) {
+            this.out = new DataOutputStream(os);
+        }
+
+        @Override
+        public void setInputStream(final InputStream is) {
+            this.in = new DataInputStream(is);
+        }
+
+        @Override
+        public void encode(final BarcodedRecord<OUTPUT_RECORD> val) {
+            try {
+                recordBuffer.reset();
+                recordCodec.encode(val.record);
+                out.writeBoolean(val.barcode != null);
+                if (val.barcode != null) out.writeUTF(val.barcode);
+                out.writeInt(recordBuffer.size());
+                recordBuffer.writeTo(out);
+            } catch (final IOException e) {
+                throw new PicardException("Exception spilling barcoded record to disk", e);
+            }
+        }
+
+        @Override
+        public BarcodedRecord<OUTPUT_RECORD> decode() {
+            try {
+                final boolean hasBarcode;
+                try {
+                    hasBarcode = in.readBoolean();
+                } catch (final EOFException e) {
+                    return null;
+                }
+                final String barcode = hasBarcode ? in.readUTF() : null;
+                final byte[] recordBytes = new byte[in.readInt()];
+                in.readFully(recordBytes);
+                recordCodec.setInputStream(new ByteArrayInputStream(recordBytes));
+                return new BarcodedRecord<OUTPUT_RECORD>(barcode, recordCodec.decode());
+            } catch (final IOException e) {
+                throw new PicardException("Exception reading spilled barcoded record from disk", e);
+            }
+        }
+
+        @Override
+        public BarcodedRecordCodec<OUTPUT_RECORD> clone() {
+            return new BarcodedRecordCodec<OUTPUT_RECORD>(recordCodec.clone());
+        }
+    }
+
     public static interface ClusterDataConverter<OUTPUT_RECORD> {
 
         /**
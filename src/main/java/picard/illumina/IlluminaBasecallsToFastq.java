@@ -62,6 +62,7 @@ import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -146,7 +147,8 @@ public class IlluminaBasecallsToFastq extends CommandLineProgram {
     @Option(doc = "Tab-separated file for creating all output FASTQs demultiplexed by barcode for a lane with single " +
             "IlluminaBasecallsToFastq invocation.  The columns are OUTPUT_PREFIX, and BARCODE_1, BARCODE_2 ... BARCODE_X " +
             "where X = number of barcodes per cluster (optional).  Row with BARCODE_1 set to 'N' is used to specify " +
-            "an output_prefix for no barcode match.",
+            "an output_prefix for no barcode match.  Optional BARCODE_NAME and LIBRARY_NAME columns name the barcode " +
+            "and library of each row in the BARCODE_METRICS_FILE.",
             mutex = {"OUTPUT_PREFIX"})
     public File MULTIPLEX_PARAMS;
 
@@ -179,7 +181,9 @@ public class IlluminaBasecallsToFastq extends CommandLineProgram {
     public Boolean FORCE_GC = true;
 
     @Option(doc = "Configure SortingCollections to store this many records before spilling to disk. For an indexed" +
-            " run, each SortingCollection gets this value/number of indices.")
+            " run, each SortingCollection gets this value/number of indices, unless that would be fewer than " +
+            IlluminaBasecallsConverter.MIN_READS_IN_RAM_PER_BARCODE + " records, in which case the indices of each tile" +
+            " share a single SortingCollection of this size.")
     public int MAX_READS_IN_RAM_PER_TILE = 1200000;
 
     @Option(doc="The minimum quality (after transforming 0s to 1s) expected from reads.  If qualities are lower than this value, an error is thrown." +
@@ -200,15 +204,36 @@ public class IlluminaBasecallsToFastq extends CommandLineProgram {
     @Option(shortName = "GZIP", doc = "Compress output FASTQ files using gzip and append a .gz extension to the file names.")
     public boolean COMPRESS_OUTPUTS = false;
 
+    @Option(doc = "If set, sample barcodes are matched against the barcodes in MULTIPLEX_PARAMS while the basecalls are read, " +
+            "instead of being read from the _barcode.txt files written by ExtractIlluminaBarcodes, and the per-barcode " +
+            "metrics that ExtractIlluminaBarcodes would produce are written to this file.", optional = true)
+    public File BARCODE_METRICS_FILE;
+
+    @Option(doc = ExtractIlluminaBarcodes.MAX_MISMATCHES_DOC + "  Used only with BARCODE_METRICS_FILE.")
+    public int MAX_MISMATCHES = ExtractIlluminaBarcodes.DEFAULT_MAX_MISMATCHES;
+
+    @Option(doc = ExtractIlluminaBarcodes.MIN_MISMATCH_DELTA_DOC + "  Used only with BARCODE_METRICS_FILE.")
+    public int MIN_MISMATCH_DELTA = ExtractIlluminaBarcodes.DEFAULT_MIN_MISMATCH_DELTA;
+
+    @Option(doc = ExtractIlluminaBarcodes.MAX_NO_CALLS_DOC + "  Used only with BARCODE_METRICS_FILE.")
+    public int MAX_NO_CALLS = ExtractIlluminaBarcodes.DEFAULT_MAX_NO_CALLS;
+
+    @Option(doc = ExtractIlluminaBarcodes.MINIMUM_BASE_QUALITY_DOC + "  Used only with BARCODE_METRICS_FILE.")
+    public int MINIMUM_BASE_QUALITY = ExtractIlluminaBarcodes.DEFAULT_MINIMUM_BASE_QUALITY;
+
     /** Simple switch to control the read name format to emit. */
     public enum ReadNameFormat {
         CASAVA_1_8, ILLUMINA
     }
     
     private final Map<String, FastqRecordsWriter> sampleBarcodeFastqWriterMap = new HashMap<>();
+    private final Map<String, ExtractIlluminaBarcodes.BarcodeMetric> barcodeToMetrics = new LinkedHashMap<>();
+    private ExtractIlluminaBarcodes.BarcodeExtractor barcodeExtractor;
     private ReadStructure readStructure;
     IlluminaBasecallsConverter<FastqRecordsForCluster> basecallsConverter;
     private static final Log log = Log.getInstance(IlluminaBasecallsToFastq.class);
+    private static final String BARCODE_NAME_COLUMN = "BARCODE_NAME";
+    private static final String LIBRARY_NAME_COLUMN = "LIBRARY_NAME";
     private final FastqWriterFactory fastqWriterFactory = new FastqWriterFactory();
     private ReadNameEncoder readNameEncoder;
     private static final Comparator<FastqRecordsForCluster> queryNameComparator = (r1, r2) -> SAMRecordQueryNameComparator.compareReadNames(r1.templateRecords[0].getReadHeader(),
@@ -219,6 +244,10 @@ public class IlluminaBasecallsToFastq extends CommandLineProgram {
         initialize();
 
         basecallsConverter.doTileProcessing();
+        if (barcodeExtractor != null) {
+            ExtractIlluminaBarcodes.writeMetrics(barcodeExtractor.getMetrics(), barcodeExtractor.getNoMatchMetric(),
+                    getMetricsFile(), BARCODE_METRICS_FILE);
+        }
 
         return 0;
     }
@@ -233,6 +262,10 @@ public class IlluminaBasecallsToFastq extends CommandLineProgram {
         if (READ_NAME_FORMAT == ReadNameFormat.CASAVA_1_8 && FLOWCELL_BARCODE == null) {
             errors.add("FLOWCELL_BARCODE is required when using Casava1.8-style read name headers.");
         }
+
+        if (BARCODE_METRICS_FILE != null && MULTIPLEX_PARAMS == null) {
+            errors.add("BARCODE_METRICS_FILE may only be given when demultiplexing with MULTIPLEX_PARAMS.");
+        }
         
         if (errors.isEmpty()) {
             return null;
@@ -268,13 +301,19 @@ public class IlluminaBasecallsToFastq extends CommandLineProgram {
             populateWritersFromMultiplexParams();
             demultiplex = true;
         }
+        if (demultiplex && BARCODE_METRICS_FILE != null) {
+            IOUtil.assertFileIsWritable(BARCODE_METRICS_FILE);
+            barcodeExtractor = new ExtractIlluminaBarcodes.BarcodeExtractor(barcodeToMetrics,
+                    ExtractIlluminaBarcodes.createNoMatchMetric(readStructure),
+                    MAX_NO_CALLS, MAX_MISMATCHES, MIN_MISMATCH_DELTA, MINIMUM_BASE_QUALITY);
+        }
         final int readsPerCluster = readStructure.templates.length() + readStructure.sampleBarcodes.length();
         basecallsConverter = new IlluminaBasecallsConverter<>(BASECALLS_DIR, BARCODES_DIR, LANE, readStructure,
                 sampleBarcodeFastqWriterMap, demultiplex, Math.max(1, MAX_READS_IN_RAM_PER_TILE / readsPerCluster), TMP_DIR, NUM_PROCESSORS,
                 FORCE_GC, FIRST_TILE, TILE_LIMIT, queryNameComparator,
                 new FastqRecordsForClusterCodec(readStructure.templates.length(),
                         readStructure.sampleBarcodes.length(), readStructure.molecularBarcode.length()), FastqRecordsForCluster.class, bclQualityEvaluationStrategy,
-                this.APPLY_EAMSS_FILTER, INCLUDE_NON_PF_READS, IGNORE_UNEXPECTED_BARCODES);
+                this.APPLY_EAMSS_FILTER, INCLUDE_NON_PF_READS, IGNORE_UNEXPECTED_BARCODES, barcodeExtractor);
 
         log.info("READ STRUCTURE IS " + readStructure.toString());
 
@@ -316,6 +355,8 @@ public class IlluminaBasecallsToFastq extends CommandLineProgram {
 
         expectedColumnLabels.addAll(sampleBarcodeColumnLabels);
         assertExpectedColumns(libraryParamsParser.columnLabels(), expectedColumnLabels);
+        final boolean hasBarcodeName = libraryParamsParser.hasColumn(BARCODE_NAME_COLUMN);
+        final boolean hasLibraryName = libraryParamsParser.hasColumn(LIBRARY_NAME_COLUMN);
 
         for (final TabbedTextFileWithHeaderParser.Row row : libraryParamsParser) {
             List<String> sampleBarcodeValues = null;
@@ -335,6 +376,13 @@ public class IlluminaBasecallsToFastq extends CommandLineProgram {
 
             final FastqRecordsWriter writer = buildWriter(new File(row.getField("OUTPUT_PREFIX")));
             sampleBarcodeFastqWriterMap.put(key, writer);
+            if (key != null) {
+                final String barcodeName = (hasBarcodeName ? row.getField(BARCODE_NAME_COLUMN) : "");
+                final String libraryName = (hasLibraryName ? row.getField(LIBRARY_NAME_COLUMN) : "");
+                barcodeToMetrics.put(key, new ExtractIlluminaBarcodes.BarcodeMetric(barcodeName, libraryName,
+                        IlluminaUtil.barcodeSeqsToString(sampleBarcodeValues),
+                        sampleBarcodeValues.toArray(new String[sampleBarcodeValues.size()])));
+            }
         }
         if (sampleBarcodeFastqWriterMap.isEmpty()) {
             throw new PicardException("MULTIPLEX_PARAMS file " + MULTIPLEX_PARAMS + " does have any data rows.");
@@ -27,7 +27,6 @@ package picard.illumina;
 import htsjdk.samtools.BAMRecordCodec;
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMFileWriter;
-import htsjdk.samtools.SAMFileWriterFactory;
 import htsjdk.samtools.SAMReadGroupRecord;
 import htsjdk.samtools.SAMRecord;
 import htsjdk.samtools.SAMRecordQueryNameComparator;
@@ -46,6 +45,7 @@ import picard.cmdline.StandardOptionDefinitions;
 import picard.illumina.parser.ReadStructure;
 import picard.illumina.parser.ReadType;
 import picard.illumina.parser.readers.BclQualityEvaluationStrategy;
+import picard.sam.util.ParallelSAMFileWriterFactory;
 import picard.util.IlluminaUtil;
 import picard.util.IlluminaUtil.IlluminaAdapterPair;
 import picard.util.TabbedTextFileWithHeaderParser;
@@ -192,7 +192,8 @@ public class IlluminaBasecallsToSam extends CommandLineProgram {
             "where X = number of barcodes per cluster (optional).  Row with BARCODE_1 set to 'N' is used to specify a file " +
             "for no barcode match.  You may also provide any 2 letter RG header attributes (excluding PU, CN, PL, and" +
             " DT)  as columns in this file and the values for those columns will be inserted into the RG tag for the" +
-            " BAM file created for a given row.",
+            " BAM file created for a given row.  An optional BARCODE_NAME column names the barcode of each row in the" +
+            " BARCODE_METRICS_FILE.",
             mutex = {"OUTPUT", "SAMPLE_ALIAS", "LIBRARY_NAME", "BARCODE_PARAMS"})
     public File LIBRARY_PARAMS;
 
@@ -225,7 +226,9 @@ public class IlluminaBasecallsToSam extends CommandLineProgram {
     public boolean APPLY_EAMSS_FILTER = true;
 
     @Option(doc = "Configure SortingCollections to store this many records before spilling to disk. For an indexed" +
-            " run, each SortingCollection gets this value/number of indices.")
+            " run, each SortingCollection gets this value/number of indices, unless that would be fewer than " +
+            IlluminaBasecallsConverter.MIN_READS_IN_RAM_PER_BARCODE + " records, in which case the indices of each tile" +
+            " share a single SortingCollection of this size.")
     public int MAX_READS_IN_RAM_PER_TILE = 1200000;
 
     @Option(doc="The minimum quality (after transforming 0s to 1s) expected from reads.  If qualities are lower than this value, an error is thrown." +
@@ -249,16 +252,40 @@ public class IlluminaBasecallsToSam extends CommandLineProgram {
     @Option(doc="The list of tags to store each molecular index.  The number of tags should match the number of molecular indexes.", optional=true)
     public List<String> TAG_PER_MOLECULAR_INDEX;
 
+    @Option(doc = "If set, sample barcodes are matched against the barcodes in LIBRARY_PARAMS while the basecalls are read, " +
+            "instead of being read from the _barcode.txt files written by ExtractIlluminaBarcodes, and the per-barcode " +
+            "metrics that ExtractIlluminaBarcodes would produce are written to this file.", optional = true)
+    public File BARCODE_METRICS_FILE;
+
+    @Option(doc = ExtractIlluminaBarcodes.MAX_MISMATCHES_DOC + "  Used only with BARCODE_METRICS_FILE.")
+    public int MAX_MISMATCHES = ExtractIlluminaBarcodes.DEFAULT_MAX_MISMATCHES;
+
+    @Option(doc = ExtractIlluminaBarcodes.MIN_MISMATCH_DELTA_DOC + "  Used only with BARCODE_METRICS_FILE.")
+    public int MIN_MISMATCH_DELTA = ExtractIlluminaBarcodes.DEFAULT_MIN_MISMATCH_DELTA;
+
+    @Option(doc = ExtractIlluminaBarcodes.MAX_NO_CALLS_DOC + "  Used only with BARCODE_METRICS_FILE.")
+    public int MAX_NO_CALLS = ExtractIlluminaBarcodes.DEFAULT_MAX_NO_CALLS;
+
+    @Option(doc = ExtractIlluminaBarcodes.MINIMUM_BASE_QUALITY_DOC + "  Used only with BARCODE_METRICS_FILE.")
+    public int MINIMUM_BASE_QUALITY = ExtractIlluminaBarcodes.DEFAULT_MINIMUM_BASE_QUALITY;
+
     private final Map<String, SAMFileWriterWrapper> barcodeSamWriterMap = new HashMap<String, SAMFileWriterWrapper>();
+    private final Map<String, ExtractIlluminaBarcodes.BarcodeMetric> barcodeToMetrics = new LinkedHashMap<String, ExtractIlluminaBarcodes.BarcodeMetric>();
+    private ExtractIlluminaBarcodes.BarcodeExtractor barcodeExtractor;
     private ReadStructure readStructure;
     IlluminaBasecallsConverter<SAMRecordsForCluster> basecallsConverter;
     private static final Log log = Log.getInstance(IlluminaBasecallsToSam.class);
+    private static final String BARCODE_NAME_COLUMN = "BARCODE_NAME";
     private BclQualityEvaluationStrategy bclQualityEvaluationStrategy;
 
     @Override
     protected int doWork() {
         initialize();
         basecallsConverter.doTileProcessing();
+        if (barcodeExtractor != null) {
+            ExtractIlluminaBarcodes.writeMetrics(barcodeExtractor.getMetrics(), barcodeExtractor.getNoMatchMetric(),
+                    getMetricsFile(), BARCODE_METRICS_FILE);
+        }
         return 0;
     }
 
@@ -276,18 +303,29 @@ public class IlluminaBasecallsToSam extends CommandLineProgram {
             IOUtil.assertFileIsReadable(LIBRARY_PARAMS);
         }
 
+        if (BARCODE_METRICS_FILE != null) {
+            IOUtil.assertFileIsWritable(BARCODE_METRICS_FILE);
+        }
+
         if (OUTPUT != null) {
             barcodeSamWriterMap.put(null, buildSamFileWriter(OUTPUT, SAMPLE_ALIAS, LIBRARY_NAME, buildSamHeaderParameters(null)));
         } else {
             populateWritersFromLibraryParams();
         }
 
+        if (BARCODE_METRICS_FILE != null) {
+            barcodeExtractor = new ExtractIlluminaBarcodes.BarcodeExtractor(barcodeToMetrics,
+                    ExtractIlluminaBarcodes.createNoMatchMetric(readStructure),
+                    MAX_NO_CALLS, MAX_MISMATCHES, MIN_MISMATCH_DELTA, MINIMUM_BASE_QUALITY);
+        }
+
         final int numOutputRecords = readStructure.templates.length();
 
         basecallsConverter = new IlluminaBasecallsConverter<SAMRecordsForCluster>(BASECALLS_DIR, BARCODES_DIR, LANE, readStructure,
                 barcodeSamWriterMap, true, MAX_READS_IN_RAM_PER_TILE/numOutputRecords, TMP_DIR, NUM_PROCESSORS, FORCE_GC,
                 FIRST_TILE, TILE_LIMIT, new QueryNameComparator(), new Codec(numOutputRecords), SAMRecordsForCluster.class,
-                bclQualityEvaluationStrategy, this.APPLY_EAMSS_FILTER, INCLUDE_NON_PF_READS, IGNORE_UNEXPECTED_BARCODES);
+                bclQualityEvaluationStrategy, this.APPLY_EAMSS_FILTER, INCLUDE_NON_PF_READS, IGNORE_UNEXPECTED_BARCODES,
+                barcodeExtractor);
 
         log.info("DONE_READING STRUCTURE IS " + readStructure.toString());
 
@@ -344,7 +382,7 @@ public class IlluminaBasecallsToSam extends CommandLineProgram {
         for (final String column : rgTagColumns) {
             if (column.length() > 2) {
                 throw new PicardException("Column label (" + column + ") unrecognized.  Library params(barcode params) can only contain the columns " +
-                        "(OUTPUT, LIBRARY_NAME, SAMPLE_ALIAS, BARCODE, BARCODE_<X> where X is a positive integer) OR two letter RG tags!");
+                        "(OUTPUT, LIBRARY_NAME, SAMPLE_ALIAS, BARCODE_NAME, BARCODE, BARCODE_<X> where X is a positive integer) OR two letter RG tags!");
             }
         }
     }
@@ -375,6 +413,7 @@ public class IlluminaBasecallsToSam extends CommandLineProgram {
 
         expectedColumnLabels.addAll(barcodeColumnLabels);
         final Set<String> rgTagColumns = findAndFilterExpectedColumns(libraryParamsParser.columnLabels(), expectedColumnLabels);
+        final boolean hasBarcodeName = rgTagColumns.remove(BARCODE_NAME_COLUMN);
         checkRgTagColumns(rgTagColumns);
 
         for (final TabbedTextFileWithHeaderParser.Row row : libraryParamsParser) {
@@ -402,6 +441,11 @@ public class IlluminaBasecallsToSam extends CommandLineProgram {
             final SAMFileWriterWrapper writer = buildSamFileWriter(new File(row.getField("OUTPUT")),
                     row.getField("SAMPLE_ALIAS"), row.getField("LIBRARY_NAME"), samHeaderParams);
             barcodeSamWriterMap.put(key, writer);
+            if (key != null) {
+                final String barcodeName = (hasBarcodeName ? row.getField(BARCODE_NAME_COLUMN) : "");
+                barcodeToMetrics.put(key, new ExtractIlluminaBarcodes.BarcodeMetric(barcodeName, row.getField("LIBRARY_NAME"),
+                        IlluminaUtil.barcodeSeqsToString(barcodeValues), barcodeValues.toArray(new String[barcodeValues.size()])));
+            }
         }
         if (barcodeSamWriterMap.isEmpty()) {
             throw new PicardException("LIBRARY_PARAMS(BARCODE_PARAMS) file " + LIBRARY_PARAMS + " does have any data rows.");
@@ -457,7 +501,7 @@ public class IlluminaBasecallsToSam extends CommandLineProgram {
 
         header.setSortOrder(SAMFileHeader.SortOrder.queryname);
         header.addReadGroup(rg);
-        return new SAMFileWriterWrapper(new SAMFileWriterFactory().makeSAMOrBAMWriter(header, true, output));
+        return new SAMFileWriterWrapper(new ParallelSAMFileWriterFactory().makeSAMOrBAMWriter(header, true, output));
     }
 
     public static void main(final String[] args) {
@@ -490,6 +534,10 @@ public class IlluminaBasecallsToSam extends CommandLineProgram {
             READ_GROUP_ID = RUN_BARCODE.substring(0, 5) + "." + LANE;
         }
 
+        if (BARCODE_METRICS_FILE != null && readStructure.sampleBarcodes.isEmpty()) {
+            messages.add("BARCODE_METRICS_FILE may only be given if READ_STRUCTURE contains a B (barcode).");
+        }
+
         if (!TAG_PER_MOLECULAR_INDEX.isEmpty() && TAG_PER_MOLECULAR_INDEX.size() != readStructure.molecularBarcode.length()) {
             messages.add("The number of tags given in TAG_PER_MOLECULAR_INDEX does not match the number of molecular indexes in READ_STRUCTURE");
         }
@@ -27,7 +27,6 @@ package picard.illumina;
 import htsjdk.samtools.ReservedTagConstants;
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMFileWriter;
-import htsjdk.samtools.SAMFileWriterFactory;
 import htsjdk.samtools.SAMRecord;
 import htsjdk.samtools.SAMRecordIterator;
 import htsjdk.samtools.SamReader;
@@ -47,6 +46,7 @@ import picard.cmdline.CommandLineProgramProperties;
 import picard.cmdline.Option;
 import picard.cmdline.StandardOptionDefinitions;
 import picard.cmdline.programgroups.Illumina;
+import picard.sam.util.ParallelSAMFileWriterFactory;
 import picard.util.AdapterMarker;
 import picard.util.AdapterPair;
 import picard.util.ClippingUtility;
@@ -162,7 +162,7 @@ public class MarkIlluminaAdapters extends CommandLineProgram {
         SAMFileWriter out = null;
         if (OUTPUT != null) {
             IOUtil.assertFileIsWritable(OUTPUT);
-            out = new SAMFileWriterFactory().makeSAMOrBAMWriter(in.getFileHeader(), true, OUTPUT);
+            out = new ParallelSAMFileWriterFactory().makeSAMOrBAMWriter(in.getFileHeader(), true, OUTPUT);
         }
 
         final Histogram<Integer> histo = new Histogram<Integer>("clipped_bases", "read_count");
@@ -0,0 +1,199 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026 The Broad Institute
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package picard.illumina.parser;
+
+import picard.PicardException;
+
+import java.util.Set;
+
+/**
+ * A block of consecutive clusters from an IlluminaDataProvider, held column by column so that it can be refilled
+ * over and over without allocating anything per cluster.  Cluster i of the batch is described by its entries in the
+ * per-cluster columns (tile, x, y, PF and matched barcode); the bases and qualities of all its reads are held one
+ * after the other in a single flat array shared by the whole batch, starting at getReadOffset(i, read).
+ *
+ * Only the columns for the data types the provider was asked for are present; the accessors of the others behave
+ * as the corresponding ClusterData getters would when the data type was not requested.
+ *
+ * A batch is obtained from IlluminaDataProvider.newBatch and filled by IlluminaDataProvider.nextBatch, which
+ * overwrites whatever it held before, so any data that must outlive the next call has to be copied out.
+ */
+public class ClusterBatch {
+    /** A capacity that is large enough to amortize the cost of a refill but small enough to stay in cache. */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final int capacity;
+    private final ReadType[] readTypes;
+    private final int[] readLengths;
+
+    /** The offset of each read within the bases or qualities of a cluster. */
+    private final int[] readOffsets;
+
+    /** The number of bases of all the reads of a cluster together. */
+    private final int clusterLength;
+
+    private final int[] tiles;
+    private final int[] xs;
+    private final int[] ys;
+    private final boolean[] pf;
+    private final String[] matchedBarcodes;
+    private final byte[] bases;
+    private final byte[] qualities;
+
+    private int lane = -1;
+    private int size = 0;
+
+    ClusterBatch(final int capacity, final ReadType[] readTypes, final int[] readLengths, final Set<IlluminaDataType> dataTypes) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be at least 1: " + capacity);
+        this.capacity = capacity;
+        this.readTypes = readTypes;
+        this.readLengths = readLengths;
+
+        readOffsets = new int[readLengths.length];
+        int length = 0;
+        for (int i = 0; i < readLengths.length; i++) {
+            readOffsets[i] = length;
+            length += readLengths[i];
+        }
+        clusterLength = length;
+
+        tiles = new int[capacity];
+        xs = dataTypes.contains(IlluminaDataType.Position) ? new int[capacity] : null;
+        ys = dataTypes.contains(IlluminaDataType.Position) ? new int[capacity] : null;
+        pf = dataTypes.contains(IlluminaDataType.PF) ? new boolean[capacity] : null;
+        matchedBarcodes = dataTypes.contains(IlluminaDataType.Barcodes) ? new String[capacity] : null;
+        bases = dataTypes.contains(IlluminaDataType.BaseCalls) ? new byte[capacity * clusterLength] : null;
+        qualities = dataTypes.contains(IlluminaDataType.QualityScores) ? new byte[capacity * clusterLength] : null;
+    }
+
+    /** The largest number of clusters the batch can hold. */
+    public int capacity() {
+        return capacity;
+    }
+
+    /** The number of clusters the last fill put in the batch. */
+    public int size() {
+        return size;
+    }
+
+    public int getLane() {
+        return lane;
+    }
+
+    public int getNumReads() {
+        return readTypes.length;
+    }
+
+    public ReadType getReadType(final int read) {
+        return readTypes[read];
+    }
+
+    public int getReadLength(final int read) {
+        return readLengths[read];
+    }
+
+    public int getTile(final int cluster) {
+        return tiles[cluster];
+    }
+
+    /** The X coordinate of the cluster, or -1 if positions were not requested. */
+    public int getX(final int cluster) {
+        return xs == null ? -1 : xs[cluster];
+    }
+
+    /** The Y coordinate of the cluster, or -1 if positions were not requested. */
+    public int getY(final int cluster) {
+        return ys == null ? -1 : ys[cluster];
+    }
+
+    /** Whether the cluster passed filter, or null if PF was not requested. */
+    public Boolean isPf(final int cluster) {
+        return pf == null ? null : pf[cluster];
+    }
+
+    /** The barcode the cluster was matched to, or null if it matched none or barcodes were not requested. */
+    public String getMatchedBarcode(final int cluster) {
+        return matchedBarcodes == null ? null : matchedBarcodes[cluster];
+    }
+
+    /** The bases of every read of every cluster in the batch, or null if bases were not requested. */
+    public byte[] getBases() {
+        return bases;
+    }
+
+    /** The qualities of every read of every cluster in the batch, laid out as the bases, or null if not requested. */
+    public byte[] getQualities() {
+        return qualities;
+    }
+
+    /** Where the bases and qualities of the given read of the given cluster start in getBases() and getQualities(). */
+    public int getReadOffset(final int cluster, final int read) {
+        return cluster * clusterLength + readOffsets[read];
+    }
+
+    /*
+     * Methods used by IlluminaDataProvider to fill the batch
+     */
+    void clear(final int lane) {
+        this.lane = lane;
+        this.size = 0;
+    }
+
+    /** Adds a cluster from the given tile, returning its index in the batch. */
+    int add(final int tile) {
+        tiles[size] = tile;
+        return size++;
+    }
+
+    void setPosition(final int cluster, final int x, final int y) {
+        xs[cluster] = x;
+        ys[cluster] = y;
+    }
+
+    void setPf(final int cluster, final boolean isPf) {
+        pf[cluster] = isPf;
+    }
+
+    void setMatchedBarcode(final int cluster, final String matchedBarcode) {
+        matchedBarcodes[cluster] = matchedBarcode;
+    }
+
+    void setBases(final int cluster, final byte[][] readBases) {
+        copyReads(cluster, readBases, bases);
+    }
+
+    void setQualities(final int cluster, final byte[][] readQualities) {
+        copyReads(cluster, readQualities, qualities);
+    }
+
+    private void copyReads(final int cluster, final byte[][] reads, final byte[] column) {
+        for (int read = 0; read < readLengths.length; read++) {
+            if (reads[read].length != readLengths[read]) {
+                throw new PicardException("Read " + read + " has " + reads[read].length + " cycles but " + readLengths[read] + " were expected.");
+            }
+            System.arraycopy(reads[read], 0, column, getReadOffset(cluster, read), readLengths[read]);
+        }
+    }
+}
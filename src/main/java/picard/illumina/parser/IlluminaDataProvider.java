@@ -27,6 +27,7 @@ package picard.illumina.parser;
 import picard.PicardException;
 
 import java.io.File;
+import java.util.EnumSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.NoSuchElementException;
@@ -34,7 +35,7 @@ import java.util.Set;
 
 /**
  * Parse various formats and versions of Illumina Basecall files, and use them the to populate
- * ClusterData objects.  Clients of this code should use IlluminaDataProviderFactory to create an IlluminaDataProvider.
+ * ClusterData objects, either one cluster at a time or in reusable ClusterBatches.  Clients of this code should use IlluminaDataProviderFactory to create an IlluminaDataProvider.
  * IlluminaDataProvider is immutable after construction.
  *
  * @author jburke@broadinstitute.org
@@ -61,6 +62,12 @@ public class IlluminaDataProvider implements Iterator<ClusterData>, Iterable<Clu
     /** Number of reads in each ClusterData */
     private final int numReads;
 
+    /** The number of bases in each of those reads */
+    private final int[] outputReadLengths;
+
+    /** Every data type provided by any of the parsers */
+    private final Set<IlluminaDataType> requestedDataTypes = EnumSet.noneOf(IlluminaDataType.class);
+
     /**
      * Create an IlluminaDataProvider given a map of parsersToDataTypes for particular file formats.  Compute once the miscellaneous data for the
      * run that will be passed to each ClusterData.
@@ -74,6 +81,7 @@ public class IlluminaDataProvider implements Iterator<ClusterData>, Iterable<Clu
         this.basecallDirectory = basecallDirectory;
         this.lane = lane;
         numReads = outputMapping.numOutputReads();
+        outputReadLengths = outputMapping.getOutputReadLengths();
 
         final int numParsers = parsersToDataTypes.size();
         if (numParsers == 0) {
@@ -88,6 +96,7 @@ public class IlluminaDataProvider implements Iterator<ClusterData>, Iterable<Clu
             final Set<IlluminaDataType> dts = pToD.getValue();
             dataTypes[i] = new IlluminaDataType[dts.size()];
             dts.toArray(dataTypes[i++]);
+            requestedDataTypes.addAll(dts);
         }
 
         this.outputReadTypes = new ReadType[numReads];
@@ -124,33 +133,43 @@ public class IlluminaDataProvider implements Iterator<ClusterData>, Iterable<Clu
         final ClusterData cluster = new ClusterData(outputReadTypes);
         cluster.setLane(lane);
 
-        //IMPORTANT NOTE: This assignment to tile MUST happen BEFORE the loop below because getTileOfNextCluster
-        //returns the tile for the next cluster and if we call this after the loop then whenever we pass a tile
+        //IMPORTANT NOTE: This assignment to tile MUST happen BEFORE readCluster because getTileOfNextCluster
+        //returns the tile for the next cluster and if we call this after reading it then whenever we pass a tile
         //boundary the last cluster in the previous tile will have the wrong tile number
         cluster.setTile(parsers[0].getTileOfNextCluster());
 
+        clusterDataSink.cluster = cluster;
+        readCluster(clusterDataSink);
+        return cluster;
+    }
+
+    /**
+     * Reads the next cluster from every parser and hands each of the requested data types to the sink.  This is the
+     * only place parser output is dispatched, for both next() and nextBatch().
+     */
+    private void readCluster(final ClusterSink sink) {
         for (int i = 0; i < parsers.length; i++) {
             final IlluminaData ilData = parsers[i].next();
             for (final IlluminaDataType ilDataType : dataTypes[i]) {
                 switch (ilDataType) {
                     case Position:
-                        addData(cluster, (PositionalData) ilData);
+                        sink.add((PositionalData) ilData);
                         break;
 
                     case PF:
-                        addData(cluster, (PfData) ilData);
+                        sink.add((PfData) ilData);
                         break;
 
                     case Barcodes:
-                        addData(cluster, (BarcodeData) ilData);
+                        sink.add((BarcodeData) ilData);
                         break;
 
                     case BaseCalls:
-                        addReadData(cluster, numReads, (BaseData) ilData);
+                        sink.add((BaseData) ilData);
                         break;
 
                     case QualityScores:
-                        addReadData(cluster, numReads, (QualityData) ilData);
+                        sink.add((QualityData) ilData);
                         break;
 
                     default:
@@ -158,10 +177,43 @@ public class IlluminaDataProvider implements Iterator<ClusterData>, Iterable<Clu
                 }
             }
         }
+    }
 
-        return cluster;
+    /** Where readCluster puts the data of one cluster. */
+    private interface ClusterSink {
+        void add(PositionalData posData);
+        void add(PfData pfData);
+        void add(BarcodeData barcodeData);
+        void add(BaseData baseData);
+        void add(QualityData qualityData);
+    }
+
+    /** Fills the ClusterData that next() returns. */
+    private class ClusterDataSink implements ClusterSink {
+        ClusterData cluster;
+
+        public void add(final PositionalData posData) { addData(cluster, posData); }
+        public void add(final PfData pfData) { addData(cluster, pfData); }
+        public void add(final BarcodeData barcodeData) { addData(cluster, barcodeData); }
+        public void add(final BaseData baseData) { addReadData(cluster, numReads, baseData); }
+        public void add(final QualityData qualityData) { addReadData(cluster, numReads, qualityData); }
+    }
+
+    /** Fills one cluster of the batch that nextBatch is refilling. */
+    private static class ClusterBatchSink implements ClusterSink {
+        ClusterBatch batch;
+        int cluster;
+
+        public void add(final PositionalData posData) { batch.setPosition(cluster, posData.getXCoordinate(), posData.getYCoordinate()); }
+        public void add(final PfData pfData) { batch.setPf(cluster, pfData.isPf()); }
+        public void add(final BarcodeData barcodeData) { batch.setMatchedBarcode(cluster, barcodeData.getBarcode()); }
+        public void add(final BaseData baseData) { batch.setBases(cluster, baseData.getBases()); }
+        public void add(final QualityData qualityData) { batch.setQualities(cluster, qualityData.getQualities()); }
     }
 
+    private final ClusterDataSink clusterDataSink = new ClusterDataSink();
+    private final ClusterBatchSink clusterBatchSink = new ClusterBatchSink();
+
     /*
      * Methods for that transfer data from the IlluminaData objects to the current cluster
      */
@@ -206,6 +258,30 @@ public class IlluminaDataProvider implements Iterator<ClusterData>, Iterable<Clu
         }
     }
 
+    /**
+     * @return An empty batch laid out for the reads and data types of this provider, for use with nextBatch.
+     */
+    public ClusterBatch newBatch(final int capacity) {
+        return new ClusterBatch(capacity, outputReadTypes, outputReadLengths, requestedDataTypes);
+    }
+
+    /**
+     * Refills the batch, which must have come from newBatch, with up to its capacity of the next clusters.  Unlike
+     * next(), this allocates nothing per cluster once the batch exists.
+     *
+     * @return The number of clusters put in the batch, which is 0 once there are no more.
+     */
+    public int nextBatch(final ClusterBatch batch) {
+        batch.clear(lane);
+        clusterBatchSink.batch = batch;
+        while (batch.size() < batch.capacity() && hasNext()) {
+            //IMPORTANT NOTE: As in next(), the tile MUST be taken BEFORE readCluster
+            clusterBatchSink.cluster = batch.add(parsers[0].getTileOfNextCluster());
+            readCluster(clusterBatchSink);
+        }
+        return batch.size();
+    }
+
     public void remove() {
         throw new UnsupportedOperationException();
     }
@@ -31,12 +31,16 @@ import htsjdk.samtools.metrics.MetricsFile;
 import htsjdk.samtools.reference.ReferenceSequence;
 import picard.PicardException;
 import picard.analysis.MetricAccumulationLevel;
+import picard.util.ThreadPoolUtil;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  * MultiLevelCollector handles accumulating Metrics at different MetricAccumulationLevels(ALL_READS, SAMPLE, LIBRARY, READ_GROUP).
@@ -60,6 +64,11 @@ import java.util.Set;
  * this class as the ARGTYPE of both the PerUnitMetricCollector and MultiLevelCollector.  You can then do these calculations in the makeArg
  * method and they will only be done once per record.
  *
+ * The collectors that receive the records of each read group are looked up once per read group, on its first record,
+ * rather than once per record and level.  If the PerUnitMetricCollectors of a subclass depend only on the ARGTYPE
+ * they are passed (see supportsParallelLevels), setCollectLevelsInParallel may be used to run the collectors of each
+ * accumulation level on a thread of their own, handed records in batches.
+ *
  * @param <METRIC_TYPE> The type of metrics being collected
  * @param <Histogram_KEY> If there is are Histograms related to metrics of type <BEAN> then <HKEY> is the key value to these Histograms
  * @param <ARGTYPE> The type of argument passed to individual PerUnitMetricCollector (see SAMRecordMultilevelCollector and PerUnitMetricCollector)
@@ -74,6 +83,23 @@ public abstract class MultiLevelCollector<METRIC_TYPE extends MetricBase, Histog
     //these will be listed in the order in which their children would be added to a metric file
     private List<Distributor> outputOrderedDistributors;
 
+    //The collectors, one per Distributor and in the same order, that receive the records of each read group ID,
+    //resolved when a read group is first seen; the last read group seen is kept to skip the lookup for runs of records
+    private final Map<String, List<PerUnitMetricCollector<METRIC_TYPE, Histogram_KEY, ARGTYPE>>> collectorsByReadGroup = new HashMap<>();
+    private List<PerUnitMetricCollector<METRIC_TYPE, Histogram_KEY, ARGTYPE>> collectorsWithoutReadGroup = null;
+    private SAMReadGroupRecord lastReadGroup = null;
+    private List<PerUnitMetricCollector<METRIC_TYPE, Histogram_KEY, ARGTYPE>> lastCollectors = null;
+
+    //The number of records handed to the level threads at a time
+    private static final int LEVEL_BATCH_SIZE = 1000;
+
+    //When collecting levels in parallel, one single-threaded executor per Distributor, the batch being filled
+    //and the tasks still working on the previous batch
+    private List<ExecutorService> levelExecutors = null;
+    private List<ARGTYPE> batchArgs;
+    private List<List<PerUnitMetricCollector<METRIC_TYPE, Histogram_KEY, ARGTYPE>>> batchCollectors;
+    private final List<Future<?>> pendingLevelTasks = new ArrayList<>();
+
     //Convert the current SAMRecord and the ReferenceSequence for that record into an ARGTYPE object
     //see accept record for use
     protected abstract ARGTYPE makeArg(final SAMRecord samRec, final ReferenceSequence refSeq);
@@ -143,9 +169,8 @@ public abstract class MultiLevelCollector<METRIC_TYPE extends MetricBase, Histog
             }
         }
 
-        /** Call acceptRecord(args) on the record collector identified by getKey */
-        public void acceptRecord(final ARGTYPE args, final SAMReadGroupRecord rg) {
-
+        /** Return the collector identified by getKey, creating the collector for unknown records if need be */
+        public PerUnitMetricCollector<METRIC_TYPE, Histogram_KEY, ARGTYPE> getCollector(final SAMReadGroupRecord rg) {
             String key = UNKNOWN;
             if(rg != null) {
                 final String computedKey = getKey(rg);
@@ -161,7 +186,7 @@ public abstract class MultiLevelCollector<METRIC_TYPE extends MetricBase, Histog
                 collector = makeUnknownCollector();
                 collectors.put(key, collector);
             }
-            collector.acceptRecord(args);
+            return collector;
         }
 
         /** Add all records to the MetricsFile passed in, this will happen in the order they were
@@ -188,8 +213,9 @@ public abstract class MultiLevelCollector<METRIC_TYPE extends MetricBase, Histog
             return null;
         }
 
-        public void acceptRecord(final ARGTYPE args, final SAMReadGroupRecord rg) {
-            allReadCollector.acceptRecord(args);
+        @Override
+        public PerUnitMetricCollector<METRIC_TYPE, Histogram_KEY, ARGTYPE> getCollector(final SAMReadGroupRecord rg) {
+            return allReadCollector;
         }
 
         @Override
@@ -304,22 +330,138 @@ public abstract class MultiLevelCollector<METRIC_TYPE extends MetricBase, Histog
         }
     }
 
+    /**
+     * Whether the PerUnitMetricCollectors made by this class may accept records on different threads, one per
+     * accumulation level.  This requires that a child collector depend only on the ARGTYPE it is passed and on state
+     * that no other child collector modifies, since the collectors of different levels will see the same record at
+     * the same time.  Subclasses whose child collectors read state that the outer collector updates as records arrive,
+     * or that share anything mutable, must not override this.
+     */
+    protected boolean supportsParallelLevels() {
+        return false;
+    }
+
+    /**
+     * If true, and if the subclass supports it and more than one accumulation level is being collected, the
+     * collectors of each level accept records on a thread of their own.  Records are handed to the level threads in
+     * batches, so that the next batch is prepared while the last one is collected.  Must be called after setup and
+     * before the first record is accepted.
+     */
+    public void setCollectLevelsInParallel(final boolean collectLevelsInParallel) {
+        if (collectLevelsInParallel && supportsParallelLevels() && outputOrderedDistributors.size() > 1) {
+            if (levelExecutors == null) {
+                levelExecutors = new ArrayList<>(outputOrderedDistributors.size());
+                for (int i = 0; i < outputOrderedDistributors.size(); i++) {
+                    levelExecutors.add(ThreadPoolUtil.newDaemonThreadPool(1, getClass().getSimpleName() + "Level" + i));
+                }
+                batchArgs = new ArrayList<>(LEVEL_BATCH_SIZE);
+                batchCollectors = new ArrayList<>(LEVEL_BATCH_SIZE);
+            }
+        } else if (levelExecutors != null) {
+            flushBatch();
+            awaitLevelTasks();
+            shutdownLevelExecutors();
+        }
+    }
+
     /**
      * Construct a argument of ARGTYPE using the given SAMRecord and ReferenceSequence then pass
      * this value to all collectors that should include this record
      */
     public void acceptRecord(final SAMRecord record, final ReferenceSequence refSeq) {
         final ARGTYPE arg = makeArg(record, refSeq);
+        final List<PerUnitMetricCollector<METRIC_TYPE, Histogram_KEY, ARGTYPE>> collectors = getCollectors(record.getReadGroup());
 
-        for(final Distributor collector : outputOrderedDistributors) {
-            collector.acceptRecord(arg, record.getReadGroup());
+        if (levelExecutors == null) {
+            for (int i = 0; i < collectors.size(); i++) {
+                collectors.get(i).acceptRecord(arg);
+            }
+        } else {
+            decodeForSharing(record);
+            batchArgs.add(arg);
+            batchCollectors.add(collectors);
+            if (batchArgs.size() >= LEVEL_BATCH_SIZE) flushBatch();
         }
     }
 
+    //Returns the collectors, one per Distributor, that receive records of the given read group
+    private List<PerUnitMetricCollector<METRIC_TYPE, Histogram_KEY, ARGTYPE>> getCollectors(final SAMReadGroupRecord rg) {
+        if (rg != null && rg == lastReadGroup) return lastCollectors;
+
+        List<PerUnitMetricCollector<METRIC_TYPE, Histogram_KEY, ARGTYPE>> collectors =
+                rg == null ? collectorsWithoutReadGroup : collectorsByReadGroup.get(rg.getReadGroupId());
+        if (collectors == null) {
+            collectors = new ArrayList<>(outputOrderedDistributors.size());
+            for (final Distributor distributor : outputOrderedDistributors) {
+                collectors.add(distributor.getCollector(rg));
+            }
+            if (rg == null) collectorsWithoutReadGroup = collectors;
+            else collectorsByReadGroup.put(rg.getReadGroupId(), collectors);
+        }
+
+        if (rg != null) {
+            lastReadGroup = rg;
+            lastCollectors = collectors;
+        }
+        return collectors;
+    }
+
+    //Decodes the lazily decoded parts of a record on this thread, so that the level threads only read it
+    private static void decodeForSharing(final SAMRecord record) {
+        record.getCigar();
+        record.getAlignmentEnd();
+        record.getAlignmentBlocks();
+        record.getReadBases();
+        record.getBaseQualities();
+        record.getAttributes();
+    }
+
+    //Waits for the level threads to finish the previous batch, then hands each of them the current one
+    private void flushBatch() {
+        awaitLevelTasks();
+        if (batchArgs.isEmpty()) return;
+
+        final List<ARGTYPE> args = batchArgs;
+        final List<List<PerUnitMetricCollector<METRIC_TYPE, Histogram_KEY, ARGTYPE>>> collectors = batchCollectors;
+        for (int level = 0; level < levelExecutors.size(); level++) {
+            final int i = level;
+            pendingLevelTasks.add(levelExecutors.get(i).submit(() -> {
+                for (int j = 0; j < args.size(); j++) {
+                    collectors.get(j).get(i).acceptRecord(args.get(j));
+                }
+            }));
+        }
+        batchArgs = new ArrayList<>(LEVEL_BATCH_SIZE);
+        batchCollectors = new ArrayList<>(LEVEL_BATCH_SIZE);
+    }
+
+    private void awaitLevelTasks() {
+        try {
+            for (final Future<?> task : pendingLevelTasks) ThreadPoolUtil.get(task, "collecting metrics");
+        } catch (final RuntimeException | Error e) {
+            shutdownLevelExecutors();
+            throw e;
+        } finally {
+            pendingLevelTasks.clear();
+        }
+    }
+
+    private void shutdownLevelExecutors() {
+        if (levelExecutors == null) return;
+        for (final ExecutorService executor : levelExecutors) executor.shutdownNow();
+        levelExecutors = null;
+    }
+
     /**
      * Call finish on all PerUnitMetricCollectors
      */
     public void finish() {
+        if (levelExecutors != null) {
+            flushBatch();
+            awaitLevelTasks();
+            shutdownLevelExecutors();
+        }
+
         for(final Distributor collector : outputOrderedDistributors) {
             collector.finish();
         }
@@ -0,0 +1,68 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026 The Broad Institute
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package picard.metrics;
+
+import htsjdk.samtools.metrics.MetricBase;
+
+/**
+ * One stage timer, counter or gauge reported by a program through picard.util.Instrumentation, as written to the
+ * PERFORMANCE_METRICS_FILE.  Fields that do not apply to the TYPE of the row are left empty.
+ */
+public class PerformanceMetrics extends MetricBase {
+    public enum Type {
+        /** Time spent in a named stage, summed over every time it was entered, on whichever threads. */
+        STAGE,
+        /** A running total of something processed, such as records, bytes or spills. */
+        COUNTER,
+        /** Samples of a level that goes up and down, such as a queue depth or the memory in use. */
+        GAUGE
+    }
+
+    /** The name of the stage, counter or gauge, by convention prefixed with the class that reports it. */
+    public String NAME;
+
+    /** What kind of instrument the row describes. */
+    public Type TYPE;
+
+    /** The number of times a stage was timed, the total of a counter, or the number of samples of a gauge. */
+    public long COUNT;
+
+    /** The total time spent in a stage.  Stages timed on several threads at once may add up to more than the run time. */
+    public Double TOTAL_SECONDS;
+
+    /** The total of a counter divided by the run time of the program, as its overall throughput. */
+    public Double RATE_PER_SECOND;
+
+    /** The mean time spent in a stage each time it was timed, or the mean sample of a gauge. */
+    public Double MEAN;
+
+    /** The smallest sample of a gauge. */
+    public Long MIN;
+
+    /** The largest sample of a gauge. */
+    public Long MAX;
+
+    /** The last sample of a gauge. */
+    public Long LAST;
+}
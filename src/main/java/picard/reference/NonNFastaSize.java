@@ -23,28 +23,32 @@
  */
 package picard.reference;
 
-import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.samtools.SAMSequenceRecord;
 import htsjdk.samtools.reference.ReferenceSequence;
 import htsjdk.samtools.reference.ReferenceSequenceFile;
 import htsjdk.samtools.reference.ReferenceSequenceFileFactory;
+import htsjdk.samtools.util.CloserUtil;
 import htsjdk.samtools.util.IOUtil;
+import htsjdk.samtools.util.Interval;
 import htsjdk.samtools.util.IntervalList;
-import htsjdk.samtools.util.IntervalListReferenceSequenceMask;
-import htsjdk.samtools.util.ReferenceSequenceMask;
 import htsjdk.samtools.util.SequenceUtil;
 import htsjdk.samtools.util.StringUtil;
-import htsjdk.samtools.util.WholeGenomeReferenceSequenceMask;
 import picard.PicardException;
 import picard.cmdline.CommandLineProgram;
 import picard.cmdline.CommandLineProgramProperties;
 import picard.cmdline.Option;
 import picard.cmdline.StandardOptionDefinitions;
 import picard.cmdline.programgroups.Fasta;
+import picard.util.ThreadPoolUtil;
 
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * A tool to count the number of non-N bases in a fasta file
@@ -76,6 +80,9 @@ public class NonNFastaSize extends CommandLineProgram {
     @Option(shortName = "INTERVALS", doc = "An interval list file that contains the locations of the positions to assess.  If not provided, the entire reference will be used", optional = true)
     public File INTERVALS = null;
 
+    @Option(doc = "Number of threads on which to read and count the contigs.", optional = true)
+    public int NUM_THREADS = 1;
+
     public static void main(final String[] args) {
         new NonNFastaSize().instanceMainWithExit(args);
     }
@@ -85,38 +92,33 @@ public class NonNFastaSize extends CommandLineProgram {
         IOUtil.assertFileIsReadable(INPUT);
         IOUtil.assertFileIsWritable(OUTPUT);
 
-        // set up the reference and a mask so that we only count the positions requested by the user
         final ReferenceSequenceFile ref = ReferenceSequenceFileFactory.getReferenceSequenceFile(INPUT);
-        final ReferenceSequenceMask referenceSequenceMask;
+        final SAMSequenceDictionary dictionary = ref.getSequenceDictionary();
+        CloserUtil.close(ref);
+
+        // the positions requested by the user on each contig, merged and in order, or null to count whole contigs
+        final Map<String, List<Interval>> intervalsByContig;
         if (INTERVALS != null) {
             IOUtil.assertFileIsReadable(INTERVALS);
-            final IntervalList intervalList = IntervalList.fromFile(INTERVALS);
-            referenceSequenceMask = new IntervalListReferenceSequenceMask(intervalList);
+            intervalsByContig = new HashMap<>();
+            for (final Interval interval : IntervalList.fromFile(INTERVALS).uniqued().getIntervals()) {
+                intervalsByContig.computeIfAbsent(interval.getContig(), contig -> new ArrayList<>()).add(interval);
+            }
         } else {
-            final SAMFileHeader header = new SAMFileHeader();
-            header.setSequenceDictionary(ref.getSequenceDictionary());
-            referenceSequenceMask = new WholeGenomeReferenceSequenceMask(header);
+            intervalsByContig = null;
         }
 
-        long nonNbases = 0L;
-
-        for (final SAMSequenceRecord rec : ref.getSequenceDictionary().getSequences()) {
-            // pull out the contig and set up the bases
-            final ReferenceSequence sequence = ref.getSequence(rec.getSequenceName());
-            final byte[] bases = sequence.getBases();
-            StringUtil.toUpperCase(bases);
+        final List<String> contigs = new ArrayList<>();
+        for (final SAMSequenceRecord rec : dictionary.getSequences()) contigs.add(rec.getSequenceName());
 
-            for (int i = 0; i < bases.length; i++) {
-                // only investigate this position if it's within our mask
-                if (referenceSequenceMask.get(sequence.getContigIndex(), i+1)) {
-                    nonNbases += bases[i] == SequenceUtil.N ? 0 : 1;
-                }
-            }
-        }
+        final long[] nonNbases = {0L};
+        new ParallelReferenceProcessor(INPUT, true, NUM_THREADS).process(contigs,
+                sequence -> countNonNBases(sequence, intervalsByContig == null ? null : intervalsByContig.get(sequence.getName())),
+                count -> nonNbases[0] += count);
 
         try {
             final BufferedWriter out = IOUtil.openFileForBufferedWriting(OUTPUT);
-            out.write(nonNbases + "\n");
+            out.write(nonNbases[0] + "\n");
             out.close();
         }
         catch (IOException ioe) {
@@ -125,4 +127,31 @@ public class NonNFastaSize extends CommandLineProgram {
 
         return 0;
     }
+
+    @Override
+    protected String[] customCommandLineValidation() {
+        final String[] errors = ThreadPoolUtil.validateNumThreads(NUM_THREADS);
+        return errors != null ? errors : super.customCommandLineValidation();
+    }
+
+    /** Counts the non-N bases of the sequence within the intervals, or within the whole sequence if intervals is null. */
+    private static long countNonNBases(final ReferenceSequence sequence, final List<Interval> intervals) {
+        final byte[] bases = sequence.getBases();
+        StringUtil.toUpperCase(bases);
+
+        if (intervals == null) return countNonNBases(bases, 0, bases.length);
+        long count = 0;
+        for (final Interval interval : intervals) {
+            count += countNonNBases(bases, Math.max(0, interval.getStart() - 1), Math.min(bases.length, interval.getEnd()));
+        }
+        return count;
+    }
+
+    private static long countNonNBases(final byte[] bases, final int from, final int to) {
+        long count = 0;
+        for (int i = from; i < to; i++) {
+            if (bases[i] != SequenceUtil.N) count++;
+        }
+        return count;
+    }
 }
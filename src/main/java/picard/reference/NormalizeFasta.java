@@ -1,8 +1,6 @@
 package picard.reference;
 
 import htsjdk.samtools.reference.ReferenceSequence;
-import htsjdk.samtools.reference.ReferenceSequenceFile;
-import htsjdk.samtools.reference.ReferenceSequenceFileFactory;
 import htsjdk.samtools.util.IOUtil;
 import htsjdk.samtools.util.Log;
 import htsjdk.samtools.util.RuntimeIOException;
@@ -12,10 +10,11 @@ import picard.cmdline.CommandLineProgramProperties;
 import picard.cmdline.Option;
 import picard.cmdline.programgroups.Fasta;
 import picard.cmdline.StandardOptionDefinitions;
+import picard.util.ThreadPoolUtil;
 
-import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 
 /**
  * Little program to "normalize" a fasta file to ensure that all line of sequence are the
@@ -52,6 +51,9 @@ public class NormalizeFasta extends CommandLineProgram {
     @Option(doc="Truncate sequence names at first whitespace.")
     public boolean TRUNCATE_SEQUENCE_NAMES_AT_WHITESPACE=false;
 
+    @Option(doc="Number of threads on which to format the sequences.  When the input is indexed and TRUNCATE_SEQUENCE_NAMES_AT_WHITESPACE is true the sequences are also read on these threads.")
+    public int NUM_THREADS=1;
+
     private final Log log = Log.getInstance(NormalizeFasta.class);
 
     public static void main(final String[] args) {
@@ -67,36 +69,19 @@ public class NormalizeFasta extends CommandLineProgram {
             throw new IllegalArgumentException("Input and output cannot be the same file.");
         }
 
-        final ReferenceSequenceFile ref = ReferenceSequenceFileFactory.getReferenceSequenceFile(INPUT, TRUNCATE_SEQUENCE_NAMES_AT_WHITESPACE);
-        final BufferedWriter out = IOUtil.openFileForBufferedWriting(OUTPUT);
-
-        ReferenceSequence seq = null;
-        while ((seq = ref.nextSequence()) != null) {
-            final String name  = seq.getName();
-            final byte[] bases = seq.getBases();
-
-            try {
-                out.write(">");
-                out.write(name);
-                out.newLine();
-
-                if (bases.length == 0) {
-                    log.warn("Sequence " + name + " contains 0 bases.");
-                }
-                else {
-                    for (int i=0; i<bases.length; ++i) {
-                        if (i > 0 && i % LINE_LENGTH == 0) out.write("\n");
-                        out.write(bases[i]);
-                    }
+        final OutputStream out = IOUtil.maybeBufferOutputStream(IOUtil.openFileForWriting(OUTPUT));
 
-                    out.write("\n");
-                }
-            }
-            catch (IOException ioe) {
-                throw new PicardException("Error writing to file " + OUTPUT.getAbsolutePath(), ioe);
+        // Each sequence is formatted on a worker thread and the formatted sequences written in order here
+        new ParallelReferenceProcessor(INPUT, TRUNCATE_SEQUENCE_NAMES_AT_WHITESPACE, NUM_THREADS).processAll(Integer.MAX_VALUE,
+                this::format,
+                formatted -> {
+                    try {
+                        out.write(formatted);
+                    } catch (IOException ioe) {
+                        throw new PicardException("Error writing to file " + OUTPUT.getAbsolutePath(), ioe);
+                    }
+                });
 
-            }
-        }
         try {
             out.close();
         } catch (IOException e) {
@@ -104,4 +89,34 @@ public class NormalizeFasta extends CommandLineProgram {
         }
         return 0;
     }
+
+    @Override
+    protected String[] customCommandLineValidation() {
+        final String[] errors = ThreadPoolUtil.validateNumThreads(NUM_THREADS);
+        return errors != null ? errors : super.customCommandLineValidation();
+    }
+
+    /** The name line and the bases of the sequence, broken into lines of LINE_LENGTH. */
+    private byte[] format(final ReferenceSequence seq) {
+        final String name  = seq.getName();
+        final byte[] bases = seq.getBases();
+        final byte[] nameLine = (">" + name + System.lineSeparator()).getBytes();
+
+        if (bases.length == 0) {
+            log.warn("Sequence " + name + " contains 0 bases.");
+            return nameLine;
+        }
+
+        final int numLines = (bases.length + LINE_LENGTH - 1) / LINE_LENGTH;
+        final byte[] formatted = new byte[nameLine.length + bases.length + numLines];
+        System.arraycopy(nameLine, 0, formatted, 0, nameLine.length);
+        int offset = nameLine.length;
+        for (int i = 0; i < bases.length; i += LINE_LENGTH) {
+            final int length = Math.min(LINE_LENGTH, bases.length - i);
+            System.arraycopy(bases, i, formatted, offset, length);
+            offset += length;
+            formatted[offset++] = '\n';
+        }
+        return formatted;
+    }
 }
@@ -0,0 +1,169 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026 The Broad Institute
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package picard.reference;
+
+import htsjdk.samtools.reference.FastaSequenceIndex;
+import htsjdk.samtools.reference.FastaSequenceIndexEntry;
+import htsjdk.samtools.reference.ReferenceSequence;
+import htsjdk.samtools.reference.ReferenceSequenceFile;
+import htsjdk.samtools.reference.ReferenceSequenceFileFactory;
+import htsjdk.samtools.util.CloserUtil;
+import picard.util.ThreadPoolUtil;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Applies a function to each sequence of a reference on several threads, and hands the results to a consumer on the
+ * calling thread in the order of the sequences.  When the reference is indexed and names are truncated at whitespace
+ * each thread reads the sequences it works on through a reader of its own; otherwise the sequences are read in turn on
+ * the calling thread and only the work on them is spread over the threads, since the index only holds the names up
+ * to the first whitespace and so reading through it would lose the rest of the name line.
+ *
+ * At most twice as many sequences as threads are read or waiting for the consumer at any time, which bounds the
+ * memory used by the largest sequences of the reference.  With a single thread everything happens on the calling
+ * thread, one sequence at a time.
+ */
+public class ParallelReferenceProcessor {
+    private final File reference;
+    private final boolean truncateNamesAtWhitespace;
+    private final int numThreads;
+
+    public ParallelReferenceProcessor(final File reference, final boolean truncateNamesAtWhitespace, final int numThreads) {
+        if (numThreads < 1) throw new IllegalArgumentException("numThreads must be at least 1: " + numThreads);
+        this.reference = reference;
+        this.truncateNamesAtWhitespace = truncateNamesAtWhitespace;
+        this.numThreads = numThreads;
+    }
+
+    /**
+     * Processes the named sequences, which are read by name and so require an indexed reference, in the given order.
+     * Sequences read by name are named as in the index, that is truncated at the first whitespace.
+     */
+    public <T> void process(final List<String> sequenceNames, final Function<ReferenceSequence, T> function, final Consumer<T> consumer) {
+        if (numThreads == 1) {
+            final ReferenceSequenceFile refFile = open();
+            try {
+                for (final String name : sequenceNames) consumer.accept(function.apply(refFile.getSequence(name)));
+            } finally {
+                CloserUtil.close(refFile);
+            }
+            return;
+        }
+
+        final List<ReferenceSequenceFile> readers = Collections.synchronizedList(new ArrayList<ReferenceSequenceFile>());
+        final ThreadLocal<ReferenceSequenceFile> threadReader = ThreadLocal.withInitial(() -> {
+            final ReferenceSequenceFile refFile = open();
+            readers.add(refFile);
+            return refFile;
+        });
+        try {
+            final List<Callable<T>> tasks = new ArrayList<>(sequenceNames.size());
+            for (final String name : sequenceNames) tasks.add(() -> function.apply(threadReader.get().getSequence(name)));
+            runInOrder(tasks, consumer);
+        } finally {
+            for (final ReferenceSequenceFile refFile : readers) CloserUtil.close(refFile);
+        }
+    }
+
+    /**
+     * Processes up to maxSequences sequences of the reference in the order in which they appear in it.  The sequences
+     * are named as by a sequential reader of the reference, so untruncated names keep the whole name line.
+     */
+    public <T> void processAll(final int maxSequences, final Function<ReferenceSequence, T> function, final Consumer<T> consumer) {
+        final ReferenceSequenceFile refFile = open();
+        final File indexFile = new File(reference.getAbsolutePath() + ".fai");
+        if (numThreads > 1 && truncateNamesAtWhitespace && refFile.isIndexed() && indexFile.exists()) {
+            CloserUtil.close(refFile);
+            final List<String> names = new ArrayList<>();
+            for (final FastaSequenceIndexEntry entry : new FastaSequenceIndex(indexFile)) {
+                if (names.size() == maxSequences) break;
+                names.add(entry.getContig());
+            }
+            process(names, function, consumer);
+            return;
+        }
+
+        try {
+            if (numThreads == 1) {
+                ReferenceSequence sequence;
+                for (int n = 0; n < maxSequences && (sequence = refFile.nextSequence()) != null; ++n) {
+                    consumer.accept(function.apply(sequence));
+                }
+            } else {
+                // Read on this thread, handing each sequence over as it is read
+                final ExecutorService executor = newExecutor();
+                try {
+                    final Deque<Future<T>> pending = new ArrayDeque<>();
+                    ReferenceSequence sequence;
+                    for (int n = 0; n < maxSequences && (sequence = refFile.nextSequence()) != null; ++n) {
+                        final ReferenceSequence toProcess = sequence;
+                        pending.addLast(executor.submit(() -> function.apply(toProcess)));
+                        if (pending.size() >= 2 * numThreads) consumer.accept(get(pending.removeFirst()));
+                    }
+                    while (!pending.isEmpty()) consumer.accept(get(pending.removeFirst()));
+                } finally {
+                    executor.shutdownNow();
+                }
+            }
+        } finally {
+            CloserUtil.close(refFile);
+        }
+    }
+
+    private ReferenceSequenceFile open() {
+        return ReferenceSequenceFileFactory.getReferenceSequenceFile(reference, truncateNamesAtWhitespace);
+    }
+
+    private <T> void runInOrder(final List<Callable<T>> tasks, final Consumer<T> consumer) {
+        final ExecutorService executor = newExecutor();
+        try {
+            final Deque<Future<T>> pending = new ArrayDeque<>();
+            for (final Callable<T> task : tasks) {
+                pending.addLast(executor.submit(task));
+                if (pending.size() >= 2 * numThreads) consumer.accept(get(pending.removeFirst()));
+            }
+            while (!pending.isEmpty()) consumer.accept(get(pending.removeFirst()));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private ExecutorService newExecutor() {
+        return ThreadPoolUtil.newDaemonThreadPool(numThreads, "ParallelReferenceProcessor");
+    }
+
+    private static <T> T get(final Future<T> future) {
+        return ThreadPoolUtil.get(future, "processing reference sequences");
+    }
+}
@@ -31,7 +31,6 @@ import htsjdk.samtools.ReservedTagConstants;
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMFileHeader.SortOrder;
 import htsjdk.samtools.SAMFileWriter;
-import htsjdk.samtools.SAMFileWriterFactory;
 import htsjdk.samtools.SAMProgramRecord;
 import htsjdk.samtools.SAMRecord;
 import htsjdk.samtools.SAMRecordCoordinateComparator;
@@ -56,6 +55,8 @@ import htsjdk.samtools.util.ProgressLogger;
 import htsjdk.samtools.util.SequenceUtil;
 import htsjdk.samtools.util.SortingCollection;
 import picard.PicardException;
+import picard.sam.util.ParallelSAMFileWriterFactory;
+import picard.util.Instrumentation;
 
 import java.io.File;
 import java.util.ArrayList;
@@ -289,8 +290,13 @@ public abstract class AbstractAlignmentMerger {
         int aligned = 0;
         int unmapped = 0;
 
-        // Get the aligned records and set up the first one
-        alignedIterator = new MultiHitAlignedReadIterator(new FilteringIterator(getQuerynameSortedAlignedRecords(), alignmentFilter), primaryAlignmentSelectionStrategy);
+        // Get the aligned records, sorting them if need be, and set up the first one
+        final Instrumentation instrumentation = Instrumentation.get();
+        final CloseableIterator<SAMRecord> querynameSortedAlignedRecords;
+        try (final Instrumentation.Timing timing = instrumentation.time("AlignmentMerger.openAlignedRecords")) {
+            querynameSortedAlignedRecords = getQuerynameSortedAlignedRecords();
+        }
+        alignedIterator = new MultiHitAlignedReadIterator(new FilteringIterator(querynameSortedAlignedRecords, alignmentFilter), primaryAlignmentSelectionStrategy);
         HitsForInsert nextAligned = nextAligned();
 
         // Check that the program record we are going to insert is not already used in the unmapped SAM
@@ -317,11 +323,12 @@ public abstract class AbstractAlignmentMerger {
         else { // catches queryname and unsorted
             final SAMFileHeader header = this.header.clone();
             header.setSortOrder(this.sortOrder);
-            final SAMFileWriter writer = new SAMFileWriterFactory().makeSAMOrBAMWriter(header, true, this.targetBamFile);
+            final SAMFileWriter writer = new ParallelSAMFileWriterFactory().makeSAMOrBAMWriter(header, true, this.targetBamFile);
             writer.setProgressLogger(new ProgressLogger(log, (int) 1e7, "Wrote", "records to output in queryname order"));
             sink = new Sink(writer);
         }
 
+        final Instrumentation.Timing mergeTiming = instrumentation.time("AlignmentMerger.merge");
         while (unmappedIterator.hasNext()) {
             // Load next unaligned read or read pair.
             final SAMRecord rec = unmappedIterator.next();
@@ -466,11 +473,13 @@ public abstract class AbstractAlignmentMerger {
         }
         alignedIterator.close();
         sink.close();
+        mergeTiming.close();
 
         // Write the records to the output file in specified sorted order,
         if (this.sortOrder == SortOrder.coordinate) {
+            final Instrumentation.Timing writeTiming = instrumentation.time("AlignmentMerger.writeCoordinateSorted");
             header.setSortOrder(this.sortOrder);
-            final SAMFileWriter writer = new SAMFileWriterFactory().makeSAMOrBAMWriter(header, true, this.targetBamFile);
+            final SAMFileWriter writer = new ParallelSAMFileWriterFactory().makeSAMOrBAMWriter(header, true, this.targetBamFile);
             writer.setProgressLogger(new ProgressLogger(log, (int) 1e7, "Wrote", "records from a sorting collection"));
             final ProgressLogger finalProgress = new ProgressLogger(log, 10000000, "Written in coordinate order to output", "records");
 
@@ -483,9 +492,12 @@ public abstract class AbstractAlignmentMerger {
             }
             writer.close();
             sink.sorter.cleanup();
+            writeTiming.close();
         }
 
         CloserUtil.close(unmappedSam);
+        instrumentation.counter("AlignmentMerger.alignedRecords").add(aligned);
+        instrumentation.counter("AlignmentMerger.unmappedRecords").add(alignedReadsOnly ? 0 : unmapped);
         log.info("Wrote " + aligned + " alignment records and " + (alignedReadsOnly ? 0 : unmapped) + " unmapped reads.");
     }
 
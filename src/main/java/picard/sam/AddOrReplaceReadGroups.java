@@ -3,7 +3,6 @@ package picard.sam;
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMFileHeader.SortOrder;
 import htsjdk.samtools.SAMFileWriter;
-import htsjdk.samtools.SAMFileWriterFactory;
 import htsjdk.samtools.SAMReadGroupRecord;
 import htsjdk.samtools.SAMRecord;
 import htsjdk.samtools.SAMTag;
@@ -20,6 +19,7 @@ import picard.cmdline.CommandLineProgramProperties;
 import picard.cmdline.Option;
 import picard.cmdline.StandardOptionDefinitions;
 import picard.cmdline.programgroups.SamOrBam;
+import picard.sam.util.ParallelSAMFileWriterFactory;
 
 import java.io.File;
 import java.util.Arrays;
@@ -132,7 +132,7 @@ public class AddOrReplaceReadGroups extends CommandLineProgram {
         outHeader.setReadGroups(Arrays.asList(rg));
         if (SORT_ORDER != null) outHeader.setSortOrder(SORT_ORDER);
 
-        final SAMFileWriter outWriter = new SAMFileWriterFactory().makeSAMOrBAMWriter(outHeader,
+        final SAMFileWriter outWriter = new ParallelSAMFileWriterFactory().makeSAMOrBAMWriter(outHeader,
                 outHeader.getSortOrder() == inHeader.getSortOrder(),
                 OUTPUT);
 
@@ -24,7 +24,6 @@
 package picard.sam;
 
 import htsjdk.samtools.SAMFileWriter;
-import htsjdk.samtools.SAMFileWriterFactory;
 import htsjdk.samtools.SAMRecord;
 import htsjdk.samtools.SamReader;
 import htsjdk.samtools.SamReaderFactory;
@@ -39,6 +38,7 @@ import picard.cmdline.CommandLineProgramProperties;
 import picard.cmdline.Option;
 import picard.cmdline.StandardOptionDefinitions;
 import picard.cmdline.programgroups.SamOrBam;
+import picard.sam.util.ParallelSAMFileWriterFactory;
 
 import java.io.File;
 
@@ -79,7 +79,7 @@ public class CleanSam extends CommandLineProgram {
             factory.validationStringency(ValidationStringency.LENIENT);
         }
         final SamReader reader = factory.open(INPUT);
-        final SAMFileWriter writer = new SAMFileWriterFactory().makeSAMOrBAMWriter(reader.getFileHeader(), true, OUTPUT);
+        final SAMFileWriter writer = new ParallelSAMFileWriterFactory().makeSAMOrBAMWriter(reader.getFileHeader(), true, OUTPUT);
         final CloseableIterator<SAMRecord> it = reader.iterator();
         final ProgressLogger progress = new ProgressLogger(Log.getInstance(CleanSam.class));
 
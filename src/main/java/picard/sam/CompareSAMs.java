@@ -31,17 +31,33 @@ import htsjdk.samtools.SAMSequenceRecord;
 import htsjdk.samtools.SamReader;
 import htsjdk.samtools.SamReaderFactory;
 import htsjdk.samtools.SecondaryOrSupplementarySkippingIterator;
+import htsjdk.samtools.util.CloseableIterator;
 import htsjdk.samtools.util.CloserUtil;
+import htsjdk.samtools.util.PeekableIterator;
+import htsjdk.samtools.util.SortingCollection;
 import picard.PicardException;
 import picard.cmdline.CommandLineProgram;
 import picard.cmdline.CommandLineProgramProperties;
+import picard.cmdline.Option;
 import picard.cmdline.PositionalArguments;
 import picard.cmdline.programgroups.SamOrBam;
+import picard.util.ThreadPoolUtil;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  * Rudimentary SAM comparer.  Compares headers, and if headers are compatible enough, compares SAMRecords,
@@ -71,15 +87,16 @@ public class CompareSAMs extends CommandLineProgram {
     @PositionalArguments(minElements = 2, maxElements = 2)
     public List<File> samFiles;
 
+    @Option(doc = "Number of threads on which to compare coordinate-sorted files, one sequence at a time.  Used only " +
+            "when both files are indexed.", optional = true)
+    public int NUM_THREADS = 1;
+
+    /** The number of unmatched reads each thread collects before adding them to the shared unmatched reads. */
+    private static final int UNMATCHED_BUFFER_SIZE = 10000;
+
     private final SamReader[] samReaders = new SamReader[2];
     private boolean sequenceDictionariesDiffer;
-    private int mappingsMatch = 0;
-    private int unmappedBoth = 0;
-    private int unmappedLeft = 0;
-    private int unmappedRight = 0;
-    private int mappingsDiffer = 0;
-    private int missingLeft = 0;
-    private int missingRight = 0;
+    private final AlignmentCounts counts = new AlignmentCounts();
     private boolean areEqual;
 
     public static void main(String[] argv) {
@@ -110,13 +127,13 @@ public class CompareSAMs extends CommandLineProgram {
     }
 
     private void printReport() {
-        System.out.println("Match\t" + mappingsMatch);
-        System.out.println("Differ\t" + mappingsDiffer);
-        System.out.println("Unmapped_both\t" + unmappedBoth);
-        System.out.println("Unmapped_left\t" + unmappedLeft);
-        System.out.println("Unmapped_right\t" + unmappedRight);
-        System.out.println("Missing_left\t" + missingLeft);
-        System.out.println("Missing_right\t" + missingRight);
+        System.out.println("Match\t" + counts.mappingsMatch);
+        System.out.println("Differ\t" + counts.mappingsDiffer);
+        System.out.println("Unmapped_both\t" + counts.unmappedBoth);
+        System.out.println("Unmapped_left\t" + counts.unmappedLeft);
+        System.out.println("Unmapped_right\t" + counts.unmappedRight);
+        System.out.println("Missing_left\t" + counts.missingLeft);
+        System.out.println("Missing_right\t" + counts.missingRight);
     }
 
     private boolean compareAlignments() {
@@ -143,116 +160,148 @@ public class CompareSAMs extends CommandLineProgram {
         }
     }
 
+    /**
+     * Compares coordinate-sorted files.  Reads are matched in memory only among those at the same coordinate in
+     * both files, and only as compact summaries; any left unmatched there are spilled to disk, sorted by name, and
+     * matched at the end.  When both files are indexed and NUM_THREADS > 1 each sequence is compared on its own.
+     */
     private boolean compareCoordinateSortedAlignments() {
-        final SecondaryOrSupplementarySkippingIterator itLeft =
-                new SecondaryOrSupplementarySkippingIterator(samReaders[0].iterator());
-        final SecondaryOrSupplementarySkippingIterator itRight =
-                new SecondaryOrSupplementarySkippingIterator(samReaders[1].iterator());
+        final SortingCollection<AlignmentSummary> leftUnmatched = newUnmatchedCollection();
+        final SortingCollection<AlignmentSummary> rightUnmatched = newUnmatchedCollection();
 
-        // Save any reads which haven't been matched during in-order scan.
-        final Map<String, SAMRecord> leftUnmatched = new HashMap<String, SAMRecord>();
-        final Map<String, SAMRecord> rightUnmatched = new HashMap<String, SAMRecord>();
+        if (NUM_THREADS > 1 && samReaders[0].hasIndex() && samReaders[1].hasIndex()) {
+            compareIndexedSequences(leftUnmatched, rightUnmatched);
+        } else {
+            compareCoordinateSortedRecords(samReaders[0].iterator(), samReaders[1].iterator(), counts, leftUnmatched, rightUnmatched);
+        }
+        matchUnmatched(leftUnmatched, rightUnmatched);
 
-        boolean ret = true;
+        return counts.missingLeft == 0 && counts.missingRight == 0 && counts.mappingsDiffer == 0 &&
+                counts.unmappedLeft == 0 && counts.unmappedRight == 0;
+    }
 
-        while (itLeft.hasCurrent()) {
-            if (!itRight.hasCurrent()) {
-                // Exhausted right side.  See if any of the remaining left reads match
-                // any of the saved right reads.
-                for (; itLeft.hasCurrent(); itLeft.advance()) {
-                    final SAMRecord left = itLeft.getCurrent();
-                    final SAMRecord right = rightUnmatched.remove(getKeyForRecord(left));
-                    if (right == null) {
-                        ++missingRight;
-                    } else {
-                        tallyAlignmentRecords(left, right);
-                    }
-                }
-                break;
+    private SortingCollection<AlignmentSummary> newUnmatchedCollection() {
+        return SortingCollection.newInstance(AlignmentSummary.class, new AlignmentSummaryCodec(), AlignmentSummary.BY_KEY,
+                MAX_RECORDS_IN_RAM, TMP_DIR);
+    }
+
+    /**
+     * Compares each sequence, and then the reads placed on none, on NUM_THREADS threads, each with its own pair of
+     * readers.  Unmatched reads from all the sequences go to the same collections, since a read may have moved.
+     */
+    private void compareIndexedSequences(final SortingCollection<AlignmentSummary> leftUnmatched,
+                                         final SortingCollection<AlignmentSummary> rightUnmatched) {
+        final List<String> sequenceNames = new ArrayList<String>();
+        for (final SAMSequenceRecord sequence : samReaders[0].getFileHeader().getSequenceDictionary().getSequences()) {
+            sequenceNames.add(sequence.getSequenceName());
+        }
+        sequenceNames.add(null); // the unplaced reads
+
+        final List<SamReader> opened = Collections.synchronizedList(new ArrayList<SamReader>());
+        final ThreadLocal<SamReader[]> threadReaders = ThreadLocal.withInitial(() -> {
+            final SamReader[] readers = new SamReader[samFiles.size()];
+            for (int i = 0; i < readers.length; ++i) {
+                readers[i] = SamReaderFactory.makeDefault().referenceSequence(REFERENCE_SEQUENCE).open(samFiles.get(i));
+                opened.add(readers[i]);
             }
-            // Don't assume stability of order beyond the coordinate.  Therefore grab all the
-            // reads from the left that has the same coordinate.
-            final SAMRecord left = itLeft.getCurrent();
-            final Map<String, SAMRecord> leftCurrentCoordinate = new HashMap<String, SAMRecord>();
-            leftCurrentCoordinate.put(getKeyForRecord(left), left);
-            while (itLeft.advance()) {
-                final SAMRecord nextLeft = itLeft.getCurrent();
-                if (compareAlignmentCoordinates(left, nextLeft) == 0) {
-                    leftCurrentCoordinate.put(getKeyForRecord(nextLeft), nextLeft);
-                } else {
-                    break;
-                }
+            return readers;
+        });
+        final ExecutorService executor = ThreadPoolUtil.newDaemonThreadPool(NUM_THREADS, "CompareSAMsWorker");
+
+        try {
+            final List<Future<AlignmentCounts>> futures = new ArrayList<Future<AlignmentCounts>>();
+            for (final String sequenceName : sequenceNames) {
+                futures.add(executor.submit(() -> {
+                    final SamReader[] readers = threadReaders.get();
+                    final AlignmentCounts sequenceCounts = new AlignmentCounts();
+                    compareCoordinateSortedRecords(query(readers[0], sequenceName), query(readers[1], sequenceName),
+                            sequenceCounts, leftUnmatched, rightUnmatched);
+                    return sequenceCounts;
+                }));
             }
-            // Advance the right iterator until it is >= the left reads that have just been grabbed
-            while (itRight.hasCurrent() && compareAlignmentCoordinates(left, itRight.getCurrent()) > 0) {
-                final SAMRecord right = itRight.getCurrent();
-                rightUnmatched.put(getKeyForRecord(right), right);
-                itRight.advance();
+            for (final Future<AlignmentCounts> future : futures) {
+                counts.add(ThreadPoolUtil.get(future, "comparing alignments"));
             }
-            // For each right read that has the same coordinate as the current left reads,
-            // see if there is a matching left read.  If so, process and discard.  If not,
-            // save the right read for later.
-            for (; itRight.hasCurrent() && compareAlignmentCoordinates(left, itRight.getCurrent()) == 0; itRight.advance()) {
-                final SAMRecord right = itRight.getCurrent();
-                final SAMRecord matchingLeft = leftCurrentCoordinate.remove(getKeyForRecord(right));
+        } finally {
+            executor.shutdownNow();
+            for (final SamReader reader : opened) CloserUtil.close(reader);
+        }
+    }
+
+    /** All the records on the named sequence, or the unplaced records if the name is null. */
+    private static CloseableIterator<SAMRecord> query(final SamReader reader, final String sequenceName) {
+        return (sequenceName == null) ? reader.queryUnmapped() : reader.query(sequenceName, 0, 0, false);
+    }
+
+    /**
+     * Walks two coordinate-sorted streams of records, tallying the reads that are found at the same coordinate in
+     * both and adding the rest to the unmatched collections.  Closes the iterators.
+     */
+    private void compareCoordinateSortedRecords(final CloseableIterator<SAMRecord> leftRecords,
+                                                final CloseableIterator<SAMRecord> rightRecords,
+                                                final AlignmentCounts regionCounts,
+                                                final SortingCollection<AlignmentSummary> leftUnmatched,
+                                                final SortingCollection<AlignmentSummary> rightUnmatched) {
+        final SecondaryOrSupplementarySkippingIterator itLeft = new SecondaryOrSupplementarySkippingIterator(leftRecords);
+        final SecondaryOrSupplementarySkippingIterator itRight = new SecondaryOrSupplementarySkippingIterator(rightRecords);
+        final List<AlignmentSummary> leftBuffer = new ArrayList<AlignmentSummary>();
+        final List<AlignmentSummary> rightBuffer = new ArrayList<AlignmentSummary>();
+
+        // Don't assume stability of order beyond the coordinate.  Therefore grab all the
+        // reads from the left that have the same coordinate.
+        final Map<AlignmentSummary, AlignmentSummary> leftCurrentCoordinate = new HashMap<AlignmentSummary, AlignmentSummary>();
+        while (itLeft.hasCurrent() || itRight.hasCurrent()) {
+            final SAMRecord next;
+            if (!itRight.hasCurrent()) next = itLeft.getCurrent();
+            else if (!itLeft.hasCurrent()) next = itRight.getCurrent();
+            else next = compareAlignmentCoordinates(itLeft.getCurrent(), itRight.getCurrent()) <= 0 ? itLeft.getCurrent() : itRight.getCurrent();
+
+            if (next.getReferenceIndex() == SAMRecord.NO_ALIGNMENT_REFERENCE_INDEX) {
+                // Unplaced reads sort last and all share one coordinate, so there is nothing to gain by grouping them
+                for (; itLeft.hasCurrent(); itLeft.advance()) addUnmatched(new AlignmentSummary(itLeft.getCurrent()), leftBuffer, leftUnmatched);
+                for (; itRight.hasCurrent(); itRight.advance()) addUnmatched(new AlignmentSummary(itRight.getCurrent()), rightBuffer, rightUnmatched);
+                break;
+            }
+
+            leftCurrentCoordinate.clear();
+            for (; itLeft.hasCurrent() && compareAlignmentCoordinates(next, itLeft.getCurrent()) == 0; itLeft.advance()) {
+                final AlignmentSummary left = new AlignmentSummary(itLeft.getCurrent());
+                leftCurrentCoordinate.put(left, left);
+            }
+            // For each right read that has the same coordinate, see if there is a matching left read
+            for (; itRight.hasCurrent() && compareAlignmentCoordinates(next, itRight.getCurrent()) == 0; itRight.advance()) {
+                final AlignmentSummary right = new AlignmentSummary(itRight.getCurrent());
+                final AlignmentSummary matchingLeft = leftCurrentCoordinate.remove(right);
                 if (matchingLeft != null) {
-                    ret = tallyAlignmentRecords(matchingLeft, right) && ret;
+                    regionCounts.tally(matchingLeft, right);
                 } else {
-                    rightUnmatched.put(getKeyForRecord(right), right);
+                    addUnmatched(right, rightBuffer, rightUnmatched);
                 }
             }
-
             // Anything left in leftCurrentCoordinate has not been matched
-            for (final SAMRecord samRecord : leftCurrentCoordinate.values()) {
-                leftUnmatched.put(getKeyForRecord(samRecord), samRecord);
-            }
-        }
-        // The left iterator has been exhausted.  See if any of the remaining right reads
-        // match any of the saved left reads.
-        for (; itRight.hasCurrent(); itRight.advance()) {
-            final SAMRecord right = itRight.getCurrent();
-            final SAMRecord left = leftUnmatched.remove(getKeyForRecord(right));
-            if (left != null) {
-                tallyAlignmentRecords(left, right);
-            } else {
-                ++missingLeft;
-            }
+            for (final AlignmentSummary left : leftCurrentCoordinate.values()) addUnmatched(left, leftBuffer, leftUnmatched);
         }
 
-        // Look up reads that were unmatched from left, and see if they are in rightUnmatched.
-        // If found, remove from rightUnmatched and tally.
-        for (final Map.Entry<String, SAMRecord> leftEntry : leftUnmatched.entrySet()) {
-            final String key = leftEntry.getKey();
-            final SAMRecord left = leftEntry.getValue();
-            final SAMRecord right = rightUnmatched.remove(key);
-            if (right == null) {
-                ++missingRight;
-                continue;
-            }
-            tallyAlignmentRecords(left, right);
-        }
-
-        // Any elements remaining in rightUnmatched are guaranteed not to be in leftUnmatched.
-        missingLeft += rightUnmatched.size();
-
-        if (ret && (missingLeft > 0 || missingRight > 0 || mappingsDiffer > 0 || unmappedLeft > 0 || unmappedRight > 0)) {
-            ret = false;
-        }
-        return ret;
+        flushUnmatched(leftBuffer, leftUnmatched);
+        flushUnmatched(rightBuffer, rightUnmatched);
+        leftRecords.close();
+        rightRecords.close();
     }
 
-    private int compareAlignmentCoordinates(final SAMRecord left, final SAMRecord right) {
-        final String leftReferenceName = left.getReferenceName();
-        final String rightReferenceName = right.getReferenceName();
-        if (leftReferenceName == null && rightReferenceName == null) {
+    /**
+     * Orders records by reference index and then alignment start, with unplaced reads last.  Each record's own
+     * reference index is used, which is valid because the sequence dictionaries are required to match.
+     */
+    private static int compareAlignmentCoordinates(final SAMRecord left, final SAMRecord right) {
+        final int leftReferenceIndex = left.getReferenceIndex();
+        final int rightReferenceIndex = right.getReferenceIndex();
+        if (leftReferenceIndex == SAMRecord.NO_ALIGNMENT_REFERENCE_INDEX && rightReferenceIndex == SAMRecord.NO_ALIGNMENT_REFERENCE_INDEX) {
             return 0;
-        } else if (leftReferenceName == null) {
+        } else if (leftReferenceIndex == SAMRecord.NO_ALIGNMENT_REFERENCE_INDEX) {
             return 1;
-        } else if (rightReferenceName == null) {
+        } else if (rightReferenceIndex == SAMRecord.NO_ALIGNMENT_REFERENCE_INDEX) {
             return -1;
         }
-        final int leftReferenceIndex = samReaders[0].getFileHeader().getSequenceIndex(leftReferenceName);
-        final int rightReferenceIndex = samReaders[0].getFileHeader().getSequenceIndex(rightReferenceName);
 
         if (leftReferenceIndex != rightReferenceIndex) {
             return leftReferenceIndex - rightReferenceIndex;
@@ -260,6 +309,52 @@ public class CompareSAMs extends CommandLineProgram {
         return left.getAlignmentStart() - right.getAlignmentStart();
     }
 
+    /** Buffers unmatched reads so that threads sharing the collection take its lock once per batch. */
+    private static void addUnmatched(final AlignmentSummary summary, final List<AlignmentSummary> buffer,
+                                     final SortingCollection<AlignmentSummary> unmatched) {
+        buffer.add(summary);
+        if (buffer.size() >= UNMATCHED_BUFFER_SIZE) flushUnmatched(buffer, unmatched);
+    }
+
+    private static void flushUnmatched(final List<AlignmentSummary> buffer, final SortingCollection<AlignmentSummary> unmatched) {
+        synchronized (unmatched) {
+            for (final AlignmentSummary summary : buffer) unmatched.add(summary);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Walks the unmatched reads of both sides in name order, tallying those found on both and counting the rest
+     * as missing from the other side.
+     */
+    private void matchUnmatched(final SortingCollection<AlignmentSummary> leftUnmatched,
+                                final SortingCollection<AlignmentSummary> rightUnmatched) {
+        leftUnmatched.doneAdding();
+        rightUnmatched.doneAdding();
+        final PeekableIterator<AlignmentSummary> itLeft = new PeekableIterator<AlignmentSummary>(leftUnmatched.iterator());
+        final PeekableIterator<AlignmentSummary> itRight = new PeekableIterator<AlignmentSummary>(rightUnmatched.iterator());
+
+        while (itLeft.hasNext() && itRight.hasNext()) {
+            final int cmp = AlignmentSummary.BY_KEY.compare(itLeft.peek(), itRight.peek());
+            if (cmp < 0) {
+                itLeft.next();
+                ++counts.missingRight;
+            } else if (cmp > 0) {
+                itRight.next();
+                ++counts.missingLeft;
+            } else {
+                counts.tally(itLeft.next(), itRight.next());
+            }
+        }
+        for (; itLeft.hasNext(); itLeft.next()) ++counts.missingRight;
+        for (; itRight.hasNext(); itRight.next()) ++counts.missingLeft;
+
+        itLeft.close();
+        itRight.close();
+        leftUnmatched.cleanup();
+        rightUnmatched.cleanup();
+    }
+
     private boolean compareQueryNameSortedAlignments() {
         final SecondaryOrSupplementarySkippingIterator it1 = new SecondaryOrSupplementarySkippingIterator(samReaders[0].iterator());
         final SecondaryOrSupplementarySkippingIterator it2 = new SecondaryOrSupplementarySkippingIterator(samReaders[1].iterator());
@@ -267,16 +362,16 @@ public class CompareSAMs extends CommandLineProgram {
         boolean ret = true;
         while (it1.hasCurrent()) {
             if (!it2.hasCurrent()) {
-                missingRight += countRemaining(it1);
+                counts.missingRight += countRemaining(it1);
                 return false;
             }
             final int cmp = it1.getCurrent().getReadName().compareTo(it2.getCurrent().getReadName());
             if (cmp < 0) {
-                ++missingRight;
+                ++counts.missingRight;
                 it1.advance();
                 ret = false;
             } else if (cmp > 0) {
-                ++missingLeft;
+                ++counts.missingLeft;
                 it2.advance();
                 ret = false;
             } else {
@@ -288,7 +383,7 @@ public class CompareSAMs extends CommandLineProgram {
             }
         }
         if (it2.hasCurrent()) {
-            missingLeft += countRemaining(it2);
+            counts.missingLeft += countRemaining(it2);
             return false;
         }
         return ret;
@@ -300,7 +395,7 @@ public class CompareSAMs extends CommandLineProgram {
         boolean ret = true;
         for (; it1.hasCurrent(); it1.advance(), it2.advance()) {
             if (!it2.hasCurrent()) {
-                missingRight += countRemaining(it1);
+                counts.missingRight += countRemaining(it1);
                 return false;
             }
             final SAMRecord s1 = it1.getCurrent();
@@ -312,7 +407,7 @@ public class CompareSAMs extends CommandLineProgram {
         }
 
         if (it2.hasCurrent()) {
-            missingLeft += countRemaining(it2);
+            counts.missingLeft += countRemaining(it2);
             return false;
         }
         return ret;
@@ -331,24 +426,24 @@ public class CompareSAMs extends CommandLineProgram {
             throw new PicardException("Read names do not match: " + s1.getReadName() + " : " + s2.getReadName());
         }
         if (s1.getReadUnmappedFlag() && s2.getReadUnmappedFlag()) {
-            ++unmappedBoth;
+            ++counts.unmappedBoth;
             return true;
         }
         if (s1.getReadUnmappedFlag()) {
-            ++unmappedLeft;
+            ++counts.unmappedLeft;
             return false;
         }
         if (s2.getReadUnmappedFlag()) {
-            ++unmappedRight;
+            ++counts.unmappedRight;
             return false;
         }
         final boolean ret = (s1.getReferenceName().equals(s2.getReferenceName()) &&
                 s1.getAlignmentStart() == s2.getAlignmentStart() &&
                 s1.getReadNegativeStrandFlag() == s1.getReadNegativeStrandFlag());
         if (!ret) {
-            ++mappingsDiffer;
+            ++counts.mappingsDiffer;
         } else {
-            ++mappingsMatch;
+            ++counts.mappingsMatch;
         }
         return ret;
     }
@@ -499,41 +594,165 @@ public class CompareSAMs extends CommandLineProgram {
         reportDifference(o1.toString(), o2.toString(), label);
     }
 
-    private String getKeyForRecord(final SAMRecord record) {
-        final boolean isSecondOfPair = record.getReadPairedFlag() && record.getSecondOfPairFlag();
-        return record.getReadName() + "-" + (isSecondOfPair ? "second" : "first");
-    }
-
     public int getMappingsMatch() {
-        return mappingsMatch;
+        return counts.mappingsMatch;
     }
 
     public int getUnmappedBoth() {
-        return unmappedBoth;
+        return counts.unmappedBoth;
     }
 
     public int getUnmappedLeft() {
-        return unmappedLeft;
+        return counts.unmappedLeft;
     }
 
     public int getUnmappedRight() {
-        return unmappedRight;
+        return counts.unmappedRight;
     }
 
     public int getMappingsDiffer() {
-        return mappingsDiffer;
+        return counts.mappingsDiffer;
     }
 
     public int getMissingLeft() {
-        return missingLeft;
+        return counts.missingLeft;
     }
 
     public int getMissingRight() {
-        return missingRight;
+        return counts.missingRight;
     }
 
     public boolean areEqual() {
         return areEqual;
     }
 
+    @Override
+    protected String[] customCommandLineValidation() {
+        final String[] errors = ThreadPoolUtil.validateNumThreads(NUM_THREADS);
+        return errors != null ? errors : super.customCommandLineValidation();
+    }
+
+    /** The tallies of a comparison, or of the part of one done on one thread. */
+    private static class AlignmentCounts {
+        private int mappingsMatch = 0;
+        private int unmappedBoth = 0;
+        private int unmappedLeft = 0;
+        private int unmappedRight = 0;
+        private int mappingsDiffer = 0;
+        private int missingLeft = 0;
+        private int missingRight = 0;
+
+        /** As tallyAlignmentRecords, for reads already known to have the same name. */
+        void tally(final AlignmentSummary left, final AlignmentSummary right) {
+            if (left.unmapped && right.unmapped) ++unmappedBoth;
+            else if (left.unmapped) ++unmappedLeft;
+            else if (right.unmapped) ++unmappedRight;
+            else if (left.referenceIndex == right.referenceIndex && left.alignmentStart == right.alignmentStart) ++mappingsMatch;
+            else ++mappingsDiffer;
+        }
+
+        void add(final AlignmentCounts other) {
+            mappingsMatch += other.mappingsMatch;
+            unmappedBoth += other.unmappedBoth;
+            unmappedLeft += other.unmappedLeft;
+            unmappedRight += other.unmappedRight;
+            mappingsDiffer += other.mappingsDiffer;
+            missingLeft += other.missingLeft;
+            missingRight += other.missingRight;
+        }
+    }
+
+    /**
+     * All that the comparison of coordinate-sorted files needs of a read: the key it is matched by (its name and
+     * which end of the pair it is) and the mapping that is compared.  Reference indices may be compared across the
+     * two files because their sequence dictionaries must be the same.
+     */
+    static class AlignmentSummary {
+        /** Orders by the hash of the name first, which is cheaper than comparing names and just as good for matching. */
+        static final Comparator<AlignmentSummary> BY_KEY = (a, b) -> {
+            int cmp = Integer.compare(a.readName.hashCode(), b.readName.hashCode());
+            if (cmp == 0) cmp = a.readName.compareTo(b.readName);
+            if (cmp == 0) cmp = Boolean.compare(a.secondOfPair, b.secondOfPair);
+            return cmp;
+        };
+
+        final String readName;
+        final boolean secondOfPair;
+        final boolean unmapped;
+        final int referenceIndex;
+        final int alignmentStart;
+
+        AlignmentSummary(final SAMRecord record) {
+            this(record.getReadName(), record.getReadPairedFlag() && record.getSecondOfPairFlag(), record.getReadUnmappedFlag(),
+                    record.getReferenceIndex(), record.getAlignmentStart());
+        }
+
+        AlignmentSummary(final String readName, final boolean secondOfPair, final boolean unmapped,
+                         final int referenceIndex, final int alignmentStart) {
+            this.readName = readName;
+            this.secondOfPair = secondOfPair;
+            this.unmapped = unmapped;
+            this.referenceIndex = referenceIndex;
+            this.alignmentStart = alignmentStart;
+        }
+
+        /** Summaries are equal when they have the same key, whatever their mappings. */
+        @Override
+        public boolean equals(final Object o) {
+            if (!(o instanceof AlignmentSummary)) return false;
+            final AlignmentSummary that = (AlignmentSummary) o;
+            return secondOfPair == that.secondOfPair && readName.equals(that.readName);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * readName.hashCode() + (secondOfPair ? 1 : 0);
+        }
+    }
+
+    /** Codec for AlignmentSummary that just outputs its fields and reads them back. */
+    static class AlignmentSummaryCodec implements SortingCollection.Codec<AlignmentSummary> {
+        private static final int SECOND_OF_PAIR = 1;
+        private static final int UNMAPPED = 2;
+
+        private DataInputStream in;
+        private DataOutputStream out;
+
+        public SortingCollection.Codec<AlignmentSummary> clone() {
+            return new AlignmentSummaryCodec();
+        }
+
+        public void setOutputStream(final OutputStream os) { this.out = new DataOutputStream(os); }
+
+        public void setInputStream(final InputStream is) { this.in = new DataInputStream(is); }
+
+        public void encode(final AlignmentSummary summary) {
+            try {
+                out.writeUTF(summary.readName);
+                out.writeByte((summary.secondOfPair ? SECOND_OF_PAIR : 0) | (summary.unmapped ? UNMAPPED : 0));
+                out.writeInt(summary.referenceIndex);
+                out.writeInt(summary.alignmentStart);
+            } catch (final IOException ioe) {
+                throw new PicardException("Exception writing alignment summary to file.", ioe);
+            }
+        }
+
+        public AlignmentSummary decode() {
+            final String readName;
+            try {
+                // If the first read results in an EOF we've exhausted the stream
+                readName = in.readUTF();
+            } catch (final EOFException eofe) {
+                return null;
+            } catch (final IOException ioe) {
+                throw new PicardException("Exception reading alignment summary from file.", ioe);
+            }
+            try {
+                final int flags = in.readByte();
+                return new AlignmentSummary(readName, (flags & SECOND_OF_PAIR) != 0, (flags & UNMAPPED) != 0, in.readInt(), in.readInt());
+            } catch (final IOException ioe) {
+                throw new PicardException("Exception reading alignment summary from file.", ioe);
+            }
+        }
+    }
 }
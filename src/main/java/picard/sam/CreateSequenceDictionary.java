@@ -25,12 +25,9 @@ package picard.sam;
 
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMFileWriter;
-import htsjdk.samtools.SAMFileWriterFactory;
 import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.samtools.SAMSequenceRecord;
 import htsjdk.samtools.reference.ReferenceSequence;
-import htsjdk.samtools.reference.ReferenceSequenceFile;
-import htsjdk.samtools.reference.ReferenceSequenceFileFactory;
 import htsjdk.samtools.util.StringUtil;
 import picard.PicardException;
 import picard.cmdline.CommandLineProgram;
@@ -38,6 +35,9 @@ import picard.cmdline.CommandLineProgramProperties;
 import picard.cmdline.Option;
 import picard.cmdline.programgroups.Fasta;
 import picard.cmdline.StandardOptionDefinitions;
+import picard.reference.ParallelReferenceProcessor;
+import picard.sam.util.ParallelSAMFileWriterFactory;
+import picard.util.ThreadPoolUtil;
 
 import java.io.File;
 import java.math.BigInteger;
@@ -99,15 +99,9 @@ public class CreateSequenceDictionary extends CommandLineProgram {
     @Option(doc = "Stop after writing this many sequences.  For testing.")
     public int NUM_SEQUENCES = Integer.MAX_VALUE;
 
-    private final MessageDigest md5;
-
-    public CreateSequenceDictionary() {
-        try {
-            md5 = MessageDigest.getInstance("MD5");
-        } catch (NoSuchAlgorithmException e) {
-            throw new PicardException("MD5 algorithm not found", e);
-        }
-    }
+    @Option(doc = "Number of threads on which to read the sequences and compute their MD5s.  The sequences are read " +
+            "on these threads only when the reference is indexed and TRUNCATE_NAMES_AT_WHITESPACE is true.", optional = true)
+    public int NUM_THREADS = 1;
 
     public static void main(final String[] argv) {
         System.exit(new CreateSequenceDictionary().instanceMain(argv));
@@ -120,7 +114,7 @@ public class CreateSequenceDictionary extends CommandLineProgram {
         if (URI == null) {
             URI = "file:" + REFERENCE.getAbsolutePath();
         }
-        return null;
+        return ThreadPoolUtil.validateNumThreads(NUM_THREADS);
     }
 
     /**
@@ -137,7 +131,7 @@ public class CreateSequenceDictionary extends CommandLineProgram {
         final SAMSequenceDictionary sequences = makeSequenceDictionary(REFERENCE);
         final SAMFileHeader samHeader = new SAMFileHeader();
         samHeader.setSequenceDictionary(sequences);
-        final SAMFileWriter samWriter = new SAMFileWriterFactory().makeSAMWriter(samHeader, false, OUTPUT);
+        final SAMFileWriter samWriter = new ParallelSAMFileWriterFactory().makeSAMWriter(samHeader, false, OUTPUT);
         samWriter.close();
         return 0;
     }
@@ -148,23 +142,21 @@ public class CreateSequenceDictionary extends CommandLineProgram {
      * @return SAMSequenceRecords containing info from the fasta, plus from cmd-line arguments.
      */
     public SAMSequenceDictionary makeSequenceDictionary(final File referenceFile) {
-        final ReferenceSequenceFile refSeqFile =
-                ReferenceSequenceFileFactory.getReferenceSequenceFile(referenceFile, TRUNCATE_NAMES_AT_WHITESPACE);
-        ReferenceSequence refSeq;
         final List<SAMSequenceRecord> ret = new ArrayList<SAMSequenceRecord>();
         final Set<String> sequenceNames = new HashSet<String>();
-        for (int numSequences = 0; numSequences < NUM_SEQUENCES && (refSeq = refSeqFile.nextSequence()) != null; ++numSequences) {
-            if (sequenceNames.contains(refSeq.getName())) {
-                throw new PicardException("Sequence name appears more than once in reference: " + refSeq.getName());
-            }
-            sequenceNames.add(refSeq.getName());
-            ret.add(makeSequenceRecord(refSeq));
-        }
+        new ParallelReferenceProcessor(referenceFile, TRUNCATE_NAMES_AT_WHITESPACE, NUM_THREADS).processAll(NUM_SEQUENCES,
+                this::makeSequenceRecord,
+                record -> {
+                    if (!sequenceNames.add(record.getSequenceName())) {
+                        throw new PicardException("Sequence name appears more than once in reference: " + record.getSequenceName());
+                    }
+                    ret.add(record);
+                });
         return new SAMSequenceDictionary(ret);
     }
 
     /**
-     * Create one SAMSequenceRecord from a single fasta sequence
+     * Create one SAMSequenceRecord from a single fasta sequence.  May be called on several threads at once.
      */
     private SAMSequenceRecord makeSequenceRecord(final ReferenceSequence refSeq) {
         final SAMSequenceRecord ret = new SAMSequenceRecord(refSeq.getName(), refSeq.length());
@@ -186,8 +178,13 @@ public class CreateSequenceDictionary extends CommandLineProgram {
         return ret;
     }
 
-    private String md5Hash(final byte[] bytes) {
-        md5.reset();
+    private static String md5Hash(final byte[] bytes) {
+        final MessageDigest md5;
+        try {
+            md5 = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new PicardException("MD5 algorithm not found", e);
+        }
         md5.update(bytes);
         String s = new BigInteger(1, md5.digest()).toString(16);
         if (s.length() != 32) {
@@ -28,7 +28,6 @@ import htsjdk.samtools.SAMException;
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMFileHeader.SortOrder;
 import htsjdk.samtools.SAMFileWriter;
-import htsjdk.samtools.SAMFileWriterFactory;
 import htsjdk.samtools.SAMReadGroupRecord;
 import htsjdk.samtools.SAMRecord;
 import htsjdk.samtools.SAMUtils;
@@ -36,6 +35,8 @@ import htsjdk.samtools.fastq.FastqConstants;
 import htsjdk.samtools.fastq.FastqConstants.FastqExtensions;
 import htsjdk.samtools.fastq.FastqReader;
 import htsjdk.samtools.fastq.FastqRecord;
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.samtools.util.CloserUtil;
 import htsjdk.samtools.util.FastqQualityFormat;
 import htsjdk.samtools.util.IOUtil;
 import htsjdk.samtools.util.Iso8601Date;
@@ -51,10 +52,17 @@ import picard.cmdline.CommandLineProgramProperties;
 import picard.cmdline.Option;
 import picard.cmdline.StandardOptionDefinitions;
 import picard.cmdline.programgroups.SamOrBam;
+import picard.sam.util.ParallelSAMFileWriterFactory;
+import picard.util.AsyncIterator;
+import picard.util.ThreadPoolUtil;
 
 import java.io.File;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  * Converts a fastq file to an unaligned BAM/SAM format.
@@ -153,6 +161,13 @@ public class FastqToSam extends CommandLineProgram {
     @Option(doc="Allow (and ignore) empty lines")
     public Boolean ALLOW_AND_IGNORE_EMPTY_LINES = false;
 
+    @Option(doc="Number of threads on which to build records.  When greater than 1 each input fastq is also read and parsed " +
+            "on a thread of its own, and records are built in batches on these threads and written in input order.")
+    public int NUM_THREADS = 1;
+
+    /** The number of reads, or pairs of reads, built together on one thread when NUM_THREADS > 1. */
+    private static final int RECORD_BATCH_SIZE = 1000;
+
     private static final SolexaQualityConverter solexaQualityConverter = SolexaQualityConverter.getSingleton();
 
     /**
@@ -245,7 +260,7 @@ public class FastqToSam extends CommandLineProgram {
         IOUtil.assertFileIsWritable(OUTPUT);
 
         final SAMFileHeader header = createSamFileHeader();
-        final SAMFileWriter writer = new SAMFileWriterFactory().makeSAMOrBAMWriter(header, false, OUTPUT);
+        final SAMFileWriter writer = new ParallelSAMFileWriterFactory().makeSAMOrBAMWriter(header, false, OUTPUT);
 
         // Set the quality format
         QUALITY_FORMAT = FastqToSam.determineQualityFormat(fileToFastqReader(FASTQ),
@@ -306,7 +321,9 @@ public class FastqToSam extends CommandLineProgram {
      *
      */
     public void makeItSo(final FastqReader reader1, final FastqReader reader2, final SAMFileWriter writer) {
-        final int readCount = (reader2 == null) ?  doUnpaired(reader1, writer) : doPaired(reader1, reader2, writer);
+        final int readCount;
+        if (NUM_THREADS > 1) readCount = doPipelined(reader1, reader2, writer);
+        else readCount = (reader2 == null) ?  doUnpaired(reader1, writer) : doPaired(reader1, reader2, writer);
         LOG.info("Processed " + readCount + " fastq reads");
     }
 
@@ -357,6 +374,121 @@ public class FastqToSam extends CommandLineProgram {
         return readCount;
     }
 
+    /**
+     * Does the work of doUnpaired or doPaired, reading each fastq on a thread of its own and building the records of
+     * each batch of reads on a pool of NUM_THREADS threads.  Batches are written in the order in which they were
+     * read, and at most two per thread are in flight at once.
+     */
+    protected int doPipelined(final FastqReader freader1, final FastqReader freader2, final SAMFileWriter writer) {
+        final SAMFileHeader header = writer.getFileHeader();
+        final ProgressLogger progress = new ProgressLogger(LOG);
+        final ExecutorService executor = ThreadPoolUtil.newDaemonThreadPool(NUM_THREADS, "FastqToSamWorker");
+        CloseableIterator<NumberedFastqRecord> records1 = null;
+        CloseableIterator<NumberedFastqRecord> records2 = null;
+        int readCount = 0;
+
+        try {
+            records1 = readAhead(freader1);
+            if (freader2 != null) records2 = readAhead(freader2);
+
+            final Deque<Future<List<SAMRecord>>> pending = new ArrayDeque<Future<List<SAMRecord>>>();
+            while (records1.hasNext() && (records2 == null || records2.hasNext())) {
+                final List<NumberedFastqRecord> batch1 = new ArrayList<NumberedFastqRecord>(RECORD_BATCH_SIZE);
+                final List<NumberedFastqRecord> batch2 = new ArrayList<NumberedFastqRecord>(records2 == null ? 0 : RECORD_BATCH_SIZE);
+                while (batch1.size() < RECORD_BATCH_SIZE && records1.hasNext() && (records2 == null || records2.hasNext())) {
+                    batch1.add(records1.next());
+                    if (records2 != null) batch2.add(records2.next());
+                }
+                readCount += batch1.size();
+
+                pending.addLast(executor.submit(() -> (freader2 == null) ?
+                        makeUnpairedRecords(header, batch1) :
+                        makePairedRecords(header, batch1, batch2, freader1.getFile(), freader2.getFile())));
+                if (pending.size() >= 2 * NUM_THREADS) writeBatch(pending.removeFirst(), writer, progress);
+            }
+            while (!pending.isEmpty()) writeBatch(pending.removeFirst(), writer, progress);
+
+            if (records1.hasNext() || (records2 != null && records2.hasNext())) {
+                throw new PicardException("Input paired fastq files must be the same length");
+            }
+        } finally {
+            executor.shutdownNow();
+            try {
+                CloserUtil.close(records1);
+            } finally {
+                CloserUtil.close(records2);
+            }
+        }
+
+        return readCount;
+    }
+
+    private List<SAMRecord> makeUnpairedRecords(final SAMFileHeader header, final List<NumberedFastqRecord> batch) {
+        final List<SAMRecord> records = new ArrayList<SAMRecord>(batch.size());
+        for (final NumberedFastqRecord frec : batch) {
+            final SAMRecord srec = createSamRecord(header, SequenceUtil.getSamReadNameFromFastqHeader(frec.record.getReadHeader()), frec.record, false);
+            srec.setReadPairedFlag(false);
+            records.add(srec);
+        }
+        return records;
+    }
+
+    private List<SAMRecord> makePairedRecords(final SAMFileHeader header, final List<NumberedFastqRecord> batch1,
+                                              final List<NumberedFastqRecord> batch2, final File fastq1, final File fastq2) {
+        final List<SAMRecord> records = new ArrayList<SAMRecord>(2 * batch1.size());
+        for (int i = 0; i < batch1.size(); i++) {
+            final NumberedFastqRecord frec1 = batch1.get(i);
+            final NumberedFastqRecord frec2 = batch2.get(i);
+
+            final String frec1Name = SequenceUtil.getSamReadNameFromFastqHeader(frec1.record.getReadHeader());
+            final String frec2Name = SequenceUtil.getSamReadNameFromFastqHeader(frec2.record.getReadHeader());
+            final String baseName = getBaseName(frec1Name, frec2Name, fastq1, frec1.lineNumber, fastq2, frec2.lineNumber);
+
+            final SAMRecord srec1 = createSamRecord(header, baseName, frec1.record, true);
+            srec1.setFirstOfPairFlag(true);
+            srec1.setSecondOfPairFlag(false);
+            records.add(srec1);
+
+            final SAMRecord srec2 = createSamRecord(header, baseName, frec2.record, true);
+            srec2.setFirstOfPairFlag(false);
+            srec2.setSecondOfPairFlag(true);
+            records.add(srec2);
+        }
+        return records;
+    }
+
+    private static void writeBatch(final Future<List<SAMRecord>> batch, final SAMFileWriter writer, final ProgressLogger progress) {
+        final List<SAMRecord> records = ThreadPoolUtil.get(batch, "building records");
+        for (final SAMRecord srec : records) {
+            writer.addAlignment(srec);
+            progress.record(srec);
+        }
+    }
+
+    /** A fastq record together with the line of its file on which it ended, for error messages. */
+    private static class NumberedFastqRecord {
+        final FastqRecord record;
+        final int lineNumber;
+
+        NumberedFastqRecord(final FastqRecord record, final int lineNumber) {
+            this.record = record;
+            this.lineNumber = lineNumber;
+        }
+    }
+
+    /** Reads and parses the fastq on a thread of its own.  Closing the iterator leaves the reader open. */
+    private static CloseableIterator<NumberedFastqRecord> readAhead(final FastqReader freader) {
+        return new AsyncIterator<NumberedFastqRecord>(new CloseableIterator<NumberedFastqRecord>() {
+            public boolean hasNext() { return freader.hasNext(); }
+            public NumberedFastqRecord next() {
+                final FastqRecord record = freader.next();
+                return new NumberedFastqRecord(record, freader.getLineNumber());
+            }
+            public void remove() { throw new UnsupportedOperationException(); }
+            public void close() { }
+        }, AsyncIterator.DEFAULT_QUEUE_SIZE, "FastqToSamReader");
+    }
+
     private FastqReader fileToFastqReader(final File file) {
         return new FastqReader(file, ALLOW_AND_IGNORE_EMPTY_LINES);
     }
@@ -434,11 +566,17 @@ public class FastqToSam extends CommandLineProgram {
      * </ul>
      */
     String getBaseName(final String readName1, final String readName2, final FastqReader freader1, final FastqReader freader2) {
-        String [] toks = getReadNameTokens(readName1, 1, freader1);
+        return getBaseName(readName1, readName2, freader1.getFile(), freader1.getLineNumber(), freader2.getFile(), freader2.getLineNumber());
+    }
+
+    /** As above, for reads that ended on the given lines of the given files. */
+    private String getBaseName(final String readName1, final String readName2,
+                               final File fastq1, final int lineNumber1, final File fastq2, final int lineNumber2) {
+        String [] toks = getReadNameTokens(readName1, 1, fastq1, lineNumber1);
         final String baseName1 = toks[0] ;
         final String num1 = toks[1] ;
 
-        toks = getReadNameTokens(readName2, 2, freader2);
+        toks = getReadNameTokens(readName2, 2, fastq2, lineNumber2);
         final String baseName2 = toks[0] ;
         final String num2 = toks[1];
 
@@ -449,19 +587,19 @@ public class FastqToSam extends CommandLineProgram {
         final boolean num1Blank = StringUtil.isBlank(num1);
         final boolean num2Blank = StringUtil.isBlank(num2);
         if (num1Blank || num2Blank) {
-            if(!num1Blank) throw new PicardException(error(freader1,"Pair 1 number is missing (" +readName1+ "). Both pair numbers must be present or neither."));       //num1 != blank and num2   == blank
-            else if(!num2Blank) throw new PicardException(error(freader2, "Pair 2 number is missing (" +readName2+ "). Both pair numbers must be present or neither.")); //num1 == blank and num =2 != blank 
+            if(!num1Blank) throw new PicardException(error(fastq1, lineNumber1, "Pair 1 number is missing (" +readName1+ "). Both pair numbers must be present or neither."));       //num1 != blank and num2   == blank
+            else if(!num2Blank) throw new PicardException(error(fastq2, lineNumber2, "Pair 2 number is missing (" +readName2+ "). Both pair numbers must be present or neither.")); //num1 == blank and num =2 != blank 
         } else {
-            if (!num1.equals("1")) throw new PicardException(error(freader1,"Pair 1 number must be 1 ("+readName1+")"));
-            if (!num2.equals("2")) throw new PicardException(error(freader2,"Pair 2 number must be 2 ("+readName2+")"));
+            if (!num1.equals("1")) throw new PicardException(error(fastq1, lineNumber1, "Pair 1 number must be 1 ("+readName1+")"));
+            if (!num2.equals("2")) throw new PicardException(error(fastq2, lineNumber2, "Pair 2 number must be 2 ("+readName2+")"));
         }
 
         return baseName1 ;
     }
 
     /** Breaks up read name into baseName and number separated by the last / */
-    private String [] getReadNameTokens(final String readName, final int pairNum, final FastqReader freader) {
-        if(readName.equals("")) throw new PicardException(error(freader,"Pair read name "+pairNum+" cannot be empty: "+readName));
+    private String [] getReadNameTokens(final String readName, final int pairNum, final File fastq, final int lineNumber) {
+        if(readName.equals("")) throw new PicardException(error(fastq, lineNumber, "Pair read name "+pairNum+" cannot be empty: "+readName));
 
         final int idx = readName.lastIndexOf('/');
         final String[] result = new String[2];
@@ -485,14 +623,14 @@ public class FastqToSam extends CommandLineProgram {
     }
 
     /** Little utility to give error messages corresponding to line numbers in the input files. */
-    private String error(final FastqReader freader, final String str) {
-        return str +" at line "+freader.getLineNumber() +" in file "+freader.getFile().getAbsolutePath();
+    private String error(final File fastq, final int lineNumber, final String str) {
+        return str +" at line "+lineNumber +" in file "+fastq.getAbsolutePath();
     }
 
     @Override
     protected String[] customCommandLineValidation() {
         if (MIN_Q < 0) return new String[]{"MIN_Q must be >= 0"};
         if (MAX_Q > SAMUtils.MAX_PHRED_SCORE) return new String[]{"MAX_Q must be <= " + SAMUtils.MAX_PHRED_SCORE};
-        return null;
+        return ThreadPoolUtil.validateNumThreads(NUM_THREADS);
     }
 }
@@ -30,7 +30,6 @@ package picard.sam;
 
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMFileWriter;
-import htsjdk.samtools.SAMFileWriterFactory;
 import htsjdk.samtools.SAMRecord;
 import htsjdk.samtools.SamReader;
 import htsjdk.samtools.SamReaderFactory;
@@ -45,6 +44,7 @@ import picard.cmdline.CommandLineProgramProperties;
 import picard.cmdline.Option;
 import picard.cmdline.StandardOptionDefinitions;
 import picard.cmdline.programgroups.SamOrBam;
+import picard.sam.util.ParallelSAMFileWriterFactory;
 
 import java.io.BufferedWriter;
 import java.io.File;
@@ -161,7 +161,7 @@ public class FilterSamReads extends CommandLineProgram {
                 OUTPUT.getName() + " [sortorder=" + fileHeader.getSortOrder().name() + "]");
 
         // create OUTPUT file
-        final SAMFileWriter outputWriter = new SAMFileWriterFactory().makeSAMOrBAMWriter(fileHeader, presorted, OUTPUT);
+        final SAMFileWriter outputWriter = new ParallelSAMFileWriterFactory().makeSAMOrBAMWriter(fileHeader, presorted, OUTPUT);
 
         final ProgressLogger progress = new ProgressLogger(log, (int) 1e6, "Written");
 
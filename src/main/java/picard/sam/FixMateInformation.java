@@ -30,7 +30,6 @@ import htsjdk.samtools.MergingSamRecordIterator;
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMFileHeader.SortOrder;
 import htsjdk.samtools.SAMFileWriter;
-import htsjdk.samtools.SAMFileWriterFactory;
 import htsjdk.samtools.SAMRecord;
 import htsjdk.samtools.SAMRecordQueryNameComparator;
 import htsjdk.samtools.SamFileHeaderMerger;
@@ -50,6 +49,7 @@ import picard.cmdline.CommandLineProgramProperties;
 import picard.cmdline.Option;
 import picard.cmdline.StandardOptionDefinitions;
 import picard.cmdline.programgroups.SamOrBam;
+import picard.sam.util.ParallelSAMFileWriterFactory;
 
 import java.io.File;
 import java.io.IOException;
@@ -264,7 +264,7 @@ public class FixMateInformation extends CommandLineProgram {
     }
 
     protected void createSamFileWriter(final SAMFileHeader header) {
-        out = new SAMFileWriterFactory().makeSAMOrBAMWriter(header,
+        out = new ParallelSAMFileWriterFactory().makeSAMOrBAMWriter(header,
                 header.getSortOrder() == SortOrder.queryname, OUTPUT);
 
     }
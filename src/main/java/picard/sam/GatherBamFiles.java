@@ -3,11 +3,10 @@ package picard.sam;
 import htsjdk.samtools.BamFileIoUtils;
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMFileWriter;
-import htsjdk.samtools.SAMFileWriterFactory;
 import htsjdk.samtools.SAMRecord;
 import htsjdk.samtools.SamReader;
 import htsjdk.samtools.SamReaderFactory;
-import htsjdk.samtools.util.CloserUtil;
+import htsjdk.samtools.util.CloseableIterator;
 import htsjdk.samtools.util.IOUtil;
 import htsjdk.samtools.util.Log;
 import picard.cmdline.CommandLineProgram;
@@ -15,6 +14,9 @@ import picard.cmdline.CommandLineProgramProperties;
 import picard.cmdline.Option;
 import picard.cmdline.StandardOptionDefinitions;
 import picard.cmdline.programgroups.SamOrBam;
+import picard.sam.util.ParallelSAMFileWriterFactory;
+import picard.util.AsyncIterator;
+import picard.util.InputPrefetcher;
 
 import java.io.File;
 import java.util.List;
@@ -56,6 +58,10 @@ public class GatherBamFiles extends CommandLineProgram {
     @Option(shortName = StandardOptionDefinitions.OUTPUT_SHORT_NAME, doc = "The output BAM file to write.")
     public File OUTPUT;
 
+    @Option(doc = "When the inputs cannot be gathered by copying gzip blocks, the number of upcoming inputs to decode " +
+            "ahead on background threads while the current one is written. 0 decodes each input on the writing thread.")
+    public int PREFETCH_INPUTS = 0;
+
     private static final Log log = Log.getInstance(GatherBamFiles.class);
 
     // Stock main method.
@@ -74,12 +80,20 @@ public class GatherBamFiles extends CommandLineProgram {
         if (determineBlockCopyingStatus(inputs)) {
             BamFileIoUtils.gatherWithBlockCopying(inputs, OUTPUT, CREATE_INDEX, CREATE_MD5_FILE);
         } else {
-            gatherNormally(inputs, OUTPUT, CREATE_INDEX, CREATE_MD5_FILE, REFERENCE_SEQUENCE);
+            gatherNormally(inputs, OUTPUT, CREATE_INDEX, CREATE_MD5_FILE, REFERENCE_SEQUENCE, PREFETCH_INPUTS);
         }
 
         return 0;
     }
 
+    @Override
+    protected String[] customCommandLineValidation() {
+        if (PREFETCH_INPUTS < 0) {
+            return new String[]{"PREFETCH_INPUTS must not be negative: " + PREFETCH_INPUTS};
+        }
+        return super.customCommandLineValidation();
+    }
+
     private boolean determineBlockCopyingStatus(final List<File> inputs) {
         boolean useBlockCopying = true;
         for (final File f : inputs) {
@@ -92,24 +106,34 @@ public class GatherBamFiles extends CommandLineProgram {
 
     /**
      * Simple implementation of a gather operations that uses SAMFileReaders and Writers in order to concatenate
-     * multiple BAM files.
+     * multiple BAM files.  Up to prefetchInputs inputs beyond the one being written are decoded ahead on background threads.
      */
     private static void gatherNormally(final List<File> inputs, final File output, final boolean createIndex, final boolean createMd5,
-                                       final File referenceFasta) {
+                                       final File referenceFasta, final int prefetchInputs) {
         final SAMFileHeader header;
         {
             header = SamReaderFactory.makeDefault().referenceSequence(referenceFasta).getFileHeader(inputs.get(0));
         }
 
-        final SAMFileWriter out = new SAMFileWriterFactory().setCreateIndex(createIndex).setCreateMd5File(createMd5).makeSAMOrBAMWriter(header, true, output);
+        final SAMFileWriter out = new ParallelSAMFileWriterFactory().setCreateIndex(createIndex).setCreateMd5File(createMd5).makeSAMOrBAMWriter(header, true, output);
 
-        for (final File f : inputs) {
-            log.info("Gathering " + f.getAbsolutePath());
+        final InputPrefetcher<SAMRecord> prefetcher = new InputPrefetcher<>(inputs, f -> {
             final SamReader in = SamReaderFactory.makeDefault().referenceSequence(referenceFasta).open(f);
-            for (final SAMRecord rec : in) out.addAlignment(rec);
-            CloserUtil.close(in);
-        }
+            return InputPrefetcher.closingWith(in.iterator(), in);
+        }, prefetchInputs, AsyncIterator.DEFAULT_QUEUE_SIZE, "GatherBamFilesReader");
 
+        try {
+            for (final File f : inputs) {
+                log.info("Gathering " + f.getAbsolutePath());
+                final CloseableIterator<SAMRecord> in = prefetcher.next();
+                while (in.hasNext()) out.addAlignment(in.next());
+                in.close();
+            }
+        }
+        finally {
+            // Stops the background threads and closes any inputs they opened, even if the gather failed
+            prefetcher.close();
+        }
         out.close();
     }
 
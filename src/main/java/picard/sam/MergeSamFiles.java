@@ -46,6 +46,7 @@ import picard.cmdline.CommandLineProgramProperties;
 import picard.cmdline.Option;
 import picard.cmdline.StandardOptionDefinitions;
 import picard.cmdline.programgroups.SamOrBam;
+import picard.sam.util.ParallelSAMFileWriterFactory;
 
 import java.io.File;
 import java.util.ArrayList;
@@ -196,7 +197,7 @@ public class MergeSamFiles extends CommandLineProgram {
             header.addComment(comment);
         }
         header.setSortOrder(SORT_ORDER);
-        final SAMFileWriterFactory samFileWriterFactory = new SAMFileWriterFactory();
+        final SAMFileWriterFactory samFileWriterFactory = new ParallelSAMFileWriterFactory();
         if (USE_THREADING) {
             samFileWriterFactory.setUseAsyncIo(true);
         }
@@ -26,7 +26,6 @@ package picard.sam;
 
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMFileWriter;
-import htsjdk.samtools.SAMFileWriterFactory;
 import htsjdk.samtools.SAMProgramRecord;
 import htsjdk.samtools.SAMRecord;
 import htsjdk.samtools.SamReader;
@@ -44,6 +43,7 @@ import picard.cmdline.Option;
 import picard.cmdline.StandardOptionDefinitions;
 import picard.cmdline.programgroups.SamOrBam;
 import picard.sam.markduplicates.util.OpticalDuplicateFinder;
+import picard.sam.util.ParallelSAMFileWriterFactory;
 import picard.sam.util.PhysicalLocationInt;
 
 import java.io.File;
@@ -198,7 +198,7 @@ public class PositionBasedDownsampleSam extends CommandLineProgram {
         programRecord.setProgramVersion(getVersion());
         header.addProgramRecord(programRecord);
 
-        final SAMFileWriter out = new SAMFileWriterFactory().makeSAMOrBAMWriter(header, true, OUTPUT);
+        final SAMFileWriter out = new ParallelSAMFileWriterFactory().makeSAMOrBAMWriter(header, true, OUTPUT);
 
         final CircleSelector selector = new CircleSelector(FRACTION);
 
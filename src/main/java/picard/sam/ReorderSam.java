@@ -25,7 +25,6 @@ package picard.sam;
 
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMFileWriter;
-import htsjdk.samtools.SAMFileWriterFactory;
 import htsjdk.samtools.SAMRecord;
 import htsjdk.samtools.SAMRecordIterator;
 import htsjdk.samtools.SAMSequenceDictionary;
@@ -44,6 +43,7 @@ import picard.cmdline.CommandLineProgramProperties;
 import picard.cmdline.Option;
 import picard.cmdline.StandardOptionDefinitions;
 import picard.cmdline.programgroups.SamOrBam;
+import picard.sam.util.ParallelSAMFileWriterFactory;
 
 import java.io.File;
 import java.util.HashMap;
@@ -117,7 +117,7 @@ public class ReorderSam extends CommandLineProgram {
 
         log.info("Writing reads...");
         if (in.hasIndex()) {
-            final SAMFileWriter out = new SAMFileWriterFactory().makeSAMOrBAMWriter(outHeader, true, OUTPUT);
+            final SAMFileWriter out = new ParallelSAMFileWriterFactory().makeSAMOrBAMWriter(outHeader, true, OUTPUT);
 
             // write the reads in contig order
             for (final SAMSequenceRecord contig : refDict.getSequences()) {
@@ -128,7 +128,7 @@ public class ReorderSam extends CommandLineProgram {
             writeReads(out, in.queryUnmapped(), newOrder, "unmapped");
             out.close();
         } else {
-            SAMFileWriter out = new SAMFileWriterFactory().makeSAMOrBAMWriter(outHeader, false, OUTPUT);
+            SAMFileWriter out = new ParallelSAMFileWriterFactory().makeSAMOrBAMWriter(outHeader, false, OUTPUT);
             writeReads(out, in.iterator(), newOrder, "All reads");
             out.close();
         }
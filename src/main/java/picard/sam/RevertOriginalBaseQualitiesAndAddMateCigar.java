@@ -20,6 +20,7 @@ import picard.cmdline.CommandLineProgramProperties;
 import picard.cmdline.Option;
 import picard.cmdline.StandardOptionDefinitions;
 import picard.cmdline.programgroups.SamOrBam;
+import picard.sam.util.ParallelSAMFileWriterFactory;
 
 import java.io.File;
 import java.util.Iterator;
@@ -90,7 +91,7 @@ public class RevertOriginalBaseQualitiesAndAddMateCigar extends CommandLineProgr
         outHeader.setSortOrder(SORT_ORDER);
         SAMFileWriterFactory.setDefaultCreateIndexWhileWriting(CREATE_INDEX);
         SAMFileWriterFactory.setDefaultCreateMd5File(CREATE_MD5_FILE);
-        final SAMFileWriter out = new SAMFileWriterFactory().makeSAMOrBAMWriter(outHeader, false, OUTPUT);
+        final SAMFileWriter out = new ParallelSAMFileWriterFactory().makeSAMOrBAMWriter(outHeader, false, OUTPUT);
 
         // Iterate over the records, revert original base qualities, and push them into a SortingCollection by queryname
         final SortingCollection<SAMRecord> sorter = SortingCollection.newInstance(SAMRecord.class, new BAMRecordCodec(outHeader),
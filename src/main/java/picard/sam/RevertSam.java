@@ -54,6 +54,7 @@ import picard.cmdline.CommandLineProgramProperties;
 import picard.cmdline.Option;
 import picard.cmdline.StandardOptionDefinitions;
 import picard.cmdline.programgroups.SamOrBam;
+import picard.sam.util.ParallelSAMFileWriterFactory;
 import picard.util.TabbedTextFileWithHeaderParser;
 
 import java.io.File;
@@ -64,6 +65,8 @@ import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -198,7 +201,7 @@ public class RevertSam extends CommandLineProgram {
         ValidationUtil.assertWritable(OUTPUT, OUTPUT_BY_READGROUP);
 
         final boolean sanitizing = SANITIZE;
-        final SamReader in = SamReaderFactory.makeDefault().referenceSequence(REFERENCE_SEQUENCE).validationStringency(VALIDATION_STRINGENCY).open(INPUT);
+        SamReader in = SamReaderFactory.makeDefault().referenceSequence(REFERENCE_SEQUENCE).validationStringency(VALIDATION_STRINGENCY).open(INPUT);
         final SAMFileHeader inHeader = in.getFileHeader();
         ValidationUtil.validateHeaderOverrides(inHeader, SAMPLE_ALIAS, LIBRARY_NAME);
 
@@ -230,9 +233,38 @@ public class RevertSam extends CommandLineProgram {
             headerMap = null;
         }
 
-        final SAMFileWriterFactory factory = new SAMFileWriterFactory();
-        final RevertSamWriter out = new RevertSamWriter(OUTPUT_BY_READGROUP, headerMap, outputMap, singleOutHeader, OUTPUT, presorted, factory, REFERENCE_SEQUENCE);
+        final SAMFileWriterFactory factory = new ParallelSAMFileWriterFactory();
+        RevertSamWriter out = new RevertSamWriter(OUTPUT_BY_READGROUP, headerMap, outputMap, singleOutHeader, OUTPUT, presorted, factory, REFERENCE_SEQUENCE);
         
+        ////////////////////////////////////////////////////////////////////////////
+        // If the input is already queryname sorted, sanitize templates as they are
+        // read instead of sorting the whole input again
+        ////////////////////////////////////////////////////////////////////////////
+        if (sanitizing && inHeader.getSortOrder() == SortOrder.queryname) {
+            log.info("Input is queryname sorted; sanitizing templates as they are read.");
+            final long[] sanitizeResults;
+            try {
+                sanitizeResults = sanitizeQuerynameSorted(in, inHeader, out);
+            } catch (final PicardException e) {
+                log.error(e.getMessage());
+                return -1;
+            } finally {
+                out.close();
+                CloserUtil.close(in);
+            }
+            if (sanitizeResults != null) {
+                reportDiscards(sanitizeResults[0], sanitizeResults[1]);
+                return 0;
+            }
+
+            // e.g. samtools' natural order, which the queryname sorted output writer would reject; start again and sort
+            log.warn("Input is not in the queryname order used for output; sorting it instead.");
+            in = SamReaderFactory.makeDefault().referenceSequence(REFERENCE_SEQUENCE).validationStringency(VALIDATION_STRINGENCY).open(INPUT);
+            if (SAMPLE_ALIAS != null) overwriteSample(in.getFileHeader().getReadGroups(), SAMPLE_ALIAS);
+            if (LIBRARY_NAME != null) overwriteLibrary(in.getFileHeader().getReadGroups(), LIBRARY_NAME);
+            out = new RevertSamWriter(OUTPUT_BY_READGROUP, headerMap, outputMap, singleOutHeader, OUTPUT, presorted, factory, REFERENCE_SEQUENCE);
+        }
+
         ////////////////////////////////////////////////////////////////////////////
         // Build a sorting collection to use if we are sanitizing
         ////////////////////////////////////////////////////////////////////////////
@@ -263,30 +295,32 @@ public class RevertSam extends CommandLineProgram {
         } else {
             final Map<SAMReadGroupRecord, FastqQualityFormat> readGroupToFormat;
             try {
-                readGroupToFormat = createReadGroupFormatMap(inHeader, REFERENCE_SEQUENCE, VALIDATION_STRINGENCY, INPUT, RESTORE_ORIGINAL_QUALITIES);
+                readGroupToFormat = createReadGroupFormatMap(inHeader.getReadGroups(), REFERENCE_SEQUENCE, VALIDATION_STRINGENCY, INPUT, RESTORE_ORIGINAL_QUALITIES);
+                logAndCheckQualityFormats(readGroupToFormat);
             } catch (final PicardException e) {
                 log.error(e.getMessage());
                 return -1;
             }
 
             final long[] sanitizeResults = sanitize(readGroupToFormat, sorter, out);
-            final long discarded = sanitizeResults[0];
-            final long total = sanitizeResults[1];
             out.close();
-
-            final double discardRate = discarded / (double) total;
-            final NumberFormat fmt = new DecimalFormat("0.000%");
-            log.info("Discarded " + discarded + " out of " + total + " (" + fmt.format(discardRate) + ") reads in order to sanitize output.");
-
-            if (discardRate > MAX_DISCARD_FRACTION) {
-                throw new PicardException("Discarded " + fmt.format(discardRate) + " which is above MAX_DISCARD_FRACTION of " + fmt.format(MAX_DISCARD_FRACTION));
-            }
+            reportDiscards(sanitizeResults[0], sanitizeResults[1]);
         }
 
         CloserUtil.close(in);
         return 0;
     }
 
+    private void reportDiscards(final long discarded, final long total) {
+        final double discardRate = discarded / (double) total;
+        final NumberFormat fmt = new DecimalFormat("0.000%");
+        log.info("Discarded " + discarded + " out of " + total + " (" + fmt.format(discardRate) + ") reads in order to sanitize output.");
+
+        if (discardRate > MAX_DISCARD_FRACTION) {
+            throw new PicardException("Discarded " + fmt.format(discardRate) + " which is above MAX_DISCARD_FRACTION of " + fmt.format(MAX_DISCARD_FRACTION));
+        }
+    }
+
     static String getDefaultExtension(final String input) {
         if (input.endsWith(".sam")) {
             return ".sam";
@@ -354,61 +388,182 @@ public class RevertSam extends CommandLineProgram {
         final List<PeekableIterator<SAMRecord>> iterators = sorter.iterators();
 
         for (final PeekableIterator<SAMRecord> iterator : iterators) {
-            readNameLoop:
             while (iterator.hasNext()) {
                 final List<SAMRecord> recs = fetchByReadName(iterator);
                 total += recs.size();
+                discarded += sanitizeTemplate(recs, readGroupToFormat, out, sanitizerProgress);
+            }
+        }
+        return new long[]{discarded, total};
+    }
 
-                // Check that all the reads have bases and qualities of the same length
-                for (final SAMRecord rec : recs) {
-                    if (rec.getReadBases().length != rec.getBaseQualities().length) {
-                        log.debug("Discarding " + recs.size() + " reads with name " + rec.getReadName() + " for mismatching bases and quals length.");
-                        discarded += recs.size();
-                        continue readNameLoop;
-                    }
-                }
+    /**
+     * Sanitizes input that is already queryname sorted in a single pass.  The records of each template are adjacent,
+     * so they are grouped as they are read, and quality encodings are detected from a prefix of the input that is held
+     * in RAM.  Read groups with too few records in that prefix are detected by reading the input again, as when sorting.
+     *
+     * @return the number of records discarded and the total, or null if the input turned out not to be in the order
+     * the output is written in, in which case the output is incomplete and must be rewritten.
+     */
+    private long[] sanitizeQuerynameSorted(final SamReader in, final SAMFileHeader inHeader, final RevertSamWriter out) {
+        final ProgressLogger progress = new ProgressLogger(log, 1000000, "Reverted");
+        final PeekableIterator<SAMRecord> iterator = new PeekableIterator<SAMRecord>(in.iterator());
+        final int readGroupCount = inHeader.getReadGroups().size();
+
+        // Buffer records until every read group has enough to detect its encoding, RAM is exhausted or the input ends
+        final List<SAMRecord> prefix = new ArrayList<SAMRecord>();
+        final Map<String, Integer> sampledPerReadGroup = new HashMap<String, Integer>();
+        int fullySampledReadGroups = 0;
+        boolean exhausted = false;
+        while (prefix.size() < MAX_RECORDS_IN_RAM && fullySampledReadGroups < readGroupCount) {
+            final SAMRecord rec = nextRevertedRecord(iterator, progress);
+            if (rec == null) {
+                exhausted = true;
+                break;
+            }
+            prefix.add(rec);
+            final String readGroupId = rec.getReadGroup().getId();
+            final int sampled = sampledPerReadGroup.getOrDefault(readGroupId, 0) + 1;
+            sampledPerReadGroup.put(readGroupId, sampled);
+            if (sampled == QualityEncodingDetector.DEFAULT_MAX_RECORDS_TO_ITERATE) ++fullySampledReadGroups;
+        }
 
-                // Check that if the first read is marked as unpaired that there is in fact only one read
-                if (!recs.get(0).getReadPairedFlag() && recs.size() > 1) {
-                    log.debug("Discarding " + recs.size() + " reads with name " + recs.get(0).getReadName() + " because they claim to be unpaired.");
-                    discarded += recs.size();
-                    continue readNameLoop;
-                }
+        final Map<SAMReadGroupRecord, FastqQualityFormat> readGroupToFormat = new HashMap<SAMReadGroupRecord, FastqQualityFormat>();
+        final List<SAMReadGroupRecord> undersampledReadGroups = new ArrayList<SAMReadGroupRecord>();
+        for (final SAMReadGroupRecord rg : inHeader.getReadGroups()) {
+            // Unless the prefix is the whole input, it must hold as many records as a full pass would sample
+            if (exhausted || sampledPerReadGroup.getOrDefault(rg.getId(), 0) >= QualityEncodingDetector.DEFAULT_MAX_RECORDS_TO_ITERATE) {
+                readGroupToFormat.put(rg, detectQualityFormat(rg, prefix.iterator(), RESTORE_ORIGINAL_QUALITIES));
+            } else {
+                undersampledReadGroups.add(rg);
+            }
+        }
+        if (!undersampledReadGroups.isEmpty()) {
+            readGroupToFormat.putAll(createReadGroupFormatMap(undersampledReadGroups, REFERENCE_SEQUENCE, VALIDATION_STRINGENCY, INPUT, RESTORE_ORIGINAL_QUALITIES));
+        }
+        logAndCheckQualityFormats(readGroupToFormat);
 
-                // Check that if we have paired reads there is exactly one first of pair and one second of pair
-                if (recs.get(0).getReadPairedFlag()) {
-                    int firsts = 0, seconds = 0, unpaired = 0;
-                    for (final SAMRecord rec : recs) {
-                        if (!rec.getReadPairedFlag()) ++unpaired;
-                        if (rec.getFirstOfPairFlag()) ++firsts;
-                        if (rec.getSecondOfPairFlag()) ++seconds;
-                    }
+        long total = 0, discarded = 0;
+        final ProgressLogger sanitizerProgress = new ProgressLogger(log, 1000000, "Sanitized");
+        final SAMRecordQueryNameComparator comparator = new SAMRecordQueryNameComparator();
+        final List<SAMRecord> template = new ArrayList<SAMRecord>();
+        SAMRecord previous = null;
+        int prefixIndex = 0;
+        while (true) {
+            final SAMRecord rec;
+            if (prefixIndex < prefix.size()) {
+                rec = prefix.get(prefixIndex);
+                prefix.set(prefixIndex++, null);
+            } else {
+                rec = nextRevertedRecord(iterator, progress);
+            }
 
-                    if (unpaired > 0 || firsts != 1 || seconds != 1) {
-                        log.debug("Discarding " + recs.size() + " reads with name " + recs.get(0).getReadName() + " because pairing information in corrupt.");
-                        discarded += recs.size();
-                        continue readNameLoop;
-                    }
-                }
+            if (rec != null && previous != null && comparator.fileOrderCompare(previous, rec) > 0) return null;
+            previous = rec;
 
-                // If we've made it this far spit the records into the output!
-                for (final SAMRecord rec : recs) {
-                    // The only valid quality score encoding scheme is standard; if it's not standard, change it.
-                    final FastqQualityFormat recordFormat = readGroupToFormat.get(rec.getReadGroup());
-                    if (!recordFormat.equals(FastqQualityFormat.Standard)) {
-                        final byte[] quals = rec.getBaseQualities();
-                        for (int i = 0; i < quals.length; i++) {
-                            quals[i] -= SolexaQualityConverter.ILLUMINA_TO_PHRED_SUBTRAHEND;
-                        }
-                        rec.setBaseQualities(quals);
-                    }
-                    out.addAlignment(rec);
-                    sanitizerProgress.record(rec);
-                }
+            if (rec == null || (!template.isEmpty() && !template.get(0).getReadName().equals(rec.getReadName()))) {
+                total += template.size();
+                discarded += sanitizeTemplateByReadGroup(template, readGroupToFormat, out, sanitizerProgress);
+                template.clear();
             }
+            if (rec == null) break;
+            template.add(rec);
         }
         return new long[]{discarded, total};
     }
+
+    /**
+     * Returns the next primary record from the iterator after reverting it, or null if there are none left.
+     */
+    private SAMRecord nextRevertedRecord(final PeekableIterator<SAMRecord> iterator, final ProgressLogger progress) {
+        while (iterator.hasNext()) {
+            final SAMRecord rec = iterator.next();
+            // Weed out non-primary and supplemental read as we don't want duplicates in the reverted file!
+            if (rec.isSecondaryOrSupplementary()) continue;
+
+            // log the progress before you revert because otherwise the "last read position" might not be accurate
+            progress.record(rec);
+            revertSamRecord(rec);
+            return rec;
+        }
+        return null;
+    }
+
+    /**
+     * When writing by read group, the records of a template are sanitized separately for each read group, as they
+     * would be when sorted into one collection per read group.  Returns the number of records discarded.
+     */
+    private long sanitizeTemplateByReadGroup(final List<SAMRecord> recs,
+                                             final Map<SAMReadGroupRecord, FastqQualityFormat> readGroupToFormat,
+                                             final RevertSamWriter out,
+                                             final ProgressLogger sanitizerProgress) {
+        if (recs.isEmpty()) return 0;
+        if (!OUTPUT_BY_READGROUP) return sanitizeTemplate(recs, readGroupToFormat, out, sanitizerProgress);
+
+        final Map<String, List<SAMRecord>> readGroupToRecs = new LinkedHashMap<String, List<SAMRecord>>();
+        for (final SAMRecord rec : recs) {
+            readGroupToRecs.computeIfAbsent(rec.getReadGroup().getId(), id -> new ArrayList<SAMRecord>()).add(rec);
+        }
+        long discarded = 0;
+        for (final List<SAMRecord> readGroupRecs : readGroupToRecs.values()) {
+            discarded += sanitizeTemplate(readGroupRecs, readGroupToFormat, out, sanitizerProgress);
+        }
+        return discarded;
+    }
+
+    /**
+     * Writes the records sharing a read name to the output if they are consistent, converting their qualities to
+     * the standard encoding if need be.  Returns the number of records discarded, i.e. 0 or all of them.
+     */
+    private long sanitizeTemplate(final List<SAMRecord> recs,
+                                  final Map<SAMReadGroupRecord, FastqQualityFormat> readGroupToFormat,
+                                  final RevertSamWriter out,
+                                  final ProgressLogger sanitizerProgress) {
+        // Check that all the reads have bases and qualities of the same length
+        for (final SAMRecord rec : recs) {
+            if (rec.getReadBases().length != rec.getBaseQualities().length) {
+                log.debug("Discarding " + recs.size() + " reads with name " + rec.getReadName() + " for mismatching bases and quals length.");
+                return recs.size();
+            }
+        }
+
+        // Check that if the first read is marked as unpaired that there is in fact only one read
+        if (!recs.get(0).getReadPairedFlag() && recs.size() > 1) {
+            log.debug("Discarding " + recs.size() + " reads with name " + recs.get(0).getReadName() + " because they claim to be unpaired.");
+            return recs.size();
+        }
+
+        // Check that if we have paired reads there is exactly one first of pair and one second of pair
+        if (recs.get(0).getReadPairedFlag()) {
+            int firsts = 0, seconds = 0, unpaired = 0;
+            for (final SAMRecord rec : recs) {
+                if (!rec.getReadPairedFlag()) ++unpaired;
+                if (rec.getFirstOfPairFlag()) ++firsts;
+                if (rec.getSecondOfPairFlag()) ++seconds;
+            }
+
+            if (unpaired > 0 || firsts != 1 || seconds != 1) {
+                log.debug("Discarding " + recs.size() + " reads with name " + recs.get(0).getReadName() + " because pairing information in corrupt.");
+                return recs.size();
+            }
+        }
+
+        // If we've made it this far spit the records into the output!
+        for (final SAMRecord rec : recs) {
+            // The only valid quality score encoding scheme is standard; if it's not standard, change it.
+            final FastqQualityFormat recordFormat = readGroupToFormat.get(rec.getReadGroup());
+            if (!recordFormat.equals(FastqQualityFormat.Standard)) {
+                final byte[] quals = rec.getBaseQualities();
+                for (int i = 0; i < quals.length; i++) {
+                    quals[i] -= SolexaQualityConverter.ILLUMINA_TO_PHRED_SUBTRAHEND;
+                }
+                rec.setBaseQualities(quals);
+            }
+            out.addAlignment(rec);
+            sanitizerProgress.record(rec);
+        }
+        return 0;
+    }
     
     /**
      * Generates a list by consuming from the iterator in order starting with the first available
@@ -506,7 +661,7 @@ public class RevertSam extends CommandLineProgram {
     }
 
     private Map<SAMReadGroupRecord, FastqQualityFormat> createReadGroupFormatMap(
-            final SAMFileHeader inHeader,
+            final List<SAMReadGroupRecord> readGroups,
             final File referenceSequence,
             final ValidationStringency validationStringency,
             final File input,
@@ -515,28 +670,39 @@ public class RevertSam extends CommandLineProgram {
         final Map<SAMReadGroupRecord, FastqQualityFormat> readGroupToFormat = new HashMap<SAMReadGroupRecord, FastqQualityFormat>();
 
         // Figure out the quality score encoding scheme for each read group.
-        for (final SAMReadGroupRecord rg : inHeader.getReadGroups()) {
+        for (final SAMReadGroupRecord rg : readGroups) {
             final SamReader reader = SamReaderFactory.makeDefault().referenceSequence(referenceSequence).validationStringency(validationStringency).open(input);
-            final SamRecordFilter filter = new SamRecordFilter() {
-                public boolean filterOut(final SAMRecord rec) {
-                    return !rec.getReadGroup().getId().equals(rg.getId());
-                }
-
-                public boolean filterOut(final SAMRecord first, final SAMRecord second) {
-                    throw new UnsupportedOperationException();
-                }
-            };
-            readGroupToFormat.put(rg, QualityEncodingDetector.detect(QualityEncodingDetector.DEFAULT_MAX_RECORDS_TO_ITERATE, new FilteringIterator(reader.iterator(), filter), restoreOriginalQualities));
+            readGroupToFormat.put(rg, detectQualityFormat(rg, reader.iterator(), restoreOriginalQualities));
             CloserUtil.close(reader);
         }
+
+        return readGroupToFormat;
+    }
+
+    /**
+     * Detects the quality score encoding of the given read group from the first of its records in the iterator.
+     */
+    private FastqQualityFormat detectQualityFormat(final SAMReadGroupRecord rg, final Iterator<SAMRecord> records,
+                                                   final boolean restoreOriginalQualities) {
+        final SamRecordFilter filter = new SamRecordFilter() {
+            public boolean filterOut(final SAMRecord rec) {
+                return !rec.getReadGroup().getId().equals(rg.getId());
+            }
+
+            public boolean filterOut(final SAMRecord first, final SAMRecord second) {
+                throw new UnsupportedOperationException();
+            }
+        };
+        return QualityEncodingDetector.detect(QualityEncodingDetector.DEFAULT_MAX_RECORDS_TO_ITERATE, new FilteringIterator(records, filter), restoreOriginalQualities);
+    }
+
+    private void logAndCheckQualityFormats(final Map<SAMReadGroupRecord, FastqQualityFormat> readGroupToFormat) {
         for (final SAMReadGroupRecord r : readGroupToFormat.keySet()) {
             log.info("Detected quality format for " + r.getReadGroupId() + ": " + readGroupToFormat.get(r));
         }
         if (readGroupToFormat.values().contains(FastqQualityFormat.Solexa)) {
             throw new PicardException("No quality score encoding conversion implemented for " + FastqQualityFormat.Solexa);
         }
-
-        return readGroupToFormat;
     }
 
     /**
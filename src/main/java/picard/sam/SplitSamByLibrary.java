@@ -38,6 +38,7 @@ import picard.cmdline.CommandLineProgramProperties;
 import picard.cmdline.Option;
 import picard.cmdline.StandardOptionDefinitions;
 import picard.cmdline.programgroups.SamOrBam;
+import picard.sam.util.ParallelSAMFileWriterFactory;
 
 import java.io.File;
 import java.util.ArrayList;
@@ -87,7 +88,7 @@ public class SplitSamByLibrary extends CommandLineProgram {
         SamReader reader = SamReaderFactory.makeDefault().open(INPUT);
         Map<String, SAMFileWriter> libraryToWriter = new HashMap<String, SAMFileWriter>();
         Map<String, List<SAMReadGroupRecord>> libraryToRg = new HashMap<String, List<SAMReadGroupRecord>>();
-        SAMFileWriterFactory factory = new SAMFileWriterFactory();
+        SAMFileWriterFactory factory = new ParallelSAMFileWriterFactory();
         String extension = reader.type().equals(SamReader.Type.BAM_TYPE) ? ".bam" : ".sam";
 
         SAMFileHeader unknownHeader = reader.getFileHeader().clone();
@@ -47,6 +47,8 @@ import picard.sam.markduplicates.util.ReadEndsForMarkDuplicatesMap;
 import htsjdk.samtools.DuplicateScoringStrategy.ScoringStrategy;
 import picard.sam.markduplicates.util.ReadEndsForMarkDuplicatesWithBarcodes;
 import picard.sam.markduplicates.util.ReadEndsForMarkDuplicatesWithBarcodesCodec;
+import picard.sam.util.ParallelSAMFileWriterFactory;
+import picard.util.Instrumentation;
 
 import java.io.*;
 import java.util.*;
@@ -217,11 +219,16 @@ public class MarkDuplicates extends AbstractMarkDuplicatesCommandLineProgram {
 
         final boolean useBarcodes = (null != BARCODE_TAG || null != READ_ONE_BARCODE_TAG || null != READ_TWO_BARCODE_TAG);
 
+        final Instrumentation instrumentation = Instrumentation.get();
         reportMemoryStats("Start of doWork");
         log.info("Reading input file and constructing read end information.");
-        buildSortedReadEndLists(useBarcodes);
+        try (final Instrumentation.Timing timing = instrumentation.time("MarkDuplicates.buildSortedReadEndLists")) {
+            buildSortedReadEndLists(useBarcodes);
+        }
         reportMemoryStats("After buildSortedReadEndLists");
-        generateDuplicateIndexes(useBarcodes, this.REMOVE_SEQUENCING_DUPLICATES || this.TAGGING_POLICY != DuplicateTaggingPolicy.DontTag);
+        try (final Instrumentation.Timing timing = instrumentation.time("MarkDuplicates.generateDuplicateIndexes")) {
+            generateDuplicateIndexes(useBarcodes, this.REMOVE_SEQUENCING_DUPLICATES || this.TAGGING_POLICY != DuplicateTaggingPolicy.DontTag);
+        }
         reportMemoryStats("After generateDuplicateIndexes");
         log.info("Marking " + this.numDuplicateIndices + " records as duplicates.");
 
@@ -231,6 +238,7 @@ public class MarkDuplicates extends AbstractMarkDuplicatesCommandLineProgram {
             log.info("Found " + (this.libraryIdGenerator.getNumberOfOpticalDuplicateClusters()) + " optical duplicate clusters.");
         }
 
+        final Instrumentation.Timing writeTiming = instrumentation.time("MarkDuplicates.writeOutput");
         final SamHeaderAndIterator headerAndIterator = openInputs();
         final SAMFileHeader header = headerAndIterator.header;
         final SAMFileHeader.SortOrder sortOrder = header.getSortOrder();
@@ -250,7 +258,7 @@ public class MarkDuplicates extends AbstractMarkDuplicatesCommandLineProgram {
         // Key: previous PG ID on a SAM Record (or null).  Value: New PG ID to replace it.
         final Map<String, String> chainedPgIds = getChainedPgIds(outputHeader);
 
-        final SAMFileWriter out = new SAMFileWriterFactory().makeSAMOrBAMWriter(outputHeader,
+        final SAMFileWriter out = new ParallelSAMFileWriterFactory().makeSAMOrBAMWriter(outputHeader,
                 true,
                 OUTPUT);
 
@@ -360,6 +368,8 @@ public class MarkDuplicates extends AbstractMarkDuplicatesCommandLineProgram {
 
         reportMemoryStats("Before output close");
         out.close();
+        writeTiming.close();
+        instrumentation.counter("MarkDuplicates.recordsWritten").add(progress.getCount());
         reportMemoryStats("After output close");
 
         // Write out the metrics
@@ -379,6 +389,16 @@ public class MarkDuplicates extends AbstractMarkDuplicatesCommandLineProgram {
         final Runtime runtime = Runtime.getRuntime();
         log.info(stage + " freeMemory: " + runtime.freeMemory() + "; totalMemory: " + runtime.totalMemory() +
                 "; maxMemory: " + runtime.maxMemory());
+        Instrumentation.get().gauge("MarkDuplicates.usedMemoryBytes").record(runtime.totalMemory() - runtime.freeMemory());
+    }
+
+    /**
+     * The number of files a SortingCollection writes for a number of records, given that it spills whenever a record
+     * arrives to find it full, and spills what remains in RAM once done if it has spilled before.
+     */
+    static long sortingCollectionSpills(final long recordsAdded, final int maxRecordsInRam) {
+        final long spillsWhileAdding = recordsAdded > 0 ? (recordsAdded - 1) / maxRecordsInRam : 0;
+        return spillsWhileAdding > 0 ? spillsWhileAdding + 1 : 0;
     }
 
     /**
@@ -432,6 +452,8 @@ public class MarkDuplicates extends AbstractMarkDuplicatesCommandLineProgram {
             this.libraryIdGenerator = new LibraryIdGenerator(header);
         }
 
+        final Instrumentation.Gauge unmatchedPairs = Instrumentation.get().gauge("MarkDuplicates.unmatchedPairs");
+        long numFragmentEnds = 0, numPairedEnds = 0;
         String duplicateQueryName = null;
         long duplicateIndex = NO_SUCH_INDEX;
         while (iterator.hasNext()) {
@@ -465,6 +487,7 @@ public class MarkDuplicates extends AbstractMarkDuplicatesCommandLineProgram {
                 final long indexForRead = assumedSortOrder == SAMFileHeader.SortOrder.queryname ? duplicateIndex : index;
                 final ReadEndsForMarkDuplicates fragmentEnd = buildReadEnds(header, indexForRead, rec, useBarcodes);
                 this.fragSort.add(fragmentEnd);
+                ++numFragmentEnds;
 
                 if (rec.getReadPairedFlag() && !rec.getMateUnmappedFlag()) {
                     final String key = rec.getAttribute(ReservedTagConstants.READ_GROUP_ID) + ":" + rec.getReadName();
@@ -523,6 +546,7 @@ public class MarkDuplicates extends AbstractMarkDuplicatesCommandLineProgram {
 
                         pairedEnds.score += DuplicateScoringStrategy.computeDuplicateScore(rec, this.DUPLICATE_SCORING_STRATEGY);
                         this.pairSort.add(pairedEnds);
+                        ++numPairedEnds;
                     }
                 }
             }
@@ -531,6 +555,7 @@ public class MarkDuplicates extends AbstractMarkDuplicatesCommandLineProgram {
             ++index;
             if (progress.record(rec)) {
                 log.info("Tracking " + tmp.size() + " as yet unmatched pairs. " + tmp.sizeInRam() + " records in RAM.");
+                unmatchedPairs.record(tmp.size());
             }
         }
 
@@ -540,6 +565,13 @@ public class MarkDuplicates extends AbstractMarkDuplicatesCommandLineProgram {
         // Tell these collections to free up memory if possible.
         this.pairSort.doneAdding();
         this.fragSort.doneAdding();
+
+        final Instrumentation instrumentation = Instrumentation.get();
+        instrumentation.counter("MarkDuplicates.recordsRead").add(index);
+        instrumentation.counter("MarkDuplicates.fragmentEnds").add(numFragmentEnds);
+        instrumentation.counter("MarkDuplicates.pairedEnds").add(numPairedEnds);
+        instrumentation.counter("MarkDuplicates.readEndSortSpills").add(
+                sortingCollectionSpills(numFragmentEnds, maxInMemory) + sortingCollectionSpills(numPairedEnds, maxInMemory));
     }
 
     /** Builds a read ends object that represents a single read. */
@@ -27,6 +27,7 @@ package picard.sam.markduplicates;
 import picard.PicardException;
 import picard.cmdline.CommandLineProgramProperties;
 import picard.cmdline.Option;
+import htsjdk.samtools.util.CloserUtil;
 import htsjdk.samtools.util.Histogram;
 import htsjdk.samtools.util.IterableAdapter;
 import htsjdk.samtools.util.Log;
@@ -35,9 +36,19 @@ import htsjdk.samtools.util.ProgressLogger;
 import htsjdk.samtools.*;
 import picard.cmdline.programgroups.SamOrBam;
 import picard.sam.markduplicates.util.AbstractMarkDuplicatesCommandLineProgram;
+import picard.sam.markduplicates.util.LibraryIdGenerator;
+import picard.sam.markduplicates.util.OpticalDuplicateFinder;
+import picard.sam.util.ParallelSAMFileWriterFactory;
+import picard.util.InputPrefetcher;
+import picard.util.ThreadPoolUtil;
 
 
+import java.io.File;
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * An even better duplication marking algorithm that handles all cases including clipped
@@ -99,6 +110,15 @@ public class MarkDuplicatesWithMateCigar extends AbstractMarkDuplicatesCommandLi
     @Option(doc = "The block size for use in the coordinate-sorted record buffer.", optional = true)
     public int BLOCK_SIZE = 100000;
 
+    @Option(doc = "The number of threads on which to mark duplicates.  When greater than one and the input is a single " +
+            "indexed BAM and the output a BAM, the reference sequences are split into shards that are marked independently " +
+            "and then concatenated; otherwise duplicates are marked on a single thread.  MAX_RECORDS_IN_RAM is divided " +
+            "among the threads.")
+    public int NUM_THREADS = 1;
+
+    /** The number of shards to aim for per thread, so that threads finishing small shards can take on more work. */
+    private static final int SHARDS_PER_THREAD = 4;
+
     /** Warnings that will only be emitted once */
     private boolean warnedNullProgramRecords = false;
     private boolean warnedMissingProgramRecords = false;
@@ -108,6 +128,12 @@ public class MarkDuplicatesWithMateCigar extends AbstractMarkDuplicatesCommandLi
         new MarkDuplicatesWithMateCigar().instanceMainWithExit(args);
     }
 
+    @Override
+    protected String[] customCommandLineValidation() {
+        final String[] errors = ThreadPoolUtil.validateNumThreads(NUM_THREADS);
+        return errors != null ? errors : super.customCommandLineValidation();
+    }
+
     /**
      * Main work method.
      */
@@ -135,8 +161,17 @@ public class MarkDuplicatesWithMateCigar extends AbstractMarkDuplicatesCommandLi
         // Key: previous PG ID on a SAM Record (or null).  Value: New PG ID to replace it.
         final Map<String, String> chainedPgIds = getChainedPgIds(outputHeader);
 
+        if (NUM_THREADS > 1) {
+            final String reason = getReasonCannotShard();
+            if (reason == null) {
+                CloserUtil.close(headerAndIterator.iterator);
+                return markDuplicatesByShard(header, outputHeader, chainedPgIds);
+            }
+            log.warn("Marking duplicates on a single thread since " + reason);
+        }
+
         // Open the output
-        final SAMFileWriter out = new SAMFileWriterFactory().makeSAMOrBAMWriter(outputHeader,
+        final SAMFileWriter out = new ParallelSAMFileWriterFactory().makeSAMOrBAMWriter(outputHeader,
                 true,
                 OUTPUT);
 
@@ -188,6 +223,165 @@ public class MarkDuplicatesWithMateCigar extends AbstractMarkDuplicatesCommandLi
         return 0;
     }
 
+    /** Returns why the input cannot be marked in shards, or null if it can. */
+    private String getReasonCannotShard() {
+        if (INPUT.size() != 1) return "there is more than one input.";
+        if (!BamFileIoUtils.isBamFile(OUTPUT)) return "the output is not a BAM.";
+        final SamReader reader = SamReaderFactory.makeDefault().open(SamInputResource.of(INPUT.get(0)));
+        try {
+            if (reader.type() != SamReader.Type.BAM_TYPE || !reader.hasIndex()) return "the input is not an indexed BAM.";
+            return null;
+        } finally {
+            CloserUtil.close(reader);
+        }
+    }
+
+    /**
+     * Marks duplicates in shards of whole reference sequences, each on its own thread and written to its own temporary
+     * BAM, then concatenates the shards in order into the output.  Since the duplicate marking iterator empties its
+     * queues whenever it moves to a new reference sequence, and resolves each end of a pair from its mate cigar,
+     * marking reference sequences independently gives the same result as a single pass over the input.
+     */
+    private int markDuplicatesByShard(final SAMFileHeader header, final SAMFileHeader outputHeader, final Map<String, String> chainedPgIds) {
+        // The iterator would otherwise take the minimum distance from the first read it sees, which differs between shards
+        final int minimumDistance = (MINIMUM_DISTANCE == -1) ? findMinimumDistance() : MINIMUM_DISTANCE;
+        final int maxRecordsInRam = Math.max(1, MAX_RECORDS_IN_RAM / NUM_THREADS);
+        final AtomicLong recordCount = new AtomicLong(0);
+
+        final List<QueryInterval[]> shards = makeShards(header.getSequenceDictionary());
+        final List<File> shardOutputs = new ArrayList<>();
+        final List<Future<MarkDuplicatesWithMateCigarIterator>> futures = new ArrayList<>();
+        final ExecutorService executor = ThreadPoolUtil.newDaemonThreadPool(NUM_THREADS, "MarkDuplicatesWithMateCigarShard");
+        final LibraryIdGenerator libraryIdGenerator = new LibraryIdGenerator(header);
+        int numDuplicates = 0;
+        int numRecordsWithNoMateCigar = 0;
+
+        try {
+            for (final QueryInterval[] shard : shards) {
+                final File shardOutput = File.createTempFile("MarkDuplicatesWithMateCigar.shard" + shardOutputs.size() + ".", BamFileIoUtils.BAM_FILE_EXTENSION, TMP_DIR.get(0));
+                shardOutput.deleteOnExit();
+                shardOutputs.add(shardOutput);
+                futures.add(executor.submit(() ->
+                        markDuplicatesInShard(shard, header, outputHeader, chainedPgIds, minimumDistance, maxRecordsInRam, shardOutput, recordCount)));
+            }
+
+            for (final Future<MarkDuplicatesWithMateCigarIterator> future : futures) {
+                final MarkDuplicatesWithMateCigarIterator iterator = ThreadPoolUtil.get(future, "marking duplicates");
+                numDuplicates += iterator.getNumDuplicates();
+                numRecordsWithNoMateCigar += iterator.getNumRecordsWithNoMateCigar();
+                libraryIdGenerator.merge(iterator.getLibraryIdGenerator());
+            }
+
+            BamFileIoUtils.gatherWithBlockCopying(shardOutputs, OUTPUT, CREATE_INDEX, CREATE_MD5_FILE);
+        } catch (final IOException ioe) {
+            throw new PicardException("Could not create a temporary file in " + TMP_DIR.get(0), ioe);
+        } finally {
+            executor.shutdownNow();
+            shardOutputs.forEach(File::delete);
+        }
+
+        log.info("Processed " + recordCount.get() + " records in " + shards.size() + " shards");
+        log.info("Found " + numRecordsWithNoMateCigar + " records with no mate cigar optional tag.");
+        log.info("Marking " + numDuplicates + " records as duplicates.");
+        log.info("Found " + libraryIdGenerator.getNumberOfOpticalDuplicateClusters() + " optical duplicate clusters.");
+
+        finalizeAndWriteMetrics(libraryIdGenerator);
+
+        return 0;
+    }
+
+    /**
+     * Groups consecutive reference sequences into shards of roughly equal total length, with several shards per
+     * thread, and adds a final shard, represented by null, for the unmapped reads without a position.
+     */
+    private List<QueryInterval[]> makeShards(final SAMSequenceDictionary dictionary) {
+        final long shardLength = Math.max(1, dictionary.getReferenceLength() / (NUM_THREADS * SHARDS_PER_THREAD));
+        final List<QueryInterval[]> shards = new ArrayList<>();
+        final List<QueryInterval> shard = new ArrayList<>();
+        long length = 0;
+
+        for (final SAMSequenceRecord sequence : dictionary.getSequences()) {
+            shard.add(new QueryInterval(sequence.getSequenceIndex(), 1, sequence.getSequenceLength()));
+            length += sequence.getSequenceLength();
+            if (length >= shardLength) {
+                shards.add(shard.toArray(new QueryInterval[shard.size()]));
+                shard.clear();
+                length = 0;
+            }
+        }
+        if (!shard.isEmpty()) shards.add(shard.toArray(new QueryInterval[shard.size()]));
+        shards.add(null);
+
+        return shards;
+    }
+
+    /** Finds the minimum distance the iterator would choose in a single pass: from the first mapped read it would consider. */
+    private int findMinimumDistance() {
+        final SamReader reader = SamReaderFactory.makeDefault().open(SamInputResource.of(INPUT.get(0)));
+        try {
+            for (final SAMRecord record : reader) {
+                final boolean missingMateCigar = record.getReadPairedFlag() && !record.getMateUnmappedFlag() && null == SAMUtils.getMateCigar(record);
+                if (!missingMateCigar && !record.getReadUnmappedFlag()) {
+                    return Math.max(2 * record.getReadBases().length, 100);
+                }
+            }
+            return -1;
+        } finally {
+            CloserUtil.close(reader);
+        }
+    }
+
+    /**
+     * Marks duplicates in the given reference sequences, or in the unmapped reads without a position if the shard is
+     * null, writing the records to the given file.
+     *
+     * @return the closed duplicate marking iterator, from which the counts and metrics for the shard can be obtained
+     */
+    private MarkDuplicatesWithMateCigarIterator markDuplicatesInShard(final QueryInterval[] shard,
+                                                                      final SAMFileHeader header,
+                                                                      final SAMFileHeader outputHeader,
+                                                                      final Map<String, String> chainedPgIds,
+                                                                      final int minimumDistance,
+                                                                      final int maxRecordsInRam,
+                                                                      final File output,
+                                                                      final AtomicLong recordCount) {
+        final SamReader reader = SamReaderFactory.makeDefault()
+                .enable(SamReaderFactory.Option.EAGERLY_DECODE)
+                .open(SamInputResource.of(INPUT.get(0)));
+        final SAMRecordIterator records = (shard == null) ? reader.queryUnmapped() : reader.queryOverlapping(shard);
+
+        final SAMFileWriter out = new ParallelSAMFileWriterFactory()
+                .setCompressionThreads(1)
+                .setCreateIndex(false)
+                .setCreateMd5File(false)
+                .makeBAMWriter(outputHeader, true, output);
+
+        // Optical duplicate finders keep state while parsing read names, so each shard needs its own
+        final MarkDuplicatesWithMateCigarIterator iterator = new MarkDuplicatesWithMateCigarIterator(header,
+                InputPrefetcher.closingWith(records, reader),
+                new OpticalDuplicateFinder(READ_NAME_REGEX, OPTICAL_DUPLICATE_PIXEL_DISTANCE, LOG),
+                this.DUPLICATE_SCORING_STRATEGY,
+                minimumDistance,
+                this.REMOVE_DUPLICATES,
+                this.SKIP_PAIRS_WITH_NO_MATE_CIGAR,
+                maxRecordsInRam,
+                this.BLOCK_SIZE,
+                this.TMP_DIR);
+
+        final ProgressLogger progress = new ProgressLogger(log, (int) 1e6, "Read");
+        for (final SAMRecord record : new IterableAdapter<SAMRecord>(iterator)) {
+            progress.record(record);
+            updateProgramRecord(record, chainedPgIds);
+            out.addAlignment(record);
+        }
+
+        iterator.close();
+        out.close();
+        recordCount.addAndGet(progress.getCount());
+
+        return iterator;
+    }
+
     /**
      * Updates the program record if necessary.
      */
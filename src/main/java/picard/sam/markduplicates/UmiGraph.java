@@ -113,15 +113,9 @@ public class UmiGraph {
     }
 
     List<DuplicateSet> joinUmisIntoDuplicateSets(final int maxEditDistanceToJoin) {
-        // Compare all UMIs to each other.  If they are within maxEditDistanceToJoin
-        // join them to the same duplicate set using the union-find algorithm.
-        for (int i = 0; i < numUmis; i++) {
-            for (int j = i + 1; j < numUmis; j++) {
-                if (isWithinEditDistance(umi[i], umi[j], maxEditDistanceToJoin)) {
-                    joinUmisIntoDuplicateSet(i, j);
-                }
-            }
-        }
+        // Find all pairs of UMIs within maxEditDistanceToJoin and join them to the same duplicate
+        // set using the union-find algorithm.
+        joinUmisWithinEditDistance(maxEditDistanceToJoin);
 
         // This ensures that all duplicate sets have unique IDs.  During Union-Find a tree is constructed
         // where each UMI points to parent UMI.  This ensures that all UMIs that belong to the same duplicate
@@ -188,6 +182,115 @@ public class UmiGraph {
         return duplicateSetList;
     }
 
+    // Joins every pair of UMIs within maxEditDistanceToJoin of each other.  Rather than comparing all pairs, UMIs are
+    // indexed by maxEditDistanceToJoin + 1 disjoint segments: two UMIs of the same length within that distance must
+    // agree exactly on at least one segment, so only UMIs sharing a segment need to be compared.  Pairs are joined in
+    // the same order as a comparison of all pairs would join them, so that the representative UMI of each duplicate
+    // set, and hence the order of the duplicate sets returned, is unchanged.
+    private void joinUmisWithinEditDistance(final int maxEditDistanceToJoin) {
+        if (numUmis < 2) return;
+
+        final int umiLength = umi[0].length();
+        for (int i = 1; i < numUmis; i++) {
+            if (umi[i].length() != umiLength) {
+                throw new PicardException("Attempting to determine if two UMIs of different length were within a specified edit distance.");
+            }
+        }
+        if (maxEditDistanceToJoin < 0) return;
+
+        // With at least as many errors allowed as there are bases, every pair is joined and there is nothing to index.
+        if (maxEditDistanceToJoin >= umiLength) {
+            for (int i = 0; i < numUmis; i++) {
+                for (int j = i + 1; j < numUmis; j++) {
+                    joinUmisIntoDuplicateSet(i, j);
+                }
+            }
+            return;
+        }
+
+        final long[] packedUmis = packUmis(umiLength);
+        final int numSegments = maxEditDistanceToJoin + 1;
+
+        // For each segment, the IDs of the UMIs having each value of that segment, in increasing order
+        final List<Map<Long, List<Integer>>> umisBySegment = new ArrayList<>(numSegments);
+        for (int segment = 0; segment < numSegments; segment++) {
+            final Map<Long, List<Integer>> umisBySegmentValue = new HashMap<>();
+            for (int i = 0; i < numUmis; i++) {
+                umisBySegmentValue.computeIfAbsent(segmentKey(packedUmis, i, segment, numSegments, umiLength), k -> new ArrayList<>()).add(i);
+            }
+            umisBySegment.add(umisBySegmentValue);
+        }
+
+        final int[] lastComparedTo = new int[numUmis];
+        Arrays.fill(lastComparedTo, -1);
+        final int[] neighbours = new int[numUmis];
+        for (int i = 0; i < numUmis; i++) {
+            int numNeighbours = 0;
+            for (int segment = 0; segment < numSegments; segment++) {
+                for (final int j : umisBySegment.get(segment).get(segmentKey(packedUmis, i, segment, numSegments, umiLength))) {
+                    if (j <= i || lastComparedTo[j] == i) continue;
+                    lastComparedTo[j] = i;
+                    final boolean withinEditDistance = (packedUmis == null) ?
+                            isWithinEditDistance(umi[i], umi[j], maxEditDistanceToJoin) :
+                            isWithinEditDistance(packedUmis[i], packedUmis[j], maxEditDistanceToJoin);
+                    if (withinEditDistance) neighbours[numNeighbours++] = j;
+                }
+            }
+
+            Arrays.sort(neighbours, 0, numNeighbours);
+            for (int n = 0; n < numNeighbours; n++) {
+                joinUmisIntoDuplicateSet(i, neighbours[n]);
+            }
+        }
+    }
+
+    // Packs each UMI into a long using two bits per base, or returns null if the UMIs are too long
+    // or contain anything other than A, C, G and T.
+    private long[] packUmis(final int umiLength) {
+        if (umiLength > 32) return null;
+        final long[] packedUmis = new long[numUmis];
+        for (int i = 0; i < numUmis; i++) {
+            long packed = 0;
+            for (int position = 0; position < umiLength; position++) {
+                final long code;
+                switch (umi[i].charAt(position)) {
+                    case 'A': code = 0; break;
+                    case 'C': code = 1; break;
+                    case 'G': code = 2; break;
+                    case 'T': code = 3; break;
+                    default: return null;
+                }
+                packed |= code << (2 * position);
+            }
+            packedUmis[i] = packed;
+        }
+        return packedUmis;
+    }
+
+    // Returns a key for the value of a segment of a UMI.  Keys of UMIs that were not packed are hashes of the
+    // segment, so different values may share a key; this only adds candidates that are then compared in full.
+    private long segmentKey(final long[] packedUmis, final int umiID, final int segment, final int numSegments, final int umiLength) {
+        final int start = segment * umiLength / numSegments;
+        final int end = (segment + 1) * umiLength / numSegments;
+        if (packedUmis != null) {
+            final int bits = 2 * (end - start);
+            final long mask = (bits == 64) ? -1L : (1L << bits) - 1;
+            return (packedUmis[umiID] >>> (2 * start)) & mask;
+        }
+
+        long key = 1;
+        for (int position = start; position < end; position++) {
+            key = 31 * key + umi[umiID].charAt(position);
+        }
+        return key;
+    }
+
+    // Determine if two packed UMIs are within edit distance of editDistance, by counting the bases whose two bits differ.
+    private static boolean isWithinEditDistance(final long packed1, final long packed2, final int editDistance) {
+        final long difference = packed1 ^ packed2;
+        return Long.bitCount((difference | (difference >>> 1)) & 0x5555555555555555L) <= editDistance;
+    }
+
     // Determine if the two strings s1 and s2 are within edit distance of editDistance.
     // TODO: use HTSJDK version when this become available
     private boolean isWithinEditDistance(final String s1, final String s2, final int editDistance) {
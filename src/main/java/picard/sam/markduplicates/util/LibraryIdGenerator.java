@@ -96,7 +96,10 @@ public class LibraryIdGenerator {
 
     /** Get the library ID for the given SAM record. */
     public short getLibraryId(final SAMRecord rec) {
-        final String library = getLibraryName(this.header, rec);
+        return getLibraryId(getLibraryName(this.header, rec));
+    }
+
+    private short getLibraryId(final String library) {
         Short libraryId = this.libraryIds.get(library);
 
         if (libraryId == null) {
@@ -118,4 +121,23 @@ public class LibraryIdGenerator {
     public long getNumberOfOpticalDuplicateClusters() {
         return (long) this.opticalDuplicatesByLibraryId.getSumOfValues();
     }
+
+    /**
+     * Adds the duplication metrics and optical duplicate counts gathered by another generator, over a disjoint set
+     * of records from the same header, to those of this one.  Library ids are matched up by library name, since
+     * each generator assigns them in the order it encounters the libraries.
+     */
+    public void merge(final LibraryIdGenerator other) {
+        for (final Map.Entry<String, DuplicationMetrics> entry : other.metricsByLibrary.entrySet()) {
+            final DuplicationMetrics metrics = this.metricsByLibrary.get(entry.getKey());
+            if (metrics == null) this.metricsByLibrary.put(entry.getKey(), entry.getValue());
+            else metrics.merge(entry.getValue());
+        }
+
+        for (final Map.Entry<String, Short> entry : other.libraryIds.entrySet()) {
+            final short libraryId = getLibraryId(entry.getKey());
+            final Histogram.Bin<Short> bin = other.opticalDuplicatesByLibraryId.get(entry.getValue());
+            if (bin != null) this.opticalDuplicatesByLibraryId.increment(libraryId, bin.getValue());
+        }
+    }
 }
@@ -0,0 +1,203 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026 The Broad Institute
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package picard.sam.util;
+
+import htsjdk.samtools.BAMFileSpan;
+import htsjdk.samtools.BAMIndex;
+import htsjdk.samtools.BAMIndexer;
+import htsjdk.samtools.BAMRecordCodec;
+import htsjdk.samtools.Chunk;
+import htsjdk.samtools.Defaults;
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMFileSource;
+import htsjdk.samtools.SAMFileWriterImpl;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.util.BinaryCodec;
+import htsjdk.samtools.util.IOUtil;
+import htsjdk.samtools.util.Md5CalculatingOutputStream;
+import htsjdk.samtools.util.RuntimeIOException;
+import picard.util.ParallelBlockCompressedOutputStream;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * A BAM writer that compresses its output on a pool of threads using {@link ParallelBlockCompressedOutputStream}.
+ * Records are encoded on the calling thread, while BGZF blocks are deflated concurrently and written in order.
+ * Sorting, index creation and MD5 generation behave as they do for htsjdk's BAM writer.
+ *
+ * Since the compressed address of a record is not known until the blocks before it have been written, records
+ * destined for the index are queued (as small copies holding only the fields the indexer needs) until their
+ * virtual file pointers can be resolved.
+ */
+public class ParallelBAMFileWriter extends SAMFileWriterImpl {
+    private static final byte[] BAM_MAGIC = {'B', 'A', 'M', 1};
+
+    private final File outputFile;
+    private final boolean createIndex;
+    private final ParallelBlockCompressedOutputStream blockCompressedOutputStream;
+    private final BinaryCodec outputBinaryCodec;
+    private BAMRecordCodec bamRecordCodec = null;
+    private BAMIndexer bamIndexer = null;
+    private final Deque<PendingIndexRecord> pendingIndexRecords = new ArrayDeque<>();
+
+    /**
+     * Opens the output file and writes the header.
+     *
+     * @param presorted       if true, records must be added in the sort order of the header; otherwise they are sorted
+     * @param maxRecordsInRam the number of records to hold in memory when sorting, or null for the default
+     * @param tmpDir          the directory for sort spill files, or null for the default
+     */
+    public ParallelBAMFileWriter(final SAMFileHeader header, final boolean presorted, final File outputFile,
+                                 final int compressionLevel, final int compressionThreads,
+                                 final boolean createIndex, final boolean createMd5File,
+                                 final Integer maxRecordsInRam, final File tmpDir) {
+        this.outputFile = outputFile;
+        this.createIndex = createIndex;
+
+        try {
+            OutputStream os = new BufferedOutputStream(new FileOutputStream(outputFile), Defaults.BUFFER_SIZE);
+            if (createMd5File) os = new Md5CalculatingOutputStream(os, new File(outputFile.getAbsolutePath() + ".md5"));
+            this.blockCompressedOutputStream = new ParallelBlockCompressedOutputStream(os, compressionLevel, compressionThreads);
+        }
+        catch (final IOException ioe) {
+            throw new RuntimeIOException("Error opening file: " + outputFile.getAbsolutePath(), ioe);
+        }
+        this.outputBinaryCodec = new BinaryCodec(blockCompressedOutputStream);
+        this.outputBinaryCodec.setOutputFileName(outputFile.getAbsolutePath());
+
+        setSortOrder(header.getSortOrder(), presorted);
+        if (maxRecordsInRam != null) setMaxRecordsInRam(maxRecordsInRam);
+        if (tmpDir != null) setTempDirectory(tmpDir);
+        setHeader(header);
+    }
+
+    @Override
+    protected void writeHeader(final String textHeader) {
+        final SAMFileHeader header = getFileHeader();
+        final SAMSequenceDictionary dictionary = header.getSequenceDictionary();
+
+        outputBinaryCodec.writeBytes(BAM_MAGIC);
+        outputBinaryCodec.writeString(textHeader, true, false);
+        outputBinaryCodec.writeInt(dictionary.size());
+        for (final SAMSequenceRecord sequenceRecord : dictionary.getSequences()) {
+            outputBinaryCodec.writeString(sequenceRecord.getSequenceName(), true, true);
+            outputBinaryCodec.writeInt(sequenceRecord.getSequenceLength());
+        }
+
+        // Start the records in a fresh block, as htsjdk does
+        try {
+            blockCompressedOutputStream.flush();
+        }
+        catch (final IOException ioe) {
+            throw new RuntimeIOException("Error writing header to " + outputFile.getAbsolutePath(), ioe);
+        }
+
+        bamRecordCodec = new BAMRecordCodec(header);
+        bamRecordCodec.setOutputStream(outputBinaryCodec.getOutputStream(), getFilename());
+
+        if (createIndex && header.getSortOrder() == SAMFileHeader.SortOrder.coordinate) {
+            final File indexFile = new File(outputFile.getParentFile(), IOUtil.basename(outputFile) + BAMIndex.BAMIndexSuffix);
+            bamIndexer = new BAMIndexer(indexFile, header);
+        }
+    }
+
+    @Override
+    protected void writeAlignment(final SAMRecord alignment) {
+        if (bamIndexer == null) {
+            bamRecordCodec.encode(alignment);
+            blockCompressedOutputStream.discardBlockAddressesBefore(blockCompressedOutputStream.getBlockOrdinal());
+            return;
+        }
+
+        final long startBlock = blockCompressedOutputStream.getBlockOrdinal();
+        final int startOffset = blockCompressedOutputStream.getBlockOffset();
+        bamRecordCodec.encode(alignment);
+        pendingIndexRecords.addLast(new PendingIndexRecord(getFileHeader(), alignment, startBlock, startOffset,
+                blockCompressedOutputStream.getBlockOrdinal(), blockCompressedOutputStream.getBlockOffset()));
+        indexResolvedRecords();
+    }
+
+    /** Hands to the indexer, in order, every queued record whose start and end pointers are now known. */
+    private void indexResolvedRecords() {
+        while (!pendingIndexRecords.isEmpty() && blockCompressedOutputStream.isBlockAddressKnown(pendingIndexRecords.peekFirst().endBlock)) {
+            final PendingIndexRecord pending = pendingIndexRecords.removeFirst();
+            final long start = blockCompressedOutputStream.getVirtualFilePointer(pending.startBlock, pending.startOffset);
+            final long end = blockCompressedOutputStream.getVirtualFilePointer(pending.endBlock, pending.endOffset);
+            pending.record.setFileSource(new SAMFileSource(null, new BAMFileSpan(new Chunk(start, end))));
+            bamIndexer.processAlignment(pending.record);
+        }
+
+        final long firstNeeded = pendingIndexRecords.isEmpty() ? blockCompressedOutputStream.getBlockOrdinal() : pendingIndexRecords.peekFirst().startBlock;
+        blockCompressedOutputStream.discardBlockAddressesBefore(firstNeeded);
+    }
+
+    @Override
+    protected void finish() {
+        try {
+            blockCompressedOutputStream.close();
+        }
+        catch (final IOException ioe) {
+            throw new RuntimeIOException("Error closing " + outputFile.getAbsolutePath(), ioe);
+        }
+
+        if (bamIndexer != null) {
+            indexResolvedRecords();
+            bamIndexer.finish();
+        }
+    }
+
+    @Override
+    protected String getFilename() {
+        return outputFile.getAbsolutePath();
+    }
+
+    /** A copy of the fields of a record that the BAM indexer uses, together with where the record was written. */
+    private static class PendingIndexRecord {
+        final SAMRecord record;
+        final long startBlock;
+        final int startOffset;
+        final long endBlock;
+        final int endOffset;
+
+        PendingIndexRecord(final SAMFileHeader header, final SAMRecord alignment, final long startBlock, final int startOffset, final long endBlock, final int endOffset) {
+            this.record = new SAMRecord(header);
+            this.record.setFlags(alignment.getFlags());
+            this.record.setReferenceIndex(alignment.getReferenceIndex());
+            this.record.setAlignmentStart(alignment.getAlignmentStart());
+            this.record.setCigar(alignment.getCigar());
+            this.startBlock = startBlock;
+            this.startOffset = startOffset;
+            this.endBlock = endBlock;
+            this.endOffset = endOffset;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026 The Broad Institute
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package picard.sam.util;
+
+import htsjdk.samtools.Defaults;
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMFileWriter;
+import htsjdk.samtools.SAMFileWriterFactory;
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+
+import java.io.File;
+
+/**
+ * A SAMFileWriterFactory that creates BAM writers which compress on several threads when more than one
+ * compression thread is configured, via {@link #setDefaultCompressionThreads(int)} (as done by CommandLineProgram
+ * for COMPRESSION_THREADS) or {@link #setCompressionThreads(int)}.  With a single compression thread, and for
+ * SAM and CRAM output, writers are created exactly as by SAMFileWriterFactory.
+ *
+ * The settings of the parent factory that affect BAM writers are mirrored here because the parent does not
+ * expose them.  Asynchronous IO applies only to writers created by the parent factory, since the parallel
+ * writer already moves compression off the calling thread.
+ */
+public class ParallelSAMFileWriterFactory extends SAMFileWriterFactory {
+    private static int defaultCompressionThreads = 1;
+    private static boolean defaultCreateIndexWhileWriting = Defaults.CREATE_INDEX;
+    private static boolean defaultCreateMd5File = Defaults.CREATE_MD5;
+
+    private int compressionThreads = defaultCompressionThreads;
+    private boolean createIndex = defaultCreateIndexWhileWriting;
+    private boolean createMd5File = defaultCreateMd5File;
+    private Integer maxRecordsInRam = null;
+    private File tmpDir = null;
+
+    /** Sets the number of compression threads used by factories created after this call. */
+    public static void setDefaultCompressionThreads(final int compressionThreads) {
+        defaultCompressionThreads = compressionThreads;
+    }
+
+    public static int getDefaultCompressionThreads() {
+        return defaultCompressionThreads;
+    }
+
+    /** Sets the default for subsequently created factories, here and in the parent factory. */
+    public static void setDefaultCreateIndexWhileWriting(final boolean setting) {
+        SAMFileWriterFactory.setDefaultCreateIndexWhileWriting(setting);
+        defaultCreateIndexWhileWriting = setting;
+    }
+
+    /** Sets the default for subsequently created factories, here and in the parent factory. */
+    public static void setDefaultCreateMd5File(final boolean createMd5File) {
+        SAMFileWriterFactory.setDefaultCreateMd5File(createMd5File);
+        defaultCreateMd5File = createMd5File;
+    }
+
+    /** Sets the number of threads used to compress BAM output; values below 2 compress on the writing thread. */
+    public ParallelSAMFileWriterFactory setCompressionThreads(final int compressionThreads) {
+        this.compressionThreads = compressionThreads;
+        return this;
+    }
+
+    @Override
+    public ParallelSAMFileWriterFactory setCreateIndex(final boolean createIndex) {
+        super.setCreateIndex(createIndex);
+        this.createIndex = createIndex;
+        return this;
+    }
+
+    @Override
+    public ParallelSAMFileWriterFactory setCreateMd5File(final boolean createMd5File) {
+        super.setCreateMd5File(createMd5File);
+        this.createMd5File = createMd5File;
+        return this;
+    }
+
+    @Override
+    public ParallelSAMFileWriterFactory setMaxRecordsInRam(final int maxRecordsInRam) {
+        super.setMaxRecordsInRam(maxRecordsInRam);
+        this.maxRecordsInRam = maxRecordsInRam;
+        return this;
+    }
+
+    @Override
+    public ParallelSAMFileWriterFactory setTempDirectory(final File tmpDir) {
+        super.setTempDirectory(tmpDir);
+        this.tmpDir = tmpDir;
+        return this;
+    }
+
+    @Override
+    public SAMFileWriter makeBAMWriter(final SAMFileHeader header, final boolean presorted, final File outputFile) {
+        return makeBAMWriter(header, presorted, outputFile, BlockCompressedOutputStream.getDefaultCompressionLevel());
+    }
+
+    @Override
+    public SAMFileWriter makeBAMWriter(final SAMFileHeader header, final boolean presorted, final File outputFile, final int compressionLevel) {
+        if (compressionThreads < 2) return super.makeBAMWriter(header, presorted, outputFile, compressionLevel);
+        return new ParallelBAMFileWriter(header, presorted, outputFile, compressionLevel, compressionThreads,
+                createIndex, createMd5File, maxRecordsInRam, tmpDir);
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026 The Broad Institute
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package picard.util;
+
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.samtools.util.CloserUtil;
+
+import java.io.Closeable;
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Hands out an iterator over the records of each of a list of inputs in turn.  When prefetching is enabled, the
+ * current input and up to the given number of upcoming inputs are opened on background threads and decoded into
+ * bounded queues (see {@link AsyncIterator}) while the caller consumes the current one, so that decoding of the
+ * next inputs overlaps with processing of the current one.  With no prefetching, each input is opened and
+ * decoded on the calling thread when it is reached.
+ *
+ * Callers must close each iterator they are handed, and should close the prefetcher itself to release any
+ * inputs that were opened but not reached.
+ */
+public class InputPrefetcher<T> implements Iterator<CloseableIterator<T>>, Closeable {
+    private final List<File> inputs;
+    private final Function<File, CloseableIterator<T>> opener;
+    private final int prefetch;
+    private final int queueSize;
+    private final String threadNamePrefix;
+    private final ExecutorService executor;
+
+    private final Deque<Future<CloseableIterator<T>>> opened = new ArrayDeque<>();
+    private int nextToOpen = 0;
+    private int nextToReturn = 0;
+
+    /**
+     * @param opener   opens an input and returns an iterator over its records that closes the input when closed
+     * @param prefetch the number of inputs beyond the current one to decode ahead; 0 disables background decoding
+     */
+    public InputPrefetcher(final List<File> inputs, final Function<File, CloseableIterator<T>> opener, final int prefetch,
+                           final int queueSize, final String threadNamePrefix) {
+        if (prefetch < 0) throw new IllegalArgumentException("prefetch must not be negative: " + prefetch);
+        this.inputs = inputs;
+        this.opener = opener;
+        this.prefetch = prefetch;
+        this.queueSize = queueSize;
+        this.threadNamePrefix = threadNamePrefix;
+        this.executor = prefetch == 0 ? null : ThreadPoolUtil.newDaemonThreadPool(prefetch + 1, threadNamePrefix + "Opener");
+    }
+
+    /** Returns an iterator that also closes the given resource when it is closed. */
+    public static <T> CloseableIterator<T> closingWith(final Iterator<T> iterator, final Closeable resource) {
+        return new CloseableIterator<T>() {
+            @Override public boolean hasNext() { return iterator.hasNext(); }
+            @Override public T next() { return iterator.next(); }
+            @Override public void close() {
+                CloserUtil.close(iterator);
+                CloserUtil.close(resource);
+            }
+        };
+    }
+
+    @Override
+    public boolean hasNext() {
+        return nextToReturn < inputs.size();
+    }
+
+    /** Returns the iterator for the next input, waiting for it to be opened if it is being opened in the background. */
+    @Override
+    public CloseableIterator<T> next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        final File input = inputs.get(nextToReturn++);
+        if (executor == null) return opener.apply(input);
+
+        while (nextToOpen < inputs.size() && nextToOpen <= nextToReturn + prefetch - 1) {
+            final File f = inputs.get(nextToOpen++);
+            opened.addLast(executor.submit(() -> new AsyncIterator<T>(opener.apply(f), queueSize, threadNamePrefix)));
+        }
+        return ThreadPoolUtil.get(opened.removeFirst(), "opening input");
+    }
+
+    /** Closes any inputs that have been opened in the background but not yet handed out. */
+    @Override
+    public void close() {
+        while (!opened.isEmpty()) {
+            final Future<CloseableIterator<T>> future = opened.removeFirst();
+            try {
+                future.get().close();
+            }
+            catch (final Exception e) {
+                // Nothing more can be done with an input that could not be opened
+            }
+        }
+        if (executor != null) executor.shutdownNow();
+    }
+}
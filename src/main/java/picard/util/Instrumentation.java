@@ -0,0 +1,209 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026 The Broad Institute
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package picard.util;
+
+import picard.metrics.PerformanceMetrics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Named stage timers, counters and gauges through which programs report where their time goes and how much they
+ * processed, for writing to a PERFORMANCE_METRICS_FILE as PerformanceMetrics.
+ *
+ * CommandLineProgram installs a fresh instance around each run of doWork(), and code anywhere in the program,
+ * including on worker threads, reports to it through Instrumentation.get().  Instruments are made on first use and
+ * are safe to share between threads.  Counters are cheap enough to bump once per record, but code that would time
+ * or sample once per record should check isEnabled() first, or accumulate locally and report in bulk.
+ *
+ * Names are conventionally the reporting class followed by a dot and the stage or quantity, for example
+ * "MarkDuplicates.buildSortedReadEndLists".
+ */
+public class Instrumentation {
+    private static volatile Instrumentation current = new Instrumentation(false);
+
+    private final boolean enabled;
+    private final long startNanos = System.nanoTime();
+    private final Map<String, Object> instruments = new LinkedHashMap<String, Object>();
+
+    public Instrumentation(final boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /** The instrumentation of the program running now. */
+    public static Instrumentation get() {
+        return current;
+    }
+
+    /** Makes instrumentation the current instrumentation and returns the one it replaces, for restoring afterwards. */
+    public static Instrumentation install(final Instrumentation instrumentation) {
+        final Instrumentation previous = current;
+        current = instrumentation;
+        return previous;
+    }
+
+    /** True if the metrics will be written out, and so per-record timing is worth its cost. */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Stage stage(final String name) {
+        return instrument(name, Stage.class);
+    }
+
+    public Counter counter(final String name) {
+        return instrument(name, Counter.class);
+    }
+
+    public Gauge gauge(final String name) {
+        return instrument(name, Gauge.class);
+    }
+
+    /** Starts timing a stage; close the returned Timing, typically with try-with-resources, when the stage is done. */
+    public Timing time(final String stageName) {
+        return stage(stageName).start();
+    }
+
+    private synchronized <T> T instrument(final String name, final Class<T> type) {
+        Object instrument = instruments.get(name);
+        if (instrument == null) {
+            if (type == Stage.class) instrument = new Stage();
+            else if (type == Counter.class) instrument = new Counter();
+            else instrument = new Gauge();
+            instruments.put(name, instrument);
+        }
+        else if (!type.isInstance(instrument)) {
+            throw new IllegalArgumentException(name + " is a " + instrument.getClass().getSimpleName() + ", not a " + type.getSimpleName());
+        }
+        return type.cast(instrument);
+    }
+
+    /** Summarizes every instrument, in the order they were first used, with rates relative to the time since construction. */
+    public synchronized List<PerformanceMetrics> getMetrics() {
+        final double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+        final List<PerformanceMetrics> metrics = new ArrayList<PerformanceMetrics>(instruments.size());
+        for (final Map.Entry<String, Object> entry : instruments.entrySet()) {
+            final PerformanceMetrics metric = new PerformanceMetrics();
+            metric.NAME = entry.getKey();
+            if (entry.getValue() instanceof Stage) {
+                ((Stage) entry.getValue()).summarize(metric);
+            }
+            else if (entry.getValue() instanceof Counter) {
+                metric.TYPE = PerformanceMetrics.Type.COUNTER;
+                metric.COUNT = ((Counter) entry.getValue()).get();
+                metric.RATE_PER_SECOND = elapsedSeconds > 0 ? metric.COUNT / elapsedSeconds : null;
+            }
+            else {
+                ((Gauge) entry.getValue()).summarize(metric);
+            }
+            metrics.add(metric);
+        }
+        return metrics;
+    }
+
+    /** The total time spent in a named stage and the number of times it was entered. */
+    public static class Stage {
+        private final LongAdder nanos = new LongAdder();
+        private final LongAdder timings = new LongAdder();
+
+        public Timing start() {
+            return new Timing(this);
+        }
+
+        /** Adds time spent in the stage, measured elsewhere, over the given number of timings. */
+        public void add(final long elapsedNanos, final long count) {
+            nanos.add(elapsedNanos);
+            timings.add(count);
+        }
+
+        private void summarize(final PerformanceMetrics metric) {
+            metric.TYPE = PerformanceMetrics.Type.STAGE;
+            metric.COUNT = timings.sum();
+            metric.TOTAL_SECONDS = nanos.sum() / 1e9;
+            metric.MEAN = metric.COUNT > 0 ? metric.TOTAL_SECONDS / metric.COUNT : null;
+        }
+    }
+
+    /** One timing of a stage, which is added to the stage when closed. */
+    public static class Timing implements AutoCloseable {
+        private final Stage stage;
+        private final long startNanos = System.nanoTime();
+        private boolean closed = false;
+
+        private Timing(final Stage stage) {
+            this.stage = stage;
+        }
+
+        @Override
+        public void close() {
+            if (closed) return;
+            closed = true;
+            stage.add(System.nanoTime() - startNanos, 1);
+        }
+    }
+
+    /** A running total, such as of records or bytes processed. */
+    public static class Counter {
+        private final LongAdder total = new LongAdder();
+
+        public void increment() {
+            total.increment();
+        }
+
+        public void add(final long amount) {
+            total.add(amount);
+        }
+
+        public long get() {
+            return total.sum();
+        }
+    }
+
+    /** Samples of a level, such as a queue depth, of which the count, mean, extremes and last value are kept. */
+    public static class Gauge {
+        private long count = 0, sum = 0, min = Long.MAX_VALUE, max = Long.MIN_VALUE, last = 0;
+
+        public synchronized void record(final long value) {
+            ++count;
+            sum += value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            last = value;
+        }
+
+        private synchronized void summarize(final PerformanceMetrics metric) {
+            metric.TYPE = PerformanceMetrics.Type.GAUGE;
+            metric.COUNT = count;
+            if (count > 0) {
+                metric.MEAN = sum / (double) count;
+                metric.MIN = min;
+                metric.MAX = max;
+                metric.LAST = last;
+            }
+        }
+    }
+}
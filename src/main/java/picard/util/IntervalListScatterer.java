@@ -1,13 +1,9 @@
 package picard.util;
 
-import htsjdk.samtools.util.Interval;
+import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.util.IntervalList;
-import picard.PicardException;
 
-import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -50,19 +46,17 @@ public class IntervalListScatterer {
 
     public IntervalListScatterer(final Mode mode) {this.mode = mode;}
 
-    private int deduceIdealSplitLength(final IntervalList uniquedList, final int scatterCount) {
+    private int deduceIdealSplitLength(final PackedIntervalList uniquedList, final int scatterCount) {
         final int splitWidth = Math.max((int) Math.floor(uniquedList.getBaseCount() / (1.0 * scatterCount)), 1);
         switch (mode) {
             case INTERVAL_SUBDIVISION:
                 return splitWidth;
             case BALANCING_WITHOUT_INTERVAL_SUBDIVISION:
             case BALANCING_WITHOUT_INTERVAL_SUBDIVISION_WITH_OVERFLOW:
-                final int widestIntervalLength = Collections.max(uniquedList.getIntervals(), new Comparator<Interval>() {
-                    @Override
-                    public int compare(final Interval o1, final Interval o2) {
-                        return Integer.valueOf(o1.length()).compareTo(o2.length());
-                    }
-                }).length();
+                int widestIntervalLength = 0;
+                for (int i = 0; i < uniquedList.size(); i++) {
+                    widestIntervalLength = Math.max(widestIntervalLength, uniquedList.length(i));
+                }
 
                 // There is no purpose to splitting more granularly than the widest interval, so do not.
                 return Math.max(widestIntervalLength, splitWidth);
@@ -85,96 +79,110 @@ public class IntervalListScatterer {
         }
     }
 
-
     public List<IntervalList> scatter(final IntervalList sourceIntervalList, final int scatterCount, final boolean isUniqued) {
+        final List<IntervalList> scattered = new ArrayList<IntervalList>();
+        for (final PackedIntervalList list : scatter(PackedIntervalList.fromIntervalList(sourceIntervalList), scatterCount, isUniqued)) {
+            scattered.add(list.toIntervalList());
+        }
+        return scattered;
+    }
+
+    /**
+     * Scatters a list held as a PackedIntervalList, giving the same lists as scattering it as an IntervalList would.
+     * The intervals of the uniqued list are walked in order by index, with the start of the interval at the head of
+     * the walk moved on when part of it is taken into a scatter, and the size of the running scatter kept as a count
+     * rather than recomputed from its intervals; since the uniqued intervals are sorted and neither overlap nor abut,
+     * each scatter is already uniqued.
+     *
+     * @param isUniqued whether the list is already sorted and uniqued, in which case it is scattered as it is
+     */
+    public List<PackedIntervalList> scatter(final PackedIntervalList sourceIntervalList, final int scatterCount, final boolean isUniqued) {
         if (scatterCount < 1) throw new IllegalArgumentException("scatterCount < 1");
 
-        final IntervalList uniquedList = isUniqued ? sourceIntervalList : sourceIntervalList.uniqued();
+        final PackedIntervalList uniquedList = isUniqued ? sourceIntervalList : sourceIntervalList.uniqued();
         final long idealSplitLength = deduceIdealSplitLength(uniquedList, scatterCount);
         System.err.println("idealSplitLength=" + idealSplitLength);
 
-        final List<IntervalList> accumulatedIntervalLists = new ArrayList<IntervalList>();
+        final List<PackedIntervalList> accumulatedIntervalLists = new ArrayList<PackedIntervalList>();
+
+        // Each scatter is sorted, so gets a header that says so
+        final SAMFileHeader header = uniquedList.getHeader().clone();
+        header.setSortOrder(SAMFileHeader.SortOrder.coordinate);
+        PackedIntervalList runningIntervalList = new PackedIntervalList(header);
+        long runningBaseCount = 0;
+
+        // The interval at the head of the queue is uniquedList's interval i, less any of it already taken
+        int i = 0;
+        int headStart = uniquedList.size() > 0 ? uniquedList.getStart(0) : 0;
 
-        IntervalList runningIntervalList = new IntervalList(uniquedList.getHeader());
-        final ArrayDeque<Interval> intervalQueue = new ArrayDeque<Interval>(uniquedList.getIntervals());
-        
         long numBasesLeft = uniquedList.getBaseCount();
 
-        while (!intervalQueue.isEmpty() && accumulatedIntervalLists.size() < scatterCount - 1) {
-            final Interval interval = intervalQueue.pollFirst();
-            final long projectedSize = runningIntervalList.getBaseCount() + interval.length();
+        while (i < uniquedList.size() && accumulatedIntervalLists.size() < scatterCount - 1) {
+            final int headLength = uniquedList.getEnd(i) - headStart + 1;
+            final long projectedSize = runningBaseCount + headLength;
 
             // The mean expected size of the remaining divisions
             // NOTE: that this looks like double counting but isn't, we subtract here the bases that are in the _current_ running intervalList,
             // and when we create a new intervalList (below) we modify numBasesLeft.
             // Another Note: the -1 in the denominator is for "runningIntervalList" that isn't yet counted in  accumulatedIntervalLists.size()
-            final double projectedSizeOfRemainingDivisions = (numBasesLeft - runningIntervalList.getBaseCount()) / ((double)(scatterCount - accumulatedIntervalLists.size() - 1));
+            final double projectedSizeOfRemainingDivisions = (numBasesLeft - runningBaseCount) / ((double)(scatterCount - accumulatedIntervalLists.size() - 1));
 
             // should we add this interval to the list of running intervals?
             if (shouldAddToRunningIntervalList(idealSplitLength, projectedSize, projectedSizeOfRemainingDivisions)) {
-                runningIntervalList.add(interval);
+                addHead(runningIntervalList, uniquedList, i, headStart, uniquedList.getEnd(i));
+                runningBaseCount += headLength;
+                if (++i < uniquedList.size()) headStart = uniquedList.getStart(i);
             }
             else {
                 switch (mode) {
                     case INTERVAL_SUBDIVISION:
-                        final int amountToConsume = (int) (idealSplitLength - runningIntervalList.getBaseCount());
-                        final Interval left = new Interval(
-                                interval.getContig(),
-                                interval.getStart(),
-                                interval.getStart() + amountToConsume - 1,
-                                interval.isNegativeStrand(),
-                                interval.getName()
-                        );
-                        final Interval right = new Interval(
-                                interval.getContig(),
-                                interval.getStart() + amountToConsume,
-                                interval.getEnd(),
-                                interval.isNegativeStrand(),
-                                interval.getName()
-                        );
-                        runningIntervalList.add(left);
-
-                        // Push back the excess back onto our queue for reconsideration.
-                        intervalQueue.addFirst(right);
+                        final int amountToConsume = (int) (idealSplitLength - runningBaseCount);
+                        addHead(runningIntervalList, uniquedList, i, headStart, headStart + amountToConsume - 1);
+                        runningBaseCount += amountToConsume;
+
+                        // Leave the excess at the head of the queue for reconsideration.
+                        headStart += amountToConsume;
                         break;
 
                     case BALANCING_WITHOUT_INTERVAL_SUBDIVISION:
                     case BALANCING_WITHOUT_INTERVAL_SUBDIVISION_WITH_OVERFLOW:
-                        if (runningIntervalList.getIntervals().isEmpty()) {
-                            runningIntervalList.add(interval);
+                        if (runningIntervalList.size() == 0) {
+                            addHead(runningIntervalList, uniquedList, i, headStart, uniquedList.getEnd(i));
+                            runningBaseCount += headLength;
+                            if (++i < uniquedList.size()) headStart = uniquedList.getStart(i);
                         } else {
-                            // Push this interval into the next scatter; re-inject it into the queue, then advance the scatter.
-                            intervalQueue.addFirst(interval);
-                            numBasesLeft -= runningIntervalList.getBaseCount();
-                            accumulatedIntervalLists.add(runningIntervalList.uniqued());
-                            runningIntervalList = new IntervalList(uniquedList.getHeader());
+                            // Push this interval into the next scatter; leave it at the head of the queue, then advance the scatter.
+                            numBasesLeft -= runningBaseCount;
+                            accumulatedIntervalLists.add(runningIntervalList);
+                            runningIntervalList = new PackedIntervalList(header);
+                            runningBaseCount = 0;
                         }
                         break;
                 }
             }
 
-            if (runningIntervalList.getBaseCount() >= idealSplitLength) {
-                numBasesLeft -= runningIntervalList.getBaseCount(); // keep track of the number of *unique* bases left
-                accumulatedIntervalLists.add(runningIntervalList.uniqued());
-                runningIntervalList = new IntervalList(uniquedList.getHeader());
+            if (runningBaseCount >= idealSplitLength) {
+                numBasesLeft -= runningBaseCount; // keep track of the number of *unique* bases left
+                accumulatedIntervalLists.add(runningIntervalList);
+                runningIntervalList = new PackedIntervalList(header);
+                runningBaseCount = 0;
             }
         }
 
         // Flush the remaining intervals into the last split.
-        while (!intervalQueue.isEmpty()) {
-            runningIntervalList.add(intervalQueue.pollFirst());
-        }
-        if (!runningIntervalList.getIntervals().isEmpty()) {
-            accumulatedIntervalLists.add(runningIntervalList.uniqued());
+        for (; i < uniquedList.size(); i++) {
+            addHead(runningIntervalList, uniquedList, i, headStart, uniquedList.getEnd(i));
+            if (i + 1 < uniquedList.size()) headStart = uniquedList.getStart(i + 1);
         }
-        
-        long maximumIntervalSize = -1, minimumIntervalSize = Integer.MAX_VALUE;
-        for (final IntervalList intervalList : accumulatedIntervalLists) {
-            final long baseCount = intervalList.getBaseCount();
-            if (baseCount < minimumIntervalSize) minimumIntervalSize = baseCount;
-            if (maximumIntervalSize < baseCount) maximumIntervalSize = baseCount;
+        if (runningIntervalList.size() > 0) {
+            accumulatedIntervalLists.add(runningIntervalList);
         }
 
         return accumulatedIntervalLists;
     }
+
+    /** Adds the part from start to end of the list's interval i to a scatter. */
+    private static void addHead(final PackedIntervalList scatter, final PackedIntervalList list, final int i, final int start, final int end) {
+        scatter.add(list.getSequenceIndex(i), start, end, list.isNegativeStrand(i), list.getName(i));
+    }
 }
@@ -5,7 +5,6 @@ import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMProgramRecord;
 import htsjdk.samtools.util.CollectionUtil;
 import htsjdk.samtools.util.IOUtil;
-import htsjdk.samtools.util.Interval;
 import htsjdk.samtools.util.IntervalList;
 import htsjdk.samtools.util.Log;
 import htsjdk.variant.vcf.VCFFileReader;
@@ -114,39 +113,39 @@ public class IntervalListTools extends CommandLineProgram {
 
         CONCAT("The concatenation of all the INPUTs, no sorting or merging of overlapping/abutting intervals implied. Will result in an unsorted list unless requested otherwise.") {
             @Override
-            IntervalList act(final List<IntervalList> list, final List<IntervalList> unused) {
+            PackedIntervalList act(final List<PackedIntervalList> list, final List<PackedIntervalList> unused) {
                 if (!unused.isEmpty())
                     throw new IllegalArgumentException(String.format("Second List found when action was %s. Ignoring second list.", this.name()));
-                return IntervalList.concatenate(list);
+                return PackedIntervalList.concatenate(list);
             }
         },
         UNION("Like CONCATENATE but with UNIQUE and SORT implied, the result being the set-wise union of all INPUTS.") {
             @Override
-            IntervalList act(final List<IntervalList> list, final List<IntervalList> unused) {
+            PackedIntervalList act(final List<PackedIntervalList> list, final List<PackedIntervalList> unused) {
                 if (!unused.isEmpty())
                     throw new IllegalArgumentException(String.format("Second List found when action was %s. Ignoring second list.", this.name()));
-                return IntervalList.union(list);
+                return PackedIntervalList.union(list);
             }
         },
         INTERSECT("The sorted, uniqued set of all loci that are contained in all of the INPUTs.") {
             @Override
-            IntervalList act(final List<IntervalList> list, final List<IntervalList> unused) {
+            PackedIntervalList act(final List<PackedIntervalList> list, final List<PackedIntervalList> unused) {
                 if (!unused.isEmpty())
                     throw new IllegalArgumentException(String.format("Second List found when action was %s. Ignoring second list.", this.name()));
-                return IntervalList.intersection(list);
+                return PackedIntervalList.intersection(list);
             }
         },
         SUBTRACT("Subtracts SECOND_INPUT from INPUT. The resulting loci are there in INPUT that are not in SECOND_INPUT") {
             @Override
-            IntervalList act(final List<IntervalList> list1, final List<IntervalList> list2) {
-                return IntervalList.subtract(list1, list2);
+            PackedIntervalList act(final List<PackedIntervalList> list1, final List<PackedIntervalList> list2) {
+                return PackedIntervalList.subtract(list1, list2);
 
             }
         },
         SYMDIFF("Find loci that are in INPUT or SECOND_INPUT but are not in both.") {
             @Override
-            IntervalList act(final List<IntervalList> list1, final List<IntervalList> list2) {
-                return IntervalList.difference(list1, list2);
+            PackedIntervalList act(final List<PackedIntervalList> list1, final List<PackedIntervalList> list2) {
+                return PackedIntervalList.difference(list1, list2);
             }
         };
 
@@ -161,7 +160,7 @@ public class IntervalListTools extends CommandLineProgram {
             return helpdoc;
         }
 
-        abstract IntervalList act(final List<IntervalList> list1, final List<IntervalList> list2);
+        abstract PackedIntervalList act(final List<PackedIntervalList> list1, final List<PackedIntervalList> list2);
 
     }
 
@@ -185,16 +184,16 @@ public class IntervalListTools extends CommandLineProgram {
         }
 
         // Read in the interval lists and apply any padding
-        final List<IntervalList> lists = openIntervalLists(INPUT);
+        final List<PackedIntervalList> lists = openIntervalLists(INPUT);
 
         // same for the second list
-        final List<IntervalList> secondLists = openIntervalLists(SECOND_INPUT);
+        final List<PackedIntervalList> secondLists = openIntervalLists(SECOND_INPUT);
 
         if (UNIQUE && !SORT) {
             LOG.warn("UNIQUE=true requires sorting but SORT=false was specified.  Results will be sorted!");
         }
 
-        final IntervalList result = ACTION.act(lists, secondLists);
+        final PackedIntervalList result = ACTION.act(lists, secondLists);
 
         if (SCATTER_COUNT > 1) {
             // Scattering requires a uniqued, sorted interval list.  We want to do this up front (before BREAKING AT BANDS)
@@ -207,14 +206,14 @@ public class IntervalListTools extends CommandLineProgram {
             UNIQUE = true;
         }
 
-        final IntervalList possiblySortedResult = SORT ? result.sorted() : result;
-        final IntervalList possiblyInvertedResult = INVERT ? IntervalList.invert(possiblySortedResult) : possiblySortedResult;
+        final PackedIntervalList possiblySortedResult = SORT ? result.sorted() : result;
+        final PackedIntervalList possiblyInvertedResult = INVERT ? PackedIntervalList.invert(possiblySortedResult) : possiblySortedResult;
 
         //only get unique if this has been asked unless inverting (since the invert will return a unique list)
-        List<Interval> finalIntervals = UNIQUE ? possiblyInvertedResult.uniqued().getIntervals() : possiblyInvertedResult.getIntervals();
+        PackedIntervalList finalIntervals = UNIQUE ? possiblyInvertedResult.uniqued() : possiblyInvertedResult;
 
         if (BREAK_BANDS_AT_MULTIPLES_OF > 0) {
-            finalIntervals = IntervalList.breakIntervalsAtBandMultiples(finalIntervals, BREAK_BANDS_AT_MULTIPLES_OF);
+            finalIntervals = finalIntervals.breakAtBandMultiples(BREAK_BANDS_AT_MULTIPLES_OF);
         }
 
         // Decide on a PG ID and make a program group
@@ -238,18 +237,15 @@ public class IntervalListTools extends CommandLineProgram {
             }
         }
 
-        final IntervalList output = new IntervalList(header);
-        for (final Interval i : finalIntervals) {
-            output.add(i);
-        }
+        final PackedIntervalList output = finalIntervals.withHeader(header);
 
-        final List<IntervalList> resultIntervals;
+        final List<PackedIntervalList> resultIntervals;
         if (OUTPUT != null) {
             if (SCATTER_COUNT == 1) {
-                output.write(OUTPUT);
+                output.toIntervalList().write(OUTPUT);
                 resultIntervals = Arrays.asList(output);
             } else {
-                final List<IntervalList> scattered = writeScatterIntervals(output);
+                final List<PackedIntervalList> scattered = writeScatterIntervals(output);
                 LOG.info(String.format("Wrote %s scatter subdirectories to %s.", scattered.size(), OUTPUT));
                 if (scattered.size() != SCATTER_COUNT) {
                     LOG.warn(String.format(
@@ -267,7 +263,7 @@ public class IntervalListTools extends CommandLineProgram {
 
         long totalUniqueBaseCount = 0;
         long intervalCount = 0;
-        for (final IntervalList finalInterval : resultIntervals) {
+        for (final PackedIntervalList finalInterval : resultIntervals) {
             totalUniqueBaseCount += finalInterval.getUniqueBaseCount();
             intervalCount += finalInterval.size();    
         }
@@ -278,10 +274,10 @@ public class IntervalListTools extends CommandLineProgram {
     }
 
 
-    private List<IntervalList> openIntervalLists(final List<File> files){
-        final List<IntervalList> lists = new ArrayList<IntervalList>();
+    private List<PackedIntervalList> openIntervalLists(final List<File> files){
+        final List<PackedIntervalList> lists = new ArrayList<PackedIntervalList>();
         for (final File f : files) {
-            lists.add(TYPE.getIntervalList(f, INCLUDE_FILTERED).padded(PADDING));
+            lists.add(TYPE.getPackedIntervalList(f, INCLUDE_FILTERED).padded(PADDING));
         }
         return lists;
     }
@@ -302,16 +298,16 @@ public class IntervalListTools extends CommandLineProgram {
      * Method to scatter an interval list by locus.
      *
      * @param list The list of intervals to scatter
-     * @return The scattered intervals, represented as a {@link List} of {@link IntervalList}
+     * @return The scattered intervals, represented as a {@link List} of {@link PackedIntervalList}
      */
-    private List<IntervalList> writeScatterIntervals(final IntervalList list) {
+    private List<PackedIntervalList> writeScatterIntervals(final PackedIntervalList list) {
         final IntervalListScatterer scatterer = new IntervalListScatterer(SUBDIVISION_MODE);
-        final List<IntervalList> scattered = scatterer.scatter(list, SCATTER_COUNT, UNIQUE);
+        final List<PackedIntervalList> scattered = scatterer.scatter(list, SCATTER_COUNT, UNIQUE);
 
         final DecimalFormat fileNameFormatter = new DecimalFormat("0000");
         int fileIndex = 1;
-        for (final IntervalList intervals : scattered) {
-            intervals.write(createDirectoryAndGetScatterFile(OUTPUT, scattered.size(), fileNameFormatter.format(fileIndex++)));
+        for (final PackedIntervalList intervals : scattered) {
+            intervals.toIntervalList().write(createDirectoryAndGetScatterFile(OUTPUT, scattered.size(), fileNameFormatter.format(fileIndex++)));
         }
 
         return scattered;
@@ -342,12 +338,22 @@ public class IntervalListTools extends CommandLineProgram {
             protected IntervalList getIntervalListInternal(final File vcf, final boolean includeFiltered) {
                 return VCFFileReader.fromVcf(vcf, includeFiltered);
             }
+
+            @Override
+            protected PackedIntervalList getPackedIntervalListInternal(final File vcf, final boolean includeFiltered) {
+                return PackedIntervalList.fromIntervalList(getIntervalListInternal(vcf, includeFiltered));
+            }
         },
         INTERVAL_LIST(IOUtil.INTERVAL_LIST_FILE_EXTENSION) {
             @Override
             protected IntervalList getIntervalListInternal(final File intervalList, final boolean includeFiltered) {
                 return IntervalList.fromFile(intervalList);
             }
+
+            @Override
+            protected PackedIntervalList getPackedIntervalListInternal(final File intervalList, final boolean includeFiltered) {
+                return PackedIntervalList.fromFile(intervalList);
+            }
         };
 
         final Collection<String> applicableExtensions;
@@ -362,6 +368,8 @@ public class IntervalListTools extends CommandLineProgram {
 
         abstract protected IntervalList getIntervalListInternal(final File file, final boolean includeFiltered);
 
+        abstract protected PackedIntervalList getPackedIntervalListInternal(final File file, final boolean includeFiltered);
+
         static TYPE forFile(final File intervalListExtractable) {
             for (final TYPE type : TYPE.values()) {
                 for (final String s : type.applicableExtensions) {
@@ -377,6 +385,10 @@ public class IntervalListTools extends CommandLineProgram {
             return forFile(file).getIntervalListInternal(file, includeFiltered);
         }
 
+        static public PackedIntervalList getPackedIntervalList(final  File file, final boolean includeFiltered){
+            return forFile(file).getPackedIntervalListInternal(file, includeFiltered);
+        }
+
         @Override
         public String toString() {
             return super.toString() + ": " + applicableExtensions.toString();
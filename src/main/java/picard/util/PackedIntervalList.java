@@ -0,0 +1,491 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026 The Broad Institute
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package picard.util;
+
+import htsjdk.samtools.SAMException;
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.SAMTextHeaderCodec;
+import htsjdk.samtools.util.CloserUtil;
+import htsjdk.samtools.util.IOUtil;
+import htsjdk.samtools.util.Interval;
+import htsjdk.samtools.util.IntervalList;
+import htsjdk.samtools.util.Log;
+import htsjdk.samtools.util.RuntimeIOException;
+import htsjdk.samtools.util.SequenceUtil;
+import htsjdk.samtools.util.StringLineReader;
+import htsjdk.samtools.util.StringUtil;
+import picard.PicardException;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A list of intervals held as parallel primitive arrays of sequence index, start and end (with the strand and name
+ * of each interval alongside), for working with lists of millions of intervals without an Interval object apiece.
+ *
+ * The operations mirror those of IntervalList and give the same intervals, names included, but are done by sorting
+ * the arrays and sweeping along each sequence rather than through Interval comparators and overlap detectors.  As
+ * with IntervalList, positions are 1-based and ends inclusive, and once sorted the intervals of each sequence are
+ * contiguous and in the order of the sequence dictionary.  Lists are never modified by the operations on them.
+ */
+public class PackedIntervalList {
+    private static final Log log = Log.getInstance(PackedIntervalList.class);
+
+    private final SAMFileHeader header;
+    private int size = 0;
+    private int[] sequenceIndices;
+    private int[] starts;
+    private int[] ends;
+    private final BitSet negativeStrands = new BitSet();
+    private String[] names;
+
+    public PackedIntervalList(final SAMFileHeader header) {
+        this(header, 16);
+    }
+
+    public PackedIntervalList(final SAMFileHeader header, final int initialCapacity) {
+        this.header = header;
+        final int capacity = Math.max(initialCapacity, 1);
+        sequenceIndices = new int[capacity];
+        starts = new int[capacity];
+        ends = new int[capacity];
+        names = new String[capacity];
+    }
+
+    /** Packs the intervals of an IntervalList, all of which must be on sequences of its dictionary. */
+    public static PackedIntervalList fromIntervalList(final IntervalList list) {
+        final PackedIntervalList packed = new PackedIntervalList(list.getHeader(), list.size());
+        for (final Interval interval : list.getIntervals()) packed.add(interval);
+        return packed;
+    }
+
+    /**
+     * Reads an interval_list file a line at a time, as IntervalList.fromFile does but without making an Interval for
+     * each record.  As there, intervals on sequences missing from the header are dropped with a warning.
+     */
+    public static PackedIntervalList fromFile(final File file) {
+        final BufferedReader in = IOUtil.openFileForBufferedReading(file);
+        try {
+            final StringBuilder headerText = new StringBuilder(4096);
+            String line;
+            while ((line = in.readLine()) != null && line.startsWith("@")) headerText.append(line).append('\n');
+            if (headerText.length() == 0) throw new IllegalStateException("Interval list file must contain header. ");
+
+            final SAMFileHeader header = new SAMTextHeaderCodec().decode(new StringLineReader(headerText.toString()), file.getAbsolutePath());
+            final SAMSequenceDictionary dictionary = header.getSequenceDictionary();
+            final PackedIntervalList list = new PackedIntervalList(header);
+
+            final int[] tabs = new int[4];
+            for (; line != null; line = in.readLine()) {
+                if (line.trim().isEmpty()) continue;
+
+                int fields = 1;
+                for (int i = line.indexOf('\t'); i >= 0; i = line.indexOf('\t', i + 1)) {
+                    if (fields <= tabs.length) tabs[fields - 1] = i;
+                    ++fields;
+                }
+                if (fields != 5) throw new SAMException("Invalid interval record contains " + fields + " fields: " + line);
+
+                final String sequence = line.substring(0, tabs[0]);
+                final int start = Integer.parseInt(line.substring(tabs[0] + 1, tabs[1]));
+                final int end = Integer.parseInt(line.substring(tabs[1] + 1, tabs[2]));
+                final String strand = line.substring(tabs[2] + 1, tabs[3]);
+                final boolean negative;
+                if (strand.equals("-")) negative = true;
+                else if (strand.equals("+")) negative = false;
+                else throw new IllegalArgumentException("Invalid strand field: " + strand);
+                final String name = line.substring(tabs[3] + 1);
+
+                final int sequenceIndex = dictionary.getSequenceIndex(sequence);
+                if (sequenceIndex < 0) {
+                    log.warn("Ignoring interval for unknown reference: " + new Interval(sequence, start, end, negative, name));
+                } else {
+                    list.add(sequenceIndex, start, end, negative, name);
+                }
+            }
+            return list;
+        } catch (final IOException ioe) {
+            throw new RuntimeIOException("Error reading " + file.getAbsolutePath(), ioe);
+        } finally {
+            CloserUtil.close(in);
+        }
+    }
+
+    /** Makes an IntervalList of the intervals, with this list's header. */
+    public IntervalList toIntervalList() {
+        return toIntervalList(header);
+    }
+
+    /** Makes an IntervalList of the intervals with the given header, whose dictionary must be that of this list. */
+    public IntervalList toIntervalList(final SAMFileHeader header) {
+        final IntervalList list = new IntervalList(header);
+        final List<SAMSequenceRecord> sequences = this.header.getSequenceDictionary().getSequences();
+        for (int i = 0; i < size; ++i) {
+            list.add(new Interval(sequences.get(sequenceIndices[i]).getSequenceName(), starts[i], ends[i], negativeStrands.get(i), names[i]));
+        }
+        return list;
+    }
+
+    /** The same intervals with a different header, whose dictionary must be that of this list. */
+    public PackedIntervalList withHeader(final SAMFileHeader header) {
+        final PackedIntervalList list = new PackedIntervalList(header, size);
+        list.addAll(this);
+        return list;
+    }
+
+    public void add(final Interval interval) {
+        final int sequenceIndex = header.getSequenceIndex(interval.getContig());
+        if (sequenceIndex < 0) throw new PicardException("Interval is on a sequence that is not in the sequence dictionary: " + interval);
+        add(sequenceIndex, interval.getStart(), interval.getEnd(), interval.isNegativeStrand(), interval.getName());
+    }
+
+    public void add(final int sequenceIndex, final int start, final int end, final boolean negativeStrand, final String name) {
+        if (size == starts.length) {
+            final int capacity = Math.max(size * 2, 16);
+            sequenceIndices = Arrays.copyOf(sequenceIndices, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            names = Arrays.copyOf(names, capacity);
+        }
+        sequenceIndices[size] = sequenceIndex;
+        starts[size] = start;
+        ends[size] = end;
+        if (negativeStrand) negativeStrands.set(size);
+        names[size] = name;
+        ++size;
+    }
+
+    private void add(final PackedIntervalList list, final int i) {
+        add(list.sequenceIndices[i], list.starts[i], list.ends[i], list.negativeStrands.get(i), list.names[i]);
+    }
+
+    private void addAll(final PackedIntervalList list) {
+        for (int i = 0; i < list.size; ++i) add(list, i);
+    }
+
+    public SAMFileHeader getHeader() {
+        return header;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getSequenceIndex(final int i) {
+        return sequenceIndices[i];
+    }
+
+    public int getStart(final int i) {
+        return starts[i];
+    }
+
+    public int getEnd(final int i) {
+        return ends[i];
+    }
+
+    public boolean isNegativeStrand(final int i) {
+        return negativeStrands.get(i);
+    }
+
+    public String getName(final int i) {
+        return names[i];
+    }
+
+    /** The length of the interval, as Interval.length() gives it. */
+    public int length(final int i) {
+        return ends[i] - starts[i] + 1;
+    }
+
+    /** The number of bases in the intervals, counting overlapping bases as many times as they are covered. */
+    public long getBaseCount() {
+        long count = 0;
+        for (int i = 0; i < size; ++i) count += length(i);
+        return count;
+    }
+
+    /** The number of distinct bases covered by the intervals. */
+    public long getUniqueBaseCount() {
+        return uniqued().getBaseCount();
+    }
+
+    /**
+     * Compares intervals as IntervalList's coordinate comparator does: by sequence, start, end, strand (positive
+     * first) and name (null first).
+     */
+    private int compare(final int i, final int j) {
+        int result = Integer.compare(sequenceIndices[i], sequenceIndices[j]);
+        if (result == 0) result = Integer.compare(starts[i], starts[j]);
+        if (result == 0) result = Integer.compare(ends[i], ends[j]);
+        if (result == 0) result = Boolean.compare(negativeStrands.get(i), negativeStrands.get(j));
+        if (result == 0) {
+            if (names[i] == null) result = names[j] == null ? 0 : -1;
+            else result = names[j] == null ? 1 : names[i].compareTo(names[j]);
+        }
+        return result;
+    }
+
+    public boolean isSorted() {
+        for (int i = 1; i < size; ++i) {
+            if (compare(i - 1, i) > 0) return false;
+        }
+        return true;
+    }
+
+    /** A coordinate sorted copy of the list, as IntervalList.sorted() would make. */
+    public PackedIntervalList sorted() {
+        final SAMFileHeader sortedHeader = header.clone();
+        sortedHeader.setSortOrder(SAMFileHeader.SortOrder.coordinate);
+        final PackedIntervalList sorted = new PackedIntervalList(sortedHeader, size);
+        if (isSorted()) {
+            sorted.addAll(this);
+        } else {
+            for (final int i : sortedOrder()) sorted.add(this, i);
+        }
+        return sorted;
+    }
+
+    /** The indices of the intervals in sorted order, by a stable bottom-up merge sort on primitive indices. */
+    private int[] sortedOrder() {
+        int[] order = new int[size];
+        int[] buffer = new int[size];
+        for (int i = 0; i < size; ++i) order[i] = i;
+
+        for (int width = 1; width < size; width *= 2) {
+            for (int lo = 0; lo < size; lo += 2 * width) {
+                final int mid = Math.min(lo + width, size);
+                final int hi = Math.min(lo + 2 * width, size);
+                int left = lo, right = mid, out = lo;
+                while (left < mid && right < hi) buffer[out++] = compare(order[right], order[left]) < 0 ? order[right++] : order[left++];
+                while (left < mid) buffer[out++] = order[left++];
+                while (right < hi) buffer[out++] = order[right++];
+            }
+            final int[] swap = order;
+            order = buffer;
+            buffer = swap;
+        }
+        return order;
+    }
+
+    /**
+     * Sorts the list and merges overlapping and abutting intervals, as IntervalList.uniqued() does: each merged
+     * interval takes the strand of the first of the intervals merged into it and their distinct names joined by "|".
+     */
+    public PackedIntervalList uniqued() {
+        final PackedIntervalList sorted = sorted();
+        final PackedIntervalList unique = new PackedIntervalList(sorted.header);
+
+        final Set<String> mergedNames = new LinkedHashSet<String>();
+        int i = 0;
+        while (i < sorted.size) {
+            final int first = i;
+            final int start = sorted.starts[first];
+            int end = sorted.ends[first];
+            int next = first + 1;
+            while (next < sorted.size && sorted.sequenceIndices[next] == sorted.sequenceIndices[first] &&
+                    ((sorted.starts[next] <= end && start <= sorted.ends[next]) || sorted.starts[next] == end + 1 || start == sorted.ends[next] + 1)) {
+                end = Math.max(end, sorted.ends[next]);
+                ++next;
+            }
+
+            final String name;
+            if (next == first + 1) {
+                name = sorted.names[first];
+            } else {
+                mergedNames.clear();
+                for (int j = first; j < next; ++j) {
+                    if (sorted.names[j] != null) mergedNames.add(sorted.names[j]);
+                }
+                name = mergedNames.isEmpty() ? null : StringUtil.join("|", mergedNames);
+            }
+            unique.add(sorted.sequenceIndices[first], start, end, sorted.negativeStrands.get(first), name);
+            i = next;
+        }
+        return unique;
+    }
+
+    /**
+     * Pads both ends of every interval by the given amount, or shrinks them if it is negative, clipping them to their
+     * sequence and dropping those left with no bases, as IntervalList.padded() does.
+     */
+    public PackedIntervalList padded(final int padding) {
+        final List<SAMSequenceRecord> sequences = header.getSequenceDictionary().getSequences();
+        final PackedIntervalList padded = new PackedIntervalList(header.clone(), size);
+        for (int i = 0; i < size; ++i) {
+            final int start = Math.max(1, starts[i] - padding);
+            final int end = Math.min(sequences.get(sequenceIndices[i]).getSequenceLength(), ends[i] + padding);
+            if (start <= end) padded.add(sequenceIndices[i], start, end, negativeStrands.get(i), names[i]);
+        }
+        return padded;
+    }
+
+    /**
+     * Breaks every interval at the integer multiples of bandMultiple it spans, naming the pieces after the interval
+     * with ".1", ".2" and so on, as IntervalList.breakIntervalsAtBandMultiples() does.
+     */
+    public PackedIntervalList breakAtBandMultiples(final int bandMultiple) {
+        final PackedIntervalList broken = new PackedIntervalList(header, size);
+        for (int i = 0; i < size; ++i) {
+            final int firstBand = starts[i] / bandMultiple;
+            final int lastBand = ends[i] / bandMultiple;
+            if (ends[i] < starts[i] || firstBand == lastBand) {
+                broken.add(this, i);
+                continue;
+            }
+
+            int start = starts[i];
+            for (int band = firstBand; band <= lastBand; ++band) {
+                final int end = Math.min((band + 1) * bandMultiple - 1, ends[i]);
+                broken.add(sequenceIndices[i], start, end, negativeStrands.get(i), names[i] + "." + (band - firstBand + 1));
+                start = end + 1;
+            }
+        }
+        return broken;
+    }
+
+    /** The intervals of all the lists one after the other, with the header of the first, as IntervalList.concatenate(). */
+    public static PackedIntervalList concatenate(final Collection<PackedIntervalList> lists) {
+        if (lists.isEmpty()) throw new IllegalArgumentException("No interval lists to concatenate.");
+        final Iterator<PackedIntervalList> iterator = lists.iterator();
+        final PackedIntervalList first = iterator.next();
+        int size = first.size;
+        while (iterator.hasNext()) {
+            final PackedIntervalList list = iterator.next();
+            SequenceUtil.assertSequenceDictionariesEqual(first.header.getSequenceDictionary(), list.header.getSequenceDictionary());
+            size += list.size;
+        }
+
+        final PackedIntervalList concatenated = new PackedIntervalList(first.header.clone(), size);
+        for (final PackedIntervalList list : lists) concatenated.addAll(list);
+        return concatenated;
+    }
+
+    /** The sorted, uniqued union of the lists. */
+    public static PackedIntervalList union(final Collection<PackedIntervalList> lists) {
+        return concatenate(lists).uniqued();
+    }
+
+    /** The intersection of the lists, taking them pairwise in turn; a single list is returned as it is. */
+    public static PackedIntervalList intersection(final Collection<PackedIntervalList> lists) {
+        PackedIntervalList intersection = null;
+        for (final PackedIntervalList list : lists) {
+            intersection = intersection == null ? list : intersection(intersection, list);
+        }
+        return intersection;
+    }
+
+    /**
+     * The sorted, uniqued intersection of two lists.  As in IntervalList.intersection(), each overlap of an interval
+     * of list2 with one of list1 takes the strand of the former and is named "[name2] intersection [name1]" before
+     * the overlaps are merged.
+     *
+     * Both lists are sorted and swept together one sequence at a time, keeping the intervals of list1 that have
+     * started but not yet ended as an active set.
+     */
+    public static PackedIntervalList intersection(final PackedIntervalList list1, final PackedIntervalList list2) {
+        SequenceUtil.assertSequenceDictionariesEqual(list1.header.getSequenceDictionary(), list2.header.getSequenceDictionary());
+        final PackedIntervalList ones = list1.sorted();
+        final PackedIntervalList twos = list2.sorted();
+        final PackedIntervalList result = new PackedIntervalList(list1.header.clone());
+
+        int[] active = new int[16];
+        int numActive = 0;
+        int next = 0;
+        for (int i = 0; i < twos.size; ++i) {
+            final int sequenceIndex = twos.sequenceIndices[i];
+            final int start = twos.starts[i];
+            final int end = twos.ends[i];
+
+            // Later intervals of list2 start no earlier than this one, so intervals of list1 ending before it are done with
+            int kept = 0;
+            for (int k = 0; k < numActive; ++k) {
+                final int j = active[k];
+                if (ones.sequenceIndices[j] == sequenceIndex && ones.ends[j] >= start) active[kept++] = j;
+            }
+            numActive = kept;
+
+            while (next < ones.size && ones.sequenceIndices[next] < sequenceIndex) ++next;
+            while (next < ones.size && ones.sequenceIndices[next] == sequenceIndex && ones.starts[next] <= end) {
+                if (ones.ends[next] >= start) {
+                    if (numActive == active.length) active = Arrays.copyOf(active, numActive * 2);
+                    active[numActive++] = next;
+                }
+                ++next;
+            }
+
+            for (int k = 0; k < numActive; ++k) {
+                final int j = active[k];
+                if (ones.starts[j] > end) continue;
+                result.add(sequenceIndex, Math.max(start, ones.starts[j]), Math.min(end, ones.ends[j]),
+                        twos.negativeStrands.get(i), twos.names[i] + " intersection " + ones.names[j]);
+            }
+        }
+        return result.uniqued();
+    }
+
+    /**
+     * The loci of the dictionary not covered by the list, as IntervalList.invert() gives them: on the positive strand
+     * and named "interval-1", "interval-2" and so on.
+     */
+    public static PackedIntervalList invert(final PackedIntervalList list) {
+        final PackedIntervalList unique = list.uniqued();
+        final PackedIntervalList inverse = new PackedIntervalList(list.header.clone());
+
+        int intervals = 0;
+        int i = 0;
+        for (final SAMSequenceRecord sequence : list.header.getSequenceDictionary().getSequences()) {
+            final int sequenceIndex = sequence.getSequenceIndex();
+            int lastCoveredPosition = 0;
+            for (; i < unique.size && unique.sequenceIndices[i] == sequenceIndex; ++i) {
+                if (unique.starts[i] > lastCoveredPosition + 1) {
+                    inverse.add(sequenceIndex, lastCoveredPosition + 1, unique.starts[i] - 1, false, "interval-" + (++intervals));
+                }
+                lastCoveredPosition = unique.ends[i];
+            }
+            if (sequence.getSequenceLength() > lastCoveredPosition) {
+                inverse.add(sequenceIndex, lastCoveredPosition + 1, sequence.getSequenceLength(), false, "interval-" + (++intervals));
+            }
+        }
+        return inverse;
+    }
+
+    /** The loci of the first lists that are in none of the second. */
+    public static PackedIntervalList subtract(final Collection<PackedIntervalList> listsToSubtractFrom, final Collection<PackedIntervalList> listsToSubtract) {
+        return intersection(union(listsToSubtractFrom), invert(union(listsToSubtract)));
+    }
+
+    /** The loci that are in the first lists or the second but not both. */
+    public static PackedIntervalList difference(final Collection<PackedIntervalList> lists1, final Collection<PackedIntervalList> lists2) {
+        return union(Arrays.asList(subtract(lists1, lists2), subtract(lists2, lists1)));
+    }
+}
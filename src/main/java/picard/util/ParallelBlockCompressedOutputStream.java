@@ -0,0 +1,313 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026 The Broad Institute
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package picard.util;
+
+import htsjdk.samtools.util.BlockCompressedStreamConstants;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * An OutputStream that writes BGZF, the block compressed format used by BAM, and deflates the blocks on a
+ * shared pool of worker threads.  Blocks are always written to the underlying stream in the order in which
+ * they were filled, so the output is a valid BGZF file that any BGZF reader can decode.  At most a small,
+ * fixed number of blocks per thread are in flight at any time, which bounds the memory used by the stream.
+ *
+ * Because a block's address in the compressed file is only known once all blocks before it have been
+ * written, positions within the stream are exposed as a (block ordinal, offset) pair; {@link #getBlockAddress(long)}
+ * translates an ordinal into a compressed address once it is known, so that callers can build virtual file
+ * pointers for indexing.
+ */
+public class ParallelBlockCompressedOutputStream extends OutputStream {
+    /**
+     * Uncompressed bytes per block.  Smaller than htsjdk's default so that a block that does not compress
+     * at all still fits in a BGZF block when stored, as samtools does.
+     */
+    public static final int UNCOMPRESSED_BLOCK_SIZE = 0xff00;
+
+    /** Number of blocks allowed in flight per compression thread before the writer waits for the oldest. */
+    private static final int BLOCKS_IN_FLIGHT_PER_THREAD = 4;
+
+    private static ThreadPoolExecutor compressionExecutor = null;
+
+    private static final ThreadLocal<Deflater> DEFLATERS = new ThreadLocal<Deflater>() {
+        @Override protected Deflater initialValue() {
+            return new Deflater(BlockCompressedStreamConstants.DEFAULT_COMPRESSION_LEVEL, true);
+        }
+    };
+
+    private final OutputStream out;
+    private final int compressionLevel;
+    private final int maxBlocksInFlight;
+    private final ThreadPoolExecutor executor;
+
+    private final Deque<Future<Block>> blocksInFlight = new ArrayDeque<>();
+    private final Deque<Block> freeBlocks = new ArrayDeque<>();
+    private Block currentBlock;
+
+    /** Ordinal of the block currently being filled. */
+    private long currentBlockOrdinal = 0;
+    /** Number of blocks written to the underlying stream; the address of the next block is therefore known. */
+    private long blocksWritten = 0;
+    /** Addresses of the blocks from firstRetainedOrdinal up to and including blocksWritten. */
+    private final LongDeque blockAddresses = new LongDeque();
+    private long firstRetainedOrdinal = 0;
+    private long nextBlockAddress = 0;
+
+    private boolean closed = false;
+
+    /**
+     * Constructs a stream that compresses at the given level on up to compressionThreads threads.
+     * @param out the stream to write compressed blocks to; it is closed when this stream is closed
+     */
+    public ParallelBlockCompressedOutputStream(final OutputStream out, final int compressionLevel, final int compressionThreads) {
+        if (compressionThreads < 1) throw new IllegalArgumentException("compressionThreads must be at least 1: " + compressionThreads);
+        this.out = out;
+        this.compressionLevel = compressionLevel;
+        this.maxBlocksInFlight = compressionThreads * BLOCKS_IN_FLIGHT_PER_THREAD;
+        this.executor = getCompressionExecutor(compressionThreads);
+        this.currentBlock = new Block();
+        this.blockAddresses.add(0);
+    }
+
+    /** Returns the shared compression pool, growing it if more threads are requested than it currently has. */
+    private static synchronized ThreadPoolExecutor getCompressionExecutor(final int threads) {
+        if (compressionExecutor == null) {
+            compressionExecutor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                    ThreadPoolUtil.newDaemonThreadFactory("BgzfCompressor"));
+            compressionExecutor.allowCoreThreadTimeOut(true);
+        }
+        else if (compressionExecutor.getMaximumPoolSize() < threads) {
+            compressionExecutor.setMaximumPoolSize(threads);
+            compressionExecutor.setCorePoolSize(threads);
+        }
+        return compressionExecutor;
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        currentBlock.uncompressed[currentBlock.uncompressedSize++] = (byte) b;
+        if (currentBlock.uncompressedSize == UNCOMPRESSED_BLOCK_SIZE) submitCurrentBlock();
+    }
+
+    @Override
+    public void write(final byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            final int n = Math.min(length, UNCOMPRESSED_BLOCK_SIZE - currentBlock.uncompressedSize);
+            System.arraycopy(bytes, offset, currentBlock.uncompressed, currentBlock.uncompressedSize, n);
+            currentBlock.uncompressedSize += n;
+            offset += n;
+            length -= n;
+            if (currentBlock.uncompressedSize == UNCOMPRESSED_BLOCK_SIZE) submitCurrentBlock();
+        }
+    }
+
+    /** Ordinal of the block that the next byte written will be placed in. */
+    public long getBlockOrdinal() {
+        return currentBlockOrdinal;
+    }
+
+    /** Offset within the current block at which the next byte written will be placed. */
+    public int getBlockOffset() {
+        return currentBlock.uncompressedSize;
+    }
+
+    /** True if the compressed address of the block with the given ordinal is known. */
+    public boolean isBlockAddressKnown(final long blockOrdinal) {
+        return blockOrdinal <= blocksWritten;
+    }
+
+    /**
+     * Returns the address in the compressed output at which the block with the given ordinal starts.  The
+     * address must be known (see {@link #isBlockAddressKnown(long)}) and must not have been discarded.
+     */
+    public long getBlockAddress(final long blockOrdinal) {
+        if (!isBlockAddressKnown(blockOrdinal) || blockOrdinal < firstRetainedOrdinal) {
+            throw new IllegalStateException("Address of block " + blockOrdinal + " is not available.");
+        }
+        return blockAddresses.get((int) (blockOrdinal - firstRetainedOrdinal));
+    }
+
+    /** Builds the virtual file pointer for an offset within a block whose address is known. */
+    public long getVirtualFilePointer(final long blockOrdinal, final int blockOffset) {
+        return (getBlockAddress(blockOrdinal) << 16) | blockOffset;
+    }
+
+    /** Allows the stream to forget the addresses of blocks before the given ordinal. */
+    public void discardBlockAddressesBefore(final long blockOrdinal) {
+        while (firstRetainedOrdinal < blockOrdinal && firstRetainedOrdinal < blocksWritten) {
+            blockAddresses.removeFirst();
+            ++firstRetainedOrdinal;
+        }
+    }
+
+    /** Writes any blocks whose compression has completed, without waiting for the others. */
+    public void writeCompletedBlocks() throws IOException {
+        while (!blocksInFlight.isEmpty() && blocksInFlight.peekFirst().isDone()) writeOldestBlock();
+    }
+
+    /**
+     * Ends the current block, even if it is not full, and waits for all blocks to be compressed and written
+     * before flushing the underlying stream.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (currentBlock.uncompressedSize > 0) submitCurrentBlock();
+        while (!blocksInFlight.isEmpty()) writeOldestBlock();
+        out.flush();
+    }
+
+    /** Flushes all data, writes the BGZF terminator block and closes the underlying stream. */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        flush();
+        out.write(BlockCompressedStreamConstants.EMPTY_GZIP_BLOCK);
+        out.close();
+    }
+
+    private void submitCurrentBlock() throws IOException {
+        final Block block = currentBlock;
+        final int level = compressionLevel;
+        blocksInFlight.addLast(executor.submit(() -> block.compress(level)));
+        ++currentBlockOrdinal;
+
+        currentBlock = freeBlocks.isEmpty() ? new Block() : freeBlocks.removeFirst();
+        currentBlock.uncompressedSize = 0;
+
+        writeCompletedBlocks();
+        while (blocksInFlight.size() >= maxBlocksInFlight) writeOldestBlock();
+    }
+
+    private void writeOldestBlock() throws IOException {
+        final Block block = ThreadPoolUtil.get(blocksInFlight.removeFirst(), "compressing BGZF blocks");
+
+        out.write(block.compressed, 0, block.compressedSize);
+        nextBlockAddress += block.compressedSize;
+        ++blocksWritten;
+        blockAddresses.add(nextBlockAddress);
+        freeBlocks.addLast(block);
+    }
+
+    /** A pair of buffers holding one block before and after compression. */
+    private static class Block {
+        final byte[] uncompressed = new byte[UNCOMPRESSED_BLOCK_SIZE];
+        final byte[] compressed = new byte[BlockCompressedStreamConstants.MAX_COMPRESSED_BLOCK_SIZE];
+        int uncompressedSize = 0;
+        int compressedSize = 0;
+
+        /** Deflates the uncompressed buffer into a complete BGZF block, header and footer included. */
+        Block compress(final int compressionLevel) {
+            final int headerLength = BlockCompressedStreamConstants.BLOCK_HEADER_LENGTH;
+            final int maxDeflatedSize = compressed.length - headerLength - BlockCompressedStreamConstants.BLOCK_FOOTER_LENGTH;
+
+            final Deflater deflater = DEFLATERS.get();
+            deflater.reset();
+            deflater.setLevel(compressionLevel);
+            deflater.setInput(uncompressed, 0, uncompressedSize);
+            deflater.finish();
+            int deflatedSize = deflater.deflate(compressed, headerLength, maxDeflatedSize);
+
+            if (!deflater.finished()) {
+                // The data grew when compressed, so store it without compression instead
+                deflater.reset();
+                deflater.setLevel(Deflater.NO_COMPRESSION);
+                deflater.setInput(uncompressed, 0, uncompressedSize);
+                deflater.finish();
+                deflatedSize = deflater.deflate(compressed, headerLength, maxDeflatedSize);
+                if (!deflater.finished()) throw new IllegalStateException("Uncompressed BGZF block does not fit in a block.");
+            }
+
+            compressedSize = headerLength + deflatedSize + BlockCompressedStreamConstants.BLOCK_FOOTER_LENGTH;
+
+            // gzip header with the BGZF extra field holding the total block size minus one
+            compressed[0] = (byte) 31;
+            compressed[1] = (byte) 139;
+            compressed[2] = (byte) 8;   // deflate
+            compressed[3] = (byte) 4;   // FEXTRA
+            putInt(compressed, 4, 0);   // MTIME
+            compressed[8] = (byte) 0;   // XFL
+            compressed[9] = (byte) 255; // OS unknown
+            putShort(compressed, 10, 6); // XLEN
+            compressed[12] = (byte) 'B';
+            compressed[13] = (byte) 'C';
+            putShort(compressed, 14, 2);
+            putShort(compressed, 16, compressedSize - 1);
+
+            final CRC32 crc = new CRC32();
+            crc.update(uncompressed, 0, uncompressedSize);
+            final int footerOffset = headerLength + deflatedSize;
+            putInt(compressed, footerOffset, (int) crc.getValue());
+            putInt(compressed, footerOffset + 4, uncompressedSize);
+            return this;
+        }
+
+        private static void putShort(final byte[] bytes, final int offset, final int value) {
+            bytes[offset] = (byte) value;
+            bytes[offset + 1] = (byte) (value >>> 8);
+        }
+
+        private static void putInt(final byte[] bytes, final int offset, final int value) {
+            putShort(bytes, offset, value);
+            putShort(bytes, offset + 2, value >>> 16);
+        }
+    }
+
+    /** Minimal growable deque of primitive longs, used to hold block addresses without boxing. */
+    private static class LongDeque {
+        private long[] values = new long[64];
+        private int head = 0;
+        private int size = 0;
+
+        void add(final long value) {
+            if (size == values.length) {
+                final long[] grown = new long[values.length * 2];
+                for (int i = 0; i < size; ++i) grown[i] = values[(head + i) % values.length];
+                values = grown;
+                head = 0;
+            }
+            values[(head + size) % values.length] = value;
+            ++size;
+        }
+
+        long get(final int index) {
+            if (index >= size) throw new IndexOutOfBoundsException(String.valueOf(index));
+            return values[(head + index) % values.length];
+        }
+
+        void removeFirst() {
+            head = (head + 1) % values.length;
+            --size;
+        }
+    }
+}
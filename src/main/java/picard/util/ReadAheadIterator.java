@@ -0,0 +1,166 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026 The Broad Institute
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package picard.util;
+
+import htsjdk.samtools.util.CloseableIterator;
+import picard.PicardException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Executor;
+
+/**
+ * Wrapper around a CloseableIterator that reads ahead in batches on the threads of a shared Executor, for reading
+ * many inputs at once on fewer threads than there are inputs, which AsyncIterator, with its thread per iterator,
+ * cannot do.
+ *
+ * At most maxBatches batches of batchSize items are held for each iterator.  An iterator's task runs only while it
+ * has room for another batch and never waits for room, so tasks for iterators whose batches are not being taken
+ * cannot hold up the threads needed by those whose batches are.
+ */
+public class ReadAheadIterator<T> implements CloseableIterator<T> {
+    private final CloseableIterator<T> underlyingIterator;
+    private final Executor executor;
+    private final int batchSize;
+    private final int maxBatches;
+
+    // Guarded by this
+    private final Deque<List<T>> batches = new ArrayDeque<List<T>>();
+    private boolean reading = false;
+    private boolean exhausted = false;
+    private boolean closed = false;
+    private Throwable failure = null;
+
+    // Used only by the consuming thread
+    private Iterator<T> batch = Collections.<T>emptyList().iterator();
+
+    public ReadAheadIterator(final CloseableIterator<T> underlyingIterator, final Executor executor, final int batchSize,
+                             final int maxBatches) {
+        if (batchSize < 1) throw new IllegalArgumentException("batchSize must be at least 1: " + batchSize);
+        if (maxBatches < 1) throw new IllegalArgumentException("maxBatches must be at least 1: " + maxBatches);
+        this.underlyingIterator = underlyingIterator;
+        this.executor = executor;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+        synchronized (this) {
+            readAheadIfRoom();
+        }
+    }
+
+    /** Starts a task to read another batch, unless one is running already, there is no room or nothing is left. */
+    private void readAheadIfRoom() {
+        if (reading || exhausted || closed || failure != null || batches.size() >= maxBatches) return;
+        reading = true;
+        executor.execute(this::readBatch);
+    }
+
+    /** Reads one batch, which may be the only access to the underlying iterator at the time. */
+    private void readBatch() {
+        final List<T> items = new ArrayList<T>(batchSize);
+        boolean end = false;
+        Throwable t = null;
+        try {
+            while (items.size() < batchSize && underlyingIterator.hasNext()) items.add(underlyingIterator.next());
+            end = !underlyingIterator.hasNext();
+        }
+        catch (final Throwable e) {
+            t = e;
+        }
+        synchronized (this) {
+            if (!items.isEmpty()) batches.addLast(items);
+            exhausted = end;
+            failure = t;
+            reading = false;
+            readAheadIfRoom();
+            notifyAll();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (batch.hasNext()) return true;
+        synchronized (this) {
+            assertOpen();
+            try {
+                while (batches.isEmpty() && !exhausted && failure == null) {
+                    readAheadIfRoom();
+                    wait();
+                }
+            }
+            catch (final InterruptedException ie) {
+                throw new PicardException("Interrupted waiting for items to be read.", ie);
+            }
+            if (!batches.isEmpty()) {
+                batch = batches.removeFirst().iterator();
+                readAheadIfRoom();
+                return true;
+            }
+            // Items read before a failure are returned before it is rethrown
+            if (failure != null) {
+                if (failure instanceof Error) throw (Error) failure;
+                if (failure instanceof RuntimeException) throw (RuntimeException) failure;
+                throw new PicardException("Error reading ahead.", failure);
+            }
+            return false;
+        }
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        return batch.next();
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /** Waits for any batch being read to be finished and then closes the underlying iterator. */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            try {
+                while (reading) wait();
+            }
+            catch (final InterruptedException ie) {
+                throw new PicardException("Interrupted waiting for items to be read.", ie);
+            }
+            batches.clear();
+        }
+        batch = Collections.<T>emptyList().iterator();
+        underlyingIterator.close();
+    }
+
+    private void assertOpen() {
+        if (closed) throw new IllegalStateException("ReadAheadIterator already closed.");
+    }
+}
@@ -1,11 +1,15 @@
 package picard.util;
 
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.util.CloserUtil;
 import htsjdk.samtools.util.SequenceUtil;
+import picard.PicardException;
 import picard.cmdline.CommandLineProgram;
 import picard.cmdline.CommandLineProgramProperties;
 import picard.cmdline.programgroups.Intervals;
 import picard.cmdline.Option;
 import picard.cmdline.StandardOptionDefinitions;
+import picard.reference.ParallelReferenceProcessor;
 import htsjdk.samtools.util.IOUtil;
 import htsjdk.samtools.reference.ReferenceSequence;
 import htsjdk.samtools.reference.ReferenceSequenceFile;
@@ -22,11 +26,13 @@ import java.io.File;
 import java.lang.Boolean;
 import java.lang.Override;
 import java.lang.String;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 
 /**
@@ -67,6 +73,10 @@ public class ScatterIntervalsByNs extends CommandLineProgram {
     @Option(shortName = "N", doc = "Maximal number of contiguous N bases to tolerate, thereby continuing the current ACGT interval.", optional = true)
     public int MAX_TO_MERGE = 1;
 
+    @Option(doc = "Number of threads over which to split the sequences of the reference, which must then be indexed. " +
+            "The output is the same whatever the number of threads.", optional = true)
+    public int NUM_THREADS = 1;
+
     //not using an enum since Interval.name is a String, and am using that to define the type of the Interval
     private static final String
             ACGTmer = "ACGTmer",
@@ -89,7 +99,6 @@ public class ScatterIntervalsByNs extends CommandLineProgram {
     }
 
     private static final Log log = Log.getInstance(ScatterIntervalsByNs.class);
-    private static final ProgressLogger locusProgress = new ProgressLogger(log, (int) 1e7, "examined", "loci");
     private static final ProgressLogger intervalProgress = new ProgressLogger(log, (int) 10, "found", "intervals");
 
     public static void main(final String[] args) {
@@ -101,12 +110,10 @@ public class ScatterIntervalsByNs extends CommandLineProgram {
         IOUtil.assertFileIsReadable(REFERENCE);
         IOUtil.assertFileIsWritable(OUTPUT);
 
-        final ReferenceSequenceFile refFile = ReferenceSequenceFileFactory.getReferenceSequenceFile(REFERENCE, true);
-
         // get the intervals
-        final IntervalList intervals = segregateReference(refFile, MAX_TO_MERGE);
+        final IntervalList intervals = segregateReference(REFERENCE, MAX_TO_MERGE, NUM_THREADS);
 
-        log.info(String.format("Found %d intervals in %d loci during %s seconds", intervalProgress.getCount(), locusProgress.getCount(), locusProgress.getElapsedSeconds()));
+        log.info(String.format("Found %d intervals in %d loci during %s seconds", intervalProgress.getCount(), intervals.getHeader().getSequenceDictionary().getReferenceLength(), intervalProgress.getElapsedSeconds()));
 
         /**********************************
          * Now output regions for calling *
@@ -120,46 +127,89 @@ public class ScatterIntervalsByNs extends CommandLineProgram {
         log.info("Writing Intervals.");
         outputIntervals.write(OUTPUT);
 
-        log.info(String.format("Execution ending. Total time %d seconds", locusProgress.getElapsedSeconds()));
+        log.info(String.format("Execution ending. Total time %d seconds", intervalProgress.getElapsedSeconds()));
 
         return 0;
     }
 
+    @Override
+    protected String[] customCommandLineValidation() {
+        final String[] errors = ThreadPoolUtil.validateNumThreads(NUM_THREADS);
+        return errors != null ? errors : super.customCommandLineValidation();
+    }
+
     /**
      * ****************************************************************
      * Generate an interval list that alternates between Ns and ACGTs *
      * ****************************************************************
      */
     static IntervalList segregateReference(final ReferenceSequenceFile refFile, final int maxNmerToMerge) {
-        final List<Interval> preliminaryIntervals = new LinkedList<>();
-        final SAMFileHeader header = new SAMFileHeader();
-        header.setSequenceDictionary(refFile.getSequenceDictionary());
-        header.setSortOrder(SAMFileHeader.SortOrder.coordinate);
-        final IntervalList finalIntervals = new IntervalList(header);
+        final IntervalList finalIntervals = new IntervalList(makeHeader(refFile.getSequenceDictionary()));
 
         //iterate over all the sequences in the dictionary
         for (final SAMSequenceRecord rec : refFile.getSequenceDictionary().getSequences()) {
-            final ReferenceSequence ref = refFile.getSequence(rec.getSequenceName());
-            final byte[] bytes = ref.getBases();
-            StringUtil.toUpperCase(bytes);
-
-            boolean nBlockIsOpen = SequenceUtil.isNoCall(bytes[0]);
-            int start = 0;
-
-            for (int i = 0; i < bytes.length; ++i) {
-                locusProgress.record(rec.getSequenceName(), i);
-                final boolean currentBaseIsN = SequenceUtil.isNoCall(bytes[i]);
-
-                //create intervals when switching, i.e "nBlockIsOpen" disagrees with "currentBaseIsN"
-                if (nBlockIsOpen != currentBaseIsN) {
-                    preliminaryIntervals.add(new Interval(rec.getSequenceName(), start + 1, i, false, nBlockIsOpen ? Nmer : ACGTmer));
-                    start = i;
-                    nBlockIsOpen = !nBlockIsOpen;
-                }
+            addIntervals(finalIntervals, segregateSequence(refFile.getSequence(rec.getSequenceName()), maxNmerToMerge));
+        }
+        return finalIntervals;
+    }
+
+    /**
+     * As above, but reading and splitting the sequences on numThreads threads.  The sequences are read through the
+     * index of the reference, each thread with its own reader, and the intervals are still listed in dictionary order.
+     */
+    static IntervalList segregateReference(final File reference, final int maxNmerToMerge, final int numThreads) {
+        final ReferenceSequenceFile refFile = ReferenceSequenceFileFactory.getReferenceSequenceFile(reference, true);
+        final SAMSequenceDictionary dictionary = refFile.getSequenceDictionary();
+        CloserUtil.close(refFile);
+        if (dictionary == null) throw new PicardException("Reference " + reference.getAbsolutePath() + " has no sequence dictionary.");
+
+        final IntervalList finalIntervals = new IntervalList(makeHeader(dictionary));
+        final List<String> names = dictionary.getSequences().stream().map(SAMSequenceRecord::getSequenceName).collect(Collectors.toList());
+        new ParallelReferenceProcessor(reference, true, numThreads).process(names,
+                ref -> segregateSequence(ref, maxNmerToMerge),
+                intervals -> addIntervals(finalIntervals, intervals));
+        return finalIntervals;
+    }
+
+    private static SAMFileHeader makeHeader(final SAMSequenceDictionary dictionary) {
+        final SAMFileHeader header = new SAMFileHeader();
+        header.setSequenceDictionary(dictionary);
+        header.setSortOrder(SAMFileHeader.SortOrder.coordinate);
+        return header;
+    }
+
+    private static void addIntervals(final IntervalList finalIntervals, final List<Interval> intervals) {
+        for (final Interval interval : intervals) {
+            finalIntervals.add(interval);
+            intervalProgress.record(interval.getContig(), interval.getStart());
+        }
+    }
+
+    /**
+     * Splits one sequence into alternating Nmers and ACGTmers.  Nmers are never merged across sequences, so each
+     * sequence can be split on its own.
+     */
+    private static List<Interval> segregateSequence(final ReferenceSequence ref, final int maxNmerToMerge) {
+        final List<Interval> preliminaryIntervals = new LinkedList<>();
+        final List<Interval> finalIntervals = new ArrayList<>();
+        final byte[] bytes = ref.getBases();
+        StringUtil.toUpperCase(bytes);
+
+        boolean nBlockIsOpen = SequenceUtil.isNoCall(bytes[0]);
+        int start = 0;
+
+        for (int i = 0; i < bytes.length; ++i) {
+            final boolean currentBaseIsN = SequenceUtil.isNoCall(bytes[i]);
+
+            //create intervals when switching, i.e "nBlockIsOpen" disagrees with "currentBaseIsN"
+            if (nBlockIsOpen != currentBaseIsN) {
+                preliminaryIntervals.add(new Interval(ref.getName(), start + 1, i, false, nBlockIsOpen ? Nmer : ACGTmer));
+                start = i;
+                nBlockIsOpen = !nBlockIsOpen;
             }
-            // Catch the last block of chromosome
-            preliminaryIntervals.add(new Interval(rec.getSequenceName(), start + 1, bytes.length, false, nBlockIsOpen ? Nmer : ACGTmer));
         }
+        // Catch the last block of chromosome
+        preliminaryIntervals.add(new Interval(ref.getName(), start + 1, bytes.length, false, nBlockIsOpen ? Nmer : ACGTmer));
 
         // now that we have the whole list, we need to remove the short Nmers.
         // process the list, replacing trios with short Nmers in the middle with longer intervals:
@@ -176,7 +226,7 @@ public class ScatterIntervalsByNs extends CommandLineProgram {
                     preliminaryIntervals.get(1).getName() == Nmer &&      //between two
                     preliminaryIntervals.get(2).getName() == ACGTmer &&   //ACGT-mers
                     preliminaryIntervals.get(0).abuts(preliminaryIntervals.get(1)) && // all abutting
-                    preliminaryIntervals.get(1).abuts(preliminaryIntervals.get(2)) && // each other (there are many contigs...)
+                    preliminaryIntervals.get(1).abuts(preliminaryIntervals.get(2)) && // each other
                     preliminaryIntervals.get(1).length() <= maxNmerToMerge) //and the N-mer is of length N or less
             {
                 // create the new ACGTmer interval
@@ -192,9 +242,7 @@ public class ScatterIntervalsByNs extends CommandLineProgram {
                 //and replace them with the newly created one
                 preliminaryIntervals.add(0, temp);
             } else { //if cannot merge top three intervals, transfer the top intervals to finalIntervals
-                final Interval remove = preliminaryIntervals.remove(0);
-                finalIntervals.add(remove);
-                intervalProgress.record(remove.getContig(),remove.getStart());
+                finalIntervals.add(preliminaryIntervals.remove(0));
             }
         }
         return finalIntervals;
@@ -0,0 +1,89 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026 The Broad Institute
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package picard.util;
+
+import picard.PicardException;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The thread pool plumbing shared by the tools and classes that spread their work over NUM_THREADS threads: the pools
+ * themselves, waiting for their results, and validating the NUM_THREADS option.
+ */
+public final class ThreadPoolUtil {
+    private ThreadPoolUtil() {
+    }
+
+    /**
+     * A fixed pool of numThreads threads made by newDaemonThreadFactory.
+     */
+    public static ExecutorService newDaemonThreadPool(final int numThreads, final String threadNamePrefix) {
+        return Executors.newFixedThreadPool(numThreads, newDaemonThreadFactory(threadNamePrefix));
+    }
+
+    /**
+     * Makes threads named threadNamePrefix followed by a number.  The threads are daemons, so that work left queued
+     * when a tool fails cannot keep the JVM from exiting.
+     */
+    public static ThreadFactory newDaemonThreadFactory(final String threadNamePrefix) {
+        final AtomicInteger threadNumber = new AtomicInteger();
+        return r -> {
+            final Thread thread = new Thread(r, threadNamePrefix + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Waits for the result of a task.  Unchecked exceptions and errors thrown by the task are rethrown as they are;
+     * checked ones, and being interrupted while waiting, become PicardExceptions.
+     *
+     * @param activity what the task was doing, for the messages of those PicardExceptions, e.g. "sorting VCF records"
+     */
+    public static <T> T get(final Future<T> future, final String activity) {
+        try {
+            return future.get();
+        } catch (final InterruptedException ie) {
+            throw new PicardException("Interrupted while " + activity + ".", ie);
+        } catch (final ExecutionException ee) {
+            if (ee.getCause() instanceof RuntimeException) throw (RuntimeException) ee.getCause();
+            if (ee.getCause() instanceof Error) throw (Error) ee.getCause();
+            throw new PicardException("Error " + activity + ".", ee.getCause());
+        }
+    }
+
+    /**
+     * Validates a NUM_THREADS option.
+     *
+     * @return the error for customCommandLineValidation to return if numThreads is less than 1, and null otherwise
+     */
+    public static String[] validateNumThreads(final int numThreads) {
+        return numThreads < 1 ? new String[]{"NUM_THREADS must be at least 1: " + numThreads} : null;
+    }
+}
@@ -1,6 +1,6 @@
 package picard.vcf;
 
-import htsjdk.samtools.util.BlockCompressedInputStream;import htsjdk.samtools.util.BlockCompressedOutputStream;import htsjdk.samtools.util.BlockCompressedStreamConstants;import htsjdk.samtools.util.CloseableIterator;import htsjdk.samtools.util.CloserUtil;import htsjdk.samtools.util.CollectionUtil;import htsjdk.samtools.util.RuntimeIOException;import picard.PicardException;
+import htsjdk.samtools.util.BlockCompressedInputStream;import htsjdk.samtools.util.BlockCompressedStreamConstants;import htsjdk.samtools.util.CloseableIterator;import htsjdk.samtools.util.CloserUtil;import htsjdk.samtools.util.CollectionUtil;import htsjdk.samtools.util.RuntimeIOException;import picard.PicardException;
 import picard.cmdline.CommandLineProgram;
 import picard.cmdline.CommandLineProgramProperties;
 import picard.cmdline.Option;
@@ -10,6 +10,9 @@ import htsjdk.samtools.util.Log;
 import htsjdk.samtools.util.PeekableIterator;
 import htsjdk.samtools.util.ProgressLogger;
 import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.tribble.index.IndexCreator;
+import htsjdk.tribble.index.tabix.TabixFormat;
+import htsjdk.tribble.index.tabix.TabixIndexCreator;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.variantcontext.VariantContextComparator;
 import htsjdk.variant.variantcontext.writer.Options;
@@ -18,6 +21,8 @@ import htsjdk.variant.variantcontext.writer.VariantContextWriterFactory;
 import htsjdk.variant.vcf.VCFFileReader;
 import htsjdk.variant.vcf.VCFHeader;
 import picard.cmdline.programgroups.VcfOrBcf;
+import picard.util.AsyncIterator;
+import picard.util.InputPrefetcher;
 
 import java.io.File;
 import java.io.FileInputStream;
@@ -48,6 +53,10 @@ public class GatherVcfs extends CommandLineProgram {
     @Option(shortName=StandardOptionDefinitions.OUTPUT_SHORT_NAME, doc="Output VCF file.")
 	public File OUTPUT;
 
+    @Option(doc="When the inputs cannot be gathered by copying gzip blocks, the number of upcoming inputs to decode ahead on " +
+            "background threads while the current one is written. 0 decodes each input on the writing thread.")
+    public int PREFETCH_INPUTS = 0;
+
     private static final Log log = Log.getInstance(GatherVcfs.class);
 
     public static void main(final String[] args) {
@@ -71,22 +80,29 @@ public class GatherVcfs extends CommandLineProgram {
             throw new PicardException("In order to index the resulting VCF input VCFs must contain ##contig lines.");
         }
 
-        log.info("Checking file headers and first records to ensure compatibility.");
-        assertSameSamplesAndValidOrdering(INPUT);
-
         if (areAllBlockCompressed(INPUT) && areAllBlockCompressed(CollectionUtil.makeList(OUTPUT))) {
+            log.info("Checking file headers and first records to ensure compatibility.");
+            assertSameSamplesAndValidOrdering(INPUT);
+
             log.info("Gathering by copying gzip blocks. Will not be able to validate position non-overlap of files.");
-            if (CREATE_INDEX) log.warn("Index creation not currently supported when gathering block compressed VCFs.");
-            gatherWithBlockCopying(INPUT, OUTPUT);
+            gatherWithBlockCopying(INPUT, OUTPUT, CREATE_INDEX ? new TabixIndexCreator(sequenceDictionary, TabixFormat.VCF) : null);
         }
         else {
-            log.info("Gathering by conventional means.");
-            gatherConventionally(sequenceDictionary, CREATE_INDEX, INPUT, OUTPUT);
+            log.info("Gathering by conventional means, checking file headers and ordering as each file is read.");
+            gatherConventionally(sequenceDictionary, CREATE_INDEX, INPUT, OUTPUT, PREFETCH_INPUTS);
         }
 
         return 0;
     }
 
+    @Override
+    protected String[] customCommandLineValidation() {
+        if (PREFETCH_INPUTS < 0) {
+            return new String[]{"PREFETCH_INPUTS must not be negative: " + PREFETCH_INPUTS};
+        }
+        return super.customCommandLineValidation();
+    }
+
     /** Checks (via filename checking) that all files appear to be block compressed files. */
     private boolean areAllBlockCompressed(final List<File> input) {
         for (final File f : input) {
@@ -99,27 +115,14 @@ public class GatherVcfs extends CommandLineProgram {
     /** Validates that all headers contain the same set of genotyped samples and that files are in order by position of first record. */
     private static void assertSameSamplesAndValidOrdering(final List<File> inputFiles) {
         final VCFHeader header = new VCFFileReader(inputFiles.get(0), false).getFileHeader();
-        final SAMSequenceDictionary dict = header.getSequenceDictionary();
         final VariantContextComparator comparator = new VariantContextComparator(header.getSequenceDictionary());
-        final List<String> samples = header.getGenotypeSamples();
 
         File lastFile = null;
         VariantContext lastContext = null;
 
         for (final File f : inputFiles) {
             final VCFFileReader in = new VCFFileReader(f, false);
-            dict.assertSameDictionary(in.getFileHeader().getSequenceDictionary());
-            final List<String> theseSamples = in.getFileHeader().getGenotypeSamples();
-
-            if (!samples.equals(theseSamples)) {
-                final SortedSet<String> s1 = new TreeSet<String>(samples);
-                final SortedSet<String> s2 = new TreeSet<String>(theseSamples);
-                s1.removeAll(theseSamples);
-                s2.removeAll(samples);
-
-                throw new IllegalArgumentException("VCFs do not have identical sample lists." +
-                        " Samples unique to first file: " + s1 + ". Samples unique to " + f.getAbsolutePath() + ": " + s2 + ".");
-            }
+            assertSameSamplesAndDictionary(header, in.getFileHeader(), f);
 
             final CloseableIterator<VariantContext> variantIterator = in.iterator();
             if (variantIterator.hasNext()) {
@@ -137,53 +140,87 @@ public class GatherVcfs extends CommandLineProgram {
         }
     }
 
-    /** Code for gathering multiple VCFs that works regardless of input format and output format, but can be slow. */
+    /** Validates that a file's header has the same genotyped samples and sequence dictionary as the first file's header. */
+    private static void assertSameSamplesAndDictionary(final VCFHeader firstHeader, final VCFHeader header, final File f) {
+        firstHeader.getSequenceDictionary().assertSameDictionary(header.getSequenceDictionary());
+        final List<String> samples = firstHeader.getGenotypeSamples();
+        final List<String> theseSamples = header.getGenotypeSamples();
+
+        if (!samples.equals(theseSamples)) {
+            final SortedSet<String> s1 = new TreeSet<String>(samples);
+            final SortedSet<String> s2 = new TreeSet<String>(theseSamples);
+            s1.removeAll(theseSamples);
+            s2.removeAll(samples);
+
+            throw new IllegalArgumentException("VCFs do not have identical sample lists." +
+                    " Samples unique to first file: " + s1 + ". Samples unique to " + f.getAbsolutePath() + ": " + s2 + ".");
+        }
+    }
+
+    /**
+     * Code for gathering multiple VCFs that works regardless of input format and output format, but can be slow.
+     * Each file's header is checked against the first file's header as it is opened, and up to prefetchInputs
+     * files beyond the one being written are decoded ahead on background threads.
+     */
     private static void gatherConventionally(final SAMSequenceDictionary sequenceDictionary,
                                       final boolean createIndex,
                                       final List<File> inputFiles,
-                                      final File outputFile) {
+                                      final File outputFile,
+                                      final int prefetchInputs) {
         final EnumSet<Options> options = EnumSet.copyOf(VariantContextWriterFactory.DEFAULT_OPTIONS);
         if (createIndex) options.add(Options.INDEX_ON_THE_FLY); else options.remove(Options.INDEX_ON_THE_FLY);
         final VariantContextWriter out = VariantContextWriterFactory.create(outputFile, sequenceDictionary, options);
 
-        final ProgressLogger progress = new ProgressLogger(log, 10000);
-        VariantContext lastContext = null;
-        File lastFile = null;
-        VCFHeader firstHeader = null;
-        VariantContextComparator comparator = null;
+        final VCFFileReader firstReader = new VCFFileReader(inputFiles.get(0), false);
+        final VCFHeader firstHeader = firstReader.getFileHeader();
+        CloserUtil.close(firstReader);
+        out.writeHeader(firstHeader);
+        final VariantContextComparator comparator = new VariantContextComparator(firstHeader.getContigLines());
 
-        for (final File f : inputFiles) {
-            log.debug("Gathering from file: ", f.getAbsolutePath());
+        final InputPrefetcher<VariantContext> prefetcher = new InputPrefetcher<>(inputFiles, f -> {
             final VCFFileReader variantReader = new VCFFileReader(f, false);
-            final PeekableIterator<VariantContext> variantIterator = new PeekableIterator<VariantContext>(variantReader.iterator());
-            final VCFHeader header = variantReader.getFileHeader();
-
-            if (firstHeader == null) {
-                firstHeader = header;
-                out.writeHeader(firstHeader);
-                comparator = new VariantContextComparator(firstHeader.getContigLines());
+            try {
+                assertSameSamplesAndDictionary(firstHeader, variantReader.getFileHeader(), f);
             }
+            catch (final RuntimeException e) {
+                CloserUtil.close(variantReader);
+                throw e;
+            }
+            return InputPrefetcher.closingWith(variantReader.iterator(), variantReader);
+        }, prefetchInputs, AsyncIterator.DEFAULT_QUEUE_SIZE, "GatherVcfsReader");
+
+        final ProgressLogger progress = new ProgressLogger(log, 10000);
+        VariantContext lastContext = null;
+        File lastFile = null;
 
-            if (lastContext != null && variantIterator.hasNext()) {
-                final VariantContext vc = variantIterator.peek();
-                if (comparator.compare(vc, lastContext) <= 0) {
-                    throw new IllegalStateException("First variant in file " + f.getAbsolutePath() + " is at " + vc.getSource() +
-                            " but last variant in earlier file " + lastFile.getAbsolutePath() + " is at " + lastContext.getSource());
+        try {
+            for (final File f : inputFiles) {
+                log.debug("Gathering from file: ", f.getAbsolutePath());
+                final PeekableIterator<VariantContext> variantIterator = new PeekableIterator<VariantContext>(prefetcher.next());
+
+                if (lastContext != null && variantIterator.hasNext()) {
+                    final VariantContext vc = variantIterator.peek();
+                    if (comparator.compare(vc, lastContext) <= 0) {
+                        throw new IllegalStateException("First variant in file " + f.getAbsolutePath() + " is at " + vc.getSource() +
+                                " but last variant in earlier file " + lastFile.getAbsolutePath() + " is at " + lastContext.getSource());
+                    }
                 }
-            }
 
-            while (variantIterator.hasNext()) {
-                lastContext = variantIterator.next();
-                out.add(lastContext);
-                progress.record(lastContext.getContig(), lastContext.getStart());
-            }
+                while (variantIterator.hasNext()) {
+                    lastContext = variantIterator.next();
+                    out.add(lastContext);
+                    progress.record(lastContext.getContig(), lastContext.getStart());
+                }
 
-            lastFile = f;
+                lastFile = f;
 
-            CloserUtil.close(variantIterator);
-            CloserUtil.close(variantReader);
+                CloserUtil.close(variantIterator);
+            }
+        }
+        finally {
+            // Stops the background threads and closes any inputs they opened, even if the gather failed
+            prefetcher.close();
         }
-
         out.close();
     }
 
@@ -192,74 +229,45 @@ public class GatherVcfs extends CommandLineProgram {
      * most of the gzip blocks. Will decompress and parse blocks up to the one containing the end of the header in each file
      * (often the first block) and re-compress any data remaining in that block into a new block in the output file. Subsequent
      * blocks (excluding a terminator block if present) are copied directly from input to output.
+     *
+     * If an indexer is given, each file's records are indexed as it is copied, from their addresses in the input moved to
+     * where they went in the output, parsing only the columns that give their loci.
      */
-    private static void gatherWithBlockCopying(final List<File> vcfs, final File output) {
+    private static void gatherWithBlockCopying(final List<File> vcfs, final File output, final IndexCreator indexer) {
         try {
             final FileOutputStream out = new FileOutputStream(output);
             boolean isFirstFile = true;
 
             for (final File f : vcfs) {
                 log.info("Gathering " + f.getAbsolutePath());
-                final FileInputStream in = new FileInputStream(f);
-
-                // a) It's good to check that the end of the file is valid and b) we need to know if there's a terminator block and not copy it
-                final BlockCompressedInputStream.FileTermination term = BlockCompressedInputStream.checkTermination(f);
-                if (term == BlockCompressedInputStream.FileTermination.DEFECTIVE) throw new PicardException(f.getAbsolutePath() + " does not have a valid GZIP block at the end of the file.");
-
-                if (!isFirstFile) {
-                    final BlockCompressedInputStream blockIn = new BlockCompressedInputStream(in, false);
-                    boolean lastByteNewline = true;
-
-                    while (blockIn.available() > 0) {
-                        // Read a block - blockIn.available() is guaranteed to return the bytes remaining in the block that has been
-                        // read, and since we haven't consumed any yet, that is the block size.
-                        final int blockLength = blockIn.available();
-                        final byte[] blockContents = new byte[blockLength];
-                        final int read = blockIn.read(blockContents);
-                        if (blockLength == 0 || read != blockLength) throw new IllegalStateException("Could not read available bytes from BlockCompressedInputStream.");
-
-                        // Scan forward within the block to see if we can find the end of the header within this block
-                        int firstNonHeaderByteIndex = -1;
-                        for (int i=0; i<read; ++i) {
-                            final byte b = blockContents[i];
-                            final boolean thisByteNewline = (b == '\n' || b == '\r');
-
-                            if (lastByteNewline && !thisByteNewline && b != '#') {
-                                // Aha!  Found first byte of non-header data in file!
-                                firstNonHeaderByteIndex = i;
-                                break;
-                            }
-
-                            lastByteNewline = thisByteNewline;
-                        }
-
-                        // If we found the end of the header then write the remainder of this block out as a
-                        // new gzip block and then break out of the while loop
-                        if (firstNonHeaderByteIndex >= 0) {
-                            final BlockCompressedOutputStream blockOut = new BlockCompressedOutputStream(out, null);
-                            blockOut.write(blockContents, firstNonHeaderByteIndex, blockContents.length - firstNonHeaderByteIndex);
-                            blockOut.flush();
-                            // Don't close blockOut because closing underlying stream would break everything
-                            break;
-                        }
-                    }
+                final RawVcfWriter.CopiedRecords copied;
+
+                if (isFirstFile) {
+                    // a) It's good to check that the end of the file is valid and b) we need to know if there's a terminator block and not copy it
+                    final BlockCompressedInputStream.FileTermination term = BlockCompressedInputStream.checkTermination(f);
+                    if (term == BlockCompressedInputStream.FileTermination.DEFECTIVE) throw new PicardException(f.getAbsolutePath() + " does not have a valid GZIP block at the end of the file.");
+
+                    // Copy the whole of the first file, header and all
+                    final FileInputStream in = new FileInputStream(f);
+                    final long skipLast = (term == BlockCompressedInputStream.FileTermination.HAS_TERMINATOR_BLOCK) ?
+                            BlockCompressedStreamConstants.EMPTY_GZIP_BLOCK.length : 0;
+                    IOUtil.transferByStream(in, out, f.length() - skipLast);
+                    in.close();
+                    copied = RawVcfWriter.CopiedRecords.wholeFile(f, 0);
+                    isFirstFile = false;
+                }
+                else {
+                    copied = RawVcfWriter.copyRecordBlocks(f, out);
                 }
 
-                // Copy remainder of input stream into output stream
-                final long currentPos = in.getChannel().position();
-                final long length     = f.length();
-                final long skipLast   = (term == BlockCompressedInputStream.FileTermination.HAS_TERMINATOR_BLOCK) ?
-                        BlockCompressedStreamConstants.EMPTY_GZIP_BLOCK.length : 0;
-                final long bytesToWrite = length - skipLast - currentPos;
-
-                IOUtil.transferByStream(in, out, bytesToWrite);
-                in.close();
-                isFirstFile = false;
+                if (indexer != null && copied != null) RawVcfWriter.indexCopiedRecords(copied, indexer);
             }
 
             // And lastly add the Terminator block and close up
+            final long recordsEnd = out.getChannel().position();
             out.write(BlockCompressedStreamConstants.EMPTY_GZIP_BLOCK);
             out.close();
+            if (indexer != null) RawVcfWriter.writeIndex(indexer, recordsEnd, output);
         }
         catch (final IOException ioe) {
             throw new RuntimeIOException(ioe);
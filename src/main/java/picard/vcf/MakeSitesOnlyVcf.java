@@ -48,6 +48,9 @@ public class MakeSitesOnlyVcf extends CommandLineProgram {
     @Option(shortName="S", doc="Optionally one or more samples to retain when building the 'sites-only' VCF.", optional=true)
     public Set<String> SAMPLE = new TreeSet<String>();
 
+    /** The index of the FORMAT column in a record, after the eight site-level columns and before those of the samples. */
+    private static final int FORMAT_COLUMN = 8;
+
     // Stock main method
     public static void main(final String[] args) {
         new MakeSitesOnlyVcf().instanceMainWithExit(args);
@@ -62,6 +65,23 @@ public class MakeSitesOnlyVcf extends CommandLineProgram {
         IOUtil.assertFileIsReadable(INPUT);
         IOUtil.assertFileIsWritable(OUTPUT);
 
+        // Records can be cut down as text, leaving the genotypes of the samples not kept unparsed, unless the
+        // input is a BCF or an old version of VCF, or an output to hold them cannot be written as text, or some of
+        // the samples to keep are missing from the input and so have no columns to copy.
+        final RawVcfReader lineReader = RawVcfReader.canRead(INPUT) && RawVcfWriter.canWrite(OUTPUT) ? new RawVcfReader(INPUT) : null;
+        if (lineReader != null && lineReader.hasCurrentVersionRecords() &&
+                lineReader.getFileHeader().getGenotypeSamples().containsAll(SAMPLE)) {
+            makeSitesOnlyFromLines(lineReader);
+        }
+        else {
+            CloserUtil.close(lineReader);
+            makeSitesOnlyFromVariantContexts();
+        }
+
+        return 0;
+    }
+
+    private void makeSitesOnlyFromVariantContexts() {
 	    final VCFFileReader reader = new VCFFileReader(INPUT, false);
 	    final VCFHeader inputVcfHeader = new VCFHeader(reader.getFileHeader().getMetaDataInInputOrder());
 	    final SAMSequenceDictionary sequenceDictionary = inputVcfHeader.getSequenceDictionary();
@@ -97,8 +117,71 @@ public class MakeSitesOnlyVcf extends CommandLineProgram {
 	    CloserUtil.close(iterator);
 	    CloserUtil.close(reader);
 	    writer.close();
+    }
 
-        return 0;
+    private void makeSitesOnlyFromLines(final RawVcfReader reader) {
+        final VCFHeader inputVcfHeader = reader.getFileHeader();
+        final SAMSequenceDictionary sequenceDictionary = inputVcfHeader.getSequenceDictionary();
+
+        if (CREATE_INDEX && sequenceDictionary == null) {
+            reader.close();
+            throw new PicardException("A sequence dictionary must be available (either through the input file or by setting it explicitly) when creating indexed output.");
+        }
+
+        final ProgressLogger progress = new ProgressLogger(Log.getInstance(MakeSitesOnlyVcf.class), 10000);
+
+        final VCFHeader header = new VCFHeader(inputVcfHeader.getMetaDataInInputOrder(), SAMPLE);
+        final RawVcfWriter writer = new RawVcfWriter(OUTPUT, header, sequenceDictionary, CREATE_INDEX);
+
+        // The columns of the samples to keep, in the order of the output header
+        final int[] sampleColumns = new int[header.getNGenotypeSamples()];
+        int lastColumn = sampleColumns.length == 0 ? FORMAT_COLUMN - 1 : FORMAT_COLUMN;
+        for (int i = 0; i < sampleColumns.length; i++) {
+            sampleColumns[i] = FORMAT_COLUMN + 1 + inputVcfHeader.getSampleNameToOffset().get(header.getGenotypeSamples().get(i));
+            lastColumn = Math.max(lastColumn, sampleColumns[i]);
+        }
+        final int[] columnEnds = new int[lastColumn + 1];
+
+        // Records are decoded only to be indexed; otherwise progress is logged without a position
+        while (reader.hasNext()) {
+            final String line = reader.next();
+            if (CREATE_INDEX) {
+                final VariantContext site = reader.decode(line);
+                writer.add(cutColumns(line, sampleColumns, columnEnds), site);
+                progress.record(site.getContig(), site.getStart());
+            } else {
+                writer.add(cutColumns(line, sampleColumns, columnEnds), null);
+                progress.record(null, 0);
+            }
+        }
+
+        reader.close();
+        writer.close();
+    }
+
+    /**
+     * Cuts a record down to its site-level columns and, if there are samples to keep, the FORMAT column and those of
+     * the samples.  Fills columnEnds with the index in the line of the end of each column up to the last to keep.
+     */
+    private static String cutColumns(final String line, final int[] sampleColumns, final int[] columnEnds) {
+        int start = 0;
+        for (int column = 0; column < columnEnds.length; column++) {
+            final int tab = line.indexOf('\t', start);
+            if (tab < 0 && column < columnEnds.length - 1) {
+                throw new PicardException("VCF record has " + (column + 1) + " columns where at least " + columnEnds.length +
+                        " were expected: " + (line.length() > 100 ? line.substring(0, 100) + "..." : line));
+            }
+            columnEnds[column] = tab < 0 ? line.length() : tab;
+            start = tab + 1;
+        }
+
+        if (sampleColumns.length == 0) return line.substring(0, columnEnds[FORMAT_COLUMN - 1]);
+
+        final StringBuilder builder = new StringBuilder().append(line, 0, columnEnds[FORMAT_COLUMN]);
+        for (final int column : sampleColumns) {
+            builder.append('\t').append(line, columnEnds[column - 1] + 1, columnEnds[column]);
+        }
+        return builder.toString();
     }
 
     /** Makes a new VariantContext with only the desired samples. */
@@ -30,6 +30,7 @@ import htsjdk.samtools.util.CloserUtil;
 import htsjdk.samtools.util.IOUtil;
 import htsjdk.samtools.util.Log;
 import htsjdk.samtools.util.MergingIterator;
+import htsjdk.samtools.util.PeekableIterator;
 import htsjdk.samtools.util.ProgressLogger;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.variantcontext.VariantContextComparator;
@@ -45,12 +46,19 @@ import picard.cmdline.CommandLineProgramProperties;
 import picard.cmdline.Option;
 import picard.cmdline.StandardOptionDefinitions;
 import picard.cmdline.programgroups.VcfOrBcf;
+import picard.util.ReadAheadIterator;
+import picard.util.ThreadPoolUtil;
 
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  * Combines multiple VCF files into a single file. Input files must be sorted by their contigs
@@ -59,6 +67,9 @@ import java.util.List;
  * same; this class uses the GATK to merge headers, which may throw exceptions if the headers
  * cannot be merged. See VCFUtils.smartMergeHeaders for details.
  * <p/>
+ * Inputs that do not overlap, such as the shards of a scattered run, are concatenated rather than merged, and
+ * records are copied as text when both the inputs and the output are VCFs.
+ * <p/>
  * An index file is created for the output file by default. Using an output file name with a
  * ".gz" extension will create gzip-compressed output.
  */
@@ -80,6 +91,14 @@ public class MergeVcfs extends CommandLineProgram {
     @Option(shortName = "D", doc = "The index sequence dictionary to use instead of the sequence dictionary in the input file", optional = true)
     public File SEQUENCE_DICTIONARY;
 
+    @Option(doc = "Number of threads on which to open the inputs and read their headers, and then to decode records " +
+            "ahead of the merge. 1 does everything on the writing thread.", optional = true)
+    public int NUM_THREADS = 1;
+
+    /** How many records of each input to decode ahead, in how many batches, when NUM_THREADS is greater than 1. */
+    private static final int READ_AHEAD_BATCH_SIZE = 100;
+    private static final int READ_AHEAD_BATCHES = 4;
+
     private final Log log = Log.getInstance(MergeVcfs.class);
 
     public static void main(final String[] argv) {
@@ -90,11 +109,48 @@ public class MergeVcfs extends CommandLineProgram {
         this.CREATE_INDEX = true;
     }
 
+    @Override
+    protected String[] customCommandLineValidation() {
+        final String[] errors = ThreadPoolUtil.validateNumThreads(NUM_THREADS);
+        return errors != null ? errors : super.customCommandLineValidation();
+    }
+
+    /**
+     * A record to be merged: its context, for ordering and indexing, and, if the records are being copied as text,
+     * the line it was read from.
+     */
+    private static class MergedRecord {
+        final VariantContext context;
+        final String line;
+
+        MergedRecord(final VariantContext context, final String line) {
+            this.context = context;
+            this.line = line;
+        }
+    }
+
+    /**
+     * An opened input: its header, whether its records may be copied as text, and its records, which it closes when
+     * they are closed.
+     */
+    private static class Input {
+        final File file;
+        final VCFHeader header;
+        final boolean copyableAsText;
+        final CloseableIterator<MergedRecord> records;
+
+        Input(final File file, final VCFHeader header, final boolean copyableAsText, final CloseableIterator<MergedRecord> records) {
+            this.file = file;
+            this.header = header;
+            this.copyableAsText = copyableAsText;
+            this.records = records;
+        }
+    }
+
     @Override
     protected int doWork() {
         final ProgressLogger progress = new ProgressLogger(log, 10000);
         final List<String> sampleList = new ArrayList<String>();
-        final Collection<CloseableIterator<VariantContext>> iteratorCollection = new ArrayList<CloseableIterator<VariantContext>>(INPUT.size());
         final Collection<VCFHeader> headers = new HashSet<VCFHeader>(INPUT.size());
 
         VariantContextComparator variantContextComparator = null;
@@ -106,55 +162,220 @@ public class MergeVcfs extends CommandLineProgram {
 
         for (final File file : INPUT) {
             IOUtil.assertFileIsReadable(file);
-            final VCFFileReader fileReader = new VCFFileReader(file, false);
-            final VCFHeader fileHeader = fileReader.getFileHeader();
+        }
 
-            if (variantContextComparator == null) {
-                variantContextComparator = fileHeader.getVCFRecordComparator();
-            } else {
-                if (!variantContextComparator.isCompatible(fileHeader.getContigLines())) {
-                    throw new IllegalArgumentException(
-                            "The contig entries in input file " + file.getAbsolutePath() + " are not compatible with the others.");
+        final ExecutorService executor = NUM_THREADS == 1 ? null : ThreadPoolUtil.newDaemonThreadPool(NUM_THREADS, "MergeVcfsReader");
+        final List<Input> inputs = new ArrayList<Input>(INPUT.size());
+        try {
+            // Records can be copied as text, without their genotypes being decoded, unless some input is a BCF or an old
+            // version of VCF, or the output is a BCF
+            boolean asText = RawVcfWriter.canWrite(OUTPUT);
+            for (final File file : INPUT) asText &= RawVcfReader.canRead(file);
+            inputs.addAll(openInputs(executor, asText));
+            if (asText && !allCopyableAsText(inputs)) {
+                for (final Input input : inputs) CloserUtil.close(input.records);
+                inputs.clear();
+                asText = false;
+                inputs.addAll(openInputs(executor, false));
+            }
+
+            for (final Input input : inputs) {
+                final File file = input.file;
+                final VCFHeader fileHeader = input.header;
+
+                if (variantContextComparator == null) {
+                    variantContextComparator = fileHeader.getVCFRecordComparator();
+                } else {
+                    if (!variantContextComparator.isCompatible(fileHeader.getContigLines())) {
+                        throw new IllegalArgumentException(
+                                "The contig entries in input file " + file.getAbsolutePath() + " are not compatible with the others.");
+                    }
                 }
+
+                if (sequenceDictionary == null) sequenceDictionary = fileHeader.getSequenceDictionary();
+
+                if (sampleList.isEmpty()) {
+                    sampleList.addAll(fileHeader.getSampleNamesInOrder());
+                } else {
+                    if (!sampleList.equals(fileHeader.getSampleNamesInOrder())) {
+                        throw new IllegalArgumentException("Input file " + file.getAbsolutePath() + " has sample entries that don't match the other files.");
+                    }
+                }
+
+                headers.add(fileHeader);
             }
 
-            if (sequenceDictionary == null) sequenceDictionary = fileHeader.getSequenceDictionary();
+            if (CREATE_INDEX && sequenceDictionary == null) {
+                throw new PicardException("A sequence dictionary must be available (either through the input file or by setting it explicitly) when creating indexed output.");
+            }
 
-            if (sampleList.isEmpty()) {
-                sampleList.addAll(fileHeader.getSampleNamesInOrder());
+            final VCFHeader mergedHeader = new VCFHeader(VCFUtils.smartMergeHeaders(headers, false), sampleList);
+            final RawVcfWriter lineWriter;
+            final VariantContextWriter writer;
+            if (asText) {
+                lineWriter = new RawVcfWriter(OUTPUT, mergedHeader, sequenceDictionary, CREATE_INDEX);
+                writer = null;
             } else {
-                if (!sampleList.equals(fileHeader.getSampleNamesInOrder())) {
-                    throw new IllegalArgumentException("Input file " + file.getAbsolutePath() + " has sample entries that don't match the other files.");
+                final VariantContextWriterBuilder builder = new VariantContextWriterBuilder()
+                        .setOutputFile(OUTPUT)
+                        .setReferenceDictionary(sequenceDictionary);
+                if (CREATE_INDEX) {
+                    builder.setOption(Options.INDEX_ON_THE_FLY);
+                }
+                lineWriter = null;
+                writer = builder.build();
+                writer.writeHeader(mergedHeader);
+            }
+
+            final Iterator<MergedRecord> mergedRecords = new ConcatenatingOrMergingIterator(inputs, variantContextComparator);
+            while (mergedRecords.hasNext()) {
+                final MergedRecord record = mergedRecords.next();
+                if (lineWriter != null) lineWriter.add(record.line, record.context);
+                else writer.add(record.context);
+                progress.record(record.context.getContig(), record.context.getStart());
+            }
+
+            if (lineWriter != null) lineWriter.close();
+            else writer.close();
+        } finally {
+            for (final Input input : inputs) CloserUtil.close(input.records);
+            if (executor != null) executor.shutdownNow();
+        }
+        return 0;
+    }
+
+    /**
+     * Opens each input and reads its header, in parallel on the executor if there is one, and if so also decodes
+     * records ahead on it.  Returns the inputs in the order of INPUT.
+     */
+    private List<Input> openInputs(final ExecutorService executor, final boolean asText) {
+        final List<Input> inputs = new ArrayList<Input>(INPUT.size());
+        if (executor == null) {
+            for (final File file : INPUT) inputs.add(openInput(file, asText));
+            return inputs;
+        }
+
+        final List<Future<Input>> futures = new ArrayList<Future<Input>>(INPUT.size());
+        for (final File file : INPUT) futures.add(executor.submit(() -> openInput(file, asText)));
+        try {
+            for (final Future<Input> future : futures) {
+                final Input input = ThreadPoolUtil.get(future, "opening inputs");
+                inputs.add(new Input(input.file, input.header, input.copyableAsText,
+                        new ReadAheadIterator<MergedRecord>(input.records, executor, READ_AHEAD_BATCH_SIZE, READ_AHEAD_BATCHES)));
+            }
+        } catch (final RuntimeException | Error e) {
+            // Close the inputs handed out so far, with their read-ahead, and those opened but not yet handed out
+            for (final Input input : inputs) CloserUtil.close(input.records);
+            for (final Future<Input> future : futures.subList(inputs.size(), futures.size())) {
+                try {
+                    CloserUtil.close(future.get().records);
+                } catch (final Exception ignored) {
+                    // Nothing more can be done with an input that could not be opened
+                }
+            }
+            throw e;
+        }
+        return inputs;
+    }
+
+    private static Input openInput(final File file, final boolean asText) {
+        if (asText) {
+            final RawVcfReader reader = new RawVcfReader(file);
+            final CloseableIterator<MergedRecord> records = new CloseableIterator<MergedRecord>() {
+                @Override public boolean hasNext() { return reader.hasNext(); }
+                @Override public MergedRecord next() {
+                    final String line = reader.next();
+                    return new MergedRecord(reader.decode(line), line);
                 }
+                @Override public void remove() { throw new UnsupportedOperationException(); }
+                @Override public void close() { reader.close(); }
+            };
+            return new Input(file, reader.getFileHeader(), reader.hasCurrentVersionRecords(), records);
+        }
+
+        final VCFFileReader reader = new VCFFileReader(file, false);
+        final CloseableIterator<VariantContext> iterator = reader.iterator();
+        final CloseableIterator<MergedRecord> records = new CloseableIterator<MergedRecord>() {
+            @Override public boolean hasNext() { return iterator.hasNext(); }
+            @Override public MergedRecord next() { return new MergedRecord(iterator.next(), null); }
+            @Override public void remove() { throw new UnsupportedOperationException(); }
+            @Override public void close() {
+                iterator.close();
+                reader.close();
             }
+        };
+        return new Input(file, reader.getFileHeader(), false, records);
+    }
 
-            headers.add(fileHeader);
-            iteratorCollection.add(fileReader.iterator());
+    private static boolean allCopyableAsText(final List<Input> inputs) {
+        for (final Input input : inputs) {
+            if (!input.copyableAsText) return false;
         }
+        return true;
+    }
+
+    /**
+     * Returns the records of the inputs in order.  Inputs are concatenated, in the order of their first records, for
+     * as long as each record comes no later than the first of the next input, which is always so for inputs scattered
+     * over disjoint regions, and merged through a MergingIterator from the first record for which it is not.  Every
+     * record returned before then is no later than any record remaining, so the merge carries on the same order.
+     * The inputs must be closed by the caller.
+     */
+    private class ConcatenatingOrMergingIterator implements Iterator<MergedRecord> {
+        private final VariantContextComparator comparator;
+        private final List<PeekableIterator<MergedRecord>> sources = new ArrayList<PeekableIterator<MergedRecord>>();
+        private final List<File> files = new ArrayList<File>();
+        private int current = 0;
+        private MergingIterator<MergedRecord> merging = null;
+        private VariantContext last = null;
 
-        if (CREATE_INDEX && sequenceDictionary == null) {
-            throw new PicardException("A sequence dictionary must be available (either through the input file or by setting it explicitly) when creating indexed output.");
+        ConcatenatingOrMergingIterator(final List<Input> inputs, final VariantContextComparator comparator) {
+            this.comparator = comparator;
+            final List<Integer> order = new ArrayList<Integer>();
+            final List<PeekableIterator<MergedRecord>> nonEmpty = new ArrayList<PeekableIterator<MergedRecord>>();
+            for (final Input input : inputs) {
+                final PeekableIterator<MergedRecord> records = new PeekableIterator<MergedRecord>(input.records);
+                if (!records.hasNext()) continue;
+                order.add(nonEmpty.size());
+                nonEmpty.add(records);
+            }
+            Collections.sort(order, (a, b) -> comparator.compare(nonEmpty.get(a).peek().context, nonEmpty.get(b).peek().context));
+            for (final int i : order) {
+                sources.add(nonEmpty.get(i));
+                files.add(inputs.get(i).file);
+            }
         }
 
-        final VariantContextWriterBuilder builder = new VariantContextWriterBuilder()
-                .setOutputFile(OUTPUT)
-                .setReferenceDictionary(sequenceDictionary);
-        if (CREATE_INDEX) {
-            builder.setOption(Options.INDEX_ON_THE_FLY);
+        @Override
+        public boolean hasNext() {
+            if (merging != null) return merging.hasNext();
+            while (current < sources.size() && !sources.get(current).hasNext()) ++current;
+            return current < sources.size();
         }
-        final VariantContextWriter writer = builder.build();
 
-        writer.writeHeader(new VCFHeader(VCFUtils.smartMergeHeaders(headers, false), sampleList));
+        @Override
+        public MergedRecord next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            if (merging != null) return merging.next();
 
-        final MergingIterator<VariantContext> mergingIterator = new MergingIterator<VariantContext>(variantContextComparator, iteratorCollection);
-        while (mergingIterator.hasNext()) {
-            final VariantContext context = mergingIterator.next();
-            writer.add(context);
-            progress.record(context.getContig(), context.getStart());
+            final VariantContext context = sources.get(current).peek().context;
+            if (current + 1 < sources.size() && comparator.compare(context, sources.get(current + 1).peek().context) > 0) {
+                log.info("Inputs overlap at " + context.getContig() + ":" + context.getStart() + ", so merging from there on.");
+                merging = new MergingIterator<MergedRecord>((a, b) -> comparator.compare(a.context, b.context),
+                        new ArrayList<CloseableIterator<MergedRecord>>(sources.subList(current, sources.size())));
+                return merging.next();
+            }
+            if (last != null && comparator.compare(context, last) < 0) {
+                throw new IllegalStateException("Input file " + files.get(current).getAbsolutePath() + " is not sorted: " +
+                        context.getContig() + ":" + context.getStart() + " follows " + last.getContig() + ":" + last.getStart());
+            }
+            last = context;
+            return sources.get(current).next();
         }
 
-        CloserUtil.close(mergingIterator);
-        writer.close();
-        return 0;
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
     }
 }
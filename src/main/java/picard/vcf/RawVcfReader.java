@@ -0,0 +1,98 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026 The Broad Institute
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package picard.vcf;
+
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.samtools.util.IOUtil;
+import htsjdk.tribble.readers.AsciiLineReader;
+import htsjdk.tribble.readers.AsciiLineReaderIterator;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.writer.VariantContextWriterFactory;
+import htsjdk.variant.vcf.VCFCodec;
+import htsjdk.variant.vcf.VCFHeader;
+
+import java.io.File;
+
+/**
+ * Reads the records of a VCF as lines of text, for tools that pass records through without changing them and so
+ * need not parse them into VariantContexts and write them back out.  Where a tool does need to know where a record
+ * is or what kind of variant it is, decode() parses the record with its genotypes left undecoded.
+ *
+ * Lines are read a byte to a character, so StringUtil.stringToBytes turns them back into the bytes of the file.
+ */
+public class RawVcfReader implements CloseableIterator<String> {
+    private final VCFCodec codec = new VCFCodec();
+    private final AsciiLineReaderIterator lines;
+    private final VCFHeader header;
+    private final boolean currentVersion;
+
+    public RawVcfReader(final File vcf) {
+        lines = new AsciiLineReaderIterator(new AsciiLineReader(IOUtil.openFileForReading(vcf)));
+        final String formatLine = lines.hasNext() ? lines.peek() : "";
+        currentVersion = formatLine.equals("##fileformat=VCFv4.1") || formatLine.equals("##fileformat=VCFv4.2");
+        header = (VCFHeader) codec.readActualHeader(lines);
+    }
+
+    /** True if the file can be read as text, which is to say it is a VCF, compressed or not, rather than a BCF. */
+    public static boolean canRead(final File vcf) {
+        return !VariantContextWriterFactory.isBCFOutput(vcf);
+    }
+
+    public VCFHeader getFileHeader() {
+        return header;
+    }
+
+    /**
+     * True if the file is VCF 4.1 or 4.2, whose records may be copied unchanged beneath a header written by the
+     * current VCF writer.  Records of older versions of the format must go through VariantContexts.
+     */
+    public boolean hasCurrentVersionRecords() {
+        return currentVersion;
+    }
+
+    /** Parses a line read from this reader, leaving the genotypes to be decoded only if they are asked for. */
+    public VariantContext decode(final String line) {
+        return codec.decode(line);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return lines.hasNext();
+    }
+
+    @Override
+    public String next() {
+        return lines.next();
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close() {
+        codec.close(lines);
+    }
+}
@@ -0,0 +1,407 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026 The Broad Institute
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package picard.vcf;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.util.BlockCompressedFilePointerUtil;
+import htsjdk.samtools.util.BlockCompressedInputStream;
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import htsjdk.samtools.util.BlockCompressedStreamConstants;
+import htsjdk.samtools.util.IOUtil;
+import htsjdk.samtools.util.PositionalOutputStream;
+import htsjdk.samtools.util.RuntimeIOException;
+import htsjdk.samtools.util.StringUtil;
+import htsjdk.tribble.Feature;
+import htsjdk.tribble.index.DynamicIndexCreator;
+import htsjdk.tribble.index.Index;
+import htsjdk.tribble.index.IndexCreator;
+import htsjdk.tribble.index.IndexFactory;
+import htsjdk.tribble.index.tabix.TabixFormat;
+import htsjdk.tribble.index.tabix.TabixIndexCreator;
+import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+import htsjdk.variant.variantcontext.writer.VariantContextWriterBuilder;
+import htsjdk.variant.variantcontext.writer.VariantContextWriterFactory;
+import htsjdk.variant.vcf.VCFHeader;
+import picard.PicardException;
+import picard.util.ParallelBlockCompressedOutputStream;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Writes VCF records given as lines of text, as read by RawVcfReader, beneath a header written just as a
+ * VariantContextWriter would write it, indexing the output as it goes if asked to.  Also holds the means of copying
+ * the records of a block compressed VCF gzip block by gzip block, for tools that change only the header.
+ *
+ * Block compressed output may be compressed on several threads, in which case the records to be indexed are queued
+ * until the compressed addresses of the blocks they were written to are known, as in ParallelBAMFileWriter.
+ */
+public class RawVcfWriter implements Closeable {
+    private static final byte[] NEWLINE = {'\n'};
+
+    private final File output;
+    private final OutputStream out;
+    private final BlockCompressedOutputStream blockOut;
+    private final ParallelBlockCompressedOutputStream parallelOut;
+    private final PositionalOutputStream plainOut;
+    private final IndexCreator indexer;
+    private final Deque<PendingFeature> pendingFeatures = new ArrayDeque<PendingFeature>();
+
+    /**
+     * @param dictionary used to index block compressed output; may be null if createIndex is false
+     */
+    public RawVcfWriter(final File output, final VCFHeader header, final SAMSequenceDictionary dictionary, final boolean createIndex) {
+        this(output, header, dictionary, createIndex, BlockCompressedOutputStream.getDefaultCompressionLevel(), 1);
+    }
+
+    /**
+     * @param dictionary used to index block compressed output; may be null if createIndex is false
+     * @param compressionLevel the level at which to compress block compressed output
+     * @param compressionThreads the number of threads on which to compress block compressed output
+     */
+    public RawVcfWriter(final File output, final VCFHeader header, final SAMSequenceDictionary dictionary, final boolean createIndex,
+                        final int compressionLevel, final int compressionThreads) {
+        this.output = output;
+        if (isBlockCompressed(output) && compressionThreads > 1) {
+            blockOut = null;
+            parallelOut = new ParallelBlockCompressedOutputStream(
+                    new BufferedOutputStream(IOUtil.openFileForWriting(output), IOUtil.STANDARD_BUFFER_SIZE), compressionLevel, compressionThreads);
+            plainOut = null;
+            out = parallelOut;
+            indexer = createIndex ? new TabixIndexCreator(dictionary, TabixFormat.VCF) : null;
+        }
+        else if (isBlockCompressed(output)) {
+            blockOut = new BlockCompressedOutputStream(output, compressionLevel);
+            parallelOut = null;
+            plainOut = null;
+            out = blockOut;
+            indexer = createIndex ? new TabixIndexCreator(dictionary, TabixFormat.VCF) : null;
+        }
+        else {
+            blockOut = null;
+            parallelOut = null;
+            plainOut = new PositionalOutputStream(IOUtil.maybeBufferOutputStream(IOUtil.openFileForWriting(output)));
+            out = plainOut;
+            indexer = createIndex ? new DynamicIndexCreator(output, IndexFactory.IndexBalanceApproach.FOR_SEEK_TIME) : null;
+        }
+        write(headerBytes(header));
+    }
+
+    /** True if the file is to be written as text, which is to say it is a VCF, compressed or not, rather than a BCF. */
+    public static boolean canWrite(final File vcf) {
+        return !VariantContextWriterFactory.isBCFOutput(vcf);
+    }
+
+    /** Checks (via filename checking) that the file appears to be a block compressed VCF. */
+    static boolean isBlockCompressed(final File vcf) {
+        return !VariantContextWriterFactory.isBCFOutput(vcf) && VariantContextWriterFactory.isCompressedVcf(vcf);
+    }
+
+    /**
+     * Writes a record.
+     *
+     * @param line the record, without its line terminator
+     * @param locus where the record is, for the index; may be null if the output is not being indexed
+     */
+    public void add(final String line, final Feature locus) {
+        if (parallelOut != null) {
+            if (indexer != null) pendingFeatures.addLast(new PendingFeature(locus, parallelOut.getBlockOrdinal(), parallelOut.getBlockOffset()));
+            write(StringUtil.stringToBytes(line));
+            write(NEWLINE);
+            indexResolvedFeatures();
+            return;
+        }
+        if (indexer != null) indexer.addFeature(locus, position());
+        write(StringUtil.stringToBytes(line));
+        write(NEWLINE);
+    }
+
+    private long position() {
+        if (parallelOut != null) return parallelOut.getVirtualFilePointer(parallelOut.getBlockOrdinal(), parallelOut.getBlockOffset());
+        return blockOut != null ? blockOut.getFilePointer() : plainOut.getPosition();
+    }
+
+    /** Hands to the indexer, in order, every queued record whose block has been written. */
+    private void indexResolvedFeatures() {
+        while (!pendingFeatures.isEmpty() && parallelOut.isBlockAddressKnown(pendingFeatures.peekFirst().block)) {
+            final PendingFeature pending = pendingFeatures.removeFirst();
+            indexer.addFeature(pending.locus, parallelOut.getVirtualFilePointer(pending.block, pending.offset));
+        }
+        parallelOut.discardBlockAddressesBefore(pendingFeatures.isEmpty() ? parallelOut.getBlockOrdinal() : pendingFeatures.peekFirst().block);
+    }
+
+    private void write(final byte[] bytes) {
+        try {
+            out.write(bytes);
+        }
+        catch (final IOException ioe) {
+            throw new RuntimeIOException("Error writing " + output.getAbsolutePath(), ioe);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (parallelOut != null) {
+                // Write out every block, so that the addresses of all the records and of the end are known
+                parallelOut.flush();
+                if (indexer != null) indexResolvedFeatures();
+            }
+            final Index index = indexer == null ? null : indexer.finalizeIndex(position());
+            out.close();
+            if (index != null) index.writeBasedOnFeatureFile(output);
+        }
+        catch (final IOException ioe) {
+            throw new RuntimeIOException("Error closing " + output.getAbsolutePath(), ioe);
+        }
+    }
+
+    /** A record to be indexed once the address of the block it starts in is known. */
+    private static class PendingFeature {
+        final Feature locus;
+        final long block;
+        final int offset;
+
+        PendingFeature(final Feature locus, final long block, final int offset) {
+            this.locus = locus;
+            this.block = block;
+            this.offset = offset;
+        }
+    }
+
+    /** The header as a VariantContextWriter writes it to a VCF. */
+    private static byte[] headerBytes(final VCFHeader header) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final VariantContextWriter writer = new VariantContextWriterBuilder().setOutputStream(bytes).clearOptions().build();
+        writer.writeHeader(header);
+        writer.close();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Writes the records of the input beneath the given header without parsing them, by copying gzip blocks if both
+     * files are block compressed and lines otherwise.  Returns false, having written nothing, if the records cannot
+     * be copied unchanged, in which case they must be written through VariantContexts instead.
+     *
+     * @param dictionary used to index the output; may be null if createIndex is false
+     */
+    public static boolean copyWithNewHeader(final File input, final VCFHeader header, final File output,
+                                            final SAMSequenceDictionary dictionary, final boolean createIndex) {
+        if (!RawVcfReader.canRead(input) || !canWrite(output)) return false;
+
+        final RawVcfReader reader = new RawVcfReader(input);
+        try {
+            if (!reader.hasCurrentVersionRecords()) return false;
+
+            if (isBlockCompressed(input) && isBlockCompressed(output)) {
+                reader.close();
+                final IndexCreator indexer = createIndex ? new TabixIndexCreator(dictionary, TabixFormat.VCF) : null;
+                final long recordsEnd;
+                try (final FileOutputStream out = new FileOutputStream(output)) {
+                    final BlockCompressedOutputStream headerOut = new BlockCompressedOutputStream(out, null);
+                    headerOut.write(headerBytes(header));
+                    headerOut.flush();
+                    // Don't close headerOut, as that would close out before the records are copied
+                    final CopiedRecords copied = copyRecordBlocks(input, out);
+                    // Index as GatherVcfs does, from where each record was moved to rather than by decoding the output
+                    if (indexer != null && copied != null) indexCopiedRecords(copied, indexer);
+                    recordsEnd = out.getChannel().position();
+                    out.write(BlockCompressedStreamConstants.EMPTY_GZIP_BLOCK);
+                }
+                catch (final IOException ioe) {
+                    throw new RuntimeIOException("Error writing " + output.getAbsolutePath(), ioe);
+                }
+                if (indexer != null) writeIndex(indexer, recordsEnd, output);
+                return true;
+            }
+
+            final RawVcfWriter writer = new RawVcfWriter(output, header, dictionary, createIndex);
+            while (reader.hasNext()) {
+                final String line = reader.next();
+                writer.add(line, createIndex ? reader.decode(line) : null);
+            }
+            writer.close();
+            return true;
+        }
+        finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Copies the records of a block compressed VCF to out without decompressing and parsing most of the gzip blocks.
+     * Decompresses and parses blocks up to the one containing the end of the header (often the first block) and
+     * re-compresses any data remaining in that block into a new block. Subsequent blocks (excluding a terminator
+     * block if present) are copied directly from input to output.
+     *
+     * @return where the records went, for indexing them with indexCopiedRecords, or null if the file has no records
+     */
+    static CopiedRecords copyRecordBlocks(final File vcf, final FileOutputStream out) throws IOException {
+        // a) It's good to check that the end of the file is valid and b) we need to know if there's a terminator block and not copy it
+        final BlockCompressedInputStream.FileTermination term = BlockCompressedInputStream.checkTermination(vcf);
+        if (term == BlockCompressedInputStream.FileTermination.DEFECTIVE) throw new PicardException(vcf.getAbsolutePath() + " does not have a valid GZIP block at the end of the file.");
+
+        try (final FileInputStream in = new FileInputStream(vcf)) {
+            final BlockCompressedInputStream blockIn = new BlockCompressedInputStream(in, false);
+            boolean lastByteNewline = true;
+            long headerEndBlock = -1;
+            int firstNonHeaderByteIndex = -1;
+            long recompressedBlock = -1;
+
+            while (firstNonHeaderByteIndex < 0 && blockIn.available() > 0) {
+                // Read a block - blockIn.available() is guaranteed to return the bytes remaining in the block that has been
+                // read, and since we haven't consumed any yet, that is the block size.
+                final int blockLength = blockIn.available();
+                headerEndBlock = BlockCompressedFilePointerUtil.getBlockAddress(blockIn.getFilePointer());
+                final byte[] blockContents = new byte[blockLength];
+                final int read = blockIn.read(blockContents);
+                if (blockLength == 0 || read != blockLength) throw new IllegalStateException("Could not read available bytes from BlockCompressedInputStream.");
+
+                // Scan forward within the block to see if we can find the end of the header within this block
+                for (int i=0; i<read; ++i) {
+                    final byte b = blockContents[i];
+                    final boolean thisByteNewline = (b == '\n' || b == '\r');
+
+                    if (lastByteNewline && !thisByteNewline && b != '#') {
+                        // Aha!  Found first byte of non-header data in file!
+                        firstNonHeaderByteIndex = i;
+                        break;
+                    }
+
+                    lastByteNewline = thisByteNewline;
+                }
+
+                // If we found the end of the header then write the remainder of this block out as a
+                // new gzip block and then stop decompressing
+                if (firstNonHeaderByteIndex >= 0) {
+                    recompressedBlock = out.getChannel().position();
+                    final BlockCompressedOutputStream blockOut = new BlockCompressedOutputStream(out, null);
+                    blockOut.write(blockContents, firstNonHeaderByteIndex, blockContents.length - firstNonHeaderByteIndex);
+                    blockOut.flush();
+                    // Don't close blockOut because closing underlying stream would break everything
+                }
+            }
+            // A file with only a header has no records to copy
+            if (firstNonHeaderByteIndex < 0) return null;
+
+            // Copy remainder of input stream into output stream
+            final long currentPos = in.getChannel().position();
+            final long length     = vcf.length();
+            final long skipLast   = (term == BlockCompressedInputStream.FileTermination.HAS_TERMINATOR_BLOCK) ?
+                    BlockCompressedStreamConstants.EMPTY_GZIP_BLOCK.length : 0;
+            final long bytesToWrite = length - skipLast - currentPos;
+
+            final long copiedTo = out.getChannel().position();
+            IOUtil.transferByStream(in, out, bytesToWrite);
+            return new CopiedRecords(vcf, headerEndBlock, firstNonHeaderByteIndex, recompressedBlock, currentPos, copiedTo);
+        }
+    }
+
+    /**
+     * Hands to the indexer the records that were copied, with their addresses in the output.  The copied blocks are
+     * decompressed again to find the records, but only the columns needed for the locus of each record are parsed.
+     */
+    static void indexCopiedRecords(final CopiedRecords copied, final IndexCreator indexer) {
+        try (final BlockCompressedInputStream in = new BlockCompressedInputStream(copied.vcf)) {
+            in.seek(copied.firstRecord());
+            while (true) {
+                final long position = in.getFilePointer();
+                final String line = in.readLine();
+                if (line == null) break;
+                if (line.isEmpty() || line.charAt(0) == '#') continue;
+                indexer.addFeature(VcfLineSorter.locus(line), copied.toOutput(position));
+            }
+        }
+        catch (final IOException ioe) {
+            throw new RuntimeIOException("Error reading " + copied.vcf.getAbsolutePath(), ioe);
+        }
+    }
+
+    /** Finishes the index of a block compressed VCF whose records end, before its terminator block, at recordsEnd. */
+    static void writeIndex(final IndexCreator indexer, final long recordsEnd, final File vcf) {
+        final Index index = indexer.finalizeIndex(BlockCompressedFilePointerUtil.makeFilePointer(recordsEnd, 0));
+        try {
+            index.writeBasedOnFeatureFile(vcf);
+        }
+        catch (final IOException ioe) {
+            throw new RuntimeIOException("Error writing index for " + vcf.getAbsolutePath(), ioe);
+        }
+    }
+
+    /**
+     * Where the records of a block compressed VCF were copied to, so that the address of any of them in the output
+     * follows from its address in the input: the remainder of the block in which the header ends was re-compressed
+     * into a block of its own, and every later block was copied as is.
+     */
+    static class CopiedRecords {
+        private final File vcf;
+        private final long headerEndBlock;
+        private final int headerEndOffset;
+        private final long recompressedBlock;
+        private final long copiedFrom;
+        private final long copiedTo;
+
+        /**
+         * @param headerEndBlock the address in the input of the block in which the header ends, or -1 if none was re-compressed
+         * @param headerEndOffset where the records start in that block
+         * @param recompressedBlock the address in the output of the re-compressed block
+         * @param copiedFrom the address in the input of the first block copied as is
+         * @param copiedTo the address in the output of the first block copied as is
+         */
+        CopiedRecords(final File vcf, final long headerEndBlock, final int headerEndOffset, final long recompressedBlock,
+                      final long copiedFrom, final long copiedTo) {
+            this.vcf = vcf;
+            this.headerEndBlock = headerEndBlock;
+            this.headerEndOffset = headerEndOffset;
+            this.recompressedBlock = recompressedBlock;
+            this.copiedFrom = copiedFrom;
+            this.copiedTo = copiedTo;
+        }
+
+        /** A file copied whole, header and all, to the given address in the output. */
+        static CopiedRecords wholeFile(final File vcf, final long copiedTo) {
+            return new CopiedRecords(vcf, -1, 0, -1, 0, copiedTo);
+        }
+
+        /** The address in the input of the first record, or of the first line if the file was copied whole. */
+        long firstRecord() {
+            return headerEndBlock < 0 ? 0 : BlockCompressedFilePointerUtil.makeFilePointer(headerEndBlock, headerEndOffset);
+        }
+
+        long toOutput(final long inputPosition) {
+            final long block = BlockCompressedFilePointerUtil.getBlockAddress(inputPosition);
+            final int offset = BlockCompressedFilePointerUtil.getBlockOffset(inputPosition);
+            if (block == headerEndBlock) return BlockCompressedFilePointerUtil.makeFilePointer(recompressedBlock, offset - headerEndOffset);
+            return BlockCompressedFilePointerUtil.makeFilePointer(block - copiedFrom + copiedTo, offset);
+        }
+    }
+}
@@ -93,10 +93,17 @@ public class RenameSampleInVcf extends CommandLineProgram {
             throw new IllegalArgumentException("Input VCF did not contain expected sample. Contained: " + header.getGenotypeSamples().get(0));
         }
 
+        final VCFHeader outHeader = new VCFHeader(header.getMetaDataInInputOrder(), CollectionUtil.makeList(NEW_SAMPLE_NAME));
+
+        // Renaming the sample changes only the header, so where possible the records are copied without being parsed
+        if (RawVcfWriter.copyWithNewHeader(INPUT, outHeader, OUTPUT, outHeader.getSequenceDictionary(), CREATE_INDEX)) {
+            in.close();
+            return 0;
+        }
+
         final EnumSet<Options> options = EnumSet.copyOf(VariantContextWriterFactory.DEFAULT_OPTIONS);
         if (CREATE_INDEX) options.add(Options.INDEX_ON_THE_FLY); else options.remove(Options.INDEX_ON_THE_FLY);
 
-        final VCFHeader outHeader = new VCFHeader(header.getMetaDataInInputOrder(), CollectionUtil.makeList(NEW_SAMPLE_NAME));
         final VariantContextWriter out = VariantContextWriterFactory.create(OUTPUT, outHeader.getSequenceDictionary(), options);
         out.writeHeader(outHeader);
 
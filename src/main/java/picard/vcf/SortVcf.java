@@ -3,6 +3,7 @@ package picard.vcf;
 import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.samtools.SamReaderFactory;
 import htsjdk.samtools.ValidationStringency;
+import htsjdk.samtools.util.CloseableIterator;
 import htsjdk.samtools.util.CloserUtil;
 import htsjdk.samtools.util.IOUtil;
 import htsjdk.samtools.util.Log;
@@ -21,6 +22,7 @@ import picard.cmdline.CommandLineProgramProperties;
 import picard.cmdline.Option;
 import picard.cmdline.StandardOptionDefinitions;
 import picard.cmdline.programgroups.VcfOrBcf;
+import picard.util.ThreadPoolUtil;
 
 import java.io.File;
 import java.util.ArrayList;
@@ -45,6 +47,10 @@ public class SortVcf extends CommandLineProgram {
             "<br /><br />" +
             "If running on multiple inputs (originating from e.g. some scatter-gather runs), the input files must contain the same sample " +
             "names in the same column order. " +
+            "<br /><br />" +
+            "Unless some input is a BCF or a VCF older than version 4.1, or the output is a BCF, the records are sorted as text, " +
+            "parsing only their contigs and positions. They are then not decoded, so the checks that VALIDATION_STRINGENCY " +
+            "controls when records are decoded are not applied, and malformed records are copied through unchanged. " +
             "<br />" +
             "<h4>Usage example:</h4>" +
             "<pre>" +
@@ -63,6 +69,11 @@ public class SortVcf extends CommandLineProgram {
     @Option(shortName = StandardOptionDefinitions.SEQUENCE_DICTIONARY_SHORT_NAME, optional = true)
     public File SEQUENCE_DICTIONARY;
 
+    @Option(doc = "Number of threads on which to sort records, when they can be sorted as text. Chunks of " +
+            "MAX_RECORDS_IN_RAM / NUM_THREADS records are sorted and spilled to disk in the background while more are read. " +
+            "Records sorted as text are not decoded, so VALIDATION_STRINGENCY does not apply to them.", optional = true)
+    public int NUM_THREADS = 1;
+
     private final Log log = Log.getInstance(SortVcf.class);
 
     private final List<VCFFileReader> inputReaders = new ArrayList<VCFFileReader>();
@@ -97,6 +108,15 @@ public class SortVcf extends CommandLineProgram {
         // Create the merged output header from the input headers
         final VCFHeader outputHeader = new VCFHeader(VCFUtils.smartMergeHeaders(inputHeaders, false), sampleList);
 
+        // Records can be sorted as text, keyed only by their contigs and positions, unless some input is a BCF or an old
+        // version of VCF, or the output is a BCF
+        final List<RawVcfReader> lineReaders = openLineReaders();
+        if (lineReaders != null) {
+            for (final VCFFileReader reader : inputReaders) reader.close();
+            sortAndWriteLines(lineReaders, outputHeader);
+            return 0;
+        }
+
         // Load entries into the sorting collection
         final SortingCollection<VariantContext> sortedOutput = sortInputs(inputReaders, outputHeader);
 
@@ -139,6 +159,67 @@ public class SortVcf extends CommandLineProgram {
         }
     }
 
+    @Override
+    protected String[] customCommandLineValidation() {
+        final String[] errors = ThreadPoolUtil.validateNumThreads(NUM_THREADS);
+        return errors != null ? errors : super.customCommandLineValidation();
+    }
+
+    /** Opens a RawVcfReader on each input if the records can be sorted as text, and returns null otherwise. */
+    private List<RawVcfReader> openLineReaders() {
+        if (!RawVcfWriter.canWrite(OUTPUT)) return null;
+        for (final File input : INPUT) {
+            if (!RawVcfReader.canRead(input)) return null;
+        }
+
+        final List<RawVcfReader> readers = new ArrayList<RawVcfReader>(INPUT.size());
+        for (final File input : INPUT) {
+            final RawVcfReader reader = new RawVcfReader(input);
+            readers.add(reader);
+            if (!reader.hasCurrentVersionRecords()) {
+                for (final RawVcfReader opened : readers) opened.close();
+                return null;
+            }
+        }
+        return readers;
+    }
+
+    /**
+     * Sorts the records of the inputs as text, parsing only their contigs and positions, and writes them out, with
+     * block compressed output compressed on COMPRESSION_THREADS threads.
+     */
+    private void sortAndWriteLines(final List<RawVcfReader> readers, final VCFHeader outputHeader) {
+        final ProgressLogger readProgress = new ProgressLogger(log, 25000, "read", "records");
+        final VcfLineSorter sorter = new VcfLineSorter(outputHeader, MAX_RECORDS_IN_RAM, TMP_DIR, NUM_THREADS);
+        try {
+            int readerCount = 1;
+            for (final RawVcfReader reader : readers) {
+                log.info("Reading entries from input file " + readerCount);
+                while (reader.hasNext()) {
+                    sorter.add(reader.next());
+                    readProgress.record(null, 0);
+                }
+                reader.close();
+                readerCount++;
+            }
+
+            final ProgressLogger writeProgress = new ProgressLogger(log, 25000, "wrote", "records");
+            final RawVcfWriter out = new RawVcfWriter(OUTPUT, outputHeader, outputHeader.getSequenceDictionary(), CREATE_INDEX,
+                    COMPRESSION_LEVEL, COMPRESSION_THREADS);
+            final CloseableIterator<VcfLineSorter.Record> iterator = sorter.iterator();
+            while (iterator.hasNext()) {
+                final VcfLineSorter.Record record = iterator.next();
+                out.add(record.getLine(), record);
+                writeProgress.record(record.getContig(), record.getStart());
+            }
+            iterator.close();
+            out.close();
+        } finally {
+            for (final RawVcfReader reader : readers) CloserUtil.close(reader);
+            sorter.cleanup();
+        }
+    }
+
     /**
      * Merge the inputs and sort them by adding each input's content to a single SortingCollection.
      * <p/>
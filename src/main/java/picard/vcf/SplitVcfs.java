@@ -90,6 +90,17 @@ public class SplitVcfs extends CommandLineProgram {
             throw new PicardException("A sequence dictionary must be available (either through the input file or by setting it explicitly) when creating indexed output.");
         }
 
+        // Unless an input or output is a BCF, or the input is an old version of VCF, the records are copied as text
+        // and only parsed far enough to tell SNPs from indels
+        final RawVcfReader lineReader = RawVcfReader.canRead(INPUT) && RawVcfWriter.canWrite(SNP_OUTPUT) && RawVcfWriter.canWrite(INDEL_OUTPUT)
+                ? new RawVcfReader(INPUT) : null;
+        if (lineReader != null && lineReader.hasCurrentVersionRecords()) {
+            CloserUtil.close(fileReader);
+            splitLines(lineReader, fileHeader, sequenceDictionary, progress);
+            return 0;
+        }
+        CloserUtil.close(lineReader);
+
         final VariantContextWriterBuilder builder = new VariantContextWriterBuilder()
                 .setReferenceDictionary(sequenceDictionary)
                 .clearOptions();
@@ -127,4 +138,33 @@ public class SplitVcfs extends CommandLineProgram {
 
         return 0;
     }
+
+    private void splitLines(final RawVcfReader reader, final VCFHeader fileHeader, final SAMSequenceDictionary sequenceDictionary,
+                            final ProgressLogger progress) {
+        final RawVcfWriter snpWriter = new RawVcfWriter(SNP_OUTPUT, fileHeader, sequenceDictionary, CREATE_INDEX);
+        final RawVcfWriter indelWriter = new RawVcfWriter(INDEL_OUTPUT, fileHeader, sequenceDictionary, CREATE_INDEX);
+
+        int incorrectVariantCount = 0;
+
+        while (reader.hasNext()) {
+            final String line = reader.next();
+            final VariantContext context = reader.decode(line);
+            if (context.isIndel()) indelWriter.add(line, context);
+            else if (context.isSNP()) snpWriter.add(line, context);
+            else {
+                if (STRICT) throw new IllegalStateException("Found a record with type " + context.getType().name());
+                else incorrectVariantCount++;
+            }
+
+            progress.record(context.getContig(), context.getStart());
+        }
+
+        if (incorrectVariantCount > 0) {
+            log.debug("Found " + incorrectVariantCount + " records that didn't match SNP or INDEL");
+        }
+
+        reader.close();
+        snpWriter.close();
+        indelWriter.close();
+    }
 }
@@ -82,6 +82,13 @@ public class UpdateVcfSequenceDictionary extends CommandLineProgram {
 
         final VCFFileReader fileReader = new VCFFileReader(INPUT, false);
         final VCFHeader fileHeader = fileReader.getFileHeader();
+        fileHeader.setSequenceDictionary(samSequenceDictionary);
+
+        // Only the header changes, so where possible the records are copied without being parsed
+        if (RawVcfWriter.copyWithNewHeader(INPUT, fileHeader, OUTPUT, samSequenceDictionary, CREATE_INDEX)) {
+            CloserUtil.close(fileReader);
+            return 0;
+        }
 
         final VariantContextWriterBuilder builder = new VariantContextWriterBuilder()
                 .setReferenceDictionary(samSequenceDictionary)
@@ -90,7 +97,6 @@ public class UpdateVcfSequenceDictionary extends CommandLineProgram {
             builder.setOption(Options.INDEX_ON_THE_FLY);
 
         final VariantContextWriter vcfWriter = builder.setOutputFile(OUTPUT).build();
-        fileHeader.setSequenceDictionary(samSequenceDictionary);
         vcfWriter.writeHeader(fileHeader);
 
         final ProgressLogger progress = new ProgressLogger(log, 10000);
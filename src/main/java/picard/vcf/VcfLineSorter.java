@@ -0,0 +1,405 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026 The Broad Institute
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package picard.vcf;
+
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.samtools.util.CloserUtil;
+import htsjdk.samtools.util.IOUtil;
+import htsjdk.samtools.util.RuntimeIOException;
+import htsjdk.samtools.util.StringUtil;
+import htsjdk.samtools.util.TempStreamFactory;
+import htsjdk.tribble.Feature;
+import htsjdk.variant.vcf.VCFConstants;
+import htsjdk.variant.vcf.VCFHeader;
+import picard.PicardException;
+import picard.util.ThreadPoolUtil;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Sorts VCF records, given as lines of text as read by RawVcfReader, by contig, in the order of a header's sequence
+ * dictionary, and then by position, without parsing any more of each line than its first two columns.  Records at
+ * the same position are kept in the order in which they were added.
+ *
+ * Records are gathered into chunks of maxRecordsInRam / numThreads.  Each full chunk is sorted and written to a
+ * temporary file as a run, on up to numThreads - 1 background threads while the next is gathered, and the runs and
+ * the last chunk are then merged.  When every record fits in one chunk nothing is written to disk.
+ */
+public class VcfLineSorter {
+    private static final Comparator<Record> BY_LOCUS = (a, b) -> {
+        if (a.contigIndex != b.contigIndex) return a.contigIndex < b.contigIndex ? -1 : 1;
+        return Integer.compare(a.start, b.start);
+    };
+
+    private final Map<String, Integer> contigIndices = new HashMap<String, Integer>();
+    private final List<File> tmpDirs;
+    private final int chunkSize;
+    private final ExecutorService executor;
+    private final int maxRunsInFlight;
+    private final TempStreamFactory tempStreamFactory = new TempStreamFactory();
+
+    private Record[] chunk;
+    private int chunkCount = 0;
+    private final Deque<Future<File>> runsInFlight = new ArrayDeque<Future<File>>();
+    private final List<File> runs = new ArrayList<File>();
+    private boolean doneAdding = false;
+
+    /**
+     * @param header whose sequence dictionary gives the order of the contigs
+     * @param maxRecordsInRam the most records to hold in memory, across all the chunks being gathered and sorted
+     * @param numThreads the number of threads on which to gather and sort chunks, including the calling thread
+     */
+    public VcfLineSorter(final VCFHeader header, final int maxRecordsInRam, final List<File> tmpDirs, final int numThreads) {
+        if (header.getSequenceDictionary() == null) throw new IllegalArgumentException("The header has no sequence dictionary.");
+        if (numThreads < 1) throw new IllegalArgumentException("numThreads must be at least 1: " + numThreads);
+        for (final SAMSequenceRecord sequence : header.getSequenceDictionary().getSequences()) {
+            contigIndices.put(sequence.getSequenceName(), sequence.getSequenceIndex());
+        }
+        this.tmpDirs = tmpDirs;
+        this.chunkSize = Math.max(1, maxRecordsInRam / numThreads);
+        this.chunk = new Record[Math.min(chunkSize, 10000)];
+        this.maxRunsInFlight = numThreads - 1;
+        this.executor = numThreads == 1 ? null : ThreadPoolUtil.newDaemonThreadPool(numThreads - 1, "VcfLineSorter");
+    }
+
+    /** Adds a record, given without its line terminator. */
+    public void add(final String line) {
+        if (doneAdding) throw new IllegalStateException("Cannot add records once they are being read.");
+        if (chunkCount == chunk.length) {
+            if (chunkCount == chunkSize) spillChunk();
+            else chunk = Arrays.copyOf(chunk, (int) Math.min(chunkSize, 2L * chunk.length));
+        }
+        chunk[chunkCount++] = parse(line);
+    }
+
+    private Record parse(final String line) {
+        final int start = parseStart(line);
+        final String contig = line.substring(0, line.indexOf(VCFConstants.FIELD_SEPARATOR_CHAR));
+        final Integer contigIndex = contigIndices.get(contig);
+        if (contigIndex == null) {
+            throw new PicardException("VCF record is on contig " + contig + ", which is not in the sequence dictionary.");
+        }
+        return new Record(contigIndex, start, line);
+    }
+
+    /** The locus of a record, given without its line terminator, for indexing records that are not being sorted. */
+    static Record locus(final String line) {
+        return new Record(-1, parseStart(line), line);
+    }
+
+    private static int parseStart(final String line) {
+        final int contigEnd = line.indexOf(VCFConstants.FIELD_SEPARATOR_CHAR);
+        final int positionEnd = contigEnd < 0 ? -1 : line.indexOf(VCFConstants.FIELD_SEPARATOR_CHAR, contigEnd + 1);
+        if (positionEnd < 0) throw new PicardException("VCF record has fewer than three columns: " + abbreviate(line));
+
+        int start = 0;
+        for (int i = contigEnd + 1; i < positionEnd; ++i) {
+            final char c = line.charAt(i);
+            if (c < '0' || c > '9' || start > (Integer.MAX_VALUE - 9) / 10) {
+                throw new PicardException("VCF record has an invalid position: " + abbreviate(line));
+            }
+            start = start * 10 + (c - '0');
+        }
+        return start;
+    }
+
+    private static String abbreviate(final String line) {
+        return line.length() > 100 ? line.substring(0, 100) + "..." : line;
+    }
+
+    /** Hands the full chunk to be sorted and written as a run, waiting for the oldest run if too many are in flight. */
+    private void spillChunk() {
+        final Record[] records = chunk;
+        final int count = chunkCount;
+        chunk = new Record[chunkSize];
+        chunkCount = 0;
+        if (executor == null) {
+            runs.add(writeRun(records, count));
+            return;
+        }
+        while (runsInFlight.size() >= maxRunsInFlight) runs.add(ThreadPoolUtil.get(runsInFlight.removeFirst(), "sorting VCF records"));
+        runsInFlight.addLast(executor.submit(() -> writeRun(records, count)));
+    }
+
+    private File writeRun(final Record[] records, final int count) {
+        Arrays.sort(records, 0, count, BY_LOCUS);
+        try {
+            final File run = IOUtil.newTempFile("sortvcf.", ".tmp", tmpDirs.toArray(new File[tmpDirs.size()]));
+            run.deleteOnExit();
+            try (final DataOutputStream out = new DataOutputStream(
+                    tempStreamFactory.wrapTempOutputStream(new FileOutputStream(run), IOUtil.STANDARD_BUFFER_SIZE))) {
+                for (int i = 0; i < count; ++i) {
+                    final byte[] bytes = StringUtil.stringToBytes(records[i].line);
+                    out.writeInt(records[i].contigIndex);
+                    out.writeInt(records[i].start);
+                    out.writeInt(bytes.length);
+                    out.write(bytes);
+                }
+            }
+            return run;
+        }
+        catch (final IOException ioe) {
+            throw new RuntimeIOException("Error writing temporary file for sorting VCF records.", ioe);
+        }
+    }
+
+    /** Returns the records in order.  No more may be added. */
+    public CloseableIterator<Record> iterator() {
+        if (doneAdding) throw new IllegalStateException("The records can be read only once.");
+        doneAdding = true;
+        while (!runsInFlight.isEmpty()) runs.add(ThreadPoolUtil.get(runsInFlight.removeFirst(), "sorting VCF records"));
+        if (executor != null) executor.shutdown();
+
+        Arrays.sort(chunk, 0, chunkCount, BY_LOCUS);
+        final List<Run> sources = new ArrayList<Run>(runs.size() + 1);
+        for (final File run : runs) sources.add(new FileRun(run));
+        sources.add(new MemoryRun(chunk, chunkCount));
+        chunk = null;
+        return new MergingRunIterator(sources);
+    }
+
+    /**
+     * Deletes the temporary files.  Runs still queued are let run, rather than dropped by shutdownNow(), so that waiting
+     * on them cannot hang and every file written can be deleted; there are never more than NUM_THREADS - 1 of them.
+     */
+    public void cleanup() {
+        if (executor != null) executor.shutdown();
+        for (final Future<File> future : runsInFlight) {
+            try {
+                runs.add(future.get());
+            }
+            catch (final Exception e) {
+                // A run that could not be written has nothing to delete
+            }
+        }
+        runsInFlight.clear();
+        for (final File run : runs) IOUtil.deleteFiles(run);
+        runs.clear();
+    }
+
+    /**
+     * A record and its locus, which is a Feature for indexing.  The end is worked out only if asked for, from the END
+     * attribute if there is one and otherwise from the length of the reference allele, as VCFCodec does.
+     */
+    public static class Record implements Feature {
+        private final int contigIndex;
+        private final int start;
+        private final String line;
+
+        Record(final int contigIndex, final int start, final String line) {
+            this.contigIndex = contigIndex;
+            this.start = start;
+            this.line = line;
+        }
+
+        public String getLine() {
+            return line;
+        }
+
+        @Override
+        public String getContig() {
+            return line.substring(0, line.indexOf(VCFConstants.FIELD_SEPARATOR_CHAR));
+        }
+
+        @Deprecated
+        @Override
+        public String getChr() {
+            return getContig();
+        }
+
+        @Override
+        public int getStart() {
+            return start;
+        }
+
+        @Override
+        public int getEnd() {
+            // Find the REF (fourth) and INFO (eighth) columns
+            final int[] columnStarts = new int[9];
+            int column = 1;
+            for (int i = 0; i < line.length() && column < columnStarts.length; ++i) {
+                if (line.charAt(i) == VCFConstants.FIELD_SEPARATOR_CHAR) columnStarts[column++] = i + 1;
+            }
+            if (column < 5) return start;
+            final int refLength = columnStarts[4] - 1 - columnStarts[3];
+            if (column < 8) return start + refLength - 1;
+
+            final int infoEnd = column < 9 ? line.length() : columnStarts[8] - 1;
+            final String endKey = VCFConstants.END_KEY + "=";
+            int key = columnStarts[7];
+            while (key < infoEnd) {
+                int keyEnd = line.indexOf(VCFConstants.INFO_FIELD_SEPARATOR_CHAR, key);
+                if (keyEnd < 0 || keyEnd > infoEnd) keyEnd = infoEnd;
+                if (line.startsWith(endKey, key)) {
+                    try {
+                        return Integer.parseInt(line.substring(key + endKey.length(), keyEnd));
+                    }
+                    catch (final NumberFormatException nfe) {
+                        throw new PicardException("VCF record has an invalid END: " + abbreviate(line));
+                    }
+                }
+                key = keyEnd + 1;
+            }
+            return start + refLength - 1;
+        }
+    }
+
+    /** A sorted run of records, read one at a time. */
+    private interface Run {
+        /** The next record, or null if there are no more. */
+        Record next();
+
+        void close();
+    }
+
+    private static class MemoryRun implements Run {
+        private final Record[] records;
+        private final int count;
+        private int next = 0;
+
+        MemoryRun(final Record[] records, final int count) {
+            this.records = records;
+            this.count = count;
+        }
+
+        @Override
+        public Record next() {
+            if (next == count) return null;
+            final Record record = records[next];
+            records[next++] = null;
+            return record;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private class FileRun implements Run {
+        private final File file;
+        private final DataInputStream in;
+
+        FileRun(final File file) {
+            this.file = file;
+            try {
+                in = new DataInputStream(tempStreamFactory.wrapTempInputStream(new FileInputStream(file), IOUtil.STANDARD_BUFFER_SIZE));
+            }
+            catch (final IOException ioe) {
+                throw new RuntimeIOException("Error opening temporary file " + file.getAbsolutePath(), ioe);
+            }
+        }
+
+        @Override
+        public Record next() {
+            try {
+                final int contigIndex;
+                try {
+                    contigIndex = in.readInt();
+                }
+                catch (final EOFException eof) {
+                    return null;
+                }
+                final int start = in.readInt();
+                final byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                return new Record(contigIndex, start, StringUtil.bytesToString(bytes));
+            }
+            catch (final IOException ioe) {
+                throw new RuntimeIOException("Error reading temporary file " + file.getAbsolutePath(), ioe);
+            }
+        }
+
+        @Override
+        public void close() {
+            CloserUtil.close(in);
+        }
+    }
+
+    /** Merges the runs, taking records at the same locus from earlier runs first. */
+    private static class MergingRunIterator implements CloseableIterator<Record> {
+        private final List<Run> runs;
+        private final Record[] heads;
+        private final PriorityQueue<Integer> queue;
+
+        MergingRunIterator(final List<Run> runs) {
+            this.runs = runs;
+            this.heads = new Record[runs.size()];
+            this.queue = new PriorityQueue<Integer>(Math.max(1, runs.size()), (a, b) -> {
+                final int cmp = BY_LOCUS.compare(heads[a], heads[b]);
+                return cmp != 0 ? cmp : Integer.compare(a, b);
+            });
+            for (int i = 0; i < runs.size(); ++i) advance(i);
+        }
+
+        private void advance(final int run) {
+            heads[run] = runs.get(run).next();
+            if (heads[run] != null) queue.add(run);
+            else runs.get(run).close();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !queue.isEmpty();
+        }
+
+        @Override
+        public Record next() {
+            if (queue.isEmpty()) throw new NoSuchElementException();
+            final int run = queue.poll();
+            final Record record = heads[run];
+            advance(run);
+            return record;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close() {
+            for (final Run run : runs) run.close();
+            queue.clear();
+        }
+    }
+}
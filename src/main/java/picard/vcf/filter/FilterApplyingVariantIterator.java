@@ -73,11 +73,19 @@ public class FilterApplyingVariantIterator implements CloseableIterator<VariantC
      */
     @Override
     public VariantContext next() {
-        final VariantContext ctx = this.iterator.next();
+        return applyFilters(this.iterator.next(), this.filters, this.gtFilters);
+    }
+
+    /**
+     * Returns a copy of the record with filter strings set from the given filters, both on the site and on
+     * each genotype.  Holds no state of its own, so may be called on several threads at once as long as the
+     * filters themselves allow it.
+     */
+    static VariantContext applyFilters(final VariantContext ctx, final VariantFilter[] filters, final GenotypeFilter[] gtFilters) {
         final Set<String> filterStrings = new HashSet<String>();
 
         // Collect variant level filters
-        for (final VariantFilter filter : this.filters) {
+        for (final VariantFilter filter : filters) {
             final String val = filter.filter(ctx);
             if (val != null) filterStrings.add(val);
         }
@@ -113,13 +121,13 @@ public class FilterApplyingVariantIterator implements CloseableIterator<VariantC
         final List<Genotype> newGenotypes = new ArrayList<Genotype>(ctx.getNSamples());
         for (final Genotype gt : ctx.getGenotypes()) {
             final GenotypeBuilder gtBuilder = new GenotypeBuilder(gt);
-            final List<String> filters = gtFilterStrings.get(gt.getSampleName());
+            final List<String> sampleFilters = gtFilterStrings.get(gt.getSampleName());
 
-            if (filters == null || filters.isEmpty()) {
+            if (sampleFilters == null || sampleFilters.isEmpty()) {
                 gtBuilder.filter(PASS_FILTER);
             }
             else {
-                gtBuilder.filters(filters);
+                gtBuilder.filters(sampleFilters);
             }
             newGenotypes.add(gtBuilder.make());
         }
@@ -25,6 +25,7 @@
 package picard.vcf.filter;
 
 import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.util.CloseableIterator;
 import htsjdk.samtools.util.CloserUtil;
 import htsjdk.samtools.util.CollectionUtil;
 import htsjdk.samtools.util.IOUtil;
@@ -44,6 +45,7 @@ import picard.cmdline.CommandLineProgramProperties;
 import picard.cmdline.Option;
 import picard.cmdline.StandardOptionDefinitions;
 import picard.cmdline.programgroups.VcfOrBcf;
+import picard.util.ThreadPoolUtil;
 
 import java.io.File;
 import java.io.IOException;
@@ -93,6 +95,10 @@ public class FilterVcf extends CommandLineProgram {
 	        optional = true)
 	public File JAVASCRIPT_FILE = null;
 
+    @Option(doc="The number of threads on which to filter records. With more than one, records are read and written on the " +
+            "main thread and filtered in batches on the others, and are written in the same order as with one.")
+    public int NUM_THREADS = 1;
+
 
     /** Constructor to default to having index creation on. */
     public FilterVcf() { this.CREATE_INDEX = true; }
@@ -102,6 +108,12 @@ public class FilterVcf extends CommandLineProgram {
         new FilterVcf().instanceMainWithExit(args);
     }
 
+    @Override
+    protected String[] customCommandLineValidation() {
+        final String[] errors = ThreadPoolUtil.validateNumThreads(NUM_THREADS);
+        return errors != null ? errors : super.customCommandLineValidation();
+    }
+
     @Override
     protected int doWork() {
         IOUtil.assertFileIsReadable(INPUT);
@@ -109,22 +121,23 @@ public class FilterVcf extends CommandLineProgram {
 
         VCFFileReader in = null;
         VariantContextWriter out = null;
-        try {// try/finally used to close 'in' and 'out'
+        CloseableIterator<VariantContext> iterator = null;
+        try {// try/finally used to close 'in', 'out' and 'iterator'
 	        in = new VCFFileReader(INPUT, false);
-	        final List<VariantFilter>  variantFilters = new ArrayList<VariantFilter>(4);
-	        variantFilters.add(new AlleleBalanceFilter(MIN_AB));
-	        variantFilters.add(new FisherStrandFilter(MAX_FS));
-	        variantFilters.add(new QdFilter(MIN_QD));
-	        if( JAVASCRIPT_FILE != null) {
-	            try {
-	                variantFilters.add(new VariantContextJavascriptFilter(JAVASCRIPT_FILE, in.getFileHeader()));
-	            } catch(final IOException error) {
-	                throw new PicardException("javascript-related error", error);
-	            }
-	        }
+	        final VCFHeader inputHeader = in.getFileHeader();
 	        final List<GenotypeFilter> genotypeFilters = CollectionUtil.makeList(new GenotypeQualityFilter(MIN_GQ), new DepthFilter(MIN_DP));
-	        @SuppressWarnings("resource")
-			final FilterApplyingVariantIterator iterator = new FilterApplyingVariantIterator(in.iterator(), variantFilters, genotypeFilters);
+	        final List<VCFFilterHeaderLine> filterHeaderLines = new ArrayList<VCFFilterHeaderLine>();
+	        if (NUM_THREADS > 1) {
+	            // The javascript filter keeps its script engine to itself, so each filtering thread makes its own filters
+	            iterator = new ParallelFilterApplyingVariantIterator(in.iterator(), () -> makeVariantFilters(inputHeader), genotypeFilters,
+	                    NUM_THREADS, ParallelFilterApplyingVariantIterator.DEFAULT_BATCH_SIZE);
+	            for (final VariantFilter filter : makeStandardVariantFilters()) filterHeaderLines.addAll(filter.headerLines());
+	            if (JAVASCRIPT_FILE != null) filterHeaderLines.add(VariantContextJavascriptFilter.headerLine(JAVASCRIPT_FILE));
+	        } else {
+	            final List<VariantFilter> variantFilters = makeVariantFilters(inputHeader);
+	            iterator = new FilterApplyingVariantIterator(in.iterator(), variantFilters, genotypeFilters);
+	            for (final VariantFilter filter : variantFilters) filterHeaderLines.addAll(filter.headerLines());
+	        }
 	
 	        final VCFHeader header = in.getFileHeader();
 	        // If the user is writing to a .bcf or .vcf, VariantContextBuilderWriter requires a Sequence Dictionary.  Make sure that the
@@ -140,10 +153,8 @@ public class FilterVcf extends CommandLineProgram {
 	        out = variantContextWriterBuilder.setOutputFile(OUTPUT).build();
 	        header.addMetaDataLine(new VCFFilterHeaderLine("AllGtsFiltered", "Site filtered out because all genotypes are filtered out."));
 	        header.addMetaDataLine(new VCFFormatHeaderLine("FT", VCFHeaderLineCount.UNBOUNDED, VCFHeaderLineType.String, "Genotype filters."));
-	        for (final VariantFilter filter : variantFilters) {
-	            for (final VCFFilterHeaderLine line : filter.headerLines()) {
-	                header.addMetaDataLine(line);
-	            }
+	        for (final VCFFilterHeaderLine line : filterHeaderLines) {
+	            header.addMetaDataLine(line);
 	        }
 	
 	        out.writeHeader(in.getFileHeader());
@@ -153,11 +164,33 @@ public class FilterVcf extends CommandLineProgram {
 	        }
 	        return 0;
         } finally {
+        	CloserUtil.close(iterator);
         	CloserUtil.close(out);
         	CloserUtil.close(in);
         }
     }
 
+    private List<VariantFilter> makeVariantFilters(final VCFHeader header) {
+        final List<VariantFilter> variantFilters = makeStandardVariantFilters();
+        if (JAVASCRIPT_FILE != null) {
+            try {
+                variantFilters.add(new VariantContextJavascriptFilter(JAVASCRIPT_FILE, header));
+            } catch (final IOException error) {
+                throw new PicardException("javascript-related error", error);
+            }
+        }
+        return variantFilters;
+    }
+
+    /** The variant filters other than the javascript one, which are cheap to make. */
+    private List<VariantFilter> makeStandardVariantFilters() {
+        final List<VariantFilter> variantFilters = new ArrayList<VariantFilter>(4);
+        variantFilters.add(new AlleleBalanceFilter(MIN_AB));
+        variantFilters.add(new FisherStrandFilter(MAX_FS));
+        variantFilters.add(new QdFilter(MIN_QD));
+        return variantFilters;
+    }
+
     private boolean isVcfOrBcf(final File file) {
         final String fileName = file.getName();
         return fileName.endsWith(".vcf") || fileName.endsWith(".bcf");
@@ -175,10 +208,18 @@ public class FilterVcf extends CommandLineProgram {
         private VariantContextJavascriptFilter(final File scriptFile, final VCFHeader header) throws IOException {
            super(scriptFile, header);
            this.scriptFile = scriptFile;
-           /* create filter name using file basename */
-           String fname = IOUtil.basename(scriptFile);
-           if(fname.isEmpty()) fname="JSFILTER";
-           this.filterName = fname;
+           this.filterName = filterName(scriptFile);
+        }
+
+        /** create filter name using file basename */
+        private static String filterName(final File scriptFile) {
+           final String fname = IOUtil.basename(scriptFile);
+           return fname.isEmpty() ? "JSFILTER" : fname;
+        }
+
+        /** the header line of the filter for the given script, without compiling the script */
+        private static VCFFilterHeaderLine headerLine(final File scriptFile) {
+            return new VCFFilterHeaderLine(filterName(scriptFile), "Variant Filtered by Javascript file " + scriptFile);
         }
 
         /**
@@ -192,8 +233,7 @@ public class FilterVcf extends CommandLineProgram {
 
         @Override
         public List<VCFFilterHeaderLine> headerLines() {
-            return CollectionUtil.makeList(
-                    new VCFFilterHeaderLine(this.filterName, "Variant Filtered by Javascript file " + this.scriptFile));
+            return CollectionUtil.makeList(headerLine(this.scriptFile));
         }
     }
 }
@@ -0,0 +1,137 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026 The Broad Institute
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package picard.vcf.filter;
+
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.samtools.util.CloserUtil;
+import htsjdk.variant.variantcontext.GenotypesContext;
+import htsjdk.variant.variantcontext.LazyGenotypesContext;
+import htsjdk.variant.variantcontext.VariantContext;
+import picard.util.ThreadPoolUtil;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Iterator that applies filters exactly as FilterApplyingVariantIterator does, but to batches of records on a
+ * pool of threads, returning the records in the order of the underlying iterator.
+ *
+ * Records are read from the underlying iterator, and their genotypes decoded, on the thread calling next(), since
+ * the VCF codec is not safe to share between threads; only the filtering itself is done on the pool.  Variant
+ * filters need not be thread-safe, as each thread gets filters of its own from the supplier; genotype filters
+ * are shared.  At most twice as many batches as threads are in flight at once.
+ */
+public class ParallelFilterApplyingVariantIterator implements CloseableIterator<VariantContext> {
+    /** The number of records filtered together as one task. */
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    private final Iterator<VariantContext> iterator;
+    private final GenotypeFilter[] gtFilters;
+    private final ThreadLocal<VariantFilter[]> threadFilters;
+    private final int numThreads;
+    private final int batchSize;
+    private final ExecutorService executor;
+
+    private final Deque<Future<List<VariantContext>>> pending = new ArrayDeque<Future<List<VariantContext>>>();
+    private Iterator<VariantContext> current = Collections.<VariantContext>emptyList().iterator();
+
+    /**
+     * @param filterSupplier makes the variant filters for each thread; called once per thread
+     */
+    public ParallelFilterApplyingVariantIterator(final Iterator<VariantContext> iterator,
+                                                 final Supplier<Collection<VariantFilter>> filterSupplier,
+                                                 final Collection<GenotypeFilter> gtFilters,
+                                                 final int numThreads,
+                                                 final int batchSize) {
+        if (numThreads < 1) throw new IllegalArgumentException("numThreads must be at least 1: " + numThreads);
+        if (batchSize < 1) throw new IllegalArgumentException("batchSize must be at least 1: " + batchSize);
+        this.iterator = iterator;
+        this.gtFilters = gtFilters.toArray(new GenotypeFilter[gtFilters.size()]);
+        this.threadFilters = ThreadLocal.withInitial(() -> {
+            final Collection<VariantFilter> filters = filterSupplier.get();
+            return filters.toArray(new VariantFilter[filters.size()]);
+        });
+        this.numThreads = numThreads;
+        this.batchSize = batchSize;
+        this.executor = ThreadPoolUtil.newDaemonThreadPool(numThreads, "FilterApplyingVariantIterator");
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!current.hasNext()) {
+            fillPending();
+            if (pending.isEmpty()) return false;
+            current = ThreadPoolUtil.get(pending.removeFirst(), "filtering variants").iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public VariantContext next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        return current.next();
+    }
+
+    /** Reads batches and hands them to the pool until enough are in flight or the input is exhausted. */
+    private void fillPending() {
+        while (pending.size() < 2 * numThreads && iterator.hasNext()) {
+            final List<VariantContext> batch = new ArrayList<VariantContext>(batchSize);
+            while (batch.size() < batchSize && iterator.hasNext()) {
+                final VariantContext ctx = iterator.next();
+                final GenotypesContext genotypes = ctx.getGenotypes();
+                if (genotypes instanceof LazyGenotypesContext) ((LazyGenotypesContext) genotypes).decode();
+                batch.add(ctx);
+            }
+
+            pending.addLast(executor.submit(() -> {
+                final VariantFilter[] filters = threadFilters.get();
+                final List<VariantContext> filtered = new ArrayList<VariantContext>(batch.size());
+                for (final VariantContext ctx : batch) {
+                    filtered.add(FilterApplyingVariantIterator.applyFilters(ctx, filters, gtFilters));
+                }
+                return filtered;
+            }));
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        CloserUtil.close(this.iterator);
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("remove() not supported by ParallelFilterApplyingVariantIterator.");
+    }
+}
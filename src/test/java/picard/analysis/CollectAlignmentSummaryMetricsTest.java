@@ -532,4 +532,30 @@ public class CollectAlignmentSummaryMetricsTest extends CommandLineProgramTest {
             }
         }
     }
+
+    @Test
+    public void testCollectLevelsInParallel() throws IOException {
+        final File input = new File(TEST_DATA_DIR, "summary_alignment_stats_test_multiple.sam");
+        final File reference = new File(TEST_DATA_DIR, "summary_alignment_stats_test.fasta");
+        final File serial = runAllLevels(input, reference, false);
+        final File parallel = runAllLevels(input, reference, true);
+        Assert.assertTrue(MetricsFile.areMetricsAndHistogramsEqual(serial, parallel));
+    }
+
+    private File runAllLevels(final File input, final File reference, final boolean collectLevelsInParallel) throws IOException {
+        final File outfile   = File.createTempFile("alignmentMetrics", ".txt");
+        outfile.deleteOnExit();
+        final String[] args = new String[] {
+                "INPUT="  + input.getAbsolutePath(),
+                "OUTPUT=" + outfile.getAbsolutePath(),
+                "REFERENCE_SEQUENCE=" + reference.getAbsolutePath(),
+                "METRIC_ACCUMULATION_LEVEL=ALL_READS",
+                "METRIC_ACCUMULATION_LEVEL=SAMPLE",
+                "METRIC_ACCUMULATION_LEVEL=LIBRARY",
+                "METRIC_ACCUMULATION_LEVEL=READ_GROUP",
+                "COLLECT_LEVELS_IN_PARALLEL=" + collectLevelsInParallel
+        };
+        Assert.assertEquals(runPicardCommandLine(args), 0);
+        return outfile;
+    }
 }
@@ -19,6 +19,7 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 
@@ -226,6 +227,60 @@ public class CollectGcBiasMetricsTest extends CommandLineProgramTest {
         }
     }
 
+    /////////////////////////////////////////////////////////////////////////////
+    // Runs with a GC cache, once writing it and once mapping it, and checks
+    // that the detail metrics match those of a run that calculates the GC.
+    /////////////////////////////////////////////////////////////////////////////
+    @Test
+    public void runGcCacheTest() throws IOException {
+        final File cache = File.createTempFile("test", ".gc_cache");
+        Assert.assertTrue(cache.delete());
+        cache.deleteOnExit();
+
+        final List<GcBiasDetailMetrics> expected = runGcBiasDetails();
+        final List<GcBiasDetailMetrics> written = runGcBiasDetails("GC_CACHE=" + cache.getAbsolutePath());
+        Assert.assertTrue(cache.exists());
+        final List<GcBiasDetailMetrics> mapped = runGcBiasDetails("GC_CACHE=" + cache.getAbsolutePath());
+
+        Assert.assertEquals(written, expected);
+        Assert.assertEquals(mapped, expected);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    // Checks that collecting each accumulation level on its own thread gives
+    // exactly the same detail and summary metrics as collecting them serially.
+    /////////////////////////////////////////////////////////////////////////////
+    @Test
+    public void runCollectLevelsInParallelTest() throws IOException {
+        final File serialOutfile = File.createTempFile("test", ".gc_bias.summary_metrics");
+        final File serialDetailsOutfile = File.createTempFile("test", ".gc_bias.detail_metrics");
+        final File parallelOutfile = File.createTempFile("test", ".gc_bias.summary_metrics");
+        final File parallelDetailsOutfile = File.createTempFile("test", ".gc_bias.detail_metrics");
+        serialOutfile.deleteOnExit();
+        serialDetailsOutfile.deleteOnExit();
+        parallelOutfile.deleteOnExit();
+        parallelDetailsOutfile.deleteOnExit();
+
+        runGcBias(tempSamFileChrM_O, serialOutfile, serialDetailsOutfile, "COLLECT_LEVELS_IN_PARALLEL=false");
+        runGcBias(tempSamFileChrM_O, parallelOutfile, parallelDetailsOutfile, "COLLECT_LEVELS_IN_PARALLEL=true");
+
+        Assert.assertTrue(MetricsFile.areMetricsEqual(serialOutfile, parallelOutfile));
+        Assert.assertTrue(MetricsFile.areMetricsEqual(serialDetailsOutfile, parallelDetailsOutfile));
+    }
+
+    private List<GcBiasDetailMetrics> runGcBiasDetails(final String... extraArgs) throws IOException {
+        final File outfile = File.createTempFile("test", ".gc_bias_summary_metrics");
+        final File detailsOutfile = File.createTempFile("test", ".gc_bias_detail_metrics");
+        outfile.deleteOnExit();
+        detailsOutfile.deleteOnExit();
+
+        runGcBias(tempSamFileAllChr, outfile, detailsOutfile, extraArgs);
+
+        final MetricsFile<GcBiasDetailMetrics, Comparable<?>> output = new MetricsFile<GcBiasDetailMetrics, Comparable<?>>();
+        output.read(new FileReader(detailsOutfile));
+        return output.getMetrics();
+    }
+
     /////////////////////////////////////////////////////////////////////////////
     // Writes the setBuilders to a SAMFileWriter and sorts the sam.
     // Takes in a list of SAMRecordSetBuilders because of the multi-level collection: setBuilders cannot take in more than one read group
@@ -260,7 +315,7 @@ public class CollectGcBiasMetricsTest extends CommandLineProgramTest {
     /////////////////////////////////////////////////////////////////////////////
     // Runs CollectGcBias with input Sam file and outputs details and summary files for truth assertion.
     /////////////////////////////////////////////////////////////////////////////
-    public void runGcBias (final File input, final File outfile, final File detailsOutfile) throws IOException {
+    public void runGcBias (final File input, final File outfile, final File detailsOutfile, final String... extraArgs) throws IOException {
         final String referenceFile = "testdata/picard/metrics/chrMNO.reference.fasta";
         final File pdf = File.createTempFile("test", ".pdf");
         pdf.deleteOnExit();
@@ -284,7 +339,9 @@ public class CollectGcBiasMetricsTest extends CommandLineProgramTest {
                 "LEVEL=READ_GROUP",
                 "ASSUME_SORTED=" + assumeSorted
         };
-        Assert.assertEquals(runPicardCommandLine(args), 0);
+        final List<String> allArgs = new ArrayList<>(Arrays.asList(args));
+        allArgs.addAll(Arrays.asList(extraArgs));
+        Assert.assertEquals(runPicardCommandLine(allArgs), 0);
     }
 
     /////////////////////////////////////////////////////////////////////////////
@@ -243,4 +243,30 @@ public class CollectInsertSizeMetricsTest extends CommandLineProgramTest {
 
         Assert.assertEquals(rResult, 0);
     }
+
+    @Test
+    public void testCollectLevelsInParallel() throws IOException {
+        final File input = new File(TEST_DATA_DIR, "insert_size_metrics_test.sam");
+        final File serial = runAllLevels(input, false);
+        final File parallel = runAllLevels(input, true);
+        Assert.assertTrue(MetricsFile.areMetricsAndHistogramsEqual(serial, parallel));
+    }
+
+    private File runAllLevels(final File input, final boolean collectLevelsInParallel) throws IOException {
+        final File outfile   = File.createTempFile("test", ".insert_size_metrics");
+        final File pdf   = File.createTempFile("test", ".pdf");
+        outfile.deleteOnExit();
+        pdf.deleteOnExit();
+        final String[] args = new String[] {
+                "INPUT="  + input.getAbsolutePath(),
+                "OUTPUT=" + outfile.getAbsolutePath(),
+                "HISTOGRAM_FILE=" + pdf.getAbsolutePath(),
+                "LEVEL=SAMPLE",
+                "LEVEL=LIBRARY",
+                "LEVEL=READ_GROUP",
+                "COLLECT_LEVELS_IN_PARALLEL=" + collectLevelsInParallel
+        };
+        Assert.assertEquals(runPicardCommandLine(args), 0);
+        return outfile;
+    }
 }
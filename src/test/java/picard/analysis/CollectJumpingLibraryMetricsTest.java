@@ -0,0 +1,136 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026 The Broad Institute
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package picard.analysis;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMFileWriter;
+import htsjdk.samtools.SAMFileWriterFactory;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SAMRecordSetBuilder;
+import htsjdk.samtools.metrics.MetricsFile;
+import htsjdk.samtools.util.IOUtil;
+import htsjdk.samtools.util.TestUtil;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import picard.cmdline.CommandLineProgramTest;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class CollectJumpingLibraryMetricsTest extends CommandLineProgramTest {
+    private static final int NUM_OUTIES = 40;
+    private static final int NUM_INNIES = 20;
+
+    private File tempDir;
+    private final List<File> halves = new ArrayList<File>();
+    private File whole;
+
+    public String getCommandLineProgramName() {
+        return CollectJumpingLibraryMetrics.class.getSimpleName();
+    }
+
+    /**
+     * Writes outward-facing pairs with 3kb inserts, inward-facing pairs with 300bp inserts, and one outward-facing pair
+     * each a little shorter and much longer than the mode, both into one file and split between two.
+     */
+    @BeforeClass
+    public void setUp() throws IOException {
+        tempDir = IOUtil.createTempDir("CollectJumpingLibraryMetricsTest", ".tmp");
+        final List<SAMRecordSetBuilder> builders = new ArrayList<SAMRecordSetBuilder>();
+        for (int i = 0; i < 3; ++i) builders.add(new SAMRecordSetBuilder(true, SAMFileHeader.SortOrder.coordinate));
+
+        int pair = 0;
+        for (int i = 0; i < NUM_OUTIES; ++i, ++pair) {
+            addPair(builders, pair, 1000 + 10 * i, 4000 + 10 * i, true);
+        }
+        for (int i = 0; i < NUM_INNIES; ++i, ++pair) {
+            addPair(builders, pair, 1000 + 10 * i, 1300 + 10 * i, false);
+        }
+        addPair(builders, pair++, 20000, 22000, true);
+        addPair(builders, pair++, 30000, 45000, true);
+
+        whole = write(builders.get(0), "whole.bam");
+        halves.add(write(builders.get(1), "half1.bam"));
+        halves.add(write(builders.get(2), "half2.bam"));
+    }
+
+    @AfterClass
+    public void tearDown() {
+        TestUtil.recursiveDelete(tempDir);
+    }
+
+    private static void addPair(final List<SAMRecordSetBuilder> builders, final int pair, final int start1, final int start2,
+                                final boolean outie) {
+        final String name = "pair" + pair;
+        builders.get(0).addPair(name, 0, start1, start2, false, false, "50M", "50M", outie, !outie, 30);
+        builders.get(1 + pair % 2).addPair(name, 0, start1, start2, false, false, "50M", "50M", outie, !outie, 30);
+    }
+
+    private File write(final SAMRecordSetBuilder builder, final String name) {
+        final File bam = new File(tempDir, name);
+        final SAMFileWriter writer = new SAMFileWriterFactory().makeBAMWriter(builder.getHeader(), true, bam);
+        for (final SAMRecord record : builder) writer.addAlignment(record);
+        writer.close();
+        return bam;
+    }
+
+    private JumpingLibraryMetrics run(final List<File> inputs, final int numThreads) throws IOException {
+        final File output = new File(tempDir, "jump_metrics." + inputs.size() + "." + numThreads);
+        final List<String> args = new ArrayList<String>();
+        for (final File input : inputs) args.add("INPUT=" + input.getAbsolutePath());
+        args.add("OUTPUT=" + output.getAbsolutePath());
+        args.add("CHIMERA_KB_MIN=1000");
+        args.add("NUM_THREADS=" + numThreads);
+        Assert.assertEquals(runPicardCommandLine(args), 0);
+
+        final MetricsFile<JumpingLibraryMetrics, Comparable<?>> metricsFile = new MetricsFile<JumpingLibraryMetrics, Comparable<?>>();
+        metricsFile.read(new FileReader(output));
+        Assert.assertEquals(metricsFile.getMetrics().size(), 1);
+        return metricsFile.getMetrics().get(0);
+    }
+
+    @Test
+    public void testClassification() throws IOException {
+        final JumpingLibraryMetrics metrics = run(Collections.singletonList(whole), 1);
+        // The pair 2kb apart is longer than CHIMERA_KB_MIN but shorter than the mode, so is not a chimera
+        Assert.assertEquals(metrics.JUMP_PAIRS, NUM_OUTIES + 1);
+        Assert.assertEquals(metrics.NONJUMP_PAIRS, NUM_INNIES);
+        Assert.assertEquals(metrics.CHIMERIC_PAIRS, 1);
+        Assert.assertEquals(metrics.FRAGMENTS, 0);
+        Assert.assertTrue(metrics.JUMP_MEAN_INSERT_SIZE > 2000 && metrics.JUMP_MEAN_INSERT_SIZE < 4000, "" + metrics.JUMP_MEAN_INSERT_SIZE);
+    }
+
+    @Test
+    public void testInputsCountedTogether() throws IOException {
+        final JumpingLibraryMetrics expected = run(Collections.singletonList(whole), 1);
+        Assert.assertEquals(run(halves, 1), expected);
+        Assert.assertEquals(run(halves, 2), expected);
+    }
+}
@@ -41,6 +41,7 @@ import picard.annotation.RefFlatReader.RefFlatColumns;
 import java.io.File;
 import java.io.FileReader;
 import java.io.PrintStream;
+import java.util.Arrays;
 
 public class CollectRnaSeqMetricsTest extends CommandLineProgramTest {
     public String getCommandLineProgramName() {
@@ -172,6 +173,15 @@ public class CollectRnaSeqMetricsTest extends CommandLineProgramTest {
         };
         Assert.assertEquals(runPicardCommandLine(args), 0);
 
+        // Collecting the levels in parallel must give exactly the same metrics
+        final File parallelMetricsFile = File.createTempFile("tmp.", ".rna_metrics");
+        parallelMetricsFile.deleteOnExit();
+        final String[] parallelArgs = Arrays.copyOf(args, args.length + 1);
+        parallelArgs[1] = "OUTPUT=" + parallelMetricsFile.getAbsolutePath();
+        parallelArgs[args.length] = "COLLECT_LEVELS_IN_PARALLEL=true";
+        Assert.assertEquals(runPicardCommandLine(parallelArgs), 0);
+        Assert.assertTrue(MetricsFile.areMetricsAndHistogramsEqual(metricsFile, parallelMetricsFile));
+
         final MetricsFile<RnaSeqMetrics, Comparable<?>> output = new MetricsFile<RnaSeqMetrics, Comparable<?>>();
         output.read(new FileReader(metricsFile));
 
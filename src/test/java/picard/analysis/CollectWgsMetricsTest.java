@@ -102,6 +102,29 @@ public class CollectWgsMetricsTest extends CommandLineProgramTest {
         }
     }
 
+    @Test(dataProvider = "wgsDataProvider")
+    public void testExactHetSensitivity(final File input, final File outfile, final String referenceFile) throws IOException {
+        final File exactOutfile = File.createTempFile("test", ".wgs_metrics");
+        exactOutfile.deleteOnExit();
+
+        final String[] args = new String[] {
+                "INPUT="  + input.getAbsolutePath(),
+                "OUTPUT=" + exactOutfile.getAbsolutePath(),
+                "REFERENCE_SEQUENCE=" + referenceFile,
+                "EXACT_HET_SENSITIVITY=true"
+        };
+        Assert.assertEquals(runPicardCommandLine(args), 0);
+
+        final MetricsFile<CollectWgsMetrics.WgsMetrics, Comparable<?>> output = new MetricsFile<>();
+        output.read(new FileReader(exactOutfile));
+
+        for (final CollectWgsMetrics.WgsMetrics metrics : output.getMetrics()) {
+            Assert.assertEquals(metrics.MEAN_COVERAGE, 13.985155, .02);
+            Assert.assertEquals(metrics.HET_SNP_SENSITIVITY, 0.056362, .02);
+            Assert.assertEquals(metrics.HET_SNP_Q, 0.0);
+        }
+    }
+
     //create a samfile for testing.
     @BeforeTest
     void setupBuilder() throws IOException {
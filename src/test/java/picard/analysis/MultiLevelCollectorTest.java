@@ -16,10 +16,12 @@ import picard.metrics.MultilevelMetrics;
 import picard.metrics.PerUnitMetricCollector;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static htsjdk.samtools.util.CollectionUtil.makeSet;
 
@@ -65,10 +67,10 @@ public class MultiLevelCollectorTest {
         //The number of times records were accepted by a RecordCountPerUnitCollectors (note since the same
         //samRecord might be aggregated by multiple PerUnit collectors, this may be greater than the number of
         //records in the file
-        private int numProcessed = 0;
+        private final AtomicInteger numProcessed = new AtomicInteger();
 
         public int getNumProcessed() {
-            return numProcessed;
+            return numProcessed.get();
         }
 
         private final Map<String, TotalNumberMetric> unitsToMetrics = new HashMap<String, TotalNumberMetric>();
@@ -100,7 +102,7 @@ public class MultiLevelCollectorTest {
 
             @Override
             public void acceptRecord(final TestArg args) {
-                numProcessed += 1;
+                numProcessed.incrementAndGet();
                 metric.TALLY += 1;
                 if(metric.SAMPLE != null) {
                     Assert.assertEquals(metric.SAMPLE, args.samRecord.getReadGroup().getSample());
@@ -126,6 +128,19 @@ public class MultiLevelCollectorTest {
         }
     }
 
+    /** Counts records as RecordCountMultiLevelCollector does, with each accumulation level on a thread of its own. */
+    class ParallelRecordCountMultiLevelCollector extends RecordCountMultiLevelCollector {
+        public ParallelRecordCountMultiLevelCollector(final Set<MetricAccumulationLevel> accumulationLevels, final List<SAMReadGroupRecord> samRgRecords) {
+            super(accumulationLevels, samRgRecords);
+            setCollectLevelsInParallel(true);
+        }
+
+        @Override
+        protected boolean supportsParallelLevels() {
+            return true;
+        }
+    }
+
     public static final Map<MetricAccumulationLevel, Map<String, Integer>> accumulationLevelToPerUnitReads = new HashMap<MetricAccumulationLevel, Map<String, Integer>>();
     static {
         HashMap<String, Integer> curMap = new HashMap<String, Integer>();
@@ -168,9 +183,25 @@ public class MultiLevelCollectorTest {
     public void multilevelCollectorTest(final Set<MetricAccumulationLevel> accumulationLevels) {
         final SamReader in = SamReaderFactory.makeDefault().open(TESTFILE);
         final RecordCountMultiLevelCollector collector = new RecordCountMultiLevelCollector(accumulationLevels, in.getFileHeader().getReadGroups());
+        runCollector(in, collector, accumulationLevels, 1);
+    }
+
+    @Test(dataProvider = "variedAccumulationLevels")
+    public void parallelMultilevelCollectorTest(final Set<MetricAccumulationLevel> accumulationLevels) {
+        final SamReader in = SamReaderFactory.makeDefault().open(TESTFILE);
+        final RecordCountMultiLevelCollector collector = new ParallelRecordCountMultiLevelCollector(accumulationLevels, in.getFileHeader().getReadGroups());
+        //pass the records many times over so that they are handed to the level threads in several batches
+        runCollector(in, collector, accumulationLevels, 250);
+    }
 
-        for (final SAMRecord rec : in) {
-            collector.acceptRecord(rec, null);
+    private void runCollector(final SamReader in, final RecordCountMultiLevelCollector collector,
+                              final Set<MetricAccumulationLevel> accumulationLevels, final int passes) {
+        final List<SAMRecord> records = new ArrayList<SAMRecord>();
+        for (final SAMRecord rec : in) records.add(rec);
+        for (int pass = 0; pass < passes; pass++) {
+            for (final SAMRecord rec : records) {
+                collector.acceptRecord(rec, null);
+            }
         }
 
         collector.finish();
@@ -181,7 +212,7 @@ public class MultiLevelCollectorTest {
             final Map<String, Integer> keyToMetrics = accumulationLevelToPerUnitReads.get(level);
             for(final Map.Entry<String, Integer> entry : keyToMetrics.entrySet()) {
                 final TotalNumberMetric metric = collector.getUnitsToMetrics().get(entry.getKey());
-                Assert.assertEquals(entry.getValue(), metric.TALLY);
+                Assert.assertEquals(metric.TALLY, Integer.valueOf(entry.getValue() * passes));
                 Assert.assertTrue(metric.FINISHED);
                 totalProcessed += metric.TALLY;
                 totalMetrics   += 1;
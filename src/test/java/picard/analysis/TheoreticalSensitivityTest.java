@@ -194,6 +194,69 @@ public class TheoreticalSensitivityTest {
         Assert.assertEquals(result, expectedResult, tolerance);
     }
 
+    @Test
+    public void testProbabilitiesAboveThresholdsByConvolution() throws Exception {
+        //qualities 0, 1, 2 with probabilities 1/4, 1/4, 1/2 (given unnormalized)
+        final double[] qualityDistribution = {1.0, 1.0, 2.0};
+        final double[] thresholds = {-1.0, 0.5, 2.0, 3.5};
+        final double[][] probabilities = TheoreticalSensitivity.probabilitiesAboveThresholds(qualityDistribution, 4, thresholds);
+
+        //enumerate every sequence of m qualities to find the exact probabilities
+        for (int m = 0; m < 4; m++) {
+            final double[] expected = new double[thresholds.length];
+            final int sequences = (int) Math.pow(3, m);
+            for (int sequence = 0; sequence < sequences; sequence++) {
+                int sum = 0;
+                double probability = 1.0;
+                for (int i = 0, rest = sequence; i < m; i++, rest /= 3) {
+                    sum += rest % 3;
+                    probability *= qualityDistribution[rest % 3] / 4.0;
+                }
+                for (int n = 0; n < thresholds.length; n++) if (sum >= thresholds[n]) expected[n] += probability;
+            }
+            for (int n = 0; n < thresholds.length; n++) Assert.assertEquals(probabilities[m][n], expected[n], 1e-12);
+        }
+    }
+
+    @Test
+    public void testDeterministicQualityAndDepthByConvolution() throws Exception {
+        final double logOddsThreshold = 0.0;
+        for (int q = 5; q < 10; q++) {
+            for (int n = 5; n < 10; n++) {
+                final double[] qualityDistribution = new double[q+1];
+                qualityDistribution[q] = 1.0;
+                final double[] depthDistribution = new double[n+1];
+                depthDistribution[n] = 1.0;
+
+                final double expected = TheoreticalSensitivity.hetSNPSensitivity(depthDistribution, qualityDistribution, 1, logOddsThreshold, false);
+                final double result = TheoreticalSensitivity.hetSNPSensitivityByConvolution(depthDistribution, qualityDistribution, logOddsThreshold);
+                Assert.assertEquals(result, expected, 1e-12);
+            }
+        }
+    }
+
+    @Test
+    public void testHetSensDistributionsByConvolution() throws Exception {
+        //the exact calculation should agree with the sampled one to within its sampling error
+        final double [] depthDistribution = new double[501];
+        final double [] qualityDistribution = new double[50];
+
+        final Scanner scanDepth = new Scanner(DEPTH);
+        for (int i = 0; scanDepth.hasNextDouble(); i++) {
+            depthDistribution[i] = scanDepth.nextDouble();
+        }
+        final Scanner scanBaseQ = new Scanner(BASEQ);
+        for (int j = 0; scanBaseQ.hasNextDouble(); j++) {
+            qualityDistribution[j] = scanBaseQ.nextDouble();
+        }
+
+        final double logOddsThreshold = 3.0;
+        final double sampled = TheoreticalSensitivity.hetSNPSensitivity(depthDistribution, qualityDistribution, 1_000, logOddsThreshold, false);
+        final double exact = TheoreticalSensitivity.hetSNPSensitivityByConvolution(depthDistribution, qualityDistribution, logOddsThreshold);
+        Assert.assertEquals(exact, .9617, 0.02);
+        Assert.assertEquals(exact, sampled, 0.01);
+    }
+
     @DataProvider(name = "hetSensDataProvider")
     public Object[][] hetSensDataProvider() {
         final File wgsMetricsFile = new File(TEST_DIR, "test_Solexa-332667.wgs_metrics");
@@ -0,0 +1,134 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026 The Broad Institute
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package picard.annotation;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class LocusFunctionTrackTest {
+    private static final String CHR1 = "chr1";
+    private static final String CHR2 = "chr2";
+    private static final int SEQUENCE_LENGTH = 5000;
+
+    /** Makes genes of one to three transcripts, each of a few exons, at random and often overlapping positions. */
+    private static List<Gene> makeRandomGenes(final Random random, final String sequence, final int numGenes) {
+        final List<Gene> genes = new ArrayList<Gene>();
+        for (int g = 0; g < numGenes; g++) {
+            final int geneStart = 1 + random.nextInt(SEQUENCE_LENGTH - 1000);
+            final int numTranscripts = 1 + random.nextInt(3);
+            final int[][] exonsByTranscript = new int[numTranscripts][];
+            int geneEnd = geneStart;
+            for (int t = 0; t < numTranscripts; t++) {
+                final int numExons = 1 + random.nextInt(4);
+                final int[] exons = new int[2 * numExons];
+                int position = geneStart + random.nextInt(50);
+                for (int e = 0; e < numExons; e++) {
+                    exons[2 * e] = position;
+                    exons[2 * e + 1] = position + random.nextInt(100);
+                    position = exons[2 * e + 1] + 1 + random.nextInt(150);
+                }
+                exonsByTranscript[t] = exons;
+                geneEnd = Math.max(geneEnd, exons[exons.length - 1]);
+            }
+
+            final Gene gene = new Gene(sequence, geneStart, geneEnd, random.nextBoolean(), "gene" + g);
+            for (int t = 0; t < numTranscripts; t++) {
+                final int[] exons = exonsByTranscript[t];
+                final int transcriptionStart = exons[0];
+                final int transcriptionEnd = exons[exons.length - 1];
+                // Some transcripts are non-coding, with the coding start after the coding end
+                final int codingStart = random.nextInt(4) == 0 ? transcriptionEnd + 1 : transcriptionStart + random.nextInt(transcriptionEnd - transcriptionStart + 1);
+                final int codingEnd = random.nextInt(4) == 0 ? codingStart - 1 : codingStart + random.nextInt(transcriptionEnd - codingStart + 2);
+                final Gene.Transcript tx = gene.addTranscript("tx" + g + "." + t, transcriptionStart, transcriptionEnd, codingStart, codingEnd, exons.length / 2);
+                for (int e = 0; e < exons.length; e += 2) tx.addExon(exons[e], exons[e + 1]);
+            }
+            genes.add(gene);
+        }
+        return genes;
+    }
+
+    /** The function of each position from start to end as assigned one transcript at a time. */
+    private static LocusFunction[] assignOneTranscriptAtATime(final List<Gene> genes, final String sequence, final int start, final int end) {
+        final LocusFunction[] functions = new LocusFunction[end - start + 1];
+        Arrays.fill(functions, LocusFunction.INTERGENIC);
+        for (final Gene gene : genes) {
+            if (!gene.getContig().equals(sequence)) continue;
+            for (final Gene.Transcript tx : gene) tx.assignLocusFunctionForRange(start, functions);
+        }
+        return functions;
+    }
+
+    @Test
+    public void testTrackAgreesWithTranscripts() {
+        final Random random = new Random(37);
+        final List<Gene> genes = makeRandomGenes(random, CHR1, 40);
+        genes.addAll(makeRandomGenes(random, CHR2, 3));
+        final LocusFunctionTrack track = new LocusFunctionTrack(genes);
+
+        for (final String sequence : new String[]{CHR1, CHR2, "chrUn"}) {
+            final LocusFunction[] expected = assignOneTranscriptAtATime(genes, sequence, 1, SEQUENCE_LENGTH);
+            for (int position = 1; position <= SEQUENCE_LENGTH; position++) {
+                Assert.assertEquals(track.getLocusFunction(sequence, position), expected[position - 1], sequence + ":" + position);
+            }
+
+            for (int i = 0; i < 500; i++) {
+                final int start = 1 + random.nextInt(SEQUENCE_LENGTH);
+                final int end = Math.min(SEQUENCE_LENGTH, start + random.nextInt(300));
+                final long[] expectedCounts = new long[LocusFunction.values().length];
+                for (int position = start; position <= end; position++) expectedCounts[expected[position - 1].ordinal()]++;
+
+                final long[] counts = new long[LocusFunction.values().length];
+                track.countLocusFunctions(sequence, start, end, counts);
+                Assert.assertEquals(counts, expectedCounts, sequence + ":" + start + "-" + end);
+            }
+        }
+    }
+
+    @Test
+    public void testAddCoverageCounts() {
+        final Random random = new Random(41);
+        for (final Gene gene : makeRandomGenes(random, CHR1, 20)) {
+            for (final Gene.Transcript tx : gene) {
+                for (int i = 0; i < 20; i++) {
+                    final int start = tx.start() - 20 + random.nextInt(tx.end() - tx.start() + 40);
+                    final int end = start + random.nextInt(200);
+
+                    final int[] expected = new int[tx.length()];
+                    for (int position = start; position < end; position++) {
+                        final int txBase = tx.getTranscriptCoordinate(position);
+                        if (txBase > 0) expected[txBase - 1]++;
+                    }
+                    final int[] coverage = new int[tx.length()];
+                    tx.addCoverageCounts(start, end, coverage);
+                    Assert.assertEquals(coverage, expected);
+                }
+            }
+        }
+    }
+}
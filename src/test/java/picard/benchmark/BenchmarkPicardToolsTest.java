@@ -0,0 +1,122 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026 The Broad Institute
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package picard.benchmark;
+
+import htsjdk.samtools.metrics.MetricsFile;
+import htsjdk.samtools.util.IOUtil;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+import picard.cmdline.CommandLineProgramTest;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class BenchmarkPicardToolsTest extends CommandLineProgramTest {
+    private static final File TEST_DIR = IOUtil.createTempDir("BenchmarkPicardToolsTest", null);
+
+    public String getCommandLineProgramName() {
+        return BenchmarkPicardTools.class.getSimpleName();
+    }
+
+    @AfterClass
+    public void teardown() {
+        IOUtil.deleteDirectoryTree(TEST_DIR);
+    }
+
+    @Test
+    public void testBenchmarkAllTools() throws IOException {
+        final File output = new File(TEST_DIR, "benchmark_metrics");
+        final List<String> args = new ArrayList<String>();
+        args.add("OUTPUT=" + output.getAbsolutePath());
+        args.add("WORKING_DIR=" + new File(TEST_DIR, "work").getAbsolutePath());
+        args.add("ITERATIONS=2");
+        args.add("NUM_CONTIGS=2");
+        args.add("CONTIG_LENGTH=20000");
+        args.add("READ_LENGTH=36");
+        args.add("NUM_TILES=2");
+        args.add("CLUSTERS_PER_TILE=100");
+        args.add("NUM_READ_PAIRS=500");
+        args.add("NUM_VARIANTS=200");
+        args.add("NUM_SAMPLES=3");
+        Assert.assertEquals(runPicardCommandLine(args), 0);
+
+        final MetricsFile<BenchmarkMetrics, Comparable<?>> metricsFile = new MetricsFile<BenchmarkMetrics, Comparable<?>>();
+        metricsFile.read(new FileReader(output));
+        final List<BenchmarkMetrics> metrics = metricsFile.getMetrics();
+
+        final BenchmarkPicardTools.BenchmarkedTool[] tools = BenchmarkPicardTools.BenchmarkedTool.values();
+        Assert.assertEquals(metrics.size(), 2 * tools.length);
+        for (int i = 0; i < metrics.size(); ++i) {
+            final BenchmarkMetrics metric = metrics.get(i);
+            Assert.assertEquals(metric.TOOL, tools[i / 2].name());
+            Assert.assertEquals(metric.ITERATION, i % 2 + 1);
+            Assert.assertTrue(metric.WALL_TIME_SECONDS > 0);
+            Assert.assertTrue(metric.PEAK_HEAP_BYTES > 0);
+        }
+
+        // The outputs of the tools are removed after each run, leaving only the inputs
+        Assert.assertEquals(new File(TEST_DIR, "work").list(), new String[]{"inputs"});
+    }
+
+    @Test
+    public void testBenchmarkOneTool() throws IOException {
+        final File output = new File(TEST_DIR, "benchmark_sort_vcf_metrics");
+        final File workingDir = new File(TEST_DIR, "work_sort_vcf");
+        final List<String> args = new ArrayList<String>();
+        args.add("OUTPUT=" + output.getAbsolutePath());
+        args.add("WORKING_DIR=" + workingDir.getAbsolutePath());
+        args.add("TOOL=SortVcf");
+        args.add("ITERATIONS=2");
+        args.add("NUM_CONTIGS=2");
+        args.add("CONTIG_LENGTH=20000");
+        args.add("NUM_VARIANTS=200");
+        args.add("NUM_SAMPLES=3");
+        Assert.assertEquals(runPicardCommandLine(args), 0);
+
+        final MetricsFile<BenchmarkMetrics, Comparable<?>> metricsFile = new MetricsFile<BenchmarkMetrics, Comparable<?>>();
+        metricsFile.read(new FileReader(output));
+        final List<BenchmarkMetrics> metrics = metricsFile.getMetrics();
+        Assert.assertEquals(metrics.size(), 2);
+        for (final BenchmarkMetrics metric : metrics) {
+            Assert.assertEquals(metric.TOOL, BenchmarkPicardTools.BenchmarkedTool.SortVcf.name());
+        }
+    }
+
+    @Test
+    public void testInputsAreReproducible() {
+        final File dir1 = new File(TEST_DIR, "seed1"), dir2 = new File(TEST_DIR, "seed2");
+        dir1.mkdirs();
+        dir2.mkdirs();
+        final SyntheticInputs inputs1 = new SyntheticInputs(dir1, 7);
+        final SyntheticInputs inputs2 = new SyntheticInputs(dir2, 7);
+        IOUtil.assertFilesEqual(inputs1.writeReference(3, 5000), inputs2.writeReference(3, 5000));
+        // Variants are drawn the same whether or not reads were drawn first
+        inputs1.writeReadPairs(100, 50, 0.2);
+        IOUtil.assertFilesEqual(inputs1.writeUnsortedVcf(50, 2), inputs2.writeUnsortedVcf(50, 2));
+    }
+}
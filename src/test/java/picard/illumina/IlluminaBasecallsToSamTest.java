@@ -23,6 +23,7 @@
  */
 package picard.illumina;
 
+import htsjdk.samtools.metrics.MetricsFile;
 import htsjdk.samtools.util.BufferedLineReader;
 import htsjdk.samtools.util.IOUtil;
 import htsjdk.samtools.util.LineReader;
@@ -34,6 +35,7 @@ import picard.cmdline.CommandLineProgramTest;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileReader;
 import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -241,6 +243,64 @@ public class IlluminaBasecallsToSamTest extends CommandLineProgramTest {
         runStandardTest(1, "multiplexedBarcode2.", "barcode.params", 1, "25T8B4M4M17T", BASECALLS_DIR, TEST_DATA_DIR_WITH_4M4M_INDEX);
     }
 
+    // Same as testMultiplexed, but with a RAM budget small enough that all barcodes of a tile share one SortingCollection
+    @Test
+    public void testMultiplexedWithSharedTileSort() throws Exception {
+        runStandardTest(1, "multiplexedBarcodeSharedSort.", "barcode.params", 1, "25T8B25T", BASECALLS_DIR, TEST_DATA_DIR,
+                "MAX_READS_IN_RAM_PER_TILE=100");
+    }
+
+    // Same as testMultiplexed, but barcodes are matched in-process rather than read from the _barcode.txt files
+    @Test
+    public void testMultiplexedWithInProcessBarcodeMatching() throws Exception {
+        final File metricsFile = File.createTempFile("multiplexedBarcodeInProcess.", ".barcode_metrics");
+        metricsFile.deleteOnExit();
+        runStandardTest(1, "multiplexedBarcodeInProcess.", "barcode_named.params", 1, "25T8B25T", BASECALLS_DIR, TEST_DATA_DIR,
+                "BARCODE_METRICS_FILE=" + metricsFile);
+
+        // The metrics must be those ExtractIlluminaBarcodes writes for the same lane and barcodes
+        final File barcodesDir = File.createTempFile("multiplexedBarcodeInProcess.", ".barcodes");
+        Assert.assertTrue(barcodesDir.delete());
+        Assert.assertTrue(barcodesDir.mkdir());
+        final File barcodeFile = new File(barcodesDir, "barcodes.txt");
+        final LineReader reader = new BufferedLineReader(new FileInputStream(new File(TEST_DATA_DIR, "barcode_named.params")));
+        final PrintWriter writer = new PrintWriter(barcodeFile);
+        reader.readLine();
+        writer.println("barcode_sequence_1\tlibrary_name\tbarcode_name");
+        String line;
+        while ((line = reader.readLine()) != null) {
+            final String[] fields = line.split("\t");
+            if (!fields[0].equals("N")) writer.println(fields[0] + "\t" + fields[2] + "\t" + fields[3]);
+        }
+        writer.close();
+        reader.close();
+
+        final File extractedMetricsFile = new File(barcodesDir, "extracted.barcode_metrics");
+        Assert.assertEquals(new ExtractIlluminaBarcodes().instanceMain(new String[]{
+                "BASECALLS_DIR=" + BASECALLS_DIR,
+                "OUTPUT_DIR=" + barcodesDir,
+                "LANE=1",
+                "READ_STRUCTURE=25T8B25T",
+                "BARCODE_FILE=" + barcodeFile,
+                "METRICS_FILE=" + extractedMetricsFile
+        }), 0);
+
+        final MetricsFile<ExtractIlluminaBarcodes.BarcodeMetric, Integer> metrics = new MetricsFile<ExtractIlluminaBarcodes.BarcodeMetric, Integer>();
+        metrics.read(new FileReader(metricsFile));
+        final MetricsFile<ExtractIlluminaBarcodes.BarcodeMetric, Integer> extracted = new MetricsFile<ExtractIlluminaBarcodes.BarcodeMetric, Integer>();
+        extracted.read(new FileReader(extractedMetricsFile));
+        TestUtil.recursiveDelete(barcodesDir);
+
+        // One metric per barcode in barcode_named.params, excluding the N row, plus the no-match metric
+        Assert.assertEquals(metrics.getMetrics().size(), 62);
+        Assert.assertEquals(metrics.getMetrics().size(), extracted.getMetrics().size());
+        for (int i = 0; i < extracted.getMetrics().size(); i++) {
+            final ExtractIlluminaBarcodes.BarcodeMetric metric = metrics.getMetrics().get(i);
+            Assert.assertEquals(metric, extracted.getMetrics().get(i), metric.BARCODE);
+        }
+        Assert.assertEquals(metrics.getMetrics().get(0).BARCODE_NAME, "BN_AAAAAAAA");
+    }
+
     //Same as testMultiplexed except we use BARCODE_1 instead of BARCODE
     @Test
     public void testMultiplexedWithAlternateBarcodeName() throws Exception {
@@ -278,11 +338,13 @@ public class IlluminaBasecallsToSamTest extends CommandLineProgramTest {
      * @param libraryParamsFile
      * @param concatNColumnFields
      * @param readStructure
+     * @param extraArgs
      * @throws Exception
      */
     private void runStandardTest(final int lane, final String jobName, final String libraryParamsFile,
                                  final int concatNColumnFields, final String readStructure,
-                                 final File baseCallsDir, final File testDataDir) throws Exception {
+                                 final File baseCallsDir, final File testDataDir,
+                                 final String... extraArgs) throws Exception {
         final File outputDir = File.createTempFile(jobName, ".dir");
         outputDir.delete();
         outputDir.mkdir();
@@ -309,13 +371,15 @@ public class IlluminaBasecallsToSamTest extends CommandLineProgramTest {
         writer.close();
         reader.close();
 
-        Assert.assertEquals(runPicardCommandLine(new String[]{
+        final List<String> args = new ArrayList<String>(Arrays.asList(
                 "BASECALLS_DIR=" + baseCallsDir,
                 "LANE=" + lane,
                 "RUN_BARCODE=HiMom",
                 "READ_STRUCTURE=" + readStructure,
                 "LIBRARY_PARAMS=" + libraryParams
-        }), 0);
+        ));
+        args.addAll(Arrays.asList(extraArgs));
+        Assert.assertEquals(runPicardCommandLine(args), 0);
 
         for (final File outputSam : samFiles) {
             IOUtil.assertFilesEqual(outputSam, new File(testDataDir, outputSam.getName()));
@@ -202,6 +202,61 @@ public class IlluminaDataProviderTest {
         runTest(testName, size, readNoToClusterData, seekAfterFirstRead, seekTestDataReadOffset, dataProvider);
     }
 
+    @DataProvider(name = "batchData")
+    public Object[][] batchData() {
+        return new Object[][]{
+                {"25T8B25T", 7},
+                {"25T8S25T", 1},
+                {"25S8S25T", 64},
+                {"25T8B1S", 1000}
+        };
+    }
+
+    @Test(dataProvider = "batchData")
+    public void testBatchesMatchClusters(final String illuminaConfigStr, final int capacity) {
+        final IlluminaDataType[] dts = getDataTypes(new IlluminaDataType[]{IlluminaDataType.Barcodes});
+        final Map<Integer, ClusterData> readNoToClusterData = BinTdUtil.clusterData(1, makeList(1101, 1201, 2101), illuminaConfigStr, dts);
+        final IlluminaDataProviderFactory factory = new IlluminaDataProviderFactory(BINARY_TD_LOCATION, 1, new ReadStructure(illuminaConfigStr), bclQualityEvaluationStrategy, dts);
+        final IlluminaDataProvider clusters = factory.makeDataProvider();
+        final IlluminaDataProvider batches = factory.makeDataProvider();
+
+        final ClusterBatch batch = batches.newBatch(capacity);
+        int readNum = 0;
+        while (batches.nextBatch(batch) > 0) {
+            Assert.assertTrue(batch.size() <= capacity);
+            for (int i = 0; i < batch.size(); i++) {
+                final String testName = illuminaConfigStr + " cluster num " + readNum;
+                Assert.assertTrue(clusters.hasNext());
+                compareBatchCluster(batch, i, clusters.next(), testName);
+                if (readNoToClusterData.containsKey(readNum)) {
+                    compareBatchCluster(batch, i, readNoToClusterData.get(readNum), testName);
+                }
+                readNum++;
+            }
+        }
+        Assert.assertFalse(clusters.hasNext());
+        Assert.assertEquals(readNum, 180);
+        clusters.close();
+        batches.close();
+    }
+
+    private void compareBatchCluster(final ClusterBatch batch, final int cluster, final ClusterData expected, final String testName) {
+        Assert.assertEquals(batch.getLane(), expected.getLane(), testName);
+        Assert.assertEquals(batch.getTile(cluster), expected.getTile(), testName);
+        Assert.assertEquals(batch.getX(cluster), expected.getX(), testName);
+        Assert.assertEquals(batch.getY(cluster), expected.getY(), testName);
+        Assert.assertEquals(batch.isPf(cluster), expected.isPf(), testName);
+        Assert.assertEquals(batch.getMatchedBarcode(cluster), expected.getMatchedBarcode(), testName);
+        Assert.assertEquals(batch.getNumReads(), expected.getNumReads(), testName);
+        for (int read = 0; read < batch.getNumReads(); read++) {
+            final int from = batch.getReadOffset(cluster, read);
+            final int to = from + batch.getReadLength(read);
+            Assert.assertEquals(batch.getReadType(read), expected.getRead(read).getReadType(), testName);
+            Assert.assertEquals(Arrays.copyOfRange(batch.getBases(), from, to), expected.getRead(read).getBases(), testName);
+            Assert.assertEquals(Arrays.copyOfRange(batch.getQualities(), from, to), expected.getRead(read).getQualities(), testName);
+        }
+    }
+
     //Unlike above, the data types here do not have DEFAULT_DATA_TYPES added before creating the dataProvider
     @DataProvider(name = "badData")
     public Object[][] badData() {
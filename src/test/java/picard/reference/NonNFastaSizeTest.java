@@ -84,4 +84,23 @@ public class NonNFastaSizeTest {
             System.err.println("Failed to read in count because of error: " + e.getMessage());
         }
     }
+
+    @Test
+    public void withIntervalsOnThreads() throws IOException {
+        final File input = new File(REFERENCE);
+        final File outfile = File.createTempFile("nonNcount", ".txt");
+        final File intervals = new File("testdata/picard/reference/test.intervals");
+        outfile.deleteOnExit();
+        final String[] args = new String[] {
+                "INPUT="  + input.getAbsolutePath(),
+                "OUTPUT=" + outfile.getAbsolutePath(),
+                "INTERVALS=" + intervals.getAbsolutePath(),
+                "NUM_THREADS=3"
+        };
+        Assert.assertEquals(new NonNFastaSize().instanceMain(args), 0);
+
+        final BufferedReader reader = IOUtil.openFileForBufferedReading(outfile);
+        Assert.assertEquals(Long.parseLong(reader.readLine()), 53);
+        reader.close();
+    }
 }
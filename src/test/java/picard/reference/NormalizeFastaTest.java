@@ -0,0 +1,63 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026 The Broad Institute
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package picard.reference;
+
+import htsjdk.samtools.util.IOUtil;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import picard.cmdline.CommandLineProgramTest;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+public class NormalizeFastaTest extends CommandLineProgramTest {
+    private static final File DESCRIPTIONS_FASTA = new File("testdata/picard/reference/descriptions.fasta");
+
+    public String getCommandLineProgramName() {
+        return NormalizeFasta.class.getSimpleName();
+    }
+
+    @Test
+    public void testThreadsKeepUntruncatedNamesOfIndexedReference() throws IOException {
+        final List<String> expected = normalize(DESCRIPTIONS_FASTA, 1);
+        final List<String> threaded = normalize(DESCRIPTIONS_FASTA, 3);
+
+        Assert.assertEquals(expected.get(0), ">chr1 first test contig");
+        Assert.assertEquals(threaded, expected);
+    }
+
+    private List<String> normalize(final File input, final int numThreads) throws IOException {
+        final File output = File.createTempFile("NormalizeFastaTest.", ".fasta");
+        output.deleteOnExit();
+        final String[] args = {
+                "INPUT=" + input.getAbsolutePath(),
+                "OUTPUT=" + output.getAbsolutePath(),
+                "LINE_LENGTH=60",
+                "NUM_THREADS=" + numThreads
+        };
+        Assert.assertEquals(runPicardCommandLine(args), 0);
+        return IOUtil.slurpLines(output);
+    }
+}
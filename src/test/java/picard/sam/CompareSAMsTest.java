@@ -23,11 +23,18 @@
  */
 package picard.sam;
 
+import htsjdk.samtools.SAMFileWriter;
+import htsjdk.samtools.SAMFileWriterFactory;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SamReader;
+import htsjdk.samtools.SamReaderFactory;
 import org.testng.Assert;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 import picard.cmdline.CommandLineProgramTest;
 
 import java.io.File;
+import java.io.IOException;
 
 public class CompareSAMsTest extends CommandLineProgramTest {
     private static final File TEST_FILES_DIR = new File("testdata/picard/sam/CompareSAMs");
@@ -142,4 +149,48 @@ public class CompareSAMsTest extends CommandLineProgramTest {
         testHelper("unmapped_first.sam", "unmapped_first.sam", 1, 0, 1, 0, 0, 0, 0, true);
     }
 
+    @DataProvider(name = "indexedComparisons")
+    public Object[][] indexedComparisons() {
+        return new Object[][]{
+                {"genomic_sorted.sam", "genomic_sorted.sam", 2, 0, 0, 0, 0, 0, 0, true},
+                {"genomic_sorted_5.sam", "genomic_sorted_5_plus.sam", 3, 2, 0, 0, 0, 3, 0, false},
+                {"group_same_coord.sam", "group_same_coord_diff_order.sam", 3, 0, 0, 0, 0, 1, 2, false},
+                {"unmapped_first.sam", "unmapped_second.sam", 0, 0, 0, 1, 1, 0, 0, false}
+        };
+    }
+
+    @Test(dataProvider = "indexedComparisons")
+    public void testIndexedOnThreads(final String f1, final String f2, final int expectedMatch, final int expectedDiffer,
+                                     final int expectedUnmappedBoth, final int expectedUnmappedLeft, final int expectedUnmappedRight,
+                                     final int expectedMissingLeft, final int expectedMissingRight, final boolean areEqual) throws IOException {
+        final String[] args = {
+                toIndexedBam(f1).getAbsolutePath(),
+                toIndexedBam(f2).getAbsolutePath(),
+                "NUM_THREADS=2"
+        };
+        final CompareSAMs compareSAMs = new CompareSAMs();
+        Assert.assertEquals(compareSAMs.instanceMain(args), 0);
+        Assert.assertEquals(compareSAMs.areEqual(), areEqual);
+        Assert.assertEquals(compareSAMs.getMappingsMatch(), expectedMatch);
+        Assert.assertEquals(compareSAMs.getMappingsDiffer(), expectedDiffer);
+        Assert.assertEquals(compareSAMs.getUnmappedBoth(), expectedUnmappedBoth);
+        Assert.assertEquals(compareSAMs.getUnmappedLeft(), expectedUnmappedLeft);
+        Assert.assertEquals(compareSAMs.getUnmappedRight(), expectedUnmappedRight);
+        Assert.assertEquals(compareSAMs.getMissingLeft(), expectedMissingLeft);
+        Assert.assertEquals(compareSAMs.getMissingRight(), expectedMissingRight);
+    }
+
+    /** Writes the records of the test SAM to a temporary BAM with an index. */
+    private static File toIndexedBam(final String samName) throws IOException {
+        final SamReader reader = SamReaderFactory.makeDefault().open(new File(TEST_FILES_DIR, samName));
+        final File bam = File.createTempFile("CompareSAMsTest.", ".bam");
+        bam.deleteOnExit();
+        new File(bam.getParentFile(), bam.getName().replaceAll("\\.bam$", ".bai")).deleteOnExit();
+
+        final SAMFileWriter writer = new SAMFileWriterFactory().setCreateIndex(true).makeBAMWriter(reader.getFileHeader(), true, bam);
+        for (final SAMRecord record : reader) writer.addAlignment(record);
+        writer.close();
+        reader.close();
+        return bam;
+    }
 }
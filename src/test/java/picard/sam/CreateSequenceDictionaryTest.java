@@ -23,7 +23,10 @@
  */
 package picard.sam;
 
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
 import org.testng.Assert;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 import picard.cmdline.CommandLineProgramTest;
 import picard.PicardException;
@@ -55,6 +58,55 @@ public class CreateSequenceDictionaryTest extends CommandLineProgramTest {
         Assert.assertEquals(runPicardCommandLine(argv), 0);
     }
 
+    @DataProvider(name = "threadedReferences")
+    public Object[][] threadedReferences() {
+        return new Object[][]{
+                {BASIC_FASTA},                                          // read on the calling thread
+                {new File("testdata/picard/reference/test.fasta")}     // read through the index on the workers
+        };
+    }
+
+    @Test(dataProvider = "threadedReferences")
+    public void testThreadsMakeTheSameDictionary(final File reference) {
+        final SAMSequenceDictionary expected = makeSequenceDictionary(reference, 1);
+        final SAMSequenceDictionary threaded = makeSequenceDictionary(reference, 3);
+
+        Assert.assertEquals(threaded.size(), expected.size());
+        for (int i = 0; i < expected.size(); i++) {
+            final SAMSequenceRecord expectedRecord = expected.getSequence(i);
+            final SAMSequenceRecord threadedRecord = threaded.getSequence(i);
+            Assert.assertEquals(threadedRecord.getSequenceName(), expectedRecord.getSequenceName());
+            Assert.assertEquals(threadedRecord.getSequenceLength(), expectedRecord.getSequenceLength());
+            Assert.assertEquals(threadedRecord.getAttribute(SAMSequenceRecord.MD5_TAG), expectedRecord.getAttribute(SAMSequenceRecord.MD5_TAG));
+        }
+    }
+
+    @Test
+    public void testThreadsKeepUntruncatedNamesOfIndexedReference() {
+        final File reference = new File("testdata/picard/reference/descriptions.fasta");
+        final SAMSequenceDictionary expected = makeSequenceDictionary(reference, 1, false);
+        final SAMSequenceDictionary threaded = makeSequenceDictionary(reference, 3, false);
+
+        Assert.assertEquals(expected.getSequence(0).getSequenceName(), "chr1 first test contig");
+        Assert.assertEquals(threaded.size(), expected.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertEquals(threaded.getSequence(i).getSequenceName(), expected.getSequence(i).getSequenceName());
+            Assert.assertEquals(threaded.getSequence(i).getAttribute(SAMSequenceRecord.MD5_TAG), expected.getSequence(i).getAttribute(SAMSequenceRecord.MD5_TAG));
+        }
+    }
+
+    private static SAMSequenceDictionary makeSequenceDictionary(final File reference, final int numThreads) {
+        return makeSequenceDictionary(reference, numThreads, true);
+    }
+
+    private static SAMSequenceDictionary makeSequenceDictionary(final File reference, final int numThreads, final boolean truncateNames) {
+        final CreateSequenceDictionary program = new CreateSequenceDictionary();
+        program.URI = "file:" + reference.getAbsolutePath();
+        program.NUM_THREADS = numThreads;
+        program.TRUNCATE_NAMES_AT_WHITESPACE = truncateNames;
+        return program.makeSequenceDictionary(reference);
+    }
+
     /**
      * Should throw an exception because with TRUNCATE_NAMES_AT_WHITESPACE, sequence names are not unique.
      */
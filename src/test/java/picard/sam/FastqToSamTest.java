@@ -24,6 +24,7 @@
 package picard.sam;
 
 import htsjdk.samtools.SAMException;
+import htsjdk.samtools.SAMRecord;
 import htsjdk.samtools.SAMRecordIterator;
 import htsjdk.samtools.SamReader;
 import htsjdk.samtools.SamReaderFactory;
@@ -38,7 +39,9 @@ import picard.PicardException;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.PrintWriter;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -164,6 +167,68 @@ public class FastqToSamTest extends CommandLineProgramTest {
         convertFile(filename1, filename2, version);
     }
 
+    @Test(dataProvider = "badPairedFiles", expectedExceptions= PicardException.class)
+    public void testPairedBadOnThreads(final String filename1, final String filename2) throws IOException {
+        convertFile(filename1, filename2, FastqQualityFormat.Standard, false, false, 3);
+    }
+
+    @Test(dataProvider = "okPairedFiles")
+    public void testPairedOkOnThreads(final String filename1, final String filename2, final FastqQualityFormat version) throws IOException {
+        assertSameRecords(convertFile(filename1, filename2, version, false, false, 3), convertFile(filename1, filename2, version));
+    }
+
+    @Test(dataProvider = "okVersionFiles")
+    public void testFastqVersionOkOnThreads(final String fastqVersionFilename, final FastqQualityFormat version) throws IOException {
+        assertSameRecords(convertFile(fastqVersionFilename, null, version, false, false, 2), convertFile(fastqVersionFilename, version));
+    }
+
+    @Test
+    public void testManyBatchesOnThreads() throws IOException {
+        // More batches than may be in flight at once on two threads, the last of them partial
+        final int readCount = 5500;
+        final File fastq1 = newTempFile("manyBatches_1");
+        final File fastq2 = newTempFile("manyBatches_2");
+        writeFastq(fastq1, readCount, "/1");
+        writeFastq(fastq2, readCount, "/2");
+
+        assertSameRecords(convertFile(fastq1, fastq2, FastqQualityFormat.Standard, false, false, 2),
+                convertFile(fastq1, fastq2, FastqQualityFormat.Standard, false, false, 1));
+        assertSameRecords(convertFile(fastq1, null, FastqQualityFormat.Standard, false, false, 2),
+                convertFile(fastq1, null, FastqQualityFormat.Standard, false, false, 1));
+    }
+
+    private static void writeFastq(final File fastq, final int readCount, final String suffix) throws IOException {
+        final String bases = "ACGT";
+        try (final PrintWriter out = new PrintWriter(fastq)) {
+            for (int i = 0; i < readCount; ++i) {
+                final StringBuilder read = new StringBuilder();
+                final StringBuilder quals = new StringBuilder();
+                for (int j = 0; j < 20; ++j) {
+                    read.append(bases.charAt((i + j * j) % bases.length()));
+                    quals.append((char) ('!' + (i + j) % 41));
+                }
+                out.println("@read" + i + suffix);
+                out.println(read);
+                out.println("+");
+                out.println(quals);
+            }
+        }
+    }
+
+    private static void assertSameRecords(final File actual, final File expected) throws IOException {
+        final SamReader actualReader = SamReaderFactory.makeDefault().open(actual);
+        final SamReader expectedReader = SamReaderFactory.makeDefault().open(expected);
+        final Iterator<SAMRecord> actualIterator = actualReader.iterator();
+        final Iterator<SAMRecord> expectedIterator = expectedReader.iterator();
+        while (expectedIterator.hasNext()) {
+            Assert.assertTrue(actualIterator.hasNext());
+            Assert.assertEquals(actualIterator.next().getSAMString(), expectedIterator.next().getSAMString());
+        }
+        Assert.assertFalse(actualIterator.hasNext());
+        actualReader.close();
+        expectedReader.close();
+    }
+
     private File convertFile(final String filename, final FastqQualityFormat version) throws IOException {
         return convertFile(filename, null, version);
     }
@@ -177,12 +242,30 @@ public class FastqToSamTest extends CommandLineProgramTest {
     }
 
     private File convertFile(final String fastqFilename1,
-                             final String fastqFilename2, 
+                             final String fastqFilename2,
                              final FastqQualityFormat version,
                              final boolean permissiveFormat,
                              final boolean useSequentialFastqs) throws IOException {
+        return convertFile(fastqFilename1, fastqFilename2, version, permissiveFormat, useSequentialFastqs, 1);
+    }
+
+    private File convertFile(final String fastqFilename1,
+                             final String fastqFilename2, 
+                             final FastqQualityFormat version,
+                             final boolean permissiveFormat,
+                             final boolean useSequentialFastqs,
+                             final int numThreads) throws IOException {
         final File fastq1 = new File(TEST_DATA_DIR, fastqFilename1);
         final File fastq2 = (fastqFilename2 != null) ? new File(TEST_DATA_DIR, fastqFilename2) : null;
+        return convertFile(fastq1, fastq2, version, permissiveFormat, useSequentialFastqs, numThreads);
+    }
+
+    private File convertFile(final File fastq1,
+                             final File fastq2,
+                             final FastqQualityFormat version,
+                             final boolean permissiveFormat,
+                             final boolean useSequentialFastqs,
+                             final int numThreads) throws IOException {
         final File samFile = newTempSamFile(fastq1.getName());
 
         final List<String> args =new ArrayList<String>();
@@ -193,9 +276,10 @@ public class FastqToSamTest extends CommandLineProgramTest {
         args.add("READ_GROUP_NAME=rg");
         args.add("SAMPLE_NAME=s1");
 
-        if (fastqFilename2 != null) args.add("FASTQ2=" + fastq2.getAbsolutePath());
+        if (fastq2 != null) args.add("FASTQ2=" + fastq2.getAbsolutePath());
         if (permissiveFormat) args.add("ALLOW_AND_IGNORE_EMPTY_LINES=true");
         if (useSequentialFastqs) args.add("USE_SEQUENTIAL_FASTQS=true");
+        if (numThreads > 1) args.add("NUM_THREADS=" + numThreads);
 
         Assert.assertEquals(runPicardCommandLine(args), 0);
         return samFile ;
@@ -1,6 +1,12 @@
 package picard.sam;
 
 import htsjdk.samtools.BamFileIoUtils;
+import htsjdk.samtools.SAMFileWriter;
+import htsjdk.samtools.SAMFileWriterFactory;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SamReader;
+import htsjdk.samtools.SamReaderFactory;
+import htsjdk.samtools.util.CloserUtil;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 import picard.cmdline.CommandLineProgramTest;
@@ -64,4 +70,31 @@ public class GatherBamFilesTest extends CommandLineProgramTest {
         compareSAMs.doWork();
         Assert.assertFalse(compareSAMs.areEqual());
     }
+
+    @Test
+    public void testGatherNormallyWithPrefetch() throws Exception {
+        // SAM inputs cannot be block copied, so this exercises the decoding path
+        final List<String> args = new ArrayList<String>();
+        for (final File splitBam : SPLIT_BAMS) {
+            final File splitSam = File.createTempFile("gatherBamFilesTest.split.", ".sam");
+            splitSam.deleteOnExit();
+            final SamReader in = SamReaderFactory.makeDefault().open(splitBam);
+            final SAMFileWriter out = new SAMFileWriterFactory().makeSAMWriter(in.getFileHeader(), true, splitSam);
+            for (final SAMRecord rec : in) out.addAlignment(rec);
+            out.close();
+            CloserUtil.close(in);
+            args.add("INPUT=" + splitSam.getAbsolutePath());
+        }
+
+        final File outputFile = File.createTempFile("gatherBamFilesTest.samFile.", BamFileIoUtils.BAM_FILE_EXTENSION);
+        outputFile.deleteOnExit();
+        args.add("OUTPUT=" + outputFile);
+        args.add("PREFETCH_INPUTS=3");
+        Assert.assertEquals(runPicardCommandLine(args), 0);
+
+        final CompareSAMs compareSAMs = new CompareSAMs();
+        compareSAMs.samFiles = Arrays.asList(ORIG_BAM, outputFile);
+        compareSAMs.doWork();
+        Assert.assertTrue(compareSAMs.areEqual());
+    }
 }
@@ -66,6 +66,8 @@ public class RevertSamTest extends CommandLineProgramTest {
     private static final File writablePath = new File("testdata/picard/sam/revert_sam_writable.bam");
     private static final File referenceFasta = new File("testdata/picard/reference/test.fasta");
     private static final String singleEndSamToRevert = "testdata/picard/sam/revert_sam_single_end.sam";
+    private static final String querynameSortedWithDiscards = "testdata/picard/sam/revert_sam_queryname_sorted_with_discards.sam";
+    private static final String querynameNaturalOrder = "testdata/picard/sam/revert_sam_queryname_natural_order.sam";
 
     private static final String revertedQualities  =
         "11111111111111111111111111111111111111111111111111111111111111111111111111111111111111111111111111111";
@@ -193,6 +195,68 @@ public class RevertSamTest extends CommandLineProgramTest {
         Assert.assertEquals(result, 0, "Validation of reverted single-end sample failed.");
     }
 
+    @Test
+    public void testSanitizeQuerynameSortedInput() throws Exception {
+        final File output = File.createTempFile("single_end_sanitized", ".sam");
+        output.deleteOnExit();
+        final String args[] = { "INPUT=" + singleEndSamToRevert, "OUTPUT=" + output.getAbsolutePath(), "SANITIZE=true" };
+        Assert.assertEquals(runPicardCommandLine(args), 0);
+        final ValidateSamFile validator = new ValidateSamFile();
+        validator.INPUT = output;
+        validator.VALIDATION_STRINGENCY = ValidationStringency.STRICT;
+        validator.MODE = ValidateSamFile.Mode.VERBOSE;
+        Assert.assertEquals(validator.doWork(), 0, "Validation of sanitized queryname sorted input failed.");
+
+        final SamReader reader = SamReaderFactory.makeDefault().open(output);
+        Assert.assertEquals(reader.getFileHeader().getSortOrder(), SAMFileHeader.SortOrder.queryname);
+        final List<String> readNames = new ArrayList<String>();
+        for (final SAMRecord rec : reader) {
+            readNames.add(rec.getReadName());
+        }
+        CloserUtil.close(reader);
+        Assert.assertEquals(readNames, Arrays.asList("read1", "read2", "read3"));
+    }
+
+    @Test
+    public void testSanitizeQuerynameSortedPairsAndDiscards() throws Exception {
+        final File output = File.createTempFile("paired_sanitized", ".sam");
+        output.deleteOnExit();
+        // 4 of the 9 reads are in inconsistent templates: two unpaired reads with one name, and a pair of two firsts
+        final String args[] = { "INPUT=" + querynameSortedWithDiscards, "OUTPUT=" + output.getAbsolutePath(), "SANITIZE=true",
+                "MAX_DISCARD_FRACTION=0.5" };
+        Assert.assertEquals(runPicardCommandLine(args), 0);
+        Assert.assertEquals(readNamesAndFlags(output), Arrays.asList("frag1/4", "pair1/77", "pair1/141", "pair2/77", "pair2/141"));
+    }
+
+    @Test(expectedExceptions = PicardException.class)
+    public void testSanitizeQuerynameSortedTooManyDiscards() throws Exception {
+        final File output = File.createTempFile("paired_sanitized", ".sam");
+        output.deleteOnExit();
+        final String args[] = { "INPUT=" + querynameSortedWithDiscards, "OUTPUT=" + output.getAbsolutePath(), "SANITIZE=true" };
+        runPicardCommandLine(args);
+    }
+
+    @Test
+    public void testSanitizeQuerynameHeaderWithNaturalOrder() throws Exception {
+        final File output = File.createTempFile("natural_order_sanitized", ".sam");
+        output.deleteOnExit();
+        // read9 sorts after read10 as Picard compares names, so the input has to be sorted after all
+        final String args[] = { "INPUT=" + querynameNaturalOrder, "OUTPUT=" + output.getAbsolutePath(), "SANITIZE=true" };
+        Assert.assertEquals(runPicardCommandLine(args), 0);
+        Assert.assertEquals(readNamesAndFlags(output), Arrays.asList("read10/77", "read10/141", "read9/77", "read9/141"));
+    }
+
+    private static List<String> readNamesAndFlags(final File sam) {
+        final SamReader reader = SamReaderFactory.makeDefault().open(sam);
+        Assert.assertEquals(reader.getFileHeader().getSortOrder(), SAMFileHeader.SortOrder.queryname);
+        final List<String> namesAndFlags = new ArrayList<String>();
+        for (final SAMRecord rec : reader) {
+            namesAndFlags.add(rec.getReadName() + "/" + rec.getFlags());
+        }
+        CloserUtil.close(reader);
+        return namesAndFlags;
+    }
+
     private void verifyPositiveResults(
             final File outputFile,
             final RevertSam reverter,
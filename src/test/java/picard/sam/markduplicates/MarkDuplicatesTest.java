@@ -30,6 +30,7 @@ import htsjdk.samtools.SAMRecord;
 import htsjdk.samtools.SAMTag;
 import htsjdk.samtools.SamReader;
 import htsjdk.samtools.SamReaderFactory;
+import htsjdk.samtools.metrics.MetricsFile;
 import htsjdk.samtools.util.CloserUtil;
 import htsjdk.samtools.util.CollectionUtil;
 import htsjdk.samtools.util.IOUtil;
@@ -39,8 +40,10 @@ import org.testng.Assert;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
+import picard.metrics.PerformanceMetrics;
 
 import java.io.File;
+import java.io.FileReader;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -307,4 +310,48 @@ public class MarkDuplicatesTest extends AbstractMarkDuplicatesCommandLineProgram
 
         tester.runTest();
     }
+
+    @Test
+    public void testPerformanceMetrics() throws Exception {
+        final File outputDir = IOUtil.createTempDir(TEST_BASE_NAME + ".", ".tmp");
+        outputDir.deleteOnExit();
+        try {
+            final File performanceMetrics = new File(outputDir, TEST_BASE_NAME + ".performance_metrics");
+            final String[] args = {
+                    "INPUT=" + new File(TEST_DATA_DIR, "optical_dupes.sam").getAbsolutePath(),
+                    "OUTPUT=" + new File(outputDir, TEST_BASE_NAME + ".sam").getAbsolutePath(),
+                    "METRICS_FILE=" + new File(outputDir, TEST_BASE_NAME + ".duplicate_metrics").getAbsolutePath(),
+                    "PERFORMANCE_METRICS_FILE=" + performanceMetrics.getAbsolutePath(),
+                    "TMP_DIR=" + outputDir.getAbsolutePath()
+            };
+            Assert.assertEquals(new MarkDuplicates().instanceMain(args), 0);
+
+            final MetricsFile<PerformanceMetrics, Comparable<?>> metricsFile = new MetricsFile<PerformanceMetrics, Comparable<?>>();
+            metricsFile.read(new FileReader(performanceMetrics));
+            final Map<String, PerformanceMetrics> metricsByName = new HashMap<String, PerformanceMetrics>();
+            for (final PerformanceMetrics metrics : metricsFile.getMetrics()) {
+                metricsByName.put(metrics.NAME, metrics);
+            }
+
+            Assert.assertEquals(metricsByName.get("MarkDuplicates").TYPE, PerformanceMetrics.Type.STAGE);
+            Assert.assertEquals(metricsByName.get("MarkDuplicates").COUNT, 1);
+            Assert.assertEquals(metricsByName.get("MarkDuplicates.buildSortedReadEndLists").COUNT, 1);
+            Assert.assertEquals(metricsByName.get("MarkDuplicates.recordsRead").COUNT, 4);
+            Assert.assertEquals(metricsByName.get("MarkDuplicates.recordsWritten").COUNT, 4);
+            Assert.assertEquals(metricsByName.get("MarkDuplicates.pairedEnds").COUNT, 2);
+            Assert.assertEquals(metricsByName.get("MarkDuplicates.readEndSortSpills").COUNT, 0);
+        } finally {
+            TestUtil.recursiveDelete(outputDir);
+        }
+    }
+
+    @Test
+    public void testSortingCollectionSpills() {
+        Assert.assertEquals(MarkDuplicates.sortingCollectionSpills(0, 10), 0);
+        Assert.assertEquals(MarkDuplicates.sortingCollectionSpills(10, 10), 0);
+        // The eleventh record finds the collection full, and the last record is spilled when adding is done
+        Assert.assertEquals(MarkDuplicates.sortingCollectionSpills(11, 10), 2);
+        Assert.assertEquals(MarkDuplicates.sortingCollectionSpills(20, 10), 2);
+        Assert.assertEquals(MarkDuplicates.sortingCollectionSpills(21, 10), 3);
+    }
 }
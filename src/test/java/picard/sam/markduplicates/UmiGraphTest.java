@@ -0,0 +1,120 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026 The Broad Institute
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package picard.sam.markduplicates;
+
+import htsjdk.samtools.DuplicateSet;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SAMRecordSetBuilder;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+public class UmiGraphTest {
+
+    @DataProvider(name = "randomUmisDataProvider")
+    public Object[][] randomUmisDataProvider() {
+        return new Object[][] {
+                {"ACGT", 8, 1},
+                {"ACGT", 8, 2},
+                {"ACGT", 12, 1},
+                {"ACGT", 12, 3},
+                {"ACGTN", 10, 1},   // UMIs that cannot be packed
+                {"ACGT", 40, 2},    // UMIs too long to be packed
+        };
+    }
+
+    // Checks that the UMIs are grouped into the connected components of the graph joining every pair within the edit distance
+    @Test(dataProvider = "randomUmisDataProvider")
+    public void testJoinMatchesAllPairsComparison(final String alphabet, final int umiLength, final int maxEditDistanceToJoin) {
+        final Random random = new Random(umiLength * 31 + maxEditDistanceToJoin);
+        final SAMRecordSetBuilder builder = new SAMRecordSetBuilder();
+
+        // A few source UMIs, each observed many times with a few errors
+        final List<String> umis = new ArrayList<>();
+        for (int source = 0; source < 20; source++) {
+            final char[] sourceUmi = new char[umiLength];
+            for (int i = 0; i < umiLength; i++) sourceUmi[i] = alphabet.charAt(random.nextInt(alphabet.length()));
+            for (int copy = 0; copy < 25; copy++) {
+                final char[] observed = sourceUmi.clone();
+                for (int error = random.nextInt(maxEditDistanceToJoin + 2); error > 0; error--) {
+                    observed[random.nextInt(umiLength)] = alphabet.charAt(random.nextInt(alphabet.length()));
+                }
+                umis.add(new String(observed));
+            }
+        }
+
+        final DuplicateSet set = new DuplicateSet();
+        for (int i = 0; i < umis.size(); i++) {
+            final SAMRecord record = builder.addFrag("read" + i, 0, 100, false);
+            record.setAttribute("RX", umis.get(i));
+            set.add(record);
+        }
+
+        final Set<Set<String>> observedGroups = new HashSet<>();
+        for (final DuplicateSet duplicateSet : new UmiGraph(set, "RX", "MI", false).joinUmisIntoDuplicateSets(maxEditDistanceToJoin)) {
+            final Set<String> group = new HashSet<>();
+            for (final SAMRecord record : duplicateSet.getRecords()) group.add(record.getStringAttribute("RX"));
+            observedGroups.add(group);
+        }
+
+        Assert.assertEquals(observedGroups, connectedComponents(new ArrayList<>(new HashSet<>(umis)), maxEditDistanceToJoin));
+    }
+
+    private static Set<Set<String>> connectedComponents(final List<String> umis, final int maxEditDistanceToJoin) {
+        final Set<Set<String>> components = new HashSet<>();
+        final boolean[] visited = new boolean[umis.size()];
+        for (int start = 0; start < umis.size(); start++) {
+            if (visited[start]) continue;
+            final Set<String> component = new HashSet<>();
+            final List<Integer> toVisit = new ArrayList<>();
+            toVisit.add(start);
+            visited[start] = true;
+            while (!toVisit.isEmpty()) {
+                final int current = toVisit.remove(toVisit.size() - 1);
+                component.add(umis.get(current));
+                for (int other = 0; other < umis.size(); other++) {
+                    if (!visited[other] && hammingDistance(umis.get(current), umis.get(other)) <= maxEditDistanceToJoin) {
+                        visited[other] = true;
+                        toVisit.add(other);
+                    }
+                }
+            }
+            components.add(component);
+        }
+        return components;
+    }
+
+    private static int hammingDistance(final String s1, final String s2) {
+        int distance = 0;
+        for (int i = 0; i < s1.length(); i++) if (s1.charAt(i) != s2.charAt(i)) distance++;
+        return distance;
+    }
+}
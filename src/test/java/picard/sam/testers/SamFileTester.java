@@ -1,5 +1,6 @@
 package picard.sam.testers;
 
+import htsjdk.samtools.BamFileIoUtils;
 import htsjdk.samtools.DuplicateScoringStrategy.ScoringStrategy;
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMFileWriter;
@@ -324,7 +325,7 @@ public abstract class SamFileTester extends CommandLineProgramTest {
     public void runTest() {
         final File input = createInputFile();
 
-        output = new File(outputDir, "output.sam");
+        output = new File(outputDir, "output" + getFileExtension());
         args.add("INPUT=" + input.getAbsoluteFile());
         args.add("OUTPUT=" + output.getAbsoluteFile());
         Assert.assertEquals(runPicardCommandLine(args), 0);
@@ -333,13 +334,20 @@ public abstract class SamFileTester extends CommandLineProgramTest {
 
     private File createInputFile() {
         // Create the input file
-        final File input = new File(outputDir, "input.sam");
-        final SAMFileWriter writer = new SAMFileWriterFactory().makeSAMOrBAMWriter(samRecordSetBuilder.getHeader(), true, input);
+        final File input = new File(outputDir, "input" + getFileExtension());
+        final SAMFileWriter writer = new SAMFileWriterFactory()
+                .setCreateIndex(BamFileIoUtils.isBamFile(input))
+                .makeSAMOrBAMWriter(samRecordSetBuilder.getHeader(), true, input);
         samRecordSetBuilder.getRecords().forEach(writer::addAlignment);
         writer.close();
         return input;
     }
 
+    /** The extension of the input and output files.  BAM inputs are written with an index. */
+    protected String getFileExtension() {
+        return ".sam";
+    }
+
     public SamReader getInput() {
         return samRecordSetBuilder.getSamReader();
     }
@@ -0,0 +1,151 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026 The Broad Institute
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package picard.sam.util;
+
+import htsjdk.samtools.BAMIndex;
+import htsjdk.samtools.SAMFileWriter;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SAMRecordIterator;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.SamReader;
+import htsjdk.samtools.SamReaderFactory;
+import htsjdk.samtools.util.BlockCompressedInputStream;
+import htsjdk.samtools.util.CloserUtil;
+import htsjdk.samtools.util.IOUtil;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import picard.sam.CompareSAMs;
+import picard.util.ParallelBlockCompressedOutputStream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class ParallelBAMFileWriterTest {
+    private static final File ORIG_BAM = new File("testdata/picard/sam/GatherBamFiles/orig.bam");
+
+    @Test
+    public void testRoundTripWithVirtualFilePointers() throws Exception {
+        final File bgzfFile = File.createTempFile("parallelBgzf.", ".gz");
+        bgzfFile.deleteOnExit();
+
+        // Write enough records of varying length to span many blocks, remembering where each one starts
+        final Random random = new Random(42);
+        final List<byte[]> records = new ArrayList<>();
+        final List<Long> pointers = new ArrayList<>();
+        final ParallelBlockCompressedOutputStream out = new ParallelBlockCompressedOutputStream(new FileOutputStream(bgzfFile), 5, 4);
+        final List<long[]> positions = new ArrayList<>();
+        for (int i = 0; i < 5000; ++i) {
+            final byte[] record = new byte[1 + random.nextInt(500)];
+            for (int j = 0; j < record.length; ++j) record[j] = (byte) ('A' + random.nextInt(4));
+            records.add(record);
+            positions.add(new long[]{out.getBlockOrdinal(), out.getBlockOffset()});
+            out.write(record);
+        }
+        out.flush();
+        for (final long[] position : positions) pointers.add(out.getVirtualFilePointer(position[0], (int) position[1]));
+        out.close();
+
+        final BlockCompressedInputStream in = new BlockCompressedInputStream(bgzfFile);
+        for (int i = records.size() - 1; i >= 0; i -= 97) {
+            in.seek(pointers.get(i));
+            final byte[] buffer = new byte[records.get(i).length];
+            Assert.assertEquals(in.read(buffer), buffer.length);
+            Assert.assertEquals(buffer, records.get(i));
+        }
+        in.close();
+
+        Assert.assertTrue(BlockCompressedInputStream.checkTermination(bgzfFile) == BlockCompressedInputStream.FileTermination.HAS_TERMINATOR_BLOCK);
+    }
+
+    @Test
+    public void testWriteBamWithIndexAndMd5() throws Exception {
+        final File outputDir = Files.createTempDirectory("parallelBamWriter.").toFile();
+        outputDir.deleteOnExit();
+        final File outputFile = new File(outputDir, "out.bam");
+        final File indexFile = new File(outputDir, "out" + BAMIndex.BAMIndexSuffix);
+        final File md5File = new File(outputFile.getAbsolutePath() + ".md5");
+        outputFile.deleteOnExit();
+        indexFile.deleteOnExit();
+        md5File.deleteOnExit();
+
+        final SamReader reader = SamReaderFactory.makeDefault().open(ORIG_BAM);
+        final SAMFileWriter writer = new ParallelSAMFileWriterFactory()
+                .setCompressionThreads(4)
+                .setCreateIndex(true)
+                .setCreateMd5File(true)
+                .makeSAMOrBAMWriter(reader.getFileHeader(), true, outputFile);
+        Assert.assertTrue(writer instanceof ParallelBAMFileWriter);
+        for (final SAMRecord rec : reader) writer.addAlignment(rec);
+        writer.close();
+        CloserUtil.close(reader);
+
+        final CompareSAMs compareSAMs = new CompareSAMs();
+        compareSAMs.samFiles = Arrays.asList(ORIG_BAM, outputFile);
+        compareSAMs.doWork();
+        Assert.assertTrue(compareSAMs.areEqual());
+
+        // Every contig queried through the new index must return the same records as a scan of the original
+        Assert.assertTrue(indexFile.exists());
+        final Map<String, Integer> expectedCounts = new HashMap<>();
+        final SamReader original = SamReaderFactory.makeDefault().open(ORIG_BAM);
+        for (final SAMRecord rec : original) {
+            if (!rec.getReadUnmappedFlag()) expectedCounts.merge(rec.getReferenceName(), 1, Integer::sum);
+        }
+
+        final SamReader indexed = SamReaderFactory.makeDefault().open(outputFile);
+        Assert.assertTrue(indexed.hasIndex());
+        for (final SAMSequenceRecord sequence : original.getFileHeader().getSequenceDictionary().getSequences()) {
+            int actual = 0;
+            final SAMRecordIterator it = indexed.queryOverlapping(sequence.getSequenceName(), 1, sequence.getSequenceLength());
+            while (it.hasNext()) if (!it.next().getReadUnmappedFlag()) ++actual;
+            it.close();
+            Assert.assertEquals(actual, expectedCounts.getOrDefault(sequence.getSequenceName(), 0).intValue(), sequence.getSequenceName());
+        }
+        CloserUtil.close(original);
+        CloserUtil.close(indexed);
+
+        Assert.assertEquals(IOUtil.readFully(new FileInputStream(md5File)).trim(), md5(outputFile));
+    }
+
+    private static String md5(final File file) throws Exception {
+        final MessageDigest digest = MessageDigest.getInstance("MD5");
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (final InputStream in = new FileInputStream(file)) {
+            IOUtil.copyStream(in, bytes);
+        }
+        return String.format("%032x", new BigInteger(1, digest.digest(bytes.toByteArray())));
+    }
+}
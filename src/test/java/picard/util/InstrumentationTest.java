@@ -0,0 +1,101 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026 The Broad Institute
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package picard.util;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import picard.metrics.PerformanceMetrics;
+
+import java.util.List;
+
+public class InstrumentationTest {
+
+    @Test
+    public void testMetrics() {
+        final Instrumentation instrumentation = new Instrumentation(true);
+        instrumentation.time("Test.stage").close();
+        instrumentation.stage("Test.stage").add(2000000000L, 3);
+        instrumentation.counter("Test.counter").increment();
+        instrumentation.counter("Test.counter").add(9);
+        instrumentation.gauge("Test.gauge").record(5);
+        instrumentation.gauge("Test.gauge").record(1);
+        instrumentation.gauge("Test.gauge").record(3);
+        instrumentation.gauge("Test.unsampled");
+
+        final List<PerformanceMetrics> metrics = instrumentation.getMetrics();
+        Assert.assertEquals(metrics.size(), 4);
+
+        final PerformanceMetrics stage = metrics.get(0);
+        Assert.assertEquals(stage.NAME, "Test.stage");
+        Assert.assertEquals(stage.TYPE, PerformanceMetrics.Type.STAGE);
+        Assert.assertEquals(stage.COUNT, 4);
+        Assert.assertTrue(stage.TOTAL_SECONDS >= 2.0);
+        Assert.assertEquals(stage.MEAN, stage.TOTAL_SECONDS / 4, 1e-12);
+
+        final PerformanceMetrics counter = metrics.get(1);
+        Assert.assertEquals(counter.TYPE, PerformanceMetrics.Type.COUNTER);
+        Assert.assertEquals(counter.COUNT, 10);
+
+        final PerformanceMetrics gauge = metrics.get(2);
+        Assert.assertEquals(gauge.TYPE, PerformanceMetrics.Type.GAUGE);
+        Assert.assertEquals(gauge.COUNT, 3);
+        Assert.assertEquals(gauge.MEAN, 3.0, 1e-12);
+        Assert.assertEquals(gauge.MIN, Long.valueOf(1));
+        Assert.assertEquals(gauge.MAX, Long.valueOf(5));
+        Assert.assertEquals(gauge.LAST, Long.valueOf(3));
+
+        final PerformanceMetrics unsampled = metrics.get(3);
+        Assert.assertEquals(unsampled.COUNT, 0);
+        Assert.assertNull(unsampled.MEAN);
+        Assert.assertNull(unsampled.MAX);
+    }
+
+    @Test
+    public void testTimingClosedTwiceCountsOnce() {
+        final Instrumentation instrumentation = new Instrumentation(true);
+        final Instrumentation.Timing timing = instrumentation.time("Test.stage");
+        timing.close();
+        timing.close();
+        Assert.assertEquals(instrumentation.getMetrics().get(0).COUNT, 1);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNameUsedForTwoKindsOfInstrument() {
+        final Instrumentation instrumentation = new Instrumentation(true);
+        instrumentation.counter("Test.name");
+        instrumentation.gauge("Test.name");
+    }
+
+    @Test
+    public void testInstall() {
+        final Instrumentation instrumentation = new Instrumentation(true);
+        final Instrumentation previous = Instrumentation.install(instrumentation);
+        try {
+            Assert.assertSame(Instrumentation.get(), instrumentation);
+        } finally {
+            Assert.assertSame(Instrumentation.install(previous), instrumentation);
+        }
+        Assert.assertSame(Instrumentation.get(), previous);
+    }
+}
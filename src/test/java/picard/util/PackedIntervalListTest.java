@@ -0,0 +1,113 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026 The Broad Institute
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package picard.util;
+
+import htsjdk.samtools.util.Interval;
+import htsjdk.samtools.util.IntervalList;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks that the operations of PackedIntervalList give the same intervals, names and strands included, as the
+ * IntervalList operations they stand in for.
+ */
+public class PackedIntervalListTest {
+    private static final File INTERVAL_LIST = new File("testdata/picard/util/scatterable.interval_list");
+
+    /** Makes a list of overlapping, abutting, nested and unsorted intervals over the first few sequences. */
+    private static IntervalList randomList(final long seed, final int count) {
+        final IntervalList template = IntervalList.fromFile(INTERVAL_LIST);
+        final IntervalList list = new IntervalList(template.getHeader().clone());
+        final Random random = new Random(seed);
+        for (int i = 0; i < count; ++i) {
+            final String contig = template.getHeader().getSequence(random.nextInt(3)).getSequenceName();
+            final int start = 29900 + random.nextInt(500);
+            final int end = start + random.nextInt(60);
+            list.add(new Interval(contig, start, end, random.nextInt(4) == 0, "random_" + seed + "_" + i));
+        }
+        return list;
+    }
+
+    @DataProvider(name = "lists")
+    public Object[][] lists() {
+        return new Object[][]{
+                {IntervalList.fromFile(INTERVAL_LIST), randomList(1, 50)},
+                {randomList(2, 100), randomList(3, 100)},
+                {randomList(4, 1), randomList(5, 300)},
+        };
+    }
+
+    private static void assertEquivalent(final PackedIntervalList actual, final IntervalList expected) {
+        Assert.assertEquals(actual.toIntervalList().getIntervals(), expected.getIntervals());
+        for (int i = 0; i < actual.size(); ++i) {
+            final Interval interval = expected.getIntervals().get(i);
+            Assert.assertEquals(actual.getName(i), interval.getName());
+            Assert.assertEquals(actual.isNegativeStrand(i), interval.isNegativeStrand());
+        }
+    }
+
+    @Test(dataProvider = "lists")
+    public void testSingleListOperations(final IntervalList list, final IntervalList unused) {
+        final PackedIntervalList packed = PackedIntervalList.fromIntervalList(list);
+        assertEquivalent(packed, list);
+        assertEquivalent(packed.sorted(), list.sorted());
+        assertEquivalent(packed.uniqued(), list.uniqued());
+        assertEquivalent(packed.padded(7), list.padded(7));
+        assertEquivalent(packed.padded(-10), list.padded(-10));
+        assertEquivalent(PackedIntervalList.invert(packed), IntervalList.invert(list));
+        final IntervalList broken = new IntervalList(list.getHeader());
+        broken.addall(IntervalList.breakIntervalsAtBandMultiples(list.getIntervals(), 50));
+        assertEquivalent(packed.breakAtBandMultiples(50), broken);
+        Assert.assertEquals(packed.getBaseCount(), list.getBaseCount());
+        Assert.assertEquals(packed.getUniqueBaseCount(), list.getUniqueBaseCount());
+    }
+
+    @Test(dataProvider = "lists")
+    public void testSetOperations(final IntervalList list1, final IntervalList list2) {
+        final List<IntervalList> lists1 = Arrays.asList(list1);
+        final List<IntervalList> lists2 = Arrays.asList(list2);
+        final List<PackedIntervalList> packed1 = Arrays.asList(PackedIntervalList.fromIntervalList(list1));
+        final List<PackedIntervalList> packed2 = Arrays.asList(PackedIntervalList.fromIntervalList(list2));
+        final List<PackedIntervalList> packedBoth = Arrays.asList(packed1.get(0), packed2.get(0));
+
+        assertEquivalent(PackedIntervalList.concatenate(packedBoth), IntervalList.concatenate(Arrays.asList(list1, list2)));
+        assertEquivalent(PackedIntervalList.union(packedBoth), IntervalList.union(Arrays.asList(list1, list2)));
+        assertEquivalent(PackedIntervalList.intersection(packedBoth), IntervalList.intersection(Arrays.asList(list1, list2)));
+        assertEquivalent(PackedIntervalList.subtract(packed1, packed2), IntervalList.subtract(lists1, lists2));
+        assertEquivalent(PackedIntervalList.subtract(packed2, packed1), IntervalList.subtract(lists2, lists1));
+        assertEquivalent(PackedIntervalList.difference(packed1, packed2), IntervalList.difference(lists1, lists2));
+    }
+
+    @Test
+    public void testFromFile() {
+        assertEquivalent(PackedIntervalList.fromFile(INTERVAL_LIST), IntervalList.fromFile(INTERVAL_LIST));
+        Assert.assertEquals(PackedIntervalList.fromFile(INTERVAL_LIST).getHeader(), IntervalList.fromFile(INTERVAL_LIST).getHeader());
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026 The Broad Institute
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package picard.util;
+
+import htsjdk.samtools.util.CloseableIterator;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class ReadAheadIteratorTest {
+
+    /** Counts from 0 to n - 1, failing instead of returning failAt, and notes when it is closed. */
+    private static class CountingIterator implements CloseableIterator<Integer> {
+        private final int n;
+        private final int failAt;
+        private int next = 0;
+        boolean closed = false;
+
+        CountingIterator(final int n, final int failAt) {
+            this.n = n;
+            this.failAt = failAt;
+        }
+
+        @Override public boolean hasNext() { return next < n; }
+        @Override public Integer next() {
+            if (next == failAt) throw new IllegalStateException("Failed at " + failAt);
+            return next++;
+        }
+        @Override public void remove() { throw new UnsupportedOperationException(); }
+        @Override public void close() { closed = true; }
+    }
+
+    /** Reads many more iterators than there are threads, taking an item from each in turn. */
+    @Test
+    public void testManyIteratorsOnFewThreads() {
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final List<CountingIterator> underlying = new ArrayList<CountingIterator>();
+            final List<Iterator<Integer>> iterators = new ArrayList<Iterator<Integer>>();
+            for (int i = 0; i < 50; ++i) {
+                underlying.add(new CountingIterator(1000 + i, -1));
+                iterators.add(new ReadAheadIterator<Integer>(underlying.get(i), executor, 7, 2));
+            }
+
+            final int[] expectedNext = new int[iterators.size()];
+            int remaining = iterators.size();
+            while (remaining > 0) {
+                for (int i = 0; i < iterators.size(); ++i) {
+                    if (expectedNext[i] < 0) continue;
+                    if (iterators.get(i).hasNext()) {
+                        Assert.assertEquals(iterators.get(i).next().intValue(), expectedNext[i]++);
+                    } else {
+                        Assert.assertEquals(expectedNext[i], 1000 + i);
+                        expectedNext[i] = -1;
+                        --remaining;
+                    }
+                }
+            }
+
+            for (int i = 0; i < iterators.size(); ++i) {
+                ((ReadAheadIterator<Integer>) iterators.get(i)).close();
+                Assert.assertTrue(underlying.get(i).closed);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class, expectedExceptionsMessageRegExp = "Failed at 25")
+    public void testFailureIsRethrown() {
+        final ExecutorService executor = Executors.newFixedThreadPool(1);
+        try {
+            final ReadAheadIterator<Integer> iterator = new ReadAheadIterator<Integer>(new CountingIterator(100, 25), executor, 10, 2);
+            // Everything before the failure is returned first
+            for (int i = 0; i < 100; ++i) {
+                Assert.assertEquals(iterator.next().intValue(), i);
+                Assert.assertTrue(i < 25);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testCloseBeforeExhausted() {
+        final ExecutorService executor = Executors.newFixedThreadPool(1);
+        try {
+            final CountingIterator underlying = new CountingIterator(100000, -1);
+            final ReadAheadIterator<Integer> iterator = new ReadAheadIterator<Integer>(underlying, executor, 10, 2);
+            Assert.assertEquals(iterator.next().intValue(), 0);
+            iterator.close();
+            Assert.assertTrue(underlying.closed);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
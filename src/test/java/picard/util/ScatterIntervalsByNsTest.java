@@ -2,14 +2,17 @@ package picard.util;
 
 import htsjdk.samtools.reference.ReferenceSequence;
 import htsjdk.samtools.reference.ReferenceSequenceFile;
+import htsjdk.samtools.reference.ReferenceSequenceFileFactory;
 import htsjdk.samtools.util.Interval;
 import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.util.CloserUtil;
 import htsjdk.samtools.util.CollectionUtil;
 import org.testng.Assert;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.io.File;
 import java.lang.Exception;import java.lang.Object;import java.lang.Override;import java.lang.String;import java.util.List;
 
 /**
@@ -160,4 +163,18 @@ public class ScatterIntervalsByNsTest {
         };
         Assert.assertEquals(ScatterIntervalsByNs.segregateReference(reference, maxNmerToMerge).getIntervals(), result);
     }
+
+    @Test
+    public void testSegregateReferenceOnThreads() {
+        final File fasta = new File("testdata/picard/reference/test.fasta");
+        for (final int maxNmerToMerge : new int[]{0, 1, 10}) {
+            final ReferenceSequenceFile reference = ReferenceSequenceFileFactory.getReferenceSequenceFile(fasta, true);
+            final List<Interval> expected = ScatterIntervalsByNs.segregateReference(reference, maxNmerToMerge).getIntervals();
+            CloserUtil.close(reference);
+
+            final List<Interval> threaded = ScatterIntervalsByNs.segregateReference(fasta, maxNmerToMerge, 4).getIntervals();
+            Assert.assertEquals(threaded, expected);
+            for (int i = 0; i < expected.size(); i++) Assert.assertEquals(threaded.get(i).getName(), expected.get(i).getName());
+        }
+    }
 }
@@ -0,0 +1,139 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026 The Broad Institute
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package picard.vcf;
+
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.writer.Options;
+import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+import htsjdk.variant.variantcontext.writer.VariantContextWriterBuilder;
+import htsjdk.variant.vcf.VCFFileReader;
+import htsjdk.variant.vcf.VCFHeader;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import picard.cmdline.CommandLineProgramTest;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+public class GatherVcfsTest extends CommandLineProgramTest {
+    private static final File INPUT_VCF = new File("testdata/picard/vcf/CEUTrio-snps.vcf");
+
+    public String getCommandLineProgramName() {
+        return GatherVcfs.class.getSimpleName();
+    }
+
+    @Test
+    public void testGatherConventionallyWithPrefetch() throws IOException {
+        final List<File> inputs = scatterByContig(".vcf");
+        final File output = File.createTempFile("gatherVcfsTest.", ".vcf");
+        output.deleteOnExit();
+
+        final List<String> args = new ArrayList<String>();
+        for (final File input : inputs) args.add("INPUT=" + input.getAbsolutePath());
+        args.add("OUTPUT=" + output.getAbsolutePath());
+        args.add("CREATE_INDEX=false");
+        args.add("PREFETCH_INPUTS=3");
+        Assert.assertEquals(runPicardCommandLine(args), 0);
+
+        Assert.assertEquals(loci(output), loci(INPUT_VCF));
+    }
+
+    @Test
+    public void testGatherWithBlockCopyingCreatesIndex() throws IOException {
+        final List<File> inputs = scatterByContig(".vcf.gz");
+        final File output = File.createTempFile("gatherVcfsTest.", ".vcf.gz");
+        final File index = new File(output.getAbsolutePath() + ".tbi");
+        output.deleteOnExit();
+        index.deleteOnExit();
+
+        final List<String> args = new ArrayList<String>();
+        for (final File input : inputs) args.add("INPUT=" + input.getAbsolutePath());
+        args.add("OUTPUT=" + output.getAbsolutePath());
+        Assert.assertEquals(runPicardCommandLine(args), 0);
+
+        Assert.assertEquals(loci(output), loci(INPUT_VCF));
+        Assert.assertTrue(index.exists());
+
+        // Each contig queried through the index should return exactly the variants on that contig
+        final VCFFileReader expected = new VCFFileReader(INPUT_VCF, false);
+        final VCFFileReader gathered = new VCFFileReader(output, true);
+        final List<String> allLoci = loci(INPUT_VCF);
+        for (final SAMSequenceRecord contig : expected.getFileHeader().getSequenceDictionary().getSequences()) {
+            int count = 0;
+            final CloseableIterator<VariantContext> it = gathered.query(contig.getSequenceName(), 1, contig.getSequenceLength());
+            while (it.hasNext()) {
+                Assert.assertEquals(it.next().getContig(), contig.getSequenceName());
+                ++count;
+            }
+            it.close();
+
+            int expectedCount = 0;
+            for (final String locus : allLoci) if (locus.startsWith(contig.getSequenceName() + ":")) ++expectedCount;
+            Assert.assertEquals(count, expectedCount, contig.getSequenceName());
+        }
+        expected.close();
+        gathered.close();
+    }
+
+    /** Splits the test VCF into one file per contig, in order, with the given extension. */
+    private static List<File> scatterByContig(final String extension) throws IOException {
+        final VCFFileReader in = new VCFFileReader(INPUT_VCF, false);
+        final VCFHeader header = in.getFileHeader();
+        final List<File> outputs = new ArrayList<File>();
+
+        VariantContextWriter out = null;
+        String lastContig = null;
+        for (final VariantContext ctx : in) {
+            if (!ctx.getContig().equals(lastContig)) {
+                if (out != null) out.close();
+                final File f = File.createTempFile("gatherVcfsTest.scatter." + outputs.size() + ".", extension);
+                f.deleteOnExit();
+                outputs.add(f);
+                out = new VariantContextWriterBuilder()
+                        .setReferenceDictionary(header.getSequenceDictionary())
+                        .setOptions(EnumSet.noneOf(Options.class))
+                        .setOutputFile(f).build();
+                out.writeHeader(header);
+                lastContig = ctx.getContig();
+            }
+            out.add(ctx);
+        }
+        if (out != null) out.close();
+        in.close();
+        return outputs;
+    }
+
+    private static List<String> loci(final File vcf) {
+        final VCFFileReader in = new VCFFileReader(vcf, false);
+        final List<String> loci = new ArrayList<String>();
+        for (final VariantContext ctx : in) loci.add(ctx.getContig() + ":" + ctx.getStart());
+        in.close();
+        return loci;
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026 The Broad Institute
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package picard.vcf;
+
+import htsjdk.samtools.util.IOUtil;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFFileReader;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import picard.cmdline.CommandLineProgramTest;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+public class MakeSitesOnlyVcfTest extends CommandLineProgramTest {
+    private static final File TEST_DATA_PATH = new File("testdata/picard/vcf/");
+    private static final File OUTPUT_DATA_PATH = IOUtil.createTempDir("MakeSitesOnlyVcfTest", null);
+
+    public String getCommandLineProgramName() {
+        return MakeSitesOnlyVcf.class.getSimpleName();
+    }
+
+    @AfterClass
+    public void teardown() {
+        IOUtil.deleteDirectoryTree(OUTPUT_DATA_PATH);
+    }
+
+    @DataProvider(name = "samplesAndExtensions")
+    public Object[][] samplesAndExtensions() {
+        return new Object[][] {
+                {Collections.<String>emptyList(), ".vcf"},
+                {Collections.<String>emptyList(), ".vcf.gz"},
+                {Collections.singletonList("NA12878"), ".vcf"},
+                {Arrays.asList("NA12892", "NA12878"), ".vcf.gz"},
+                {Collections.singletonList("NA12891"), ".bcf"}
+        };
+    }
+
+    @Test(dataProvider = "samplesAndExtensions")
+    public void testMakeSitesOnlyVcf(final List<String> samples, final String extension) {
+        final File input = new File(TEST_DATA_PATH, "CEUTrio-snps.vcf");
+        final File output = new File(OUTPUT_DATA_PATH, "sites-only-" + samples.size() + extension);
+
+        final List<String> args = new ArrayList<String>();
+        args.add("INPUT=" + input.getAbsolutePath());
+        args.add("OUTPUT=" + output.getAbsolutePath());
+        for (final String sample : samples) args.add("SAMPLE=" + sample);
+        Assert.assertEquals(runPicardCommandLine(args), 0);
+
+        final VCFFileReader expected = new VCFFileReader(input, false);
+        final VCFFileReader actual = new VCFFileReader(output, true);
+        Assert.assertEquals(actual.getFileHeader().getGenotypeSamples(), samples.isEmpty() ? samples : sorted(samples));
+
+        final Iterator<VariantContext> actualIterator = actual.iterator();
+        for (final VariantContext expectedContext : expected) {
+            Assert.assertTrue(actualIterator.hasNext());
+            final VariantContext actualContext = actualIterator.next();
+            Assert.assertEquals(actualContext.getContig(), expectedContext.getContig());
+            Assert.assertEquals(actualContext.getStart(), expectedContext.getStart());
+            Assert.assertEquals(actualContext.getAlleles(), expectedContext.getAlleles());
+            Assert.assertEquals(actualContext.getFilters(), expectedContext.getFilters());
+            Assert.assertEquals(actualContext.getAttributes().keySet(), expectedContext.getAttributes().keySet());
+            Assert.assertEquals(actualContext.getNSamples(), samples.size());
+            for (final String sample : samples) {
+                Assert.assertEquals(actualContext.getGenotype(sample).toString(), expectedContext.getGenotype(sample).toString());
+            }
+        }
+        Assert.assertFalse(actualIterator.hasNext());
+
+        expected.close();
+        actual.close();
+    }
+
+    private static List<String> sorted(final List<String> samples) {
+        final List<String> sorted = new ArrayList<String>(samples);
+        Collections.sort(sorted);
+        return sorted;
+    }
+}
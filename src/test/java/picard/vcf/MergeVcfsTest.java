@@ -1,7 +1,25 @@
 package picard.vcf;
 
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.samtools.util.IOUtil;
+import htsjdk.samtools.util.TestUtil;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.writer.Options;
+import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+import htsjdk.variant.variantcontext.writer.VariantContextWriterBuilder;
+import htsjdk.variant.vcf.VCFFileReader;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
 import picard.cmdline.CommandLineProgram;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * Created by bradt on 9/3/14.
  */
@@ -11,4 +29,64 @@ public class MergeVcfsTest extends AbstractVcfMergingClpTester {
     protected CommandLineProgram getProgram() {
         return new MergeVcfs();
     }
+
+    @DataProvider(name = "numThreads")
+    public Object[][] numThreads() {
+        return new Object[][]{{1}, {3}};
+    }
+
+    @Test(dataProvider = "numThreads")
+    public void testMergeRandomScatterOnThreads(final int numThreads) throws IOException {
+        final List<File> inputs = new ArrayList<File>();
+        for (int i = 0; i < 6; ++i) inputs.add(new File(TEST_DATA_PATH, "CEUTrio-random-scatter-" + i + ".vcf"));
+        final File output = File.createTempFile("random-scatter-threads-test-output.", ".vcf");
+        output.deleteOnExit();
+
+        runClp(inputs, output, Arrays.asList("CREATE_INDEX=false", "NUM_THREADS=" + numThreads), 0);
+
+        final List<String> expected = new ArrayList<String>();
+        for (final File input : inputs) expected.addAll(loadContigPositions(input));
+        Collections.sort(expected);
+        final List<String> actual = new ArrayList<String>(loadContigPositions(output));
+        Collections.sort(actual);
+        Assert.assertEquals(actual, expected);
+    }
+
+    /** Splits a VCF into disjoint shards and checks that merging them, given out of order, gives back the same records. */
+    @Test(dataProvider = "numThreads")
+    public void testMergeDisjointShards(final int numThreads) throws IOException {
+        final File input = new File(TEST_DATA_PATH, "CEUTrio-snps.vcf");
+        final File dir = IOUtil.createTempDir("MergeVcfsTest", ".tmp");
+        try {
+            final VCFFileReader reader = new VCFFileReader(input, false);
+            final List<VariantContext> contexts = new ArrayList<VariantContext>();
+            final CloseableIterator<VariantContext> iterator = reader.iterator();
+            while (iterator.hasNext()) contexts.add(iterator.next());
+            iterator.close();
+
+            final List<File> shards = new ArrayList<File>();
+            final int numShards = 4;
+            for (int i = 0; i < numShards; ++i) {
+                final File shard = new File(dir, "shard" + i + (i % 2 == 0 ? ".vcf" : ".vcf.gz"));
+                final VariantContextWriter writer = new VariantContextWriterBuilder().setOutputFile(shard)
+                        .setReferenceDictionary(reader.getFileHeader().getSequenceDictionary())
+                        .unsetOption(Options.INDEX_ON_THE_FLY).build();
+                writer.writeHeader(reader.getFileHeader());
+                for (final VariantContext context : contexts.subList(i * contexts.size() / numShards, (i + 1) * contexts.size() / numShards)) {
+                    writer.add(context);
+                }
+                writer.close();
+                shards.add(shard);
+            }
+            reader.close();
+            Collections.reverse(shards);
+
+            final File output = new File(dir, "merged.vcf.gz");
+            runClp(shards, output, Arrays.asList("NUM_THREADS=" + numThreads), 0);
+            Assert.assertEquals(new ArrayList<String>(loadContigPositions(output)), new ArrayList<String>(loadContigPositions(input)));
+            Assert.assertTrue(new File(output.getAbsolutePath() + ".tbi").exists());
+        } finally {
+            TestUtil.recursiveDelete(dir);
+        }
+    }
 }
@@ -10,6 +10,7 @@ import picard.cmdline.CommandLineProgram;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -94,6 +95,36 @@ public class SortVcfsTest extends AbstractVcfMergingClpTester {
     }
 
 
+    @Test
+    public void testSortInSpilledRunsOnThreads() throws IOException {
+        final File indelInputFile = new File(TEST_DATA_PATH, "CEUTrio-indels-scrambled.1.vcf");
+        final File snpInputFile = new File(TEST_DATA_PATH, "CEUTrio-snps-scrambled.1.vcf");
+        final List<File> inputs = Arrays.asList(indelInputFile, snpInputFile);
+        final File expectedOutput = File.createTempFile("sort-in-memory-test-output.", ".vcf");
+        expectedOutput.deleteOnExit();
+        final File output = File.createTempFile("sort-spilled-threads-test-output.", ".vcf.gz");
+        final File index = new File(output.getAbsolutePath() + ".tbi");
+        output.deleteOnExit();
+        index.deleteOnExit();
+
+        final int numberOfVariantContexts = loadContigPositions(indelInputFile).size() + loadContigPositions(snpInputFile).size();
+
+        runClp(inputs, expectedOutput, Arrays.asList("CREATE_INDEX=false"), 0);
+        runClp(inputs, output, Arrays.asList("MAX_RECORDS_IN_RAM=60", "NUM_THREADS=3", "COMPRESSION_THREADS=2"), 0);
+        validateSortingResults(output, numberOfVariantContexts);
+        Assert.assertTrue(index.exists());
+        // Records at the same position keep their input order, so spilling and threads make no difference
+        Assert.assertEquals(new ArrayList<String>(loadContigPositions(output)), new ArrayList<String>(loadContigPositions(expectedOutput)));
+
+        final VCFFileReader reader = new VCFFileReader(output, true);
+        final VariantContext first = reader.iterator().next();
+        final CloseableIterator<VariantContext> query = reader.query(first.getContig(), first.getStart(), first.getEnd());
+        Assert.assertTrue(query.hasNext());
+        query.close();
+        reader.close();
+    }
+
+
     /**
      * Checks the ordering and total number of variant context entries in the specified output VCF file.
      * Does NOT check explicitly that the VC genomic positions match exactly those from the inputs. We assume this behavior from other tests.
@@ -23,13 +23,21 @@
  */
 package picard.vcf;
 
+import htsjdk.samtools.util.CloseableIterator;
 import htsjdk.samtools.util.IOUtil;
 import htsjdk.variant.utils.SAMSequenceDictionaryExtractor;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.writer.Options;
+import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+import htsjdk.variant.variantcontext.writer.VariantContextWriterBuilder;
+import htsjdk.variant.vcf.VCFFileReader;
 import org.testng.Assert;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.Test;
 
 import java.io.File;
+import java.util.EnumSet;
+import java.util.Iterator;
 
 /**
  * @author George Grant
@@ -66,4 +74,58 @@ public class UpdateVcfSequenceDictionaryTest {
         Assert.assertEquals(SAMSequenceDictionaryExtractor.extractDictionary(samSequenceDictionaryVcf).size(), 82);
         Assert.assertEquals(SAMSequenceDictionaryExtractor.extractDictionary(outputFile).size(), 82);
     }
+
+    @Test
+    public void testUpdateBlockCompressedVcf() {
+        // Records of a block compressed VCF are copied a gzip block at a time beneath the new header
+        final File input = new File(OUTPUT_DATA_PATH, "updateVcfSequenceDictionaryTest-input.vcf.gz");
+        final VCFFileReader in = new VCFFileReader(new File(TEST_DATA_PATH, "vcfFormatTest.vcf"), false);
+        final VariantContextWriter writer = new VariantContextWriterBuilder()
+                .setReferenceDictionary(in.getFileHeader().getSequenceDictionary())
+                .setOptions(EnumSet.noneOf(Options.class))
+                .setOutputFile(input).build();
+        writer.writeHeader(in.getFileHeader());
+        for (final VariantContext ctx : in) writer.add(ctx);
+        writer.close();
+        in.close();
+
+        final File samSequenceDictionaryVcf = new File(TEST_DATA_PATH, "vcfFormatTest.bad_dict.vcf");
+        final File outputFile = new File(OUTPUT_DATA_PATH, "updateVcfSequenceDictionaryTest-delete-me.vcf.gz");
+
+        final UpdateVcfSequenceDictionary updateVcfSequenceDictionary = new UpdateVcfSequenceDictionary();
+        updateVcfSequenceDictionary.INPUT = input;
+        updateVcfSequenceDictionary.SEQUENCE_DICTIONARY = samSequenceDictionaryVcf;
+        updateVcfSequenceDictionary.OUTPUT = outputFile;
+        updateVcfSequenceDictionary.CREATE_INDEX = true;
+
+        Assert.assertEquals(updateVcfSequenceDictionary.instanceMain(new String[0]), 0);
+        Assert.assertEquals(SAMSequenceDictionaryExtractor.extractDictionary(outputFile).size(), 82);
+
+        // The output must be indexed, and hold the records of the input unchanged
+        final VCFFileReader expected = new VCFFileReader(samSequenceDictionaryVcf, false);
+        final VCFFileReader actual = new VCFFileReader(outputFile, true);
+        final Iterator<VariantContext> actualIterator = actual.iterator();
+        int count = 0;
+        for (final VariantContext expectedContext : expected) {
+            Assert.assertTrue(actualIterator.hasNext());
+            final VariantContext actualContext = actualIterator.next();
+            Assert.assertEquals(actualContext.toStringDecodeGenotypes(), expectedContext.toStringDecodeGenotypes());
+            count++;
+        }
+        Assert.assertFalse(actualIterator.hasNext());
+        Assert.assertTrue(count > 0);
+
+        // Every record must be found through the index at its own locus
+        for (final VariantContext expectedContext : expected) {
+            final CloseableIterator<VariantContext> query = actual.query(expectedContext.getContig(), expectedContext.getStart(), expectedContext.getStart());
+            boolean found = false;
+            while (query.hasNext()) {
+                if (query.next().toStringDecodeGenotypes().equals(expectedContext.toStringDecodeGenotypes())) found = true;
+            }
+            query.close();
+            Assert.assertTrue(found, expectedContext.toStringDecodeGenotypes());
+        }
+        expected.close();
+        actual.close();
+    }
 }
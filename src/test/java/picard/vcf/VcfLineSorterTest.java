@@ -0,0 +1,122 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026 The Broad Institute
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package picard.vcf;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.samtools.util.IOUtil;
+import htsjdk.samtools.util.TestUtil;
+import htsjdk.variant.vcf.VCFHeader;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import picard.PicardException;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+public class VcfLineSorterTest {
+    private static final List<String> CONTIGS = Arrays.asList("chr2", "chr1", "chrX");
+
+    private static VCFHeader header() {
+        final List<SAMSequenceRecord> sequences = new ArrayList<SAMSequenceRecord>();
+        for (final String contig : CONTIGS) sequences.add(new SAMSequenceRecord(contig, 1000000));
+        final VCFHeader header = new VCFHeader();
+        header.setSequenceDictionary(new SAMSequenceDictionary(sequences));
+        return header;
+    }
+
+    @DataProvider(name = "configurations")
+    public Object[][] configurations() {
+        return new Object[][]{
+                // maxRecordsInRam, numThreads
+                {100000, 1},
+                {100000, 4},
+                {97, 1},
+                {97, 3},
+                {20, 2},
+        };
+    }
+
+    /** Sorts random records, many at the same positions, and checks they come out as a stable sort would put them. */
+    @Test(dataProvider = "configurations")
+    public void testSort(final int maxRecordsInRam, final int numThreads) {
+        final File tmpDir = IOUtil.createTempDir("VcfLineSorterTest", ".tmp");
+        try {
+            final Random random = new Random(42);
+            final List<String> lines = new ArrayList<String>();
+            for (int i = 0; i < 2000; ++i) {
+                lines.add(CONTIGS.get(random.nextInt(CONTIGS.size())) + "\t" + (1 + random.nextInt(300)) + "\trecord" + i + "\tA\tC\t.\t.\t.");
+            }
+
+            final VcfLineSorter sorter = new VcfLineSorter(header(), maxRecordsInRam, Collections.singletonList(tmpDir), numThreads);
+            for (final String line : lines) sorter.add(line);
+            final List<String> actual = new ArrayList<String>();
+            final CloseableIterator<VcfLineSorter.Record> iterator = sorter.iterator();
+            while (iterator.hasNext()) actual.add(iterator.next().getLine());
+            iterator.close();
+            sorter.cleanup();
+
+            final List<String> expected = new ArrayList<String>(lines);
+            Collections.sort(expected, Comparator.<String>comparingInt(line -> CONTIGS.indexOf(line.split("\t")[0]))
+                    .thenComparingInt(line -> Integer.parseInt(line.split("\t")[1])));
+            Assert.assertEquals(actual, expected);
+            Assert.assertEquals(tmpDir.listFiles().length, 0);
+        } finally {
+            TestUtil.recursiveDelete(tmpDir);
+        }
+    }
+
+    @Test
+    public void testRecordLocus() {
+        final VcfLineSorter sorter = new VcfLineSorter(header(), 10, Collections.<File>emptyList(), 1);
+        sorter.add("chrX\t100\t.\tACGT\tA\t.\t.\tDP=10;END=250\tGT\t0/1");
+        sorter.add("chr1\t100\t.\tACGT\tA\t.\t.\tDP=10;XEND=7\tGT\t0/1");
+        sorter.add("chr2\t100\t.\tACGT\t<DEL>\t.\t.\tEND=300");
+        sorter.add("chr2\t50\t.\tAC\tA\t.\t.\t.");
+        final CloseableIterator<VcfLineSorter.Record> iterator = sorter.iterator();
+        final int[][] expected = {{50, 51}, {100, 300}, {100, 103}, {100, 250}};
+        final String[] expectedContigs = {"chr2", "chr2", "chr1", "chrX"};
+        for (int i = 0; i < expected.length; ++i) {
+            final VcfLineSorter.Record record = iterator.next();
+            Assert.assertEquals(record.getContig(), expectedContigs[i]);
+            Assert.assertEquals(record.getStart(), expected[i][0]);
+            Assert.assertEquals(record.getEnd(), expected[i][1]);
+        }
+        Assert.assertFalse(iterator.hasNext());
+        iterator.close();
+        sorter.cleanup();
+    }
+
+    @Test(expectedExceptions = PicardException.class)
+    public void testUnknownContig() {
+        new VcfLineSorter(header(), 10, Collections.<File>emptyList(), 1).add("chr3\t100\t.\tA\tC\t.\t.\t.");
+    }
+}
@@ -35,6 +35,7 @@ import picard.vcf.filter.FilterVcf;
 
 import java.io.File;
 import java.io.PrintWriter;
+import java.nio.file.Files;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
@@ -158,8 +159,40 @@ public class TestFilterVcf {
         Assert.assertEquals(new TreeSet<String>(filters.keySet()), fails, "Failed sites did not match expected set of failed sites.");
     }
 
+    /** Tests that filtering on several threads writes the same records, in the same order, as on one. */
+    @Test public void testCombinedFilteringOnThreads() throws Exception {
+        final File expected = testFiltering(INPUT, ".vcf", 0.4, 18, 22, 5.0d);
+        for (final int numThreads : new int[]{2, 4}) {
+            final File actual = testFiltering(INPUT, ".vcf", 0.4, 18, 22, 5.0d, numThreads);
+            Assert.assertEquals(Files.readAllLines(actual.toPath()), Files.readAllLines(expected.toPath()), "NUM_THREADS=" + numThreads);
+        }
+    }
+
+    /** Tests that each filtering thread gets a javascript filter of its own that behaves as the single one. */
+    @Test public void testJavaScriptOnThreads() throws Exception {
+        final File out = File.createTempFile("filterVcfTestJS.", ".vcf");
+        out.deleteOnExit();
+        final FilterVcf filterer = new FilterVcf();
+        filterer.INPUT = INPUT;
+        filterer.OUTPUT = out;
+        filterer.JAVASCRIPT_FILE = quickJavascriptFilter("variant.getStart()%5 != 0");
+        filterer.NUM_THREADS = 3;
+        Assert.assertEquals(filterer.doWork(), 0);
+
+        int count = 0;
+        final VCFFileReader in = new VCFFileReader(out, false);
+        for (final VariantContext ctx : in) count += (ctx.isFiltered() ? 1 : 0);
+        in.close();
+        Assert.assertEquals(count, 4);
+    }
+
     /** Utility method that takes a a VCF and a set of parameters and filters the VCF. */
     File testFiltering(final File vcf, final String outputExtension, final double minAb, final int minDp, final int minGq, final double maxFs) throws Exception {
+        return testFiltering(vcf, outputExtension, minAb, minDp, minGq, maxFs, 1);
+    }
+
+    File testFiltering(final File vcf, final String outputExtension, final double minAb, final int minDp, final int minGq, final double maxFs,
+                       final int numThreads) throws Exception {
         final File out = File.createTempFile("filterVcfTest.", outputExtension);
         out.deleteOnExit();
 
@@ -171,6 +204,7 @@ public class TestFilterVcf {
         filterer.MIN_DP = minDp;
         filterer.MIN_GQ = minGq;
         filterer.MAX_FS = maxFs;
+        filterer.NUM_THREADS = numThreads;
 
         final int retval = filterer.doWork();
         if (retval != 0) {